@@ -0,0 +1,211 @@
+package benchmarks;
+
+import controller.RespuestaDAO;
+import controller.TecnicoDAO;
+import controller.TicketDAO;
+import controller.UsuarioDAO;
+import model.Respuesta;
+import model.Tecnico;
+import model.Ticket;
+import model.Usuario;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Búsquedas (findById / findBy*) y altas (crear) de cada DAO.
+ *
+ * Las búsquedas se miden en tiempo medio. Las altas hacen crecer el fichero, así
+ * que se miden como lotes fijos de LOTE operaciones por iteración y los datos
+ * se regeneran antes de cada iteración para que todas partan del mismo tamaño.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Dgestortickets.datos=" + DatosBenchmark.CARPETA })
+public class DaoBenchmark {
+
+	static final int LOTE = 20;
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int tamano;
+
+	private final TicketDAO ticketDAO = new TicketDAO();
+	private final UsuarioDAO usuarioDAO = new UsuarioDAO();
+	private final TecnicoDAO tecnicoDAO = new TecnicoDAO();
+	private final RespuestaDAO respuestaDAO = new RespuestaDAO();
+	private final SplittableRandom rnd = new SplittableRandom(7);
+
+	@Setup(Level.Trial)
+	public void preparar() throws IOException {
+		DatosBenchmark.generar(tamano);
+	}
+
+	private String ticketAleatorio() {
+		return DatosBenchmark.id("TK", 1 + rnd.nextInt(tamano));
+	}
+
+	// --- TicketDAO ---
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 2, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public Optional<Ticket> ticketFindById() {
+		return ticketDAO.findById(ticketAleatorio());
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 2, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public List<Ticket> ticketFindByEstado() {
+		return ticketDAO.findByEstado("ABIERTO");
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 2, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public List<Ticket> ticketFindByCategoria() {
+		return ticketDAO.findByCategoria("Redes");
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 2, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public List<Ticket> ticketFindByPrioridad() {
+		return ticketDAO.findByPrioridad("ALTA");
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 2, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public List<Ticket> ticketFindByClienteId() {
+		return ticketDAO.findByClienteId("U001");
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 2, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public List<Ticket> ticketFindByTecnicoId() {
+		return ticketDAO.findByTecnicoId("T001");
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 1, batchSize = LOTE)
+	@Measurement(iterations = 5, batchSize = LOTE)
+	public Optional<Ticket> ticketCrear(Altas altas) throws IOException {
+		return ticketDAO.crear(new Ticket(null, "Nuevo", "Ticket creado en el benchmark", "U001", "Redes"));
+	}
+
+	// --- UsuarioDAO ---
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 2, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public Optional<Usuario> usuarioFindById() {
+		return usuarioDAO.findById(DatosBenchmark.id("U", 1 + rnd.nextInt(Math.max(1, tamano / 10))));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 1, batchSize = LOTE)
+	@Measurement(iterations = 5, batchSize = LOTE)
+	public Optional<Usuario> usuarioCrear(Altas altas) throws IOException {
+		return usuarioDAO.crear(new Usuario(null, "Nuevo", "nuevo@bench.com", "clave", "CLIENTE"));
+	}
+
+	// --- TecnicoDAO ---
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 2, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public Optional<Tecnico> tecnicoFindById() {
+		return tecnicoDAO.findById(DatosBenchmark.id("T", 1 + rnd.nextInt(Math.max(1, tamano / 100))));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 2, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public List<Tecnico> tecnicoFindByEspecializacion() {
+		return tecnicoDAO.findByEspecializacion("Redes");
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 2, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public Optional<Tecnico> tecnicoFindLeastLoaded() {
+		return tecnicoDAO.findLeastLoadedByEspecializacion("Redes");
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 1, batchSize = LOTE)
+	@Measurement(iterations = 5, batchSize = LOTE)
+	public Optional<Tecnico> tecnicoCrear(Altas altas) throws IOException {
+		return tecnicoDAO.crear(new Tecnico(null, "Nuevo", "nuevo@bench.com", "clave", "Redes"));
+	}
+
+	// --- RespuestaDAO ---
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 2, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public Optional<Respuesta> respuestaFindById() {
+		return respuestaDAO.findById(DatosBenchmark.id("R", 1 + rnd.nextInt(2 * tamano)));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 2, time = 2)
+	@Measurement(iterations = 5, time = 2)
+	public List<Respuesta> respuestaFindByTicketId() {
+		return respuestaDAO.findByTicketId(ticketAleatorio());
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 1, batchSize = LOTE)
+	@Measurement(iterations = 5, batchSize = LOTE)
+	public Optional<Respuesta> respuestaCrear(Altas altas) throws IOException {
+		return respuestaDAO.crear(new Respuesta(null, "TK001", "U001", "Respuesta del benchmark", null));
+	}
+
+	/**
+	 * Estado de los benchmarks de altas: regenera los datos antes de cada
+	 * iteración para que todas partan del mismo tamaño.
+	 */
+	@State(Scope.Benchmark)
+	public static class Altas {
+
+		@Setup(Level.Iteration)
+		public void regenerar(DaoBenchmark benchmark) throws IOException {
+			DatosBenchmark.generar(benchmark.tamano);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package benchmarks;
+
+import controller.ContadorTicketsDAO;
+import controller.TicketResumenDAO;
+import model.Respuesta;
+import model.Tecnico;
+import model.Ticket;
+import model.Usuario;
+import util.Constantes;
+import util.Serializador;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Genera los ficheros de datos que usan los benchmarks. Todos los benchmarks se
+ * lanzan con -Dgestortickets.datos apuntando a una carpeta propia (ver @Fork en
+ * cada clase), así que nunca se tocan los datos reales de ./Datos.
+ *
+ * Los datos son deterministas (semilla fija) para que los resultados de dos
+ * commits sean comparables.
+ */
+final class DatosBenchmark {
+
+	static final String CARPETA = "build/bench-datos";
+	static final String[] CATEGORIAS = { "Redes", "Software", "Hardware", "Soporte", "Cuentas" };
+	static final String[] PRIORIDADES = { "BAJA", "MEDIA", "ALTA" };
+	static final String[] ESTADOS = { "ABIERTO", "ASIGNADO", "CERRADO" };
+
+	private DatosBenchmark() {
+	}
+
+	/**
+	 * Reescribe todos los ficheros de datos: numTickets tickets, uno de cada 10 en
+	 * clientes, uno de cada 100 en técnicos (mínimo 1) y dos respuestas por
+	 * ticket. Reconstruye también la vista de tickets y los contadores para que
+	 * no se regeneren dentro de la medición. Los ficheros se sustituyen enteros
+	 * (sobrescribirLista): no dependen de lo que hubiera antes.
+	 */
+	static void generar(int numTickets) throws IOException {
+		SplittableRandom rnd = new SplittableRandom(42);
+		int numClientes = Math.max(1, numTickets / 10);
+		int numTecnicos = Math.max(1, numTickets / 100);
+
+		List<Usuario> usuarios = new ArrayList<>(numClientes + 1);
+		usuarios.add(new Usuario("A001", "Administrador", "admin@bench.com", "admin", "ADMIN"));
+		for (int i = 1; i <= numClientes; i++) {
+			usuarios.add(new Usuario(id("U", i), "Cliente " + i, "cliente" + i + "@bench.com", "clave", "CLIENTE"));
+		}
+
+		List<Tecnico> tecnicos = new ArrayList<>(numTecnicos);
+		for (int i = 1; i <= numTecnicos; i++) {
+			tecnicos.add(new Tecnico(id("T", i), "Técnico " + i, "tecnico" + i + "@bench.com", "clave",
+					CATEGORIAS[i % CATEGORIAS.length]));
+		}
+
+		List<Ticket> tickets = new ArrayList<>(numTickets);
+		List<Respuesta> respuestas = new ArrayList<>(numTickets * 2);
+		LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 0, 0);
+		for (int i = 1; i <= numTickets; i++) {
+			String autor = id("U", 1 + rnd.nextInt(numClientes));
+			Ticket t = new Ticket(id("TK", i), "Incidencia " + i, "Descripción de la incidencia número " + i, autor,
+					CATEGORIAS[rnd.nextInt(CATEGORIAS.length)]);
+			t.setPrioridad(PRIORIDADES[rnd.nextInt(PRIORIDADES.length)]);
+			t.setFechaCreacion(inicio.plusMinutes(i));
+			String estado = ESTADOS[rnd.nextInt(ESTADOS.length)];
+			t.setEstado(estado);
+			if (!"ABIERTO".equals(estado)) {
+				t.setAsignadoA(id("T", 1 + rnd.nextInt(numTecnicos)));
+			}
+			if ("CERRADO".equals(estado)) {
+				t.setFechaCierre(t.getFechaCreacion().plusHours(1 + rnd.nextInt(72)));
+			}
+			tickets.add(t);
+
+			respuestas.add(new Respuesta(id("R", 2 * i - 1), t.getIdTicket(), autor, "Primera respuesta", null));
+			respuestas.add(new Respuesta(id("R", 2 * i), t.getIdTicket(), "T001", "Segunda respuesta", null));
+		}
+
+		Serializador.sobrescribirLista(Constantes.USUARIOS_FILE, usuarios);
+		Serializador.sobrescribirLista(Constantes.TECNICOS_FILE, tecnicos);
+		Serializador.sobrescribirLista(Constantes.TICKETS_FILE, tickets);
+		Serializador.sobrescribirLista(Constantes.RESPUESTAS_FILE, respuestas);
+		new TicketResumenDAO().reconstruir();
+		new ContadorTicketsDAO().reconstruir();
+	}
+
+	/**
+	 * Ids con el mismo formato que generan los DAOs ("TK001", "U042"...).
+	 */
+	static String id(String prefijo, int n) {
+		return prefijo + String.format("%03d", n);
+	}
+}
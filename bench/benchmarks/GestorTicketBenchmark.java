@@ -0,0 +1,88 @@
+package benchmarks;
+
+import controller.TicketDAO;
+import model.Ticket;
+import model.Usuario;
+import service.CargaTecnicos;
+import service.ColasTrabajo;
+import service.EstadisticasTickets;
+import service.GestorTicket;
+import service.RepartoTrabajo;
+import service.exceptions.TicketException;
+import service.exceptions.UserException;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Operaciones de servicio que cambian el estado de un ticket. Cada llamada
+ * consume un ticket (ABIERTO para asignar, ASIGNADO a T001 para resolver), así
+ * que se miden lotes fijos por iteración y los datos se regeneran antes de cada
+ * una.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, batchSize = GestorTicketBenchmark.LOTE)
+@Measurement(iterations = 5, batchSize = GestorTicketBenchmark.LOTE)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Dgestortickets.datos=" + DatosBenchmark.CARPETA })
+public class GestorTicketBenchmark {
+
+	static final int LOTE = 20;
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int tamano;
+
+	private final GestorTicket gestor = new GestorTicket();
+	private final Usuario admin = new Usuario("A001", "Administrador", "admin@bench.com", "admin", "ADMIN");
+	private final Usuario tecnico = new Usuario("T001", "Técnico 1", "tecnico1@bench.com", "clave", "TECH");
+
+	private Iterator<String> abiertos;
+	private Iterator<String> asignados;
+
+	@Setup(Level.Iteration)
+	public void regenerar() throws IOException {
+		DatosBenchmark.generar(tamano);
+		// Lo calculado en memoria desde los datos anteriores (cargas, colas...)
+		CargaTecnicos.reconstruir();
+		ColasTrabajo.reconstruir();
+		RepartoTrabajo.reconstruir();
+		EstadisticasTickets.reconstruir();
+		List<Ticket> tickets = new TicketDAO().findAll();
+		abiertos = tickets.stream().filter(t -> "ABIERTO".equals(t.getEstado())).map(Ticket::getIdTicket)
+				.collect(Collectors.toList()).iterator();
+		asignados = tickets.stream()
+				.filter(t -> "ASIGNADO".equals(t.getEstado()) && tecnico.getId().equals(t.getAsignadoA()))
+				.map(Ticket::getIdTicket).collect(Collectors.toList()).iterator();
+	}
+
+	@Benchmark
+	public Ticket asignarTicket() throws UserException, TicketException {
+		return gestor.asignarTicket(admin, abiertos.next(), tecnico.getId());
+	}
+
+	@Benchmark
+	public Ticket resolverTicket() throws UserException, TicketException {
+		// Con pocos datos T001 puede tener menos de LOTE tickets asignados; entonces
+		// se asigna uno abierto justo antes para no quedarse sin trabajo.
+		String id = asignados.hasNext() ? asignados.next()
+				: gestor.asignarTicket(admin, abiertos.next(), tecnico.getId()).getIdTicket();
+		return gestor.resolverTicket(tecnico, id);
+	}
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import model.Ticket;
+import util.Constantes;
+import util.Serializador;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lectura y escritura completa del fichero de tickets con el Serializador.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Dgestortickets.datos=" + DatosBenchmark.CARPETA })
+public class SerializadorBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int tamano;
+
+	private List<Ticket> tickets;
+
+	@Setup(Level.Trial)
+	public void preparar() throws IOException {
+		DatosBenchmark.generar(tamano);
+		tickets = Serializador.leerLista(Constantes.TICKETS_FILE);
+	}
+
+	@Benchmark
+	public List<Ticket> leerLista() {
+		return Serializador.leerLista(Constantes.TICKETS_FILE);
+	}
+
+	@Benchmark
+	public void guardarLista() throws IOException {
+		Serializador.guardarLista(Constantes.TICKETS_FILE, tickets);
+	}
+}
@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# Compila la aplicación y los benchmarks de JMH y los ejecuta.
+#
+# Uso: bench/ejecutar-benchmarks.sh [opciones de JMH]
+#   bench/ejecutar-benchmarks.sh                          # todo (1k..1M, tarda)
+#   bench/ejecutar-benchmarks.sh -p tamano=1000,10000     # solo tamaños pequeños
+#   bench/ejecutar-benchmarks.sh SerializadorBenchmark    # una sola clase
+#
+# Los resultados se dejan en build/jmh-result.json (formato JSON de JMH) para
+# poder compararlos entre commits (p. ej. con jmh.morethan.io).
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+JMH_VERSION=1.37
+LIB=build/bench-lib
+mkdir -p "$LIB"
+
+descargar() {
+	local destino="$LIB/$(basename "$1")"
+	[ -f "$destino" ] || curl -sSfL -o "$destino" "https://repo1.maven.org/maven2/$1"
+}
+descargar "org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar"
+descargar "org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar"
+descargar "net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar"
+descargar "org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar"
+
+CP_LIB=$(ls "$LIB"/*.jar | tr '\n' ':')
+
+rm -rf build/classes build/bench-classes
+javac -d build/classes $(find src -name "*.java")
+javac -cp "build/classes:$CP_LIB" -processorpath "$CP_LIB" -d build/bench-classes $(find bench -name "*.java")
+
+java -cp "build/bench-classes:build/classes:$CP_LIB" org.openjdk.jmh.Main \
+	-rf json -rff build/jmh-result.json "$@"
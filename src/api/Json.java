@@ -0,0 +1,293 @@
+package api;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lectura y escritura de JSON para la API, sin dependencias externas.
+ *
+ * - escribir() acepta Map, Collection, String, Number, Boolean, fechas de
+ * java.time (en formato ISO) y null.
+ * - leer() devuelve Map (objetos, con el orden original), List, String,
+ * Double/Long, Boolean o null.
+ */
+public final class Json {
+
+	/** Niveles de objetos y listas anidados que acepta leer(). */
+	public static final int MAX_PROFUNDIDAD = 64;
+
+	private Json() {
+	}
+
+	public static String escribir(Object valor) {
+		StringBuilder sb = new StringBuilder();
+		escribir(sb, valor);
+		return sb.toString();
+	}
+
+	private static void escribir(StringBuilder sb, Object valor) {
+		if (valor == null) {
+			sb.append("null");
+		} else if (valor instanceof String s) {
+			escribirCadena(sb, s);
+		} else if (valor instanceof Number || valor instanceof Boolean) {
+			sb.append(valor);
+		} else if (valor instanceof TemporalAccessor) {
+			escribirCadena(sb, valor.toString());
+		} else if (valor instanceof Map<?, ?> mapa) {
+			sb.append('{');
+			boolean primero = true;
+			for (Map.Entry<?, ?> e : mapa.entrySet()) {
+				if (!primero) {
+					sb.append(',');
+				}
+				primero = false;
+				escribirCadena(sb, String.valueOf(e.getKey()));
+				sb.append(':');
+				escribir(sb, e.getValue());
+			}
+			sb.append('}');
+		} else if (valor instanceof Collection<?> lista) {
+			sb.append('[');
+			boolean primero = true;
+			for (Object o : lista) {
+				if (!primero) {
+					sb.append(',');
+				}
+				primero = false;
+				escribir(sb, o);
+			}
+			sb.append(']');
+		} else {
+			escribirCadena(sb, valor.toString());
+		}
+	}
+
+	private static void escribirCadena(StringBuilder sb, String s) {
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '"' -> sb.append("\\\"");
+			case '\\' -> sb.append("\\\\");
+			case '\n' -> sb.append("\\n");
+			case '\r' -> sb.append("\\r");
+			case '\t' -> sb.append("\\t");
+			default -> {
+				if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+			}
+		}
+		sb.append('"');
+	}
+
+	/**
+	 * Interpreta un documento JSON completo.
+	 *
+	 * @throws IllegalArgumentException si el texto no es JSON válido o anida más
+	 *                                  de MAX_PROFUNDIDAD objetos y listas.
+	 */
+	public static Object leer(String texto) {
+		Lector lector = new Lector(texto);
+		lector.saltarEspacios();
+		Object valor = lector.valor();
+		lector.saltarEspacios();
+		if (lector.pos != texto.length()) {
+			throw lector.error("contenido sobrante");
+		}
+		return valor;
+	}
+
+	/**
+	 * Como leer(), pero exige que el documento sea un objeto. Un cuerpo vacío se
+	 * trata como un objeto vacío.
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<String, Object> leerObjeto(String texto) {
+		if (texto == null || texto.isBlank()) {
+			return new LinkedHashMap<>();
+		}
+		Object valor = leer(texto);
+		if (!(valor instanceof Map)) {
+			throw new IllegalArgumentException("Se esperaba un objeto JSON");
+		}
+		return (Map<String, Object>) valor;
+	}
+
+	private static final class Lector {
+
+		private final String texto;
+		private int pos;
+		private int profundidad;
+
+		Lector(String texto) {
+			this.texto = texto;
+		}
+
+		Object valor() {
+			if (pos >= texto.length()) {
+				throw error("fin inesperado");
+			}
+			char c = texto.charAt(pos);
+			switch (c) {
+			case '{':
+			case '[':
+				// El análisis es recursivo: sin límite, "[[[[..." desbordaría la pila
+				if (++profundidad > MAX_PROFUNDIDAD) {
+					throw error("más de " + MAX_PROFUNDIDAD + " niveles de anidamiento");
+				}
+				Object anidado = c == '{' ? objeto() : lista();
+				profundidad--;
+				return anidado;
+			case '"':
+				return cadena();
+			case 't':
+				return literal("true", Boolean.TRUE);
+			case 'f':
+				return literal("false", Boolean.FALSE);
+			case 'n':
+				return literal("null", null);
+			default:
+				if (c == '-' || (c >= '0' && c <= '9')) {
+					return numero();
+				}
+				throw error("carácter inesperado '" + c + "'");
+			}
+		}
+
+		private Map<String, Object> objeto() {
+			Map<String, Object> mapa = new LinkedHashMap<>();
+			pos++;
+			saltarEspacios();
+			if (consumir('}')) {
+				return mapa;
+			}
+			do {
+				saltarEspacios();
+				if (pos >= texto.length() || texto.charAt(pos) != '"') {
+					throw error("se esperaba una clave");
+				}
+				String clave = cadena();
+				saltarEspacios();
+				if (!consumir(':')) {
+					throw error("se esperaba ':'");
+				}
+				saltarEspacios();
+				mapa.put(clave, valor());
+				saltarEspacios();
+			} while (consumir(','));
+			if (!consumir('}')) {
+				throw error("se esperaba '}'");
+			}
+			return mapa;
+		}
+
+		private List<Object> lista() {
+			List<Object> lista = new ArrayList<>();
+			pos++;
+			saltarEspacios();
+			if (consumir(']')) {
+				return lista;
+			}
+			do {
+				saltarEspacios();
+				lista.add(valor());
+				saltarEspacios();
+			} while (consumir(','));
+			if (!consumir(']')) {
+				throw error("se esperaba ']'");
+			}
+			return lista;
+		}
+
+		private String cadena() {
+			StringBuilder sb = new StringBuilder();
+			pos++;
+			while (pos < texto.length()) {
+				char c = texto.charAt(pos++);
+				if (c == '"') {
+					return sb.toString();
+				}
+				if (c != '\\') {
+					sb.append(c);
+					continue;
+				}
+				if (pos >= texto.length()) {
+					break;
+				}
+				char e = texto.charAt(pos++);
+				switch (e) {
+				case '"', '\\', '/' -> sb.append(e);
+				case 'b' -> sb.append('\b');
+				case 'f' -> sb.append('\f');
+				case 'n' -> sb.append('\n');
+				case 'r' -> sb.append('\r');
+				case 't' -> sb.append('\t');
+				case 'u' -> {
+					if (pos + 4 > texto.length()) {
+						throw error("secuencia \\u incompleta");
+					}
+					try {
+						sb.append((char) Integer.parseInt(texto.substring(pos, pos + 4), 16));
+					} catch (NumberFormatException ex) {
+						throw error("secuencia \\u no válida");
+					}
+					pos += 4;
+				}
+				default -> throw error("escape no válido '\\" + e + "'");
+				}
+			}
+			throw error("cadena sin cerrar");
+		}
+
+		private Object numero() {
+			int inicio = pos;
+			while (pos < texto.length() && "+-0123456789.eE".indexOf(texto.charAt(pos)) >= 0) {
+				pos++;
+			}
+			String s = texto.substring(inicio, pos);
+			try {
+				if (s.contains(".") || s.contains("e") || s.contains("E")) {
+					return Double.parseDouble(s);
+				}
+				return Long.parseLong(s);
+			} catch (NumberFormatException e) {
+				throw error("número no válido '" + s + "'");
+			}
+		}
+
+		private Object literal(String palabra, Object valor) {
+			if (!texto.startsWith(palabra, pos)) {
+				throw error("literal no válido");
+			}
+			pos += palabra.length();
+			return valor;
+		}
+
+		private boolean consumir(char c) {
+			if (pos < texto.length() && texto.charAt(pos) == c) {
+				pos++;
+				return true;
+			}
+			return false;
+		}
+
+		void saltarEspacios() {
+			while (pos < texto.length() && Character.isWhitespace(texto.charAt(pos))) {
+				pos++;
+			}
+		}
+
+		IllegalArgumentException error(String motivo) {
+			return new IllegalArgumentException("JSON no válido en la posición " + pos + ": " + motivo);
+		}
+	}
+}
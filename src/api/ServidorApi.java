@@ -0,0 +1,421 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import model.ContadorTickets;
+import model.Respuesta;
+import model.Tecnico;
+import model.Ticket;
+import model.TicketResumen;
+import model.Usuario;
+import service.CargaTecnicos;
+import service.GestorRespuesta;
+import service.GestorTicket;
+import service.GestorUsuario;
+import service.exceptions.RespuestaException;
+import service.exceptions.TicketException;
+import service.exceptions.UserException;
+import util.metricas.Medicion;
+import util.metricas.Metricas;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP/JSON embebido (com.sun.net.httpserver) que expone los servicios
+ * sin interfaz gráfica. Cada petición se atiende en su propio hilo virtual, así
+ * que miles de peticiones concurrentes solo cuestan memoria mientras esperan a
+ * disco.
+ *
+ * Autenticación HTTP Basic (correo y contraseña) contra
+ * GestorUsuario.autenticarUsuario en cada petición, salvo el alta de clientes.
+ * Las reglas de negocio (quién puede asignar, resolver...) son las de los
+ * servicios; aquí solo se traducen las excepciones a códigos HTTP:
+ *
+ * <pre>
+ * GET  /api/usuarios/yo                 usuario autenticado
+ * POST /api/usuarios                    alta de cliente {nombre, correo, contrasena} (sin autenticar)
+ * POST /api/tecnicos                    alta de técnico {nombre, correo, contrasena, especialidad} (admin)
+ * GET  /api/contadores                  tickets abiertos/totales por persona (admin)
+ * GET  /api/tickets                     tickets del cliente, del técnico o resumen de todos (admin)
+ * POST /api/tickets                     crear {categoria, descripcion} (cliente)
+ * POST /api/tickets/{id}/asignacion     asignar {tecnicoId} (admin)
+ * POST /api/tickets/{id}/resolucion     resolver (técnico asignado)
+ * GET  /api/tickets/{id}/respuestas     hilo de respuestas
+ * POST /api/tickets/{id}/respuestas     responder {contenido}
+ * </pre>
+ *
+ * Por defecto solo escucha en 127.0.0.1; con puerto 0 se elige uno libre (ver
+ * getPuerto()), lo que permite probarlo entero contra localhost.
+ */
+@SuppressWarnings("try")
+public class ServidorApi {
+
+	public static final int PUERTO_POR_DEFECTO = Integer.getInteger("gestortickets.api.puerto", 8080);
+	public static final String HOST_POR_DEFECTO = System.getProperty("gestortickets.api.host", "127.0.0.1");
+	private static final int BACKLOG = 4096;
+	private static final String JSON = "application/json; charset=utf-8";
+	/** Tamaño máximo del cuerpo de una petición (64 KiB). */
+	private static final int MAX_CUERPO = 64 * 1024;
+
+	private final GestorTicket gestorTicket;
+	private final GestorRespuesta gestorRespuesta;
+	private final GestorUsuario gestorUsuario;
+
+	private HttpServer servidor;
+	private ExecutorService ejecutor;
+
+	public ServidorApi() {
+		this(new GestorTicket(), new GestorRespuesta(), new GestorUsuario());
+	}
+
+	public ServidorApi(GestorTicket gestorTicket, GestorRespuesta gestorRespuesta, GestorUsuario gestorUsuario) {
+		this.gestorTicket = gestorTicket;
+		this.gestorRespuesta = gestorRespuesta;
+		this.gestorUsuario = gestorUsuario;
+	}
+
+	/**
+	 * Arranca el servidor.
+	 *
+	 * @param host Dirección en la que escuchar (p. ej. "127.0.0.1" o "0.0.0.0").
+	 * @param puerto Puerto, o 0 para uno libre cualquiera.
+	 */
+	public synchronized void iniciar(String host, int puerto) throws IOException {
+		if (servidor != null) {
+			throw new IllegalStateException("El servidor ya está iniciado en el puerto " + getPuerto());
+		}
+		servidor = HttpServer.create(new InetSocketAddress(host, puerto), BACKLOG);
+		ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+		servidor.setExecutor(ejecutor);
+		servidor.createContext("/api/", this::atender);
+		servidor.start();
+	}
+
+	/**
+	 * Detiene el servidor esperando como mucho los segundos indicados a que
+	 * terminen las peticiones en curso.
+	 */
+	public synchronized void detener(int segundos) {
+		if (servidor == null) {
+			return;
+		}
+		servidor.stop(segundos);
+		ejecutor.shutdown();
+		servidor = null;
+		ejecutor = null;
+	}
+
+	public synchronized int getPuerto() {
+		return servidor != null ? servidor.getAddress().getPort() : -1;
+	}
+
+	/**
+	 * Error que se devuelve tal cual al cliente con el código HTTP indicado.
+	 */
+	private static final class ErrorHttp extends Exception {
+
+		private static final long serialVersionUID = 1L;
+		private final int codigo;
+
+		ErrorHttp(int codigo, String mensaje) {
+			super(mensaje);
+			this.codigo = codigo;
+		}
+	}
+
+	private void atender(HttpExchange intercambio) throws IOException {
+		String metodo = intercambio.getRequestMethod();
+		String ruta = intercambio.getRequestURI().getPath();
+		try (Medicion m = Metricas.medir("ServidorApi." + metodo)) {
+			try {
+				Object cuerpo = enrutar(intercambio, metodo, trocear(ruta));
+				responder(intercambio, "POST".equals(metodo) ? 201 : 200, cuerpo);
+			} catch (ErrorHttp e) {
+				responderError(intercambio, e.codigo, e.getMessage());
+			} catch (UserException e) {
+				responderError(intercambio, codigoDe(e, 403), e.getMessage());
+			} catch (TicketException | RespuestaException e) {
+				responderError(intercambio, codigoDe(e, 409), e.getMessage());
+			} catch (IllegalArgumentException e) {
+				responderError(intercambio, 400, e.getMessage());
+			} catch (RuntimeException e) {
+				System.err.println("Error inesperado atendiendo " + metodo + " " + ruta + ". Causa: " + e);
+				responderError(intercambio, 500, "Error interno del servidor");
+			}
+		} finally {
+			intercambio.close();
+		}
+	}
+
+	/**
+	 * Los servicios usan la misma excepción para reglas de negocio y para fallos
+	 * de persistencia; estos últimos llevan la IOException como causa.
+	 */
+	private static int codigoDe(Exception e, int porDefecto) {
+		return e.getCause() instanceof IOException ? 500 : porDefecto;
+	}
+
+	private Object enrutar(HttpExchange ex, String metodo, List<String> partes)
+			throws ErrorHttp, IOException, UserException, TicketException, RespuestaException {
+		// partes[0] es siempre "api"
+		String recurso = partes.size() > 1 ? partes.get(1) : "";
+
+		if ("usuarios".equals(recurso) && partes.size() == 2 && "POST".equals(metodo)) {
+			Map<String, Object> datos = leerCuerpo(ex);
+			Usuario nuevo = gestorUsuario.registrarNuevoCliente(texto(datos, "nombre"), texto(datos, "correo"),
+					texto(datos, "contrasena"))
+					.orElseThrow(() -> new ErrorHttp(409, "No se pudo registrar el cliente"));
+			return usuarioAJson(nuevo);
+		}
+
+		Usuario usuario = autenticar(ex);
+
+		switch (recurso) {
+		case "usuarios":
+			if (partes.size() == 3 && "yo".equals(partes.get(2))) {
+				exigirMetodo(metodo, "GET");
+				return usuarioAJson(usuario);
+			}
+			break;
+		case "tecnicos":
+			if (partes.size() == 2) {
+				exigirMetodo(metodo, "POST");
+				exigirRol(usuario, "ADMIN");
+				Map<String, Object> datos = leerCuerpo(ex);
+				Tecnico nuevo = gestorUsuario.registrarNuevoTecnico(texto(datos, "nombre"), texto(datos, "correo"),
+						texto(datos, "contrasena"), texto(datos, "especialidad"))
+						.orElseThrow(() -> new ErrorHttp(409, "No se pudo registrar el técnico"));
+				return usuarioAJson(nuevo);
+			}
+			break;
+		case "contadores":
+			if (partes.size() == 2) {
+				exigirMetodo(metodo, "GET");
+				exigirRol(usuario, "ADMIN");
+				return gestorTicket.consultarContadoresPorPersona().values().stream().map(ServidorApi::contadorAJson)
+						.toList();
+			}
+			break;
+		case "tickets":
+			return enrutarTickets(ex, metodo, partes, usuario);
+		default:
+			break;
+		}
+		throw new ErrorHttp(404, "Recurso no encontrado: " + ex.getRequestURI().getPath());
+	}
+
+	private Object enrutarTickets(HttpExchange ex, String metodo, List<String> partes, Usuario usuario)
+			throws ErrorHttp, IOException, UserException, TicketException, RespuestaException {
+		if (partes.size() == 2) {
+			if ("GET".equals(metodo)) {
+				switch (String.valueOf(usuario.getRol())) {
+				case "ADMIN":
+					return gestorTicket.consultarResumenTickets().stream().map(ServidorApi::resumenAJson).toList();
+				case "TECH":
+					return gestorTicket.consultarTicketsPorTecnico(usuario).stream().map(ServidorApi::ticketAJson)
+							.toList();
+				default:
+					return gestorTicket.consultarTicketsPorCliente(usuario).stream().map(ServidorApi::ticketAJson)
+							.toList();
+				}
+			}
+			exigirMetodo(metodo, "POST");
+			Map<String, Object> datos = leerCuerpo(ex);
+			return ticketAJson(gestorTicket.crearTicket(usuario, texto(datos, "categoria"), texto(datos, "descripcion")));
+		}
+
+		if (partes.size() == 4) {
+			String ticketId = partes.get(2);
+			switch (partes.get(3)) {
+			case "asignacion":
+				exigirMetodo(metodo, "POST");
+				return ticketAJson(gestorTicket.asignarTicket(usuario, ticketId, texto(leerCuerpo(ex), "tecnicoId")));
+			case "resolucion":
+				exigirMetodo(metodo, "POST");
+				return ticketAJson(gestorTicket.resolverTicket(usuario, ticketId));
+			case "respuestas":
+				if ("GET".equals(metodo)) {
+					exigirAccesoCliente(usuario, ticketId);
+					return gestorRespuesta.consultarRespuestasPorTicket(ticketId).stream()
+							.map(ServidorApi::respuestaAJson).toList();
+				}
+				exigirMetodo(metodo, "POST");
+				exigirAccesoCliente(usuario, ticketId);
+				return respuestaAJson(
+						gestorRespuesta.anadirRespuesta(usuario, ticketId, texto(leerCuerpo(ex), "contenido")));
+			default:
+				break;
+			}
+		}
+		throw new ErrorHttp(404, "Recurso no encontrado: " + ex.getRequestURI().getPath());
+	}
+
+	// --- Autenticación y comprobaciones ---
+
+	private Usuario autenticar(HttpExchange ex) throws ErrorHttp {
+		String cabecera = ex.getRequestHeaders().getFirst("Authorization");
+		if (cabecera == null || !cabecera.regionMatches(true, 0, "Basic ", 0, 6)) {
+			ex.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"gestortickets\", charset=\"UTF-8\"");
+			throw new ErrorHttp(401, "Se requiere autenticación");
+		}
+		String credenciales;
+		try {
+			credenciales = new String(Base64.getDecoder().decode(cabecera.substring(6).trim()),
+					StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new ErrorHttp(401, "Cabecera Authorization mal formada");
+		}
+		int separador = credenciales.indexOf(':');
+		if (separador < 0) {
+			throw new ErrorHttp(401, "Cabecera Authorization mal formada");
+		}
+		Optional<? extends Usuario> usuario = gestorUsuario.autenticarUsuario(credenciales.substring(0, separador),
+				credenciales.substring(separador + 1));
+		if (usuario.isEmpty()) {
+			throw new ErrorHttp(401, "Credenciales incorrectas");
+		}
+		return usuario.get();
+	}
+
+	private static void exigirMetodo(String metodo, String esperado) throws ErrorHttp {
+		if (!esperado.equals(metodo)) {
+			throw new ErrorHttp(405, "Método no permitido: " + metodo);
+		}
+	}
+
+	private static void exigirRol(Usuario usuario, String rol) throws ErrorHttp {
+		if (!rol.equals(usuario.getRol())) {
+			throw new ErrorHttp(403, "Operación reservada al rol " + rol);
+		}
+	}
+
+	/**
+	 * Un cliente solo puede ver y responder sus propios tickets.
+	 */
+	private void exigirAccesoCliente(Usuario usuario, String ticketId) throws ErrorHttp {
+		if ("CLIENTE".equals(usuario.getRol()) && gestorTicket.consultarTicketsPorCliente(usuario).stream()
+				.noneMatch(t -> ticketId.equals(t.getIdTicket()))) {
+			throw new ErrorHttp(404, "No se encontró el ticket con ID: " + ticketId);
+		}
+	}
+
+	// --- Entrada/salida ---
+
+	private static List<String> trocear(String ruta) {
+		return Arrays.stream(ruta.split("/")).filter(p -> !p.isEmpty())
+				.map(p -> URLDecoder.decode(p, StandardCharsets.UTF_8)).toList();
+	}
+
+	/**
+	 * Lee el cuerpo como un objeto JSON; se corta en MAX_CUERPO bytes (413).
+	 */
+	private static Map<String, Object> leerCuerpo(HttpExchange ex) throws IOException, ErrorHttp {
+		try (InputStream in = ex.getRequestBody()) {
+			byte[] bytes = in.readNBytes(MAX_CUERPO + 1);
+			if (bytes.length > MAX_CUERPO) {
+				throw new ErrorHttp(413, "El cuerpo de la petición supera los " + MAX_CUERPO + " bytes");
+			}
+			return Json.leerObjeto(new String(bytes, StandardCharsets.UTF_8));
+		}
+	}
+
+	private static String texto(Map<String, Object> datos, String campo) throws ErrorHttp {
+		Object valor = datos.get(campo);
+		if (valor == null) {
+			throw new ErrorHttp(400, "Falta el campo '" + campo + "'");
+		}
+		return valor.toString();
+	}
+
+	private static void responder(HttpExchange ex, int codigo, Object cuerpo) throws IOException {
+		byte[] bytes = Json.escribir(cuerpo).getBytes(StandardCharsets.UTF_8);
+		ex.getResponseHeaders().set("Content-Type", JSON);
+		ex.sendResponseHeaders(codigo, bytes.length);
+		try (OutputStream out = ex.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private static void responderError(HttpExchange ex, int codigo, String mensaje) throws IOException {
+		Map<String, Object> error = new LinkedHashMap<>();
+		error.put("error", mensaje);
+		responder(ex, codigo, error);
+	}
+
+	// --- Conversión de modelos (nunca se devuelve la contraseña) ---
+
+	private static Map<String, Object> usuarioAJson(Usuario u) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("id", u.getId());
+		json.put("nombre", u.getNombre());
+		json.put("correo", u.getCorreo());
+		json.put("rol", u.getRol());
+		if (u instanceof Tecnico t) {
+			json.put("especialidad", t.getEspecialidad());
+			json.put("cargaTrabajo", CargaTecnicos.carga(t.getId()));
+		}
+		return json;
+	}
+
+	private static Map<String, Object> ticketAJson(Ticket t) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("id", t.getIdTicket());
+		json.put("titulo", t.getTitulo());
+		json.put("descripcion", t.getDescripcion());
+		json.put("categoria", t.getCategoria());
+		json.put("prioridad", t.getPrioridad());
+		json.put("estado", t.getEstado());
+		json.put("autorId", t.getAutorId());
+		json.put("asignadoA", t.getAsignadoA());
+		json.put("fechaCreacion", t.getFechaCreacion());
+		json.put("fechaCierre", t.getFechaCierre());
+		return json;
+	}
+
+	private static Map<String, Object> resumenAJson(TicketResumen r) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("id", r.getIdTicket());
+		json.put("descripcion", r.getDescripcion());
+		json.put("estado", r.getEstado());
+		json.put("autorId", r.getAutorId());
+		json.put("nombreCliente", r.getNombreCliente());
+		json.put("asignadoA", r.getAsignadoA());
+		json.put("nombreTecnico", r.getNombreTecnico());
+		json.put("fechaCreacion", r.getFechaCreacion());
+		return json;
+	}
+
+	private static Map<String, Object> respuestaAJson(Respuesta r) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("id", r.getId());
+		json.put("ticketId", r.getTicketId());
+		json.put("autorId", r.getAutorId());
+		json.put("contenido", r.getContenido());
+		json.put("fecha", r.getFecha());
+		return json;
+	}
+
+	private static Map<String, Object> contadorAJson(ContadorTickets c) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("personaId", c.getPersonaId());
+		json.put("creadosAbiertos", c.getCreadosAbiertos());
+		json.put("creadosTotales", c.getCreadosTotales());
+		json.put("asignadosAbiertos", c.getAsignadosAbiertos());
+		json.put("asignadosTotales", c.getAsignadosTotales());
+		return json;
+	}
+}
@@ -0,0 +1,267 @@
+package carga;
+
+import controller.ContadorTicketsDAO;
+import controller.SerieTicketsDAO;
+import controller.TicketResumenDAO;
+import model.Respuesta;
+import model.Tecnico;
+import model.Ticket;
+import model.Usuario;
+import util.Constantes;
+import util.Serializador;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generador de datos sintéticos con forma parecida a la de producción. Rellena
+ * Constantes.DATA_DIR (usar -Dgestortickets.datos para no pisar ./Datos) con:
+ *
+ * - un administrador (el mismo correo que crea Main, para que no se duplique),
+ * - clientes cuya actividad sigue una Zipf (unos pocos crean muchos tickets),
+ * - técnicos repartidos por especialidad,
+ * - tickets con categorías y prioridades sesgadas, más antiguos cuanto más
+ * probable es que estén cerrados, y ráfagas de incidencias casi idénticas,
+ * - hilos de respuestas de longitud muy sesgada (la mayoría 0-2, unos pocos
+ * cientos).
+ *
+ * Los ficheros se escriben de una vez con el Serializador (no por DAO, que
+ * sería cuadrático) y después se reconstruyen la vista de tickets y los
+ * contadores. Con la misma semilla el resultado es siempre el mismo.
+ *
+ * Uso: java -Dgestortickets.datos=/tmp/datos carga.GeneradorDatos [tickets]
+ * [semilla]
+ */
+public class GeneradorDatos {
+
+	public static final String[] CATEGORIAS = { "Redes", "Software", "Hardware", "Cuentas", "Correo", "Impresoras" };
+	private static final double[] PESOS_CATEGORIAS = { 30, 25, 15, 12, 10, 8 };
+	public static final String[] PRIORIDADES = { "BAJA", "MEDIA", "ALTA" };
+	private static final double[] PESOS_PRIORIDADES = { 50, 35, 15 };
+
+	private static final String[] PROBLEMAS = { "no funciona", "va muy lento", "da un error al iniciar",
+			"se desconecta cada pocos minutos", "no responde", "pide la contraseña continuamente",
+			"no aparece en la lista", "muestra un mensaje de acceso denegado" };
+	private static final String[] ELEMENTOS = { "el portátil", "la VPN", "el correo", "la impresora de la planta 2",
+			"el ERP", "la wifi de la sala de reuniones", "el monitor", "la aplicación de nóminas", "el teléfono IP",
+			"la carpeta compartida" };
+	private static final String[] INCIDENCIAS_MASIVAS = {
+			"No hay conexión a internet en toda la oficina desde esta mañana",
+			"El servidor de correo no envía ni recibe mensajes",
+			"La VPN rechaza todas las conexiones con error de certificado" };
+
+	private static final int MAX_RESPUESTAS = 200;
+	private static final int DIAS_HISTORICO = 365;
+
+	private final SplittableRandom rnd;
+	private final int numTickets;
+	private final int numClientes;
+	private final int numTecnicos;
+
+	/**
+	 * @param numTickets número de tickets a generar (clientes = tickets/10 y
+	 *                   técnicos = tickets/100, con un mínimo de 1 y 6).
+	 * @param semilla    semilla del generador aleatorio.
+	 */
+	public GeneradorDatos(int numTickets, long semilla) {
+		this.rnd = new SplittableRandom(semilla);
+		this.numTickets = Math.max(0, numTickets);
+		this.numClientes = Math.max(1, numTickets / 10);
+		this.numTecnicos = Math.max(CATEGORIAS.length, numTickets / 100);
+	}
+
+	public int getNumTickets() {
+		return numTickets;
+	}
+
+	public int getNumClientes() {
+		return numClientes;
+	}
+
+	public int getNumTecnicos() {
+		return numTecnicos;
+	}
+
+	/**
+	 * Genera y escribe todos los ficheros de datos.
+	 *
+	 * @return número de respuestas generadas.
+	 */
+	public int generar() throws IOException {
+		LocalDateTime ahora = LocalDateTime.now();
+
+		List<Usuario> usuarios = new ArrayList<>(numClientes + 1);
+		usuarios.add(new Usuario("A001", "Administrador del Sistema", "admin@gestortickets.com", "admin123", "ADMIN"));
+		for (int i = 1; i <= numClientes; i++) {
+			usuarios.add(new Usuario(id("U", i), "Cliente " + i, "cliente" + i + "@carga.test", "clave", "CLIENTE"));
+		}
+
+		// Técnicos: al menos uno por especialidad, el resto repartidos con el mismo
+		// sesgo que las categorías
+		List<Tecnico> tecnicos = new ArrayList<>(numTecnicos);
+		Map<String, List<Tecnico>> tecnicosPorEspecialidad = new HashMap<>();
+		for (int i = 1; i <= numTecnicos; i++) {
+			String especialidad = i <= CATEGORIAS.length ? CATEGORIAS[i - 1] : elegir(CATEGORIAS, PESOS_CATEGORIAS);
+			Tecnico t = new Tecnico(id("T", i), "Técnico " + i, "tecnico" + i + "@carga.test", "clave", especialidad);
+			tecnicos.add(t);
+			tecnicosPorEspecialidad.computeIfAbsent(especialidad, e -> new ArrayList<>()).add(t);
+		}
+
+		Zipf actividadClientes = new Zipf(numClientes, 1.1);
+		List<Ticket> tickets = new ArrayList<>(numTickets);
+		List<Respuesta> respuestas = new ArrayList<>();
+		int masivaActual = -1;
+		int restantesMasiva = 0;
+
+		for (int i = 1; i <= numTickets; i++) {
+			String autorId = id("U", actividadClientes.siguiente(rnd));
+			String categoria = elegir(CATEGORIAS, PESOS_CATEGORIAS);
+
+			// De vez en cuando empieza una ráfaga de tickets casi iguales (caída general)
+			if (restantesMasiva == 0 && rnd.nextInt(500) == 0) {
+				masivaActual = rnd.nextInt(INCIDENCIAS_MASIVAS.length);
+				restantesMasiva = 20 + rnd.nextInt(200);
+			}
+			String descripcion;
+			if (restantesMasiva > 0) {
+				restantesMasiva--;
+				descripcion = INCIDENCIAS_MASIVAS[masivaActual] + (rnd.nextBoolean() ? "." : ", urgente.");
+				categoria = masivaActual == 0 ? "Redes" : masivaActual == 1 ? "Correo" : "Redes";
+			} else {
+				descripcion = "Desde ayer " + ELEMENTOS[rnd.nextInt(ELEMENTOS.length)] + " "
+						+ PROBLEMAS[rnd.nextInt(PROBLEMAS.length)] + ". Ref. " + i;
+			}
+
+			Ticket t = new Ticket(id("TK", i), "Problema de " + categoria + " #" + i, descripcion, autorId, categoria);
+			t.setPrioridad(elegir(PRIORIDADES, PESOS_PRIORIDADES));
+			// Los tickets están ordenados por fecha: el primero es el más antiguo
+			long minutosAtras = (long) (numTickets - i) * DIAS_HISTORICO * 24 * 60 / Math.max(1, numTickets);
+			t.setFechaCreacion(ahora.minusMinutes(minutosAtras));
+
+			// Cuanto más antiguo, más probable que esté cerrado
+			double antiguedad = minutosAtras / (DIAS_HISTORICO * 24.0 * 60.0);
+			double r = rnd.nextDouble();
+			if (r < 0.2 + 0.75 * antiguedad) {
+				t.setEstado("CERRADO");
+			} else if (r < 0.2 + 0.75 * antiguedad + 0.4 * (1 - antiguedad)) {
+				t.setEstado("ASIGNADO");
+			}
+
+			if (!"ABIERTO".equals(t.getEstado())) {
+				List<Tecnico> candidatos = tecnicosPorEspecialidad.getOrDefault(categoria, tecnicos);
+				Tecnico tecnico = candidatos.get(rnd.nextInt(candidatos.size()));
+				t.setAsignadoA(tecnico.getId());
+				if (t.cerrado()) {
+					LocalDateTime cierre = t.getFechaCreacion().plusMinutes(30 + rnd.nextInt(7 * 24 * 60));
+					// Un ticket reciente no puede haberse cerrado en el futuro
+					t.setFechaCierre(cierre.isAfter(ahora) ? ahora : cierre);
+				} else {
+					tecnico.incrementarCarga();
+				}
+			}
+			tickets.add(t);
+
+			int longitud = longitudHilo();
+			for (int k = 0; k < longitud; k++) {
+				String autorRespuesta = (k % 2 == 1 && t.asignado()) ? t.getAsignadoA() : autorId;
+				respuestas.add(new Respuesta(id("R", respuestas.size() + 1), t.getIdTicket(), autorRespuesta,
+						"Mensaje " + (k + 1) + " del hilo", t.getFechaCreacion().plusMinutes(10L * (k + 1))));
+			}
+		}
+
+		Serializador.guardarLista(Constantes.USUARIOS_FILE, usuarios);
+		Serializador.guardarLista(Constantes.TECNICOS_FILE, tecnicos);
+		Serializador.guardarLista(Constantes.TICKETS_FILE, tickets);
+		Serializador.guardarLista(Constantes.RESPUESTAS_FILE, respuestas);
+		new TicketResumenDAO().reconstruir();
+		new ContadorTicketsDAO().reconstruir();
+		// Las series se rehacen desde los tickets nuevos al iniciarse
+		new SerieTicketsDAO().invalidar();
+		return respuestas.size();
+	}
+
+	/**
+	 * Longitud de un hilo de respuestas: Pareto discreta (alfa 1,2) acotada. La
+	 * mayoría de hilos tienen 0-2 mensajes y unos pocos llegan a cientos.
+	 */
+	private int longitudHilo() {
+		double u = 1.0 - rnd.nextDouble(); // (0, 1]
+		int n = (int) Math.floor(Math.pow(u, -1.0 / 1.2)) - 1;
+		return Math.min(n, MAX_RESPUESTAS);
+	}
+
+	private String elegir(String[] valores, double[] pesos) {
+		double total = 0;
+		for (double p : pesos) {
+			total += p;
+		}
+		double r = rnd.nextDouble() * total;
+		for (int i = 0; i < valores.length; i++) {
+			r -= pesos[i];
+			if (r < 0) {
+				return valores[i];
+			}
+		}
+		return valores[valores.length - 1];
+	}
+
+	/**
+	 * Ids con el mismo formato que generan los DAOs ("TK001", "U042"...).
+	 */
+	public static String id(String prefijo, int n) {
+		return prefijo + String.format("%03d", n);
+	}
+
+	/**
+	 * Muestreo de una Zipf sobre 1..n con exponente s, por búsqueda binaria sobre
+	 * la distribución acumulada.
+	 */
+	static final class Zipf {
+
+		private final double[] acumulada;
+
+		Zipf(int n, double s) {
+			acumulada = new double[n];
+			double suma = 0;
+			for (int k = 1; k <= n; k++) {
+				suma += 1.0 / Math.pow(k, s);
+				acumulada[k - 1] = suma;
+			}
+			for (int k = 0; k < n; k++) {
+				acumulada[k] /= suma;
+			}
+		}
+
+		int siguiente(SplittableRandom rnd) {
+			double r = rnd.nextDouble();
+			int lo = 0;
+			int hi = acumulada.length - 1;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (acumulada[mid] < r) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			return lo + 1;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		long semilla = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+		long inicio = System.nanoTime();
+		GeneradorDatos generador = new GeneradorDatos(tickets, semilla);
+		int respuestas = generador.generar();
+		System.out.printf("Generados en %s: %d tickets, %d clientes, %d técnicos, %d respuestas (%.1f s)%n",
+				Constantes.DATA_DIR, generador.getNumTickets(), generador.getNumClientes(),
+				generador.getNumTecnicos(), respuestas, (System.nanoTime() - inicio) / 1e9);
+	}
+}
@@ -0,0 +1,303 @@
+package carga;
+
+import model.Tecnico;
+import model.Ticket;
+import model.Usuario;
+import remoto.ClienteDatos;
+import service.GestorRespuesta;
+import service.GestorTicket;
+import service.exceptions.RespuestaException;
+import service.exceptions.TicketException;
+import service.exceptions.UserException;
+import util.Constantes;
+import util.Serializador;
+import util.metricas.Medicion;
+import util.metricas.MetricaOperacion;
+import util.metricas.Metricas;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de carga: lanza una mezcla configurable de operaciones de servicio
+ * desde varios hilos durante un tiempo y muestra el rendimiento y los
+ * percentiles de latencia de cada operación.
+ *
+ * Opciones (todas con la forma --clave=valor):
+ *
+ * - generar=N: antes de empezar genera N tickets con GeneradorDatos (si no se
+ * indica se usan los datos que haya en Constantes.DATA_DIR).
+ * - hilos=32: número de hilos cliente.
+ * - segundos=30: duración de la prueba.
+ * - mezcla=crear:20,responder:35,asignar:10,resolver:10,consultar:25: peso de
+ * cada operación. "consultar" alterna entre las consultas de los dashboards.
+ * - remoto=host:puerto: usar un ServidorDatos en lugar de los ficheros locales.
+ *
+ * Ejemplo: java -Dgestortickets.datos=/tmp/carga carga.PruebaCarga
+ * --generar=10000 --hilos=16 --segundos=60
+ *
+ * Las operaciones que el servicio rechaza por reglas de negocio (p. ej.
+ * responder a un ticket que otro hilo acaba de cerrar) se cuentan aparte de
+ * los errores. Al terminar se comprueba que el fichero de tickets contiene
+ * todos los tickets creados, para detectar escrituras perdidas.
+ */
+@SuppressWarnings("try")
+public class PruebaCarga {
+
+	private static final String[] OPERACIONES = { "crear", "responder", "asignar", "resolver", "consultar" };
+	private static final String MEZCLA_POR_DEFECTO = "crear:20,responder:35,asignar:10,resolver:10,consultar:25";
+
+	private final GestorTicket gestorTicket = new GestorTicket();
+	private final GestorRespuesta gestorRespuesta = new GestorRespuesta();
+
+	private final Usuario admin;
+	private final List<Usuario> clientes;
+	private final List<Tecnico> tecnicos;
+	private final Map<String, Tecnico> tecnicosPorId = new HashMap<>();
+
+	/** Tickets abiertos pendientes de asignar y tickets asignados pendientes de resolver. */
+	private final ConcurrentLinkedQueue<String> abiertos = new ConcurrentLinkedQueue<>();
+	private final ConcurrentLinkedQueue<String[]> asignados = new ConcurrentLinkedQueue<>();
+	/** Tickets que se pueden seguir respondiendo (se muestrean al azar). */
+	private final List<String> conversables;
+
+	private final int[] pesos = new int[OPERACIONES.length];
+	private final Map<String, MetricaOperacion> metricas = new LinkedHashMap<>();
+	private final Map<String, AtomicLong> rechazos = new HashMap<>();
+	private final Map<String, AtomicLong> errores = new HashMap<>();
+	private final AtomicLong ticketsCreados = new AtomicLong();
+
+	public PruebaCarga(String mezcla) {
+		List<Usuario> usuarios = Serializador.leerLista(Constantes.USUARIOS_FILE);
+		this.admin = usuarios.stream().filter(u -> "ADMIN".equals(u.getRol())).findFirst()
+				.orElseThrow(() -> new IllegalStateException("No hay ningún administrador en " + Constantes.DATA_DIR));
+		this.clientes = usuarios.stream().filter(u -> "CLIENTE".equals(u.getRol())).toList();
+		this.tecnicos = Serializador.leerLista(Constantes.TECNICOS_FILE);
+		if (clientes.isEmpty() || tecnicos.isEmpty()) {
+			throw new IllegalStateException("Hacen falta clientes y técnicos en " + Constantes.DATA_DIR
+					+ " (usar --generar=N)");
+		}
+		tecnicos.forEach(t -> tecnicosPorId.put(t.getId(), t));
+
+		List<String> vivos = new ArrayList<>();
+		for (Ticket t : Serializador.<Ticket>leerLista(Constantes.TICKETS_FILE)) {
+			if ("ABIERTO".equals(t.getEstado())) {
+				abiertos.add(t.getIdTicket());
+				vivos.add(t.getIdTicket());
+			} else if (!t.cerrado() && t.asignado()) {
+				asignados.add(new String[] { t.getIdTicket(), t.getAsignadoA() });
+				vivos.add(t.getIdTicket());
+			}
+		}
+		this.conversables = Collections.synchronizedList(vivos);
+
+		for (String op : OPERACIONES) {
+			metricas.put(op, Metricas.operacion("PruebaCarga." + op));
+			rechazos.put(op, new AtomicLong());
+			errores.put(op, new AtomicLong());
+		}
+		leerMezcla(mezcla);
+	}
+
+	/**
+	 * Ejecuta la prueba y bloquea hasta que termina.
+	 */
+	public void ejecutar(int hilos, int segundos) throws InterruptedException {
+		metricas.values().forEach(MetricaOperacion::reiniciar);
+		int ticketsIniciales = Serializador.leerLista(Constantes.TICKETS_FILE).size();
+
+		long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+		CountDownLatch salida = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(hilos);
+		for (int i = 0; i < hilos; i++) {
+			pool.execute(() -> {
+				try {
+					salida.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				while (System.nanoTime() < fin) {
+					ejecutarUna(elegirOperacion());
+				}
+			});
+		}
+		long inicio = System.nanoTime();
+		salida.countDown();
+		pool.shutdown();
+		pool.awaitTermination(segundos + 600L, TimeUnit.SECONDS);
+		double duracion = (System.nanoTime() - inicio) / 1e9;
+
+		imprimirInforme(hilos, duracion);
+
+		int ticketsFinales = Serializador.leerLista(Constantes.TICKETS_FILE).size();
+		long perdidos = ticketsIniciales + ticketsCreados.get() - ticketsFinales;
+		System.out.printf("%nTickets: %d al inicio + %d creados = %d esperados, %d en disco (%d perdidos)%n",
+				ticketsIniciales, ticketsCreados.get(), ticketsIniciales + ticketsCreados.get(), ticketsFinales,
+				perdidos);
+	}
+
+	private void ejecutarUna(String op) {
+		try (Medicion m = metricas.get(op).iniciar()) {
+			switch (op) {
+			case "crear" -> crear();
+			case "responder" -> responder();
+			case "asignar" -> asignar();
+			case "resolver" -> resolver();
+			default -> consultar();
+			}
+		} catch (UserException | TicketException | RespuestaException e) {
+			rechazos.get(op).incrementAndGet();
+		} catch (RuntimeException e) {
+			if (errores.get(op).incrementAndGet() == 1) {
+				System.err.println("Error inesperado en '" + op + "': " + e);
+			}
+		}
+	}
+
+	private void crear() throws UserException, TicketException {
+		ThreadLocalRandom rnd = ThreadLocalRandom.current();
+		Usuario cliente = clientes.get(rnd.nextInt(clientes.size()));
+		String categoria = GeneradorDatos.CATEGORIAS[rnd.nextInt(GeneradorDatos.CATEGORIAS.length)];
+		Ticket t = gestorTicket.crearTicket(cliente, categoria, "Incidencia de la prueba de carga " + rnd.nextInt());
+		ticketsCreados.incrementAndGet();
+		abiertos.add(t.getIdTicket());
+		conversables.add(t.getIdTicket());
+	}
+
+	private void responder() throws UserException, TicketException, RespuestaException {
+		String ticketId;
+		synchronized (conversables) {
+			if (conversables.isEmpty()) {
+				return;
+			}
+			ticketId = conversables.get(ThreadLocalRandom.current().nextInt(conversables.size()));
+		}
+		Usuario autor = ThreadLocalRandom.current().nextBoolean() ? admin
+				: tecnicos.get(ThreadLocalRandom.current().nextInt(tecnicos.size()));
+		gestorRespuesta.anadirRespuesta(autor, ticketId, "Respuesta de la prueba de carga");
+	}
+
+	private void asignar() throws UserException, TicketException {
+		String ticketId = abiertos.poll();
+		if (ticketId == null) {
+			return;
+		}
+		Tecnico tecnico = tecnicos.get(ThreadLocalRandom.current().nextInt(tecnicos.size()));
+		gestorTicket.asignarTicket(admin, ticketId, tecnico.getId());
+		asignados.add(new String[] { ticketId, tecnico.getId() });
+	}
+
+	private void resolver() throws UserException, TicketException {
+		String[] pendiente = asignados.poll();
+		if (pendiente == null) {
+			return;
+		}
+		gestorTicket.resolverTicket(tecnicosPorId.get(pendiente[1]), pendiente[0]);
+		conversables.remove(pendiente[0]);
+	}
+
+	private void consultar() {
+		ThreadLocalRandom rnd = ThreadLocalRandom.current();
+		switch (rnd.nextInt(4)) {
+		case 0 -> gestorTicket.consultarTicketsPorCliente(clientes.get(rnd.nextInt(clientes.size())));
+		case 1 -> gestorTicket.consultarTicketsPorTecnico(tecnicos.get(rnd.nextInt(tecnicos.size())));
+		case 2 -> gestorTicket.consultarResumenTickets();
+		default -> {
+			String ticketId;
+			synchronized (conversables) {
+				ticketId = conversables.isEmpty() ? null : conversables.get(rnd.nextInt(conversables.size()));
+			}
+			gestorRespuesta.consultarRespuestasPorTicket(ticketId);
+		}
+		}
+	}
+
+	private String elegirOperacion() {
+		int total = 0;
+		for (int p : pesos) {
+			total += p;
+		}
+		int r = ThreadLocalRandom.current().nextInt(total);
+		for (int i = 0; i < pesos.length; i++) {
+			r -= pesos[i];
+			if (r < 0) {
+				return OPERACIONES[i];
+			}
+		}
+		return OPERACIONES[OPERACIONES.length - 1];
+	}
+
+	private void leerMezcla(String mezcla) {
+		for (String parte : mezcla.split(",")) {
+			String[] kv = parte.trim().split(":");
+			int i = List.of(OPERACIONES).indexOf(kv[0].trim());
+			if (i < 0 || kv.length != 2) {
+				throw new IllegalArgumentException("Operación desconocida en la mezcla: " + parte
+						+ ". Válidas: " + String.join(", ", OPERACIONES));
+			}
+			pesos[i] = Integer.parseInt(kv[1].trim());
+		}
+		if (Arrays.stream(pesos).sum() <= 0) {
+			throw new IllegalArgumentException("La mezcla debe tener algún peso positivo: " + mezcla);
+		}
+	}
+
+	private void imprimirInforme(int hilos, double duracion) {
+		System.out.printf("%nPrueba de carga: %d hilos, %.1f s, datos en %s%n%n", hilos, duracion,
+				Constantes.DATA_DIR);
+		System.out.printf("%-10s %10s %10s %10s %10s %10s %10s %9s %7s%n", "operación", "total", "ops/s",
+				"media µs", "p50 µs", "p99 µs", "máx µs", "rechazos", "errores");
+		long total = 0;
+		for (Map.Entry<String, MetricaOperacion> e : metricas.entrySet()) {
+			MetricaOperacion m = e.getValue();
+			total += m.getLlamadas();
+			System.out.printf("%-10s %10d %10.1f %10.0f %10.0f %10.0f %10.0f %9d %7d%n", e.getKey(), m.getLlamadas(),
+					m.getLlamadas() / duracion, m.getLatenciaMediaMicros(), m.getLatenciaP50Micros(),
+					m.getLatenciaP99Micros(), m.getLatenciaMaxMicros(), rechazos.get(e.getKey()).get(),
+					errores.get(e.getKey()).get());
+		}
+		System.out.printf("%-10s %10d %10.1f%n", "TOTAL", total, total / duracion);
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Map<String, String> opciones = new HashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--") || !arg.contains("=")) {
+				System.err.println("Argumento no válido: " + arg + " (se espera --clave=valor)");
+				System.exit(2);
+			}
+			opciones.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+		}
+
+		if (opciones.containsKey("remoto")) {
+			String[] direccion = opciones.get("remoto").split(":");
+			Serializador.configurarAlmacen(new ClienteDatos(direccion[0], Integer.parseInt(direccion[1])));
+		}
+
+		if (opciones.containsKey("generar")) {
+			GeneradorDatos generador = new GeneradorDatos(Integer.parseInt(opciones.get("generar")), 42);
+			int respuestas = generador.generar();
+			System.out.printf("Generados %d tickets, %d clientes, %d técnicos y %d respuestas en %s%n",
+					generador.getNumTickets(), generador.getNumClientes(), generador.getNumTecnicos(), respuestas,
+					Constantes.DATA_DIR);
+		}
+
+		PruebaCarga prueba = new PruebaCarga(opciones.getOrDefault("mezcla", MEZCLA_POR_DEFECTO));
+		prueba.ejecutar(Integer.parseInt(opciones.getOrDefault("hilos", "32")),
+				Integer.parseInt(opciones.getOrDefault("segundos", "30")));
+	}
+}
@@ -0,0 +1,327 @@
+package carga;
+
+import model.Tecnico;
+import model.Ticket;
+import model.Usuario;
+import service.CargaTecnicos;
+import service.GestorRespuesta;
+import service.GestorTicket;
+import util.CerrojosSegmentados;
+import util.Constantes;
+import util.Instantanea;
+import util.Serializador;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Prueba de estrés del control de concurrencia de GestorTicket. Genera un juego
+ * de datos pequeño en Constantes.DATA_DIR (¡lo sobrescribe!, por eso exige
+ * -Dgestortickets.datos) y comprueba:
+ *
+ * 1. Linealidad por ticket: muchos hilos asignan a la vez el mismo ticket a
+ * técnicos distintos y solo uno lo consigue; la carga total de los técnicos
+ * sube exactamente uno por ticket. Después varios hilos resuelven y responden
+ * a la vez y solo una resolución gana; la carga vuelve a su valor inicial y
+ * coincide con los tickets abiertos de cada técnico.
+ * 2. Sin escrituras perdidas: muchos hilos crean tickets a la vez y todos
+ * quedan guardados.
+ * 3. Paralelismo: los cerrojos de claves distintas se mantienen a la vez,
+ * mientras que los de la misma clave se suceden uno tras otro.
+ * 4. Lecturas durante escrituras: mientras se crean tickets, otros hilos leen
+ * sin parar y nunca ven menos tickets (ni una versión más antigua) que en su
+ * lectura anterior.
+ *
+ * Uso: java -Dgestortickets.datos=/tmp/concurrencia carga.PruebaConcurrencia
+ * [hilos] [tickets]
+ *
+ * Termina con código 1 si alguna comprobación falla.
+ */
+@SuppressWarnings("try")
+public class PruebaConcurrencia {
+
+	private final int hilos;
+	private final ExecutorService pool;
+	private final GestorTicket gestorTicket = new GestorTicket();
+	private final GestorRespuesta gestorRespuesta = new GestorRespuesta();
+	private int fallos;
+
+	public PruebaConcurrencia(int hilos) {
+		this.hilos = hilos;
+		this.pool = Executors.newFixedThreadPool(hilos);
+	}
+
+	/**
+	 * 1. Asignaciones y resoluciones simultáneas del mismo ticket.
+	 */
+	void comprobarLinealidad(int numTickets) throws Exception {
+		Usuario admin = Serializador.<Usuario>leerLista(Constantes.USUARIOS_FILE).stream()
+				.filter(u -> "ADMIN".equals(u.getRol())).findFirst().orElseThrow();
+		List<Tecnico> tecnicos = Serializador.leerLista(Constantes.TECNICOS_FILE);
+		int cargaInicial = cargaTotal();
+		List<String> abiertos = Serializador.<Ticket>leerLista(Constantes.TICKETS_FILE).stream()
+				.filter(t -> "ABIERTO".equals(t.getEstado())).map(Ticket::getIdTicket).limit(numTickets).toList();
+
+		int asignacionesCorrectas = 0;
+		for (String ticketId : abiertos) {
+			List<Callable<Boolean>> intentos = new ArrayList<>();
+			for (int i = 0; i < hilos; i++) {
+				Tecnico tecnico = tecnicos.get(i % tecnicos.size());
+				intentos.add(() -> {
+					gestorTicket.asignarTicket(admin, ticketId, tecnico.getId());
+					return true;
+				});
+			}
+			if (aLaVez(intentos) == 1) {
+				asignacionesCorrectas++;
+			}
+		}
+		comprobar(asignacionesCorrectas == abiertos.size(), "Cada ticket se asigna exactamente una vez ("
+				+ asignacionesCorrectas + " de " + abiertos.size() + ")");
+		comprobar(cargaTotal() == cargaInicial + abiertos.size(), "La carga total sube uno por asignación (inicial "
+				+ cargaInicial + ", ahora " + cargaTotal() + ", esperada " + (cargaInicial + abiertos.size()) + ")");
+
+		Map<String, Ticket> tickets = Serializador.<Ticket>leerLista(Constantes.TICKETS_FILE).stream()
+				.collect(Collectors.toMap(Ticket::getIdTicket, Function.identity()));
+		Map<String, Tecnico> tecnicosPorId = tecnicos.stream()
+				.collect(Collectors.toMap(Tecnico::getId, Function.identity()));
+		int resolucionesCorrectas = 0;
+		for (String ticketId : abiertos) {
+			Tecnico asignado = tecnicosPorId.get(tickets.get(ticketId).getAsignadoA());
+			AtomicInteger resoluciones = new AtomicInteger();
+			List<Callable<Boolean>> intentos = new ArrayList<>();
+			for (int i = 0; i < hilos; i++) {
+				if (i % 2 == 0) {
+					intentos.add(() -> {
+						gestorTicket.resolverTicket(asignado, ticketId);
+						resoluciones.incrementAndGet();
+						return true;
+					});
+				} else {
+					intentos.add(() -> {
+						gestorRespuesta.anadirRespuesta(asignado, ticketId, "Respuesta concurrente");
+						return true;
+					});
+				}
+			}
+			aLaVez(intentos);
+			if (resoluciones.get() == 1) {
+				resolucionesCorrectas++;
+			}
+		}
+		comprobar(resolucionesCorrectas == abiertos.size(), "Cada ticket se resuelve exactamente una vez ("
+				+ resolucionesCorrectas + " de " + abiertos.size() + ")");
+		comprobar(cargaTotal() == cargaInicial,
+				"La carga total vuelve a la inicial (inicial " + cargaInicial + ", ahora " + cargaTotal() + ")");
+
+		Map<String, Long> abiertosPorTecnico = Serializador.<Ticket>leerLista(Constantes.TICKETS_FILE).stream()
+				.filter(t -> t.asignado() && !t.cerrado())
+				.collect(Collectors.groupingBy(Ticket::getAsignadoA, Collectors.counting()));
+		long distintas = tecnicos.stream()
+				.filter(t -> CargaTecnicos.carga(t.getId()) != abiertosPorTecnico.getOrDefault(t.getId(), 0L)).count();
+		comprobar(distintas == 0, "La carga en vivo coincide con los tickets abiertos de cada técnico (" + distintas
+				+ " distintos)");
+	}
+
+	/**
+	 * 2. Altas simultáneas de tickets distintos.
+	 */
+	void comprobarSinPerdidas(int porHilo) throws Exception {
+		List<Usuario> clientes = Serializador.<Usuario>leerLista(Constantes.USUARIOS_FILE).stream()
+				.filter(u -> "CLIENTE".equals(u.getRol())).toList();
+		int antes = Serializador.leerLista(Constantes.TICKETS_FILE).size();
+		List<Callable<Boolean>> altas = new ArrayList<>();
+		for (int i = 0; i < hilos; i++) {
+			Usuario cliente = clientes.get(i % clientes.size());
+			altas.add(() -> {
+				for (int k = 0; k < porHilo; k++) {
+					gestorTicket.crearTicket(cliente, "Redes", "Alta concurrente");
+				}
+				return true;
+			});
+		}
+		int correctas = aLaVez(altas);
+		int despues = Serializador.leerLista(Constantes.TICKETS_FILE).size();
+		comprobar(correctas == hilos && despues == antes + hilos * porHilo, "Todas las altas simultáneas se guardan ("
+				+ (despues - antes) + " de " + hilos * porHilo + ")");
+	}
+
+	/**
+	 * 3. Cerrojos de claves distintas en paralelo y de la misma clave en serie.
+	 */
+	void comprobarParalelismo() throws Exception {
+		CerrojosSegmentados cerrojos = new CerrojosSegmentados(256);
+		long retencionMs = 50;
+
+		List<Callable<Boolean>> distintas = new ArrayList<>();
+		List<Callable<Boolean>> misma = new ArrayList<>();
+		for (int i = 0; i < hilos; i++) {
+			String clave = GeneradorDatos.id("TK", i + 1);
+			distintas.add(() -> retener(cerrojos, clave, retencionMs));
+			misma.add(() -> retener(cerrojos, "TK001", retencionMs));
+		}
+
+		long inicio = System.nanoTime();
+		aLaVez(distintas);
+		long msDistintas = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+		inicio = System.nanoTime();
+		aLaVez(misma);
+		long msMisma = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+		// Con claves distintas pueden coincidir algunas de segmento: se tolera el
+		// triple de una sola retención
+		comprobar(msDistintas < 3 * retencionMs, hilos + " tickets distintos en paralelo: " + msDistintas
+				+ " ms (una retención = " + retencionMs + " ms)");
+		comprobar(msMisma >= (hilos - 1) * retencionMs,
+				hilos + " transiciones del mismo ticket en serie: " + msMisma + " ms");
+	}
+
+	/**
+	 * 4. Lecturas consistentes mientras otros hilos escriben.
+	 */
+	void comprobarLecturasDuranteEscrituras(int porHilo) throws Exception {
+		List<Usuario> clientes = Serializador.<Usuario>leerLista(Constantes.USUARIOS_FILE).stream()
+				.filter(u -> "CLIENTE".equals(u.getRol())).toList();
+		int antes = Serializador.leerLista(Constantes.TICKETS_FILE).size();
+		int escritores = Math.max(1, hilos / 2);
+		AtomicInteger escritoresActivos = new AtomicInteger(escritores);
+		AtomicInteger lecturas = new AtomicInteger();
+		AtomicInteger retrocesos = new AtomicInteger();
+
+		List<Callable<Boolean>> tareas = new ArrayList<>();
+		for (int i = 0; i < escritores; i++) {
+			Usuario cliente = clientes.get(i % clientes.size());
+			tareas.add(() -> {
+				try {
+					for (int k = 0; k < porHilo; k++) {
+						gestorTicket.crearTicket(cliente, "Redes", "Alta durante lecturas");
+					}
+				} finally {
+					escritoresActivos.decrementAndGet();
+				}
+				return true;
+			});
+		}
+		for (int i = escritores; i < hilos; i++) {
+			tareas.add(() -> {
+				long versionAnterior = Long.MIN_VALUE;
+				int ticketsAnteriores = antes;
+				int resumenAnterior = 0;
+				while (escritoresActivos.get() > 0) {
+					Instantanea<Ticket> tickets = Serializador.instantanea(Constantes.TICKETS_FILE);
+					int resumen = gestorTicket.consultarResumenTickets().size();
+					if (tickets.getVersion() < versionAnterior || tickets.getElementos().size() < ticketsAnteriores
+							|| resumen < resumenAnterior) {
+						retrocesos.incrementAndGet();
+					}
+					versionAnterior = tickets.getVersion();
+					ticketsAnteriores = tickets.getElementos().size();
+					resumenAnterior = resumen;
+					lecturas.incrementAndGet();
+				}
+				return true;
+			});
+		}
+		int correctas = aLaVez(tareas);
+		int despues = Serializador.leerLista(Constantes.TICKETS_FILE).size();
+		comprobar(correctas == hilos && despues == antes + escritores * porHilo,
+				"Las altas se guardan mientras otros hilos leen (" + (despues - antes) + " de " + escritores * porHilo
+						+ ")");
+		comprobar(retrocesos.get() == 0, lecturas.get() + " lecturas durante las altas, " + retrocesos.get()
+				+ " vieron menos datos que la anterior");
+	}
+
+	private static boolean retener(CerrojosSegmentados cerrojos, String clave, long ms) throws InterruptedException {
+		try (CerrojosSegmentados.Bloqueo b = cerrojos.bloquear(clave)) {
+			Thread.sleep(ms);
+		}
+		return true;
+	}
+
+	/**
+	 * Lanza todas las tareas a la vez (tras una barrera) y devuelve cuántas
+	 * terminaron sin excepción.
+	 */
+	private int aLaVez(List<Callable<Boolean>> tareas) throws InterruptedException {
+		CountDownLatch salida = new CountDownLatch(1);
+		List<Future<Boolean>> futuros = new ArrayList<>();
+		for (Callable<Boolean> tarea : tareas) {
+			futuros.add(pool.submit(() -> {
+				salida.await();
+				return tarea.call();
+			}));
+		}
+		salida.countDown();
+		int correctas = 0;
+		for (Future<Boolean> f : futuros) {
+			try {
+				if (f.get()) {
+					correctas++;
+				}
+			} catch (Exception e) {
+				// Rechazo esperado (p. ej. el ticket ya no está abierto)
+			}
+		}
+		return correctas;
+	}
+
+	private static int cargaTotal() {
+		return Serializador.<Tecnico>leerLista(Constantes.TECNICOS_FILE).stream()
+				.mapToInt(t -> CargaTecnicos.carga(t.getId())).sum();
+	}
+
+	private void comprobar(boolean condicion, String descripcion) {
+		System.out.println((condicion ? "  OK     " : "  FALLO  ") + descripcion);
+		if (!condicion) {
+			fallos++;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (System.getProperty("gestortickets.datos") == null) {
+			System.err.println("Esta prueba sobrescribe " + Paths.get(Constantes.DATA_DIR).toAbsolutePath()
+					+ ". Indique una carpeta propia con -Dgestortickets.datos=<carpeta>.");
+			System.exit(2);
+		}
+		int hilos = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		int tickets = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+		try {
+			new GeneradorDatos(Math.max(200, tickets * 10), 7).generar();
+		} catch (IOException e) {
+			System.err.println("No se pudieron generar los datos de prueba. Causa: " + e.getMessage());
+			System.exit(2);
+		}
+
+		PruebaConcurrencia prueba = new PruebaConcurrencia(hilos);
+		try {
+			System.out.println("1. Transiciones simultáneas del mismo ticket (" + hilos + " hilos, " + tickets
+					+ " tickets)");
+			prueba.comprobarLinealidad(tickets);
+			System.out.println("2. Altas simultáneas");
+			prueba.comprobarSinPerdidas(5);
+			System.out.println("3. Paralelismo de los cerrojos");
+			prueba.comprobarParalelismo();
+			System.out.println("4. Lecturas durante escrituras");
+			prueba.comprobarLecturasDuranteEscrituras(10);
+		} finally {
+			prueba.pool.shutdownNow();
+		}
+
+		System.out.println(prueba.fallos == 0 ? "Todas las comprobaciones son correctas"
+				: prueba.fallos + " comprobaciones fallidas");
+		System.exit(prueba.fallos == 0 ? 0 : 1);
+	}
+}
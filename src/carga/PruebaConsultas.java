@@ -0,0 +1,114 @@
+package carga;
+
+import model.Tecnico;
+import model.Ticket;
+import service.ConsultaTickets;
+import service.ConsultaTickets.Dimension;
+import service.ConsultaTickets.Fila;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Mide cómo escala ConsultaTickets con el número de hilos. Genera en memoria
+ * (sin tocar los ficheros) N tickets repartidos en un año, con técnicos de
+ * varias especialidades, y ejecuta la consulta "tiempo medio de resolución por
+ * categoría y técnico de los cerrados en el tercer trimestre" con 1, 2, 4...
+ * hilos hasta el número de núcleos. Comprueba que todas las ejecuciones dan lo
+ * mismo que la de un hilo.
+ *
+ * Uso: java -Xmx8g carga.PruebaConsultas [tickets] [repeticiones]
+ * (por defecto 10.000.000 y 5; con 10 millones hacen falta unos 4 GB).
+ *
+ * Termina con código 1 si algún resultado no coincide.
+ */
+public class PruebaConsultas {
+
+	private static final String[] CATEGORIAS = { "Redes", "Software", "Hardware", "Correo", "Cuentas", "Impresoras" };
+	private static final String[] PRIORIDADES = { "BAJA", "MEDIA", "ALTA" };
+	private static final int NUM_TECNICOS = 200;
+
+	public static void main(String[] args) {
+		int numTickets = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+		int repeticiones = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		Random rnd = new Random(42);
+		List<Tecnico> tecnicos = new ArrayList<>();
+		for (int i = 0; i < NUM_TECNICOS; i++) {
+			tecnicos.add(new Tecnico("TE" + i, "Técnico " + i, "te" + i + "@ejemplo.com", "x",
+					CATEGORIAS[i % CATEGORIAS.length]));
+		}
+		LocalDateTime inicioAno = LocalDateTime.of(2025, 1, 1, 0, 0);
+		List<Ticket> tickets = new ArrayList<>(numTickets);
+		for (int i = 0; i < numTickets; i++) {
+			Ticket t = new Ticket("TK" + i, null, null, "CL" + rnd.nextInt(1000), CATEGORIAS[rnd.nextInt(CATEGORIAS.length)]);
+			t.setPrioridad(PRIORIDADES[rnd.nextInt(PRIORIDADES.length)]);
+			t.setFechaCreacion(inicioAno.plusMinutes(rnd.nextInt(365 * 24 * 60)));
+			if (rnd.nextInt(10) > 0) {
+				t.setAsignadoA("TE" + rnd.nextInt(NUM_TECNICOS));
+				if (rnd.nextInt(10) < 7) {
+					t.setEstado("CERRADO");
+					t.setFechaCierre(t.getFechaCreacion().plusMinutes(30 + rnd.nextInt(7 * 24 * 60)));
+				} else {
+					t.setEstado("EN_PROCESO");
+				}
+			}
+			tickets.add(t);
+		}
+		System.out.println("Generados " + numTickets + " tickets y " + NUM_TECNICOS + " técnicos");
+
+		int nucleos = Runtime.getRuntime().availableProcessors();
+		List<Fila> referencia = null;
+		double msUnHilo = 0;
+		boolean correcto = true;
+		for (int hilos = 1; hilos <= nucleos; hilos = hilos < nucleos ? Math.min(hilos * 2, nucleos) : hilos + 1) {
+			ForkJoinPool pool = new ForkJoinPool(hilos);
+			ConsultaTickets consulta = new ConsultaTickets().usando(pool)
+					.cerradosEntre(LocalDateTime.of(2025, 7, 1, 0, 0), LocalDateTime.of(2025, 10, 1, 0, 0))
+					.agruparPor(Dimension.CATEGORIA, Dimension.NOMBRE_TECNICO);
+			List<Fila> filas = consulta.ejecutar(tickets, tecnicos); // calentamiento
+			long mejor = Long.MAX_VALUE;
+			for (int r = 0; r < repeticiones; r++) {
+				long inicio = System.nanoTime();
+				filas = consulta.ejecutar(tickets, tecnicos);
+				mejor = Math.min(mejor, System.nanoTime() - inicio);
+			}
+			pool.shutdown();
+
+			double ms = mejor / 1e6;
+			if (referencia == null) {
+				referencia = filas;
+				msUnHilo = ms;
+			} else if (!iguales(referencia, filas)) {
+				System.out.println("FALLO: con " + hilos + " hilos el resultado no coincide con el de 1 hilo");
+				correcto = false;
+			}
+			System.out.printf("%2d hilos: %8.1f ms  (x%.2f)  %d grupos%n", hilos, ms, msUnHilo / ms, filas.size());
+		}
+		if (referencia != null && !referencia.isEmpty()) {
+			System.out.println("Ejemplo: " + referencia.get(0));
+		}
+		System.out.println(correcto ? "OK" : "FALLOS");
+		System.exit(correcto ? 0 : 1);
+	}
+
+	private static boolean iguales(List<Fila> a, List<Fila> b) {
+		if (a.size() != b.size()) {
+			return false;
+		}
+		for (int i = 0; i < a.size(); i++) {
+			Fila x = a.get(i);
+			Fila y = b.get(i);
+			if (!x.getClave().equals(y.getClave()) || x.getTickets() != y.getTickets()
+					|| x.getCerrados() != y.getCerrados()
+					|| !x.getTiempoMedioResolucion().equals(y.getTiempoMedioResolucion())
+					|| !x.getTiempoMaximoResolucion().equals(y.getTiempoMaximoResolucion())) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,197 @@
+package controller;
+
+import model.ContadorTickets;
+import model.Ticket;
+import util.CerrojosSegmentados;
+import util.Constantes;
+import util.Serializador;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * DAO para los contadores de tickets por persona (ContadorTickets). La capa de
+ * servicio los actualiza justo después de cada escritura de tickets; si esa
+ * actualización falla el fichero se invalida y se reconstruye desde los tickets
+ * en la siguiente lectura, de modo que nunca quedan desincronizados.
+ */
+@SuppressWarnings("try")
+public class ContadorTicketsDAO {
+
+	public List<ContadorTickets> findAll() {
+		if (!Serializador.existe(Constantes.CONTADORES_FILE)) {
+			try {
+				return reconstruir();
+			} catch (IOException e) {
+				System.err.println("No se pudieron reconstruir los contadores de tickets. Causa: " + e.getMessage());
+			}
+		}
+		return Serializador.leerLista(Constantes.CONTADORES_FILE);
+	}
+
+	/**
+	 * Como findAll, pero devuelve la última versión publicada sin copiarla (para
+	 * consultas: las filas son de solo lectura).
+	 */
+	public List<ContadorTickets> findAllSoloLectura() {
+		if (!Serializador.existe(Constantes.CONTADORES_FILE)) {
+			try {
+				return reconstruir();
+			} catch (IOException e) {
+				System.err.println("No se pudieron reconstruir los contadores de tickets. Causa: " + e.getMessage());
+			}
+		}
+		return Serializador.<ContadorTickets>instantanea(Constantes.CONTADORES_FILE).getElementos();
+	}
+
+	/**
+	 * Devuelve todos los contadores indexados por id de persona.
+	 */
+	public Map<String, ContadorTickets> findAllAsMap() {
+		Map<String, ContadorTickets> mapa = new HashMap<>();
+		findAll().forEach(c -> mapa.put(c.getPersonaId(), c));
+		return mapa;
+	}
+
+	/**
+	 * Devuelve los contadores de una persona. Si no aparece en ningún ticket se
+	 * devuelve un contador a cero (nunca null).
+	 */
+	public ContadorTickets findByPersonaId(String personaId) {
+		if (personaId == null) {
+			return new ContadorTickets(null);
+		}
+		return findAll().stream().filter(c -> personaId.equals(c.getPersonaId())).findFirst()
+				.orElseGet(() -> new ContadorTickets(personaId));
+	}
+
+	/**
+	 * Registra un ticket recién creado por autorId.
+	 */
+	public void registrarCreacion(String autorId) throws IOException {
+		modificar(autorId, ContadorTickets::sumarCreado);
+	}
+
+	/**
+	 * Registra la asignación de un ticket abierto a tecnicoId.
+	 */
+	public void registrarAsignacion(String tecnicoId) throws IOException {
+		modificar(tecnicoId, ContadorTickets::sumarAsignado);
+	}
+
+	/**
+	 * Registra que un ticket abierto pasa de anteriorId (puede ser null) a
+	 * nuevoId.
+	 */
+	public void registrarReasignacion(String anteriorId, String nuevoId) throws IOException {
+		try (CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.CONTADORES_FILE)) {
+			if (reconstruirSiFalta()) {
+				return;
+			}
+			Map<String, ContadorTickets> mapa = findAllAsMap();
+			if (anteriorId != null) {
+				mapa.computeIfAbsent(anteriorId, ContadorTickets::new).quitarAsignado();
+			}
+			if (nuevoId != null) {
+				mapa.computeIfAbsent(nuevoId, ContadorTickets::new).sumarAsignado();
+			}
+			Serializador.guardarLista(Constantes.CONTADORES_FILE, new ArrayList<>(mapa.values()));
+		}
+	}
+
+	/**
+	 * Registra el cierre de un ticket: deja de contar como abierto para su autor y
+	 * para el técnico asignado (cualquiera de los dos puede ser null).
+	 */
+	public void registrarCierre(String autorId, String tecnicoId) throws IOException {
+		try (CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.CONTADORES_FILE)) {
+			if (reconstruirSiFalta()) {
+				return;
+			}
+			Map<String, ContadorTickets> mapa = findAllAsMap();
+			if (autorId != null) {
+				mapa.computeIfAbsent(autorId, ContadorTickets::new).cerrarCreado();
+			}
+			if (tecnicoId != null) {
+				mapa.computeIfAbsent(tecnicoId, ContadorTickets::new).cerrarAsignado();
+			}
+			Serializador.guardarLista(Constantes.CONTADORES_FILE, new ArrayList<>(mapa.values()));
+		}
+	}
+
+	/**
+	 * Vuelve a calcular todos los contadores recorriendo los tickets.
+	 *
+	 * @return Los contadores recién calculados.
+	 */
+	public List<ContadorTickets> reconstruir() throws IOException {
+		try (CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.CONTADORES_FILE)) {
+			Map<String, ContadorTickets> mapa = new HashMap<>();
+			for (Ticket t : new TicketDAO().findAll()) {
+				if (t.getAutorId() != null) {
+					ContadorTickets autor = mapa.computeIfAbsent(t.getAutorId(), ContadorTickets::new);
+					autor.sumarCreado();
+					if (t.cerrado()) {
+						autor.cerrarCreado();
+					}
+				}
+				if (t.asignado()) {
+					ContadorTickets tecnico = mapa.computeIfAbsent(t.getAsignadoA(), ContadorTickets::new);
+					tecnico.sumarAsignado();
+					if (t.cerrado()) {
+						tecnico.cerrarAsignado();
+					}
+				}
+			}
+			List<ContadorTickets> lista = new ArrayList<>(mapa.values());
+			Serializador.sobrescribirLista(Constantes.CONTADORES_FILE, lista);
+			return lista;
+		}
+	}
+
+	/**
+	 * Descarta los contadores persistidos para que se reconstruyan en la siguiente
+	 * lectura.
+	 */
+	public void invalidar() {
+		try {
+			Serializador.borrar(Constantes.CONTADORES_FILE);
+		} catch (IOException e) {
+			System.err.println("No se pudieron invalidar los contadores de tickets. Causa: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Si el fichero no existe lo reconstruye desde los tickets. Como los cambios se
+	 * registran después de guardar el ticket, la reconstrucción ya los incluye y no
+	 * hay que volver a aplicarlos.
+	 *
+	 * @return true si se ha reconstruido.
+	 */
+	private boolean reconstruirSiFalta() throws IOException {
+		if (!Serializador.existe(Constantes.CONTADORES_FILE)) {
+			reconstruir();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Lee los contadores, aplica el cambio al de la persona indicada (creándolo si
+	 * no existía) y los guarda.
+	 */
+	private void modificar(String personaId, Consumer<ContadorTickets> cambio) throws IOException {
+		try (CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.CONTADORES_FILE)) {
+			if (personaId == null || reconstruirSiFalta()) {
+				return;
+			}
+			Map<String, ContadorTickets> mapa = findAllAsMap();
+			cambio.accept(mapa.computeIfAbsent(personaId, ContadorTickets::new));
+			Serializador.guardarLista(Constantes.CONTADORES_FILE, new ArrayList<>(mapa.values()));
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package controller;
+
+import model.Ticket;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Criterios combinados para TicketDAO.buscar(): todos los indicados se tienen
+ * que cumplir a la vez (AND). Por ejemplo, los 20 tickets abiertos de Redes
+ * asignados a un técnico creados más recientemente en la última semana:
+ *
+ * <pre>
+ * new CriteriosTickets().estado("ABIERTO").categoria("Redes").asignadoA("TE001")
+ * 		.creadosEntre(LocalDateTime.now().minusDays(7), null).ordenarPor(Orden.CREACION_DESC).limite(20)
+ * </pre>
+ *
+ * Estado, categoría y prioridad se comparan sin distinguir mayúsculas (como
+ * findByEstado...), los ids tal cual. Un criterio a null no filtra.
+ */
+public class CriteriosTickets {
+
+	/**
+	 * Orden del resultado. Los tickets sin la fecha van al final.
+	 */
+	public enum Orden {
+		CREACION_ASC, CREACION_DESC, CIERRE_ASC, CIERRE_DESC;
+
+		boolean porCreacion() {
+			return this == CREACION_ASC || this == CREACION_DESC;
+		}
+
+		boolean descendente() {
+			return this == CREACION_DESC || this == CIERRE_DESC;
+		}
+
+		Comparator<Ticket> comparador() {
+			Comparator<LocalDateTime> fechas = descendente() ? Comparator.reverseOrder() : Comparator.naturalOrder();
+			return Comparator.comparing(porCreacion() ? Ticket::getFechaCreacion : Ticket::getFechaCierre,
+					Comparator.nullsLast(fechas));
+		}
+	}
+
+	String estado;
+	String categoria;
+	String prioridad;
+	String asignadoA;
+	String autorId;
+	LocalDateTime creadosDesde;
+	LocalDateTime creadosHasta;
+	boolean porCreacion;
+	LocalDateTime cerradosDesde;
+	LocalDateTime cerradosHasta;
+	boolean porCierre;
+	Orden orden;
+	int limite = Integer.MAX_VALUE;
+
+	public CriteriosTickets estado(String estado) {
+		this.estado = estado;
+		return this;
+	}
+
+	public CriteriosTickets categoria(String categoria) {
+		this.categoria = categoria;
+		return this;
+	}
+
+	public CriteriosTickets prioridad(String prioridad) {
+		this.prioridad = prioridad;
+		return this;
+	}
+
+	/**
+	 * Tickets asignados al técnico con este id.
+	 */
+	public CriteriosTickets asignadoA(String tecnicoId) {
+		this.asignadoA = tecnicoId;
+		return this;
+	}
+
+	/**
+	 * Tickets creados por el cliente con este id.
+	 */
+	public CriteriosTickets autor(String clienteId) {
+		this.autorId = clienteId;
+		return this;
+	}
+
+	/**
+	 * Tickets creados en [desde, hasta). Cualquiera de los dos puede ser null (sin
+	 * límite por ese lado).
+	 */
+	public CriteriosTickets creadosEntre(LocalDateTime desde, LocalDateTime hasta) {
+		this.creadosDesde = desde;
+		this.creadosHasta = hasta;
+		this.porCreacion = true;
+		return this;
+	}
+
+	/**
+	 * Tickets con fecha de cierre en [desde, hasta). Cualquiera de los dos puede
+	 * ser null (sin límite por ese lado, pero con fecha de cierre).
+	 */
+	public CriteriosTickets cerradosEntre(LocalDateTime desde, LocalDateTime hasta) {
+		this.cerradosDesde = desde;
+		this.cerradosHasta = hasta;
+		this.porCierre = true;
+		return this;
+	}
+
+	public CriteriosTickets ordenarPor(Orden orden) {
+		this.orden = orden;
+		return this;
+	}
+
+	/**
+	 * Número máximo de tickets a devolver (los primeros según el orden).
+	 */
+	public CriteriosTickets limite(int limite) {
+		if (limite < 0) {
+			throw new IllegalArgumentException("El límite no puede ser negativo: " + limite);
+		}
+		this.limite = limite;
+		return this;
+	}
+
+	/**
+	 * Si el ticket cumple todos los criterios.
+	 */
+	public boolean cumple(Ticket t) {
+		return t != null && (estado == null || estado.equalsIgnoreCase(t.getEstado()))
+				&& (categoria == null || categoria.equalsIgnoreCase(t.getCategoria()))
+				&& (prioridad == null || prioridad.equalsIgnoreCase(t.getPrioridad()))
+				&& (asignadoA == null || asignadoA.equals(t.getAsignadoA()))
+				&& (autorId == null || autorId.equals(t.getAutorId()))
+				&& (!porCreacion || dentro(t.getFechaCreacion(), creadosDesde, creadosHasta))
+				&& (!porCierre || dentro(t.getFechaCierre(), cerradosDesde, cerradosHasta));
+	}
+
+	private static boolean dentro(LocalDateTime fecha, LocalDateTime desde, LocalDateTime hasta) {
+		return fecha != null && (desde == null || !fecha.isBefore(desde)) && (hasta == null || fecha.isBefore(hasta));
+	}
+}
@@ -0,0 +1,100 @@
+package controller;
+
+import model.Ticket;
+import util.Constantes;
+import util.IndiceTemporal;
+import util.IndiceValores;
+import util.Instantanea;
+import util.Serializador;
+
+import java.util.List;
+
+/**
+ * Índices de una versión publicada de los tickets: por fecha de creación y de
+ * cierre (IndiceTemporal) y por estado, categoría, prioridad, técnico y autor
+ * (IndiceValores). Cada uno se construye la primera vez que se usa con esa
+ * versión; la siguiente escritura publica otra versión con índices nuevos.
+ */
+final class IndicesTickets {
+
+	private static volatile IndicesTickets actuales;
+
+	final Instantanea<Ticket> instantanea;
+	final List<Ticket> tickets;
+	private IndiceTemporal<Ticket> creacion;
+	private IndiceTemporal<Ticket> cierre;
+	private IndiceValores estado;
+	private IndiceValores categoria;
+	private IndiceValores prioridad;
+	private IndiceValores asignado;
+	private IndiceValores autor;
+
+	private IndicesTickets(Instantanea<Ticket> instantanea) {
+		this.instantanea = instantanea;
+		this.tickets = instantanea.getElementos();
+	}
+
+	/**
+	 * Índices de la última versión publicada: los mismos mientras no haya otra
+	 * escritura.
+	 */
+	static IndicesTickets actuales() {
+		Instantanea<Ticket> actual = Serializador.instantanea(Constantes.TICKETS_FILE);
+		IndicesTickets cache = actuales;
+		if (cache != null && cache.instantanea == actual) {
+			return cache;
+		}
+		IndicesTickets nuevos = new IndicesTickets(actual);
+		actuales = nuevos;
+		return nuevos;
+	}
+
+	synchronized IndiceTemporal<Ticket> creacion() {
+		if (creacion == null) {
+			creacion = IndiceTemporal.construir(tickets, Ticket::getFechaCreacion);
+		}
+		return creacion;
+	}
+
+	synchronized IndiceTemporal<Ticket> cierre() {
+		if (cierre == null) {
+			cierre = IndiceTemporal.construir(tickets, Ticket::getFechaCierre);
+		}
+		return cierre;
+	}
+
+	synchronized IndiceValores estado() {
+		if (estado == null) {
+			estado = IndiceValores.construir(tickets, Ticket::getEstado, true);
+		}
+		return estado;
+	}
+
+	synchronized IndiceValores categoria() {
+		if (categoria == null) {
+			categoria = IndiceValores.construir(tickets, Ticket::getCategoria, true);
+		}
+		return categoria;
+	}
+
+	synchronized IndiceValores prioridad() {
+		if (prioridad == null) {
+			prioridad = IndiceValores.construir(tickets, Ticket::getPrioridad, true);
+		}
+		return prioridad;
+	}
+
+	synchronized IndiceValores asignado() {
+		if (asignado == null) {
+			asignado = IndiceValores.construir(tickets, Ticket::getAsignadoA, false);
+		}
+		return asignado;
+	}
+
+	synchronized IndiceValores autor() {
+		if (autor == null) {
+			autor = IndiceValores.construir(tickets, Ticket::getAutorId, false);
+		}
+		return autor;
+	}
+}
@@ -0,0 +1,290 @@
+package controller;
+
+import model.Ticket;
+import util.IndiceTemporal;
+import util.IndiceValores;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Cómo se resuelve una búsqueda de TicketDAO.buscar(). Se elige el camino que
+ * menos tickets tiene que mirar, estimado con el tamaño de cada índice:
+ *
+ * - Por valores: se parte de la lista de posiciones más corta de los criterios
+ * de igualdad (estado, categoría...) y se cruza con las demás
+ * (IndiceValores.interseccion()).
+ * - Por fechas: se recorre el rango de fechas de creación o de cierre. Si el
+ * orden pedido es el de ese índice, el resultado sale ya ordenado y se para al
+ * llegar al límite: se miran unos limite / selectividad tickets, no todo el
+ * rango.
+ * - Por orden: sin rango de fechas pero con orden y límite, se recorre el índice
+ * de esa fecha y se para al llegar al límite.
+ * - Recorrido completo, si no hay nada mejor.
+ *
+ * Los tickets candidatos se comprueban siempre con CriteriosTickets.cumple();
+ * si hace falta ordenarlos y hay límite, se quedan los primeros con un montículo
+ * de tamaño limite, sin ordenar todos.
+ */
+final class PlanConsultaTickets {
+
+	private enum Camino {
+		VALORES, FECHAS, ORDEN, RECORRIDO
+	}
+
+	/**
+	 * Un criterio de igualdad con sus posiciones en el índice.
+	 */
+	private static final class Igualdad {
+
+		final String descripcion;
+		final int[] posiciones;
+
+		Igualdad(String campo, String valor, IndiceValores indice) {
+			this.descripcion = campo + "=" + valor;
+			this.posiciones = indice.posiciones(valor);
+		}
+	}
+
+	private final CriteriosTickets criterios;
+	private final IndicesTickets indices;
+	private final List<Igualdad> igualdades = new ArrayList<>();
+	private Camino camino;
+	/** Índice de fechas que se recorre (FECHAS y ORDEN) y su tramo [inicio, fin). */
+	private IndiceTemporal<Ticket> indiceFechas;
+	private String nombreIndiceFechas;
+	private int inicio;
+	private int fin;
+	private boolean descendente;
+	/** Si el recorrido del índice de fechas ya da el orden pedido. */
+	private boolean yaOrdenado;
+	private long coste;
+
+	private PlanConsultaTickets(CriteriosTickets criterios, IndicesTickets indices) {
+		this.criterios = criterios;
+		this.indices = indices;
+	}
+
+	/**
+	 * Elige el camino con el menor número estimado de tickets a mirar.
+	 */
+	static PlanConsultaTickets planificar(CriteriosTickets c, IndicesTickets indices) {
+		PlanConsultaTickets plan = new PlanConsultaTickets(c, indices);
+		int n = indices.tickets.size();
+		if (c.estado != null) {
+			plan.igualdades.add(new Igualdad("estado", c.estado, indices.estado()));
+		}
+		if (c.categoria != null) {
+			plan.igualdades.add(new Igualdad("categoria", c.categoria, indices.categoria()));
+		}
+		if (c.prioridad != null) {
+			plan.igualdades.add(new Igualdad("prioridad", c.prioridad, indices.prioridad()));
+		}
+		if (c.asignadoA != null) {
+			plan.igualdades.add(new Igualdad("asignadoA", c.asignadoA, indices.asignado()));
+		}
+		if (c.autorId != null) {
+			plan.igualdades.add(new Igualdad("autor", c.autorId, indices.autor()));
+		}
+		plan.igualdades.sort(Comparator.comparingInt(i -> i.posiciones.length));
+
+		// Fracción de tickets que cumplen cada criterio, como si fueran independientes
+		double selectividad = 1;
+		for (Igualdad i : plan.igualdades) {
+			selectividad *= fraccion(i.posiciones.length, n);
+		}
+		int enCreacion = c.porCreacion ? indices.creacion().contar(c.creadosDesde, c.creadosHasta) : n;
+		int enCierre = c.porCierre ? indices.cierre().contar(c.cerradosDesde, c.cerradosHasta) : n;
+		selectividad *= fraccion(enCreacion, n) * fraccion(enCierre, n);
+
+		plan.camino = Camino.RECORRIDO;
+		plan.coste = c.orden == null ? hastaElLimite(n, c.limite, selectividad) : n;
+		if (!plan.igualdades.isEmpty()) {
+			plan.elegir(Camino.VALORES, plan.igualdades.get(0).posiciones.length, null, null, 0, 0);
+		}
+		if (c.porCreacion) {
+			IndiceTemporal<Ticket> indice = indices.creacion();
+			plan.elegir(Camino.FECHAS, costeIndice(c, true, enCreacion, fraccion(enCreacion, n), selectividad),
+					indice, "fechaCreacion", indice.inicio(c.creadosDesde), indice.fin(c.creadosHasta));
+		}
+		if (c.porCierre) {
+			IndiceTemporal<Ticket> indice = indices.cierre();
+			plan.elegir(Camino.FECHAS, costeIndice(c, false, enCierre, fraccion(enCierre, n), selectividad),
+					indice, "fechaCierre", indice.inicio(c.cerradosDesde), indice.fin(c.cerradosHasta));
+		}
+		if (c.orden != null && (c.orden.porCreacion() ? !c.porCreacion : !c.porCierre)) {
+			// Solo si todos los tickets tienen esa fecha: los que no, irían al final
+			IndiceTemporal<Ticket> indice = c.orden.porCreacion() ? indices.creacion() : indices.cierre();
+			if (indice.tamano() == n) {
+				plan.elegir(Camino.ORDEN, hastaElLimite(n, c.limite, selectividad), indice,
+						c.orden.porCreacion() ? "fechaCreacion" : "fechaCierre", 0, n);
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * Tickets a mirar recorriendo un rango de fechas de tamano elementos.
+	 */
+	private static long costeIndice(CriteriosTickets c, boolean porCreacion, int tamano, double fraccionRango,
+			double selectividad) {
+		boolean mismoOrden = c.orden != null && c.orden.porCreacion() == porCreacion;
+		if (!mismoOrden && c.orden != null) {
+			return tamano;
+		}
+		// Dentro del rango solo falta cumplir el resto de criterios
+		return Math.min(tamano, hastaElLimite(tamano, c.limite, selectividad / Math.max(fraccionRango, 1e-12)));
+	}
+
+	private void elegir(Camino candidato, long costeCandidato, IndiceTemporal<Ticket> indice, String nombre,
+			int inicioRango, int finRango) {
+		if (costeCandidato >= coste) {
+			return;
+		}
+		camino = candidato;
+		coste = costeCandidato;
+		indiceFechas = indice;
+		nombreIndiceFechas = nombre;
+		inicio = inicioRango;
+		fin = finRango;
+		yaOrdenado = criterios.orden != null && indice != null
+				&& criterios.orden.porCreacion() == "fechaCreacion".equals(nombre);
+		descendente = yaOrdenado && criterios.orden.descendente();
+	}
+
+	/**
+	 * Tickets que hay que mirar para encontrar limite que cumplan, con la
+	 * selectividad estimada (como mucho, todos).
+	 */
+	private static long hastaElLimite(int total, int limite, double selectividad) {
+		if (limite == Integer.MAX_VALUE || selectividad <= 0) {
+			return total;
+		}
+		return (long) Math.min(total, Math.ceil(limite / Math.min(1, selectividad)));
+	}
+
+	private static double fraccion(int parte, int total) {
+		return total == 0 ? 0 : parte / (double) total;
+	}
+
+	/**
+	 * Ejecuta el plan.
+	 */
+	List<Ticket> ejecutar() {
+		Seleccion seleccion = new Seleccion(criterios, yaOrdenado || criterios.orden == null);
+		if (criterios.limite == 0) {
+			return List.of();
+		}
+		switch (camino) {
+		case VALORES:
+			int[] posiciones = igualdades.get(0).posiciones;
+			for (int i = 1; i < igualdades.size() && posiciones.length > 0; i++) {
+				posiciones = IndiceValores.interseccion(posiciones, igualdades.get(i).posiciones);
+			}
+			for (int posicion : posiciones) {
+				if (!seleccion.ofrecer(indices.tickets.get(posicion))) {
+					break;
+				}
+			}
+			break;
+		case FECHAS:
+		case ORDEN:
+			for (int i = 0; i < fin - inicio; i++) {
+				if (!seleccion.ofrecer(indiceFechas.elemento(descendente ? fin - 1 - i : inicio + i))) {
+					break;
+				}
+			}
+			break;
+		default:
+			for (Ticket t : indices.tickets) {
+				if (!seleccion.ofrecer(t)) {
+					break;
+				}
+			}
+			break;
+		}
+		return seleccion.resultado();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		switch (camino) {
+		case VALORES:
+			sb.append("índices ");
+			for (int i = 0; i < igualdades.size(); i++) {
+				Igualdad igualdad = igualdades.get(i);
+				sb.append(i > 0 ? " ∩ " : "").append(igualdad.descripcion).append(" (")
+						.append(igualdad.posiciones.length).append(')');
+			}
+			break;
+		case FECHAS:
+			sb.append("rango de ").append(nombreIndiceFechas).append(" (").append(fin - inicio).append(')');
+			break;
+		case ORDEN:
+			sb.append("índice de ").append(nombreIndiceFechas).append(" en orden");
+			break;
+		default:
+			sb.append("recorrido de ").append(indices.tickets.size()).append(" tickets");
+			break;
+		}
+		sb.append(", unos ").append(coste).append(" tickets a mirar");
+		if (criterios.orden != null) {
+			sb.append(yaOrdenado ? ", ya en orden " : ", ordenando por ").append(criterios.orden);
+		}
+		if (criterios.limite != Integer.MAX_VALUE) {
+			sb.append(", límite ").append(criterios.limite);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Recoge los tickets que cumplen los criterios: en el orden en que llegan
+	 * hasta el límite, o los limite primeros según el orden pedido (montículo).
+	 */
+	private static final class Seleccion {
+
+		private final CriteriosTickets criterios;
+		private final boolean enOrdenDeLlegada;
+		private final List<Ticket> encontrados = new ArrayList<>();
+		private final PriorityQueue<Ticket> primeros;
+
+		Seleccion(CriteriosTickets criterios, boolean enOrdenDeLlegada) {
+			this.criterios = criterios;
+			this.enOrdenDeLlegada = enOrdenDeLlegada;
+			this.primeros = !enOrdenDeLlegada && criterios.limite != Integer.MAX_VALUE
+					// El peor de los guardados, arriba
+					? new PriorityQueue<>(Math.min(criterios.limite, 1024) + 1,
+							criterios.orden.comparador().reversed())
+					: null;
+		}
+
+		/**
+		 * @return false si ya no hace falta mirar más tickets.
+		 */
+		boolean ofrecer(Ticket t) {
+			if (!criterios.cumple(t)) {
+				return true;
+			}
+			if (primeros == null) {
+				encontrados.add(t);
+				return !enOrdenDeLlegada || encontrados.size() < criterios.limite;
+			}
+			primeros.add(t);
+			if (primeros.size() > criterios.limite) {
+				primeros.poll();
+			}
+			return true;
+		}
+
+		List<Ticket> resultado() {
+			List<Ticket> resultado = primeros != null ? new ArrayList<>(primeros) : encontrados;
+			if (!enOrdenDeLlegada) {
+				resultado.sort(criterios.orden.comparador());
+			}
+			return resultado;
+		}
+	}
+}
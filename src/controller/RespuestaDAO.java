@@ -1,25 +1,34 @@
 package controller;
 
 import model.Respuesta;
+import util.CerrojosSegmentados;
+import util.ConflictoVersionException;
 import util.Constantes;
 import util.Serializador;
+import util.metricas.Medicion;
+import util.metricas.Metricas;
 import java.io.IOException;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+@SuppressWarnings("try")
 public class RespuestaDAO {
 
 	public List<Respuesta> findAll() {
-		return Serializador.leerLista(Constantes.RESPUESTAS_FILE);
+		try (Medicion m = Metricas.medir("RespuestaDAO.findAll")) {
+			return Serializador.leerLista(Constantes.RESPUESTAS_FILE);
+		}
 	}
 
 	public Optional<Respuesta> findById(String id) {
-		if (id == null) {
-			return Optional.empty();
+		try (Medicion m = Metricas.medir("RespuestaDAO.findById")) {
+			if (id == null) {
+				return Optional.empty();
+			}
+			return findAll().stream().filter(r -> id.equals(r.getId())).findFirst();
 		}
-		return findAll().stream().filter(r -> id.equals(r.getId())).findFirst();
 	}
 
 	public boolean existsById(String id) {
@@ -33,52 +42,75 @@ public class RespuestaDAO {
 	 * @return La respuesta guardada con su nuevo ID, o Optional.empty() si falla.
 	 */
 	public Optional<Respuesta> crear(Respuesta r) throws IOException {
-		if (r == null) {
-			return Optional.empty();
+		try (Medicion m = Metricas.medir("RespuestaDAO.crear");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.RESPUESTAS_FILE)) {
+			if (r == null) {
+				return Optional.empty();
+			}
+			List<Respuesta> lista = findAll();
+			String nuevoId = generarSiguienteId(lista);
+			r.setId(nuevoId);
+			lista.add(r);
+			Serializador.guardarLista(Constantes.RESPUESTAS_FILE, lista);
+			return Optional.of(r);
 		}
-		List<Respuesta> lista = findAll();
-		String nuevoId = generarSiguienteId(lista);
-		r.setId(nuevoId);
-		lista.add(r);
-		Serializador.guardarLista(Constantes.RESPUESTAS_FILE, lista);
-		return Optional.of(r);
 	}
 
 	/**
 	 * Actualiza una Respuesta existente (busca por id).
+	 * Solo se guarda si su versión coincide con la almacenada (nadie lo ha
+	 * cambiado desde que se leyó); al guardar se incrementa la versión.
 	 * 
 	 * @return Un Optional con la respuesta actualizada si se encontró, o
 	 *         Optional.empty() si no.
+	 * @throws ConflictoVersionException si otro lo ha actualizado antes; se puede
+	 *                                   volver a leer y repetir el cambio.
 	 */
 	public Optional<Respuesta> actualizar(Respuesta r) throws IOException {
-		if (r == null || r.getId() == null) {
-			return Optional.empty();
-		}
+		try (Medicion m = Metricas.medir("RespuestaDAO.actualizar");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.RESPUESTAS_FILE)) {
+			if (r == null || r.getId() == null) {
+				return Optional.empty();
+			}
 
-		List<Respuesta> lista = findAll();
-		for (int i = 0; i < lista.size(); i++) {
-			if (r.getId().equals(lista.get(i).getId())) {
-				lista.set(i, r);
-				Serializador.guardarLista(Constantes.RESPUESTAS_FILE, lista);
-				return Optional.of(r);
+			List<Respuesta> lista = findAll();
+			for (int i = 0; i < lista.size(); i++) {
+				if (r.getId().equals(lista.get(i).getId())) {
+					long guardada = lista.get(i).getVersion();
+					if (guardada != r.getVersion()) {
+						throw ConflictoVersionException.deRegistro("La respuesta", r.getId(), r.getVersion(), guardada);
+					}
+					r.setVersion(guardada + 1);
+					lista.set(i, r);
+					try {
+						Serializador.guardarLista(Constantes.RESPUESTAS_FILE, lista);
+					} catch (IOException e) {
+						r.setVersion(guardada);
+						throw e;
+					}
+					return Optional.of(r);
+				}
 			}
+			return Optional.empty();
 		}
-		return Optional.empty();
 	}
 
 	/**
 	 * Elimina una Respuesta por id. Devuelve true si se eliminó.
 	 */
 	public boolean borrar(String id) throws IOException {
-		if (id == null) {
-			return false;
-		}
-		List<Respuesta> lista = findAll();
-		boolean removed = lista.removeIf(r -> id.equals(r.getId()));
-		if (removed) {
-			Serializador.guardarLista(Constantes.RESPUESTAS_FILE, lista);
+		try (Medicion m = Metricas.medir("RespuestaDAO.borrar");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.RESPUESTAS_FILE)) {
+			if (id == null) {
+				return false;
+			}
+			List<Respuesta> lista = findAll();
+			boolean removed = lista.removeIf(r -> id.equals(r.getId()));
+			if (removed) {
+				Serializador.guardarLista(Constantes.RESPUESTAS_FILE, lista);
+			}
+			return removed;
 		}
-		return removed;
 	}
 
 	/**
@@ -86,10 +118,12 @@ public class RespuestaDAO {
 	 * es null, devuelve lista vacía.
 	 */
 	public List<Respuesta> findByTicketId(String ticketId) {
-		if (ticketId == null) {
-			return List.of();
+		try (Medicion m = Metricas.medir("RespuestaDAO.findByTicketId")) {
+			if (ticketId == null) {
+				return List.of();
+			}
+			return findAll().stream().filter(r -> ticketId.equals(r.getTicketId())).collect(Collectors.toList());
 		}
-		return findAll().stream().filter(r -> ticketId.equals(r.getTicketId())).collect(Collectors.toList());
 	}
 
 	/**
@@ -0,0 +1,53 @@
+package controller;
+
+import model.SerieTickets;
+import util.CerrojosSegmentados;
+import util.Constantes;
+import util.Serializador;
+import util.metricas.Medicion;
+import util.metricas.Metricas;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * DAO de las series temporales de tickets creados y cerrados
+ * (service.SeriesTickets). Es información derivada de los tickets: si el
+ * fichero no existe se reconstruye desde ellos.
+ */
+@SuppressWarnings("try")
+public class SerieTicketsDAO {
+
+	public List<SerieTickets> findAll() {
+		try (Medicion m = Metricas.medir("SerieTicketsDAO.findAll")) {
+			return Serializador.leerLista(Constantes.SERIES_FILE);
+		}
+	}
+
+	public boolean existe() {
+		return Serializador.existe(Constantes.SERIES_FILE);
+	}
+
+	/**
+	 * Sustituye todas las series guardadas. Solo desde el proceso que escribe en
+	 * local: en modo cliente/servidor borraría lo sumado por otros procesos (ver
+	 * SeriesTickets).
+	 */
+	public void guardarTodas(List<SerieTickets> series) throws IOException {
+		try (Medicion m = Metricas.medir("SerieTicketsDAO.guardarTodas");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.SERIES_FILE)) {
+			Serializador.sobrescribirLista(Constantes.SERIES_FILE, series);
+		}
+	}
+
+	/**
+	 * Descarta las series guardadas para que se reconstruyan desde los tickets.
+	 */
+	public void invalidar() {
+		try {
+			Serializador.borrar(Constantes.SERIES_FILE);
+		} catch (IOException e) {
+			System.err.println("No se pudieron invalidar las series de tickets. Causa: " + e.getMessage());
+		}
+	}
+}
@@ -1,35 +1,69 @@
 package controller;
 
 import model.Tecnico;
+import util.CerrojosSegmentados;
+import util.ConflictoVersionException;
 import util.Constantes;
 import util.Serializador;
+import util.metricas.Medicion;
+import util.metricas.Metricas;
 import java.io.IOException;
 
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * DAO para Tecnico - operaciones CRUD y búsquedas útiles para asignación.
  */
+@SuppressWarnings("try")
 public class TecnicoDAO {
 
 	public List<Tecnico> findAll() {
-		return Serializador.leerLista(Constantes.TECNICOS_FILE);
+		try (Medicion m = Metricas.medir("TecnicoDAO.findAll")) {
+			return Serializador.leerLista(Constantes.TECNICOS_FILE);
+		}
 	}
 
 	public Optional<Tecnico> findById(String id) {
-		if (id == null) {
-			return Optional.empty();
+		try (Medicion m = Metricas.medir("TecnicoDAO.findById")) {
+			if (id == null) {
+				return Optional.empty();
+			}
+			return findAll().stream().filter(t -> id.equals(t.getId())).findFirst();
 		}
-		return findAll().stream().filter(t -> id.equals(t.getId())).findFirst();
 	}
 
 	public boolean existsById(String id) {
 		return findById(id).isPresent();
 	}
 
+	/**
+	 * Busca varios técnicos a la vez con una sola lectura del fichero. Los ids
+	 * nulos o que no existan se ignoran.
+	 *
+	 * @param ids colección de ids a resolver
+	 * @return Map id -> Tecnico con los técnicos encontrados (nunca null)
+	 */
+	public Map<String, Tecnico> findAllByIds(Collection<String> ids) {
+		try (Medicion m = Metricas.medir("TecnicoDAO.findAllByIds")) {
+			if (ids == null || ids.isEmpty()) {
+				return new HashMap<>();
+			}
+			Set<String> buscados = new HashSet<>(ids);
+			buscados.remove(null);
+			return findAll().stream().filter(t -> buscados.contains(t.getId()))
+					.collect(Collectors.toMap(Tecnico::getId, Function.identity(), (a, b) -> a, HashMap::new));
+		}
+	}
+
 	/**
 	 * Crea y guarda un nuevo Técnico, generando su ID automáticamente.
 	 * 
@@ -37,52 +71,102 @@ public class TecnicoDAO {
 	 * @return El técnico guardado con su nuevo ID, o Optional.empty() si falla.
 	 */
 	public Optional<Tecnico> crear(Tecnico t) throws IOException {
-		if (t == null) {
-			return Optional.empty();
+		try (Medicion m = Metricas.medir("TecnicoDAO.crear");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.TECNICOS_FILE)) {
+			if (t == null) {
+				return Optional.empty();
+			}
+			List<Tecnico> lista = findAll();
+			String nuevoId = generarSiguienteId(lista);
+			t.setId(nuevoId);
+			lista.add(t);
+			Serializador.guardarLista(Constantes.TECNICOS_FILE, lista);
+			return Optional.of(t);
 		}
-		List<Tecnico> lista = findAll();
-		String nuevoId = generarSiguienteId(lista);
-		t.setId(nuevoId);
-		lista.add(t);
-		Serializador.guardarLista(Constantes.TECNICOS_FILE, lista);
-		return Optional.of(t);
 	}
 
 	/**
 	 * Actualiza un técnico existente (busca por id).
+	 * Solo se guarda si su versión coincide con la almacenada (nadie lo ha
+	 * cambiado desde que se leyó); al guardar se incrementa la versión.
 	 * 
 	 * @return Un Optional con el técnico actualizado si se encontró, o
 	 *         Optional.empty() si no.
+	 * @throws ConflictoVersionException si otro lo ha actualizado antes; se puede
+	 *                                   volver a leer y repetir el cambio.
 	 */
 	public Optional<Tecnico> actualizar(Tecnico t) throws IOException {
-		if (t == null || t.getId() == null) {
+		try (Medicion m = Metricas.medir("TecnicoDAO.actualizar");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.TECNICOS_FILE)) {
+			if (t == null || t.getId() == null) {
+				return Optional.empty();
+			}
+
+			List<Tecnico> lista = findAll();
+			for (int i = 0; i < lista.size(); i++) {
+				if (t.getId().equals(lista.get(i).getId())) {
+					long guardada = lista.get(i).getVersion();
+					if (guardada != t.getVersion()) {
+						throw ConflictoVersionException.deRegistro("El técnico", t.getId(), t.getVersion(), guardada);
+					}
+					t.setVersion(guardada + 1);
+					lista.set(i, t);
+					try {
+						Serializador.guardarLista(Constantes.TECNICOS_FILE, lista);
+					} catch (IOException e) {
+						t.setVersion(guardada);
+						throw e;
+					}
+					return Optional.of(t);
+				}
+			}
 			return Optional.empty();
 		}
+	}
 
-		List<Tecnico> lista = findAll();
-		for (int i = 0; i < lista.size(); i++) {
-			if (t.getId().equals(lista.get(i).getId())) {
-				lista.set(i, t);
+	/**
+	 * Copia al fichero la carga de trabajo de cada técnico (0 para los que no
+	 * aparecen en el mapa). Solo se reescribe si alguna cambia, y a los técnicos
+	 * cambiados se les sube la versión.
+	 *
+	 * @return Número de técnicos cuya carga ha cambiado.
+	 */
+	public int guardarCargas(Map<String, Integer> cargas) throws IOException {
+		try (Medicion m = Metricas.medir("TecnicoDAO.guardarCargas");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.TECNICOS_FILE)) {
+			List<Tecnico> lista = findAll();
+			int cambiados = 0;
+			for (Tecnico t : lista) {
+				int carga = cargas.getOrDefault(t.getId(), 0);
+				if (t.getCargaTrabajo() != carga) {
+					t.setCargaTrabajo(carga);
+					t.setVersion(t.getVersion() + 1);
+					cambiados++;
+				}
+			}
+			if (cambiados > 0) {
 				Serializador.guardarLista(Constantes.TECNICOS_FILE, lista);
-				return Optional.of(t);
 			}
+			return cambiados;
 		}
-		return Optional.empty();
 	}
 
 	/**
 	 * Elimina un técnico por id. Devuelve true si se eliminó.
 	 */
 	public boolean borrar(String id) throws IOException {
-		if (id == null) {
-			return false;
-		}
-		List<Tecnico> lista = findAll(); // UNA lectura
-		boolean removed = lista.removeIf(t -> id.equals(t.getId()));
-		if (removed) {
-			Serializador.guardarLista(Constantes.TECNICOS_FILE, lista);
+		try (Medicion m = Metricas.medir("TecnicoDAO.borrar");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.TECNICOS_FILE)) {
+			if (id == null) {
+				return false;
+			}
+			List<Tecnico> lista = findAll(); // UNA lectura
+			boolean removed = lista.removeIf(t -> id.equals(t.getId()));
+			if (removed) {
+				Serializador.guardarLista(Constantes.TECNICOS_FILE, lista);
+			}
+			return removed;
 		}
-		return removed;
 	}
 
 	/**
@@ -90,11 +174,13 @@ public class TecnicoDAO {
 	 * mayúsculas). Si especializacion es null, devuelve lista vacía.
 	 */
 	public List<Tecnico> findByEspecializacion(String especializacion) {
-		if (especializacion == null) {
-			return List.of();
+		try (Medicion m = Metricas.medir("TecnicoDAO.findByEspecializacion")) {
+			if (especializacion == null) {
+				return List.of();
+			}
+			return findAll().stream().filter(t -> especializacion.equalsIgnoreCase(t.getEspecialidad()))
+					.collect(Collectors.toList());
 		}
-		return findAll().stream().filter(t -> especializacion.equalsIgnoreCase(t.getEspecialidad()))
-				.collect(Collectors.toList());
 	}
 
 	/**
@@ -103,10 +189,12 @@ public class TecnicoDAO {
 	 * especializacion es null, devuelve Optional.empty().
 	 */
 	public Optional<Tecnico> findLeastLoadedByEspecializacion(String especializacion) {
-		if (especializacion == null) {
-			return Optional.empty();
+		try (Medicion m = Metricas.medir("TecnicoDAO.findLeastLoadedByEspecializacion")) {
+			if (especializacion == null) {
+				return Optional.empty();
+			}
+			return findByEspecializacion(especializacion).stream().min(Comparator.comparingInt(Tecnico::getCargaTrabajo));
 		}
-		return findByEspecializacion(especializacion).stream().min(Comparator.comparingInt(Tecnico::getCargaTrabajo));
 	}
 
 	/**
@@ -1,10 +1,16 @@
 package controller;
 
 import model.Ticket;
+import util.CerrojosSegmentados;
+import util.ConflictoVersionException;
 import util.Constantes;
+import util.IndiceTemporal;
 import util.Serializador;
+import util.metricas.Medicion;
+import util.metricas.Metricas;
 import java.io.IOException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -12,17 +18,32 @@ import java.util.stream.Collectors;
 /**
  * DAO para Ticket - operaciones CRUD y búsquedas útiles para asignación.
  */
+@SuppressWarnings("try")
 public class TicketDAO {
 
 	public List<Ticket> findAll() {
-		return Serializador.leerLista(Constantes.TICKETS_FILE);
+		try (Medicion m = Metricas.medir("TicketDAO.findAll")) {
+			return Serializador.leerLista(Constantes.TICKETS_FILE);
+		}
+	}
+
+	/**
+	 * Como findAll, pero devuelve la última versión publicada sin copiarla (para
+	 * consultas: los tickets son de solo lectura).
+	 */
+	public List<Ticket> findAllSoloLectura() {
+		try (Medicion m = Metricas.medir("TicketDAO.findAllSoloLectura")) {
+			return soloLectura();
+		}
 	}
 
 	public Optional<Ticket> findById(String id) {
-		if (id == null) {
-			return Optional.empty();
+		try (Medicion m = Metricas.medir("TicketDAO.findById")) {
+			if (id == null) {
+				return Optional.empty();
+			}
+			return findAll().stream().filter(t -> id.equals(t.getIdTicket())).findFirst();
 		}
-		return findAll().stream().filter(t -> id.equals(t.getIdTicket())).findFirst();
 	}
 
 	public boolean existsById(String id) {
@@ -36,53 +57,76 @@ public class TicketDAO {
 	 * @return El ticket guardado con su nuevo ID, o Optional.empty() si falla.
 	 */
 	public Optional<Ticket> crear(Ticket t) throws IOException {
-		if (t == null) {
-			return Optional.empty();
-		}
+		try (Medicion m = Metricas.medir("TicketDAO.crear");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.TICKETS_FILE)) {
+			if (t == null) {
+				return Optional.empty();
+			}
 
-		List<Ticket> lista = findAll();
-		String nuevoId = generarSiguienteId(lista);
-		t.setIdTicket(nuevoId);
-		lista.add(t);
-		Serializador.guardarLista(Constantes.TICKETS_FILE, lista);
-		return Optional.of(t);
+			List<Ticket> lista = findAll();
+			String nuevoId = generarSiguienteId(lista);
+			t.setIdTicket(nuevoId);
+			lista.add(t);
+			Serializador.guardarLista(Constantes.TICKETS_FILE, lista);
+			return Optional.of(t);
+		}
 	}
 
 	/**
 	 * Actualiza un Ticket existente (busca por id).
+	 * Solo se guarda si su versión coincide con la almacenada (nadie lo ha
+	 * cambiado desde que se leyó); al guardar se incrementa la versión.
 	 * 
 	 * @return Un Optional con el ticket actualizado si se encontró, o
 	 *         Optional.empty() si no.
+	 * @throws ConflictoVersionException si otro lo ha actualizado antes; se puede
+	 *                                   volver a leer y repetir el cambio.
 	 */
 	public Optional<Ticket> actualizar(Ticket t) throws IOException {
-		if (t == null || t.getIdTicket() == null) {
-			return Optional.empty();
-		}
+		try (Medicion m = Metricas.medir("TicketDAO.actualizar");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.TICKETS_FILE)) {
+			if (t == null || t.getIdTicket() == null) {
+				return Optional.empty();
+			}
 
-		List<Ticket> lista = findAll();
-		for (int i = 0; i < lista.size(); i++) {
-			if (t.getIdTicket().equals(lista.get(i).getIdTicket())) {
-				lista.set(i, t);
-				Serializador.guardarLista(Constantes.TICKETS_FILE, lista);
-				return Optional.of(t);
+			List<Ticket> lista = findAll();
+			for (int i = 0; i < lista.size(); i++) {
+				if (t.getIdTicket().equals(lista.get(i).getIdTicket())) {
+					long guardada = lista.get(i).getVersion();
+					if (guardada != t.getVersion()) {
+						throw ConflictoVersionException.deRegistro("El ticket", t.getIdTicket(), t.getVersion(), guardada);
+					}
+					t.setVersion(guardada + 1);
+					lista.set(i, t);
+					try {
+						Serializador.guardarLista(Constantes.TICKETS_FILE, lista);
+					} catch (IOException e) {
+						t.setVersion(guardada);
+						throw e;
+					}
+					return Optional.of(t);
+				}
 			}
+			return Optional.empty();
 		}
-		return Optional.empty();
 	}
 
 	/**
 	 * Elimina un Ticket por id. Devuelve true si se eliminó.
 	 */
 	public boolean borrar(String id) throws IOException {
-		if (id == null) {
-			return false;
-		}
-		List<Ticket> lista = findAll(); // UNA lectura
-		boolean removed = lista.removeIf(t -> id.equals(t.getIdTicket()));
-		if (removed) {
-			Serializador.guardarLista(Constantes.TICKETS_FILE, lista);
+		try (Medicion m = Metricas.medir("TicketDAO.borrar");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.TICKETS_FILE)) {
+			if (id == null) {
+				return false;
+			}
+			List<Ticket> lista = findAll(); // UNA lectura
+			boolean removed = lista.removeIf(t -> id.equals(t.getIdTicket()));
+			if (removed) {
+				Serializador.guardarLista(Constantes.TICKETS_FILE, lista);
+			}
+			return removed;
 		}
-		return removed;
 	}
 
 	/**
@@ -90,11 +134,13 @@ public class TicketDAO {
 	 * categoria es null, devuelve lista vacía.
 	 */
 	public List<Ticket> findByCategoria(String categoria) {
-		if (categoria == null) {
-			return List.of();
+		try (Medicion m = Metricas.medir("TicketDAO.findByCategoria")) {
+			if (categoria == null) {
+				return List.of();
+			}
+			return findAll().stream().filter(t -> categoria.equalsIgnoreCase(t.getCategoria()))
+					.collect(Collectors.toList());
 		}
-		return findAll().stream().filter(t -> categoria.equalsIgnoreCase(t.getCategoria()))
-				.collect(Collectors.toList());
 	}
 
 	/**
@@ -102,10 +148,12 @@ public class TicketDAO {
 	 * estado es null, devuelve lista vacía.
 	 */
 	public List<Ticket> findByEstado(String estado) {
-		if (estado == null) {
-			return List.of();
+		try (Medicion m = Metricas.medir("TicketDAO.findByEstado")) {
+			if (estado == null) {
+				return List.of();
+			}
+			return findAll().stream().filter(t -> estado.equalsIgnoreCase(t.getEstado())).collect(Collectors.toList());
 		}
-		return findAll().stream().filter(t -> estado.equalsIgnoreCase(t.getEstado())).collect(Collectors.toList());
 	}
 
 	/**
@@ -113,12 +161,81 @@ public class TicketDAO {
 	 * la prioridad es null, devuelve lista vacia
 	 */
 	public List<Ticket> findByPrioridad(String prioridad) {
-		if (prioridad == null) {
-			return List.of();
+		try (Medicion m = Metricas.medir("TicketDAO.findByPrioridad")) {
+			if (prioridad == null) {
+				return List.of();
+			}
+			return findAll().stream().filter(t -> prioridad.equalsIgnoreCase(t.getPrioridad()))
+					.collect(Collectors.toList());
+
+		}
+	}
+
+	/**
+	 * Tickets que cumplen todos los criterios, ordenados y limitados como se
+	 * indique. Se resuelve con los índices de la última versión publicada,
+	 * eligiendo el que menos tickets obliga a mirar (ver explicar()). Los tickets
+	 * son de solo lectura.
+	 */
+	public List<Ticket> buscar(CriteriosTickets criterios) {
+		try (Medicion m = Metricas.medir("TicketDAO.buscar")) {
+			return PlanConsultaTickets.planificar(criterios, IndicesTickets.actuales()).ejecutar();
+		}
+	}
+
+	/**
+	 * Describe cómo se resolvería buscar(criterios) ahora mismo (índice elegido y
+	 * tickets que habría que mirar), sin ejecutarlo.
+	 */
+	public String explicar(CriteriosTickets criterios) {
+		return PlanConsultaTickets.planificar(criterios, IndicesTickets.actuales()).toString();
+	}
+
+	/**
+	 * Página de los tickets creados en [desde, hasta), en orden de fecha de
+	 * creación. Cuesta log n más el tamaño de la página (índice por fecha de la
+	 * última versión publicada; los tickets son de solo lectura).
+	 *
+	 * @param desde        null para no poner límite inferior.
+	 * @param hasta        null para no poner límite superior.
+	 * @param pagina       Número de página, desde 0.
+	 * @param tamanoPagina Tickets por página.
+	 */
+	public List<Ticket> findByFechaCreacionEntre(LocalDateTime desde, LocalDateTime hasta, int pagina,
+			int tamanoPagina) {
+		try (Medicion m = Metricas.medir("TicketDAO.findByFechaCreacionEntre")) {
+			return pagina(IndicesTickets.actuales().creacion(), desde, hasta, pagina, tamanoPagina);
 		}
-		return findAll().stream().filter(t -> prioridad.equalsIgnoreCase(t.getPrioridad()))
-				.collect(Collectors.toList());
+	}
 
+	/**
+	 * Número de tickets creados en [desde, hasta) (para paginar
+	 * findByFechaCreacionEntre).
+	 */
+	public int countByFechaCreacionEntre(LocalDateTime desde, LocalDateTime hasta) {
+		try (Medicion m = Metricas.medir("TicketDAO.countByFechaCreacionEntre")) {
+			return IndicesTickets.actuales().creacion().contar(desde, hasta);
+		}
+	}
+
+	/**
+	 * Como findByFechaCreacionEntre, pero con los tickets cerrados en [desde,
+	 * hasta), en orden de fecha de cierre.
+	 */
+	public List<Ticket> findByFechaCierreEntre(LocalDateTime desde, LocalDateTime hasta, int pagina,
+			int tamanoPagina) {
+		try (Medicion m = Metricas.medir("TicketDAO.findByFechaCierreEntre")) {
+			return pagina(IndicesTickets.actuales().cierre(), desde, hasta, pagina, tamanoPagina);
+		}
+	}
+
+	/**
+	 * Número de tickets cerrados en [desde, hasta).
+	 */
+	public int countByFechaCierreEntre(LocalDateTime desde, LocalDateTime hasta) {
+		try (Medicion m = Metricas.medir("TicketDAO.countByFechaCierreEntre")) {
+			return IndicesTickets.actuales().cierre().contar(desde, hasta);
+		}
 	}
 
 	/**
@@ -138,24 +255,43 @@ public class TicketDAO {
 
 	/**
 	 * Devuelve la lista de tickets asociados a un ID de cliente. Si el idCliente es
-	 * null, devuelve una lista vacía.
+	 * null, devuelve una lista vacía. Se filtra la última versión publicada del
+	 * fichero sin copiarla: los tickets son de solo lectura.
 	 */
 	public List<Ticket> findByClienteId(String idCliente) {
-		if (idCliente == null) {
-			return List.of();
+		try (Medicion m = Metricas.medir("TicketDAO.findByClienteId")) {
+			if (idCliente == null) {
+				return List.of();
+			}
+			return soloLectura().stream().filter(t -> idCliente.equals(t.getAutorId())).collect(Collectors.toList());
 		}
-		return findAll().stream().filter(t -> idCliente.equals(t.getAutorId())).collect(Collectors.toList());
 	}
 
 	/**
 	 * Devuelve la lista de tickets asignados a un ID de técnico. Si el idTecnico es
-	 * null, devuelve una lista vacía.
+	 * null, devuelve una lista vacía. Como findByClienteId, los tickets son de solo
+	 * lectura.
 	 */
 	public List<Ticket> findByTecnicoId(String idTecnico) {
-		if (idTecnico == null) {
-			return List.of();
+		try (Medicion m = Metricas.medir("TicketDAO.findByTecnicoId")) {
+			if (idTecnico == null) {
+				return List.of();
+			}
+			return soloLectura().stream().filter(t -> idTecnico.equals(t.getAsignadoA())).collect(Collectors.toList());
 		}
-		return findAll().stream().filter(t -> idTecnico.equals(t.getAsignadoA())).collect(Collectors.toList());
+	}
+
+	private static List<Ticket> pagina(IndiceTemporal<Ticket> indice, LocalDateTime desde, LocalDateTime hasta,
+			int pagina, int tamanoPagina) {
+		if (pagina < 0 || tamanoPagina <= 0) {
+			throw new IllegalArgumentException("Página no válida: " + pagina + " de " + tamanoPagina);
+		}
+		return indice.entre(desde, hasta, (int) Math.min(Integer.MAX_VALUE, (long) pagina * tamanoPagina),
+				tamanoPagina);
+	}
+
+	private List<Ticket> soloLectura() {
+		return Serializador.<Ticket>instantanea(Constantes.TICKETS_FILE).getElementos();
 	}
 
 }
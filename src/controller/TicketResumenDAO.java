@@ -0,0 +1,169 @@
+package controller;
+
+import model.Ticket;
+import model.TicketResumen;
+import model.Usuario;
+import util.CerrojosSegmentados;
+import util.Constantes;
+import util.Serializador;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DAO para la vista desnormalizada de tickets (TicketResumen). Se mantiene de
+ * forma incremental desde la capa de servicio en cada escritura de tickets o
+ * cambio de nombre de un usuario, de modo que el listado se obtiene con una
+ * sola lectura y sin cruces.
+ *
+ * Si el fichero no existe (primera ejecución, o porque se invalidó tras un
+ * fallo a mitad de escritura) se reconstruye a partir de tickets, usuarios y
+ * técnicos.
+ */
+@SuppressWarnings("try")
+public class TicketResumenDAO {
+
+	public List<TicketResumen> findAll() {
+		if (!Serializador.existe(Constantes.TICKETS_RESUMEN_FILE)) {
+			try {
+				return reconstruir();
+			} catch (IOException e) {
+				System.err.println("No se pudo reconstruir la vista de tickets. Causa: " + e.getMessage());
+			}
+		}
+		return Serializador.leerLista(Constantes.TICKETS_RESUMEN_FILE);
+	}
+
+	/**
+	 * Como findAll, pero devuelve la última versión publicada sin copiarla (para
+	 * consultas: las filas son de solo lectura).
+	 */
+	public List<TicketResumen> findAllSoloLectura() {
+		if (!Serializador.existe(Constantes.TICKETS_RESUMEN_FILE)) {
+			try {
+				return reconstruir();
+			} catch (IOException e) {
+				System.err.println("No se pudo reconstruir la vista de tickets. Causa: " + e.getMessage());
+			}
+		}
+		return Serializador.<TicketResumen>instantanea(Constantes.TICKETS_RESUMEN_FILE).getElementos();
+	}
+
+	/**
+	 * Inserta o actualiza la fila de un ticket. Los nombres a null conservan el
+	 * valor que ya tuviera la fila (p. ej. al resolver no hace falta volver a
+	 * buscar el nombre del cliente).
+	 *
+	 * @param ticket        El ticket tal y como se acaba de guardar.
+	 * @param nombreCliente Nombre del cliente, o null para conservar el actual.
+	 * @param nombreTecnico Nombre del técnico, o null para conservar el actual.
+	 */
+	public void registrar(Ticket ticket, String nombreCliente, String nombreTecnico) throws IOException {
+		try (CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.TICKETS_RESUMEN_FILE)) {
+			if (ticket == null || ticket.getIdTicket() == null) {
+				return;
+			}
+
+			List<TicketResumen> lista = findAll();
+			for (TicketResumen fila : lista) {
+				if (ticket.getIdTicket().equals(fila.getIdTicket())) {
+					fila.copiarDe(ticket);
+					if (nombreCliente != null) {
+						fila.setNombreCliente(nombreCliente);
+					}
+					if (nombreTecnico != null) {
+						fila.setNombreTecnico(nombreTecnico);
+					}
+					Serializador.guardarLista(Constantes.TICKETS_RESUMEN_FILE, lista);
+					return;
+				}
+			}
+			lista.add(new TicketResumen(ticket, nombreCliente, nombreTecnico));
+			Serializador.guardarLista(Constantes.TICKETS_RESUMEN_FILE, lista);
+		}
+	}
+
+	/**
+	 * Propaga el cambio de nombre de un usuario o técnico a todas las filas en las
+	 * que aparece como cliente o como técnico asignado.
+	 */
+	public void renombrar(String personaId, String nuevoNombre) throws IOException {
+		try (CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.TICKETS_RESUMEN_FILE)) {
+			if (personaId == null) {
+				return;
+			}
+
+			List<TicketResumen> lista = findAll();
+			boolean cambiado = false;
+			for (TicketResumen fila : lista) {
+				if (personaId.equals(fila.getAutorId())) {
+					fila.setNombreCliente(nuevoNombre);
+					cambiado = true;
+				}
+				if (personaId.equals(fila.getAsignadoA())) {
+					fila.setNombreTecnico(nuevoNombre);
+					cambiado = true;
+				}
+			}
+			if (cambiado) {
+				Serializador.guardarLista(Constantes.TICKETS_RESUMEN_FILE, lista);
+			}
+		}
+	}
+
+	/**
+	 * Elimina la fila de un ticket. Devuelve true si se eliminó.
+	 */
+	public boolean borrar(String idTicket) throws IOException {
+		try (CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.TICKETS_RESUMEN_FILE)) {
+			if (idTicket == null) {
+				return false;
+			}
+			List<TicketResumen> lista = findAll();
+			boolean removed = lista.removeIf(f -> idTicket.equals(f.getIdTicket()));
+			if (removed) {
+				Serializador.guardarLista(Constantes.TICKETS_RESUMEN_FILE, lista);
+			}
+			return removed;
+		}
+	}
+
+	/**
+	 * Vuelve a generar la vista completa cruzando tickets, usuarios y técnicos.
+	 *
+	 * @return La vista recién generada.
+	 */
+	public List<TicketResumen> reconstruir() throws IOException {
+		try (CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.TICKETS_RESUMEN_FILE)) {
+			Map<String, Usuario> personas = new HashMap<>();
+			new UsuarioDAO().findAll().forEach(u -> personas.put(u.getId(), u));
+			new TecnicoDAO().findAll().forEach(t -> personas.put(t.getId(), t));
+
+			List<TicketResumen> lista = new ArrayList<>();
+			for (Ticket ticket : new TicketDAO().findAll()) {
+				Usuario cliente = personas.get(ticket.getAutorId());
+				Usuario tecnico = personas.get(ticket.getAsignadoA());
+				lista.add(new TicketResumen(ticket, cliente != null ? cliente.getNombre() : null,
+						tecnico != null ? tecnico.getNombre() : null));
+			}
+			Serializador.sobrescribirLista(Constantes.TICKETS_RESUMEN_FILE, lista);
+			return lista;
+		}
+	}
+
+	/**
+	 * Descarta la vista persistida para que se reconstruya en la siguiente
+	 * lectura. Se usa cuando una escritura de la vista falla después de haber
+	 * guardado el ticket, para no dejarla desincronizada.
+	 */
+	public void invalidar() {
+		try {
+			Serializador.borrar(Constantes.TICKETS_RESUMEN_FILE);
+		} catch (IOException e) {
+			System.err.println("No se pudo invalidar la vista de tickets. Causa: " + e.getMessage());
+		}
+	}
+}
@@ -1,34 +1,69 @@
 package controller;
 
 import model.Usuario;
+import util.CerrojosSegmentados;
+import util.ConflictoVersionException;
 import util.Constantes;
 import util.Serializador;
+import util.metricas.Medicion;
+import util.metricas.Metricas;
 import java.io.IOException;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * DAO para Usuario. Maneja persistencia en Constantes.USUARIOS_FILE
  * Operaciones: findAll, findById, existsById, save (create), update, deleteById
  */
+@SuppressWarnings("try")
 public class UsuarioDAO {
 
 	public List<Usuario> findAll() {
-		return Serializador.leerLista(Constantes.USUARIOS_FILE);
+		try (Medicion m = Metricas.medir("UsuarioDAO.findAll")) {
+			return Serializador.leerLista(Constantes.USUARIOS_FILE);
+		}
 	}
 
 	public Optional<Usuario> findById(String id) {
-		if (id == null) {
-			return Optional.empty();
+		try (Medicion m = Metricas.medir("UsuarioDAO.findById")) {
+			if (id == null) {
+				return Optional.empty();
+			}
+			return findAll().stream().filter(u -> id.equals(u.getId())).findFirst();
 		}
-		return findAll().stream().filter(u -> id.equals(u.getId())).findFirst();
 	}
 
 	public boolean existsById(String id) {
 		return findById(id).isPresent();
 	}
 
+	/**
+	 * Busca varios usuarios a la vez con una sola lectura del fichero. Los ids
+	 * nulos o que no existan se ignoran.
+	 *
+	 * @param ids colección de ids a resolver
+	 * @return Map id -> Usuario con los usuarios encontrados (nunca null)
+	 */
+	public Map<String, Usuario> findAllByIds(Collection<String> ids) {
+		try (Medicion m = Metricas.medir("UsuarioDAO.findAllByIds")) {
+			if (ids == null || ids.isEmpty()) {
+				return new HashMap<>();
+			}
+			Set<String> buscados = new HashSet<>(ids);
+			buscados.remove(null);
+			return findAll().stream().filter(u -> buscados.contains(u.getId()))
+					.collect(Collectors.toMap(Usuario::getId, Function.identity(), (a, b) -> a, HashMap::new));
+		}
+	}
+
 	/**
 	 * Crea y guarda un nuevo Usuario, generando su ID automáticamente.
 	 * 
@@ -36,58 +71,82 @@ public class UsuarioDAO {
 	 * @return El usuario guardado con su nuevo ID, o Optional.empty() si falla.
 	 */
 	public Optional<Usuario> crear(Usuario usuario) throws IOException {
-		if (usuario == null) {
-			return Optional.empty();
-		}
-		List<Usuario> lista = findAll();
-		String nuevoId;
-		if (usuario.getRol().toUpperCase() == "ADMIN") {
-			nuevoId = generarSiguienteIdAdmin(lista);
-		}else {
-			nuevoId = generarSiguienteId(lista);
+		try (Medicion m = Metricas.medir("UsuarioDAO.crear");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.USUARIOS_FILE)) {
+			if (usuario == null) {
+				return Optional.empty();
+			}
+			List<Usuario> lista = findAll();
+			String nuevoId;
+			if (usuario.getRol().toUpperCase() == "ADMIN") {
+				nuevoId = generarSiguienteIdAdmin(lista);
+			}else {
+				nuevoId = generarSiguienteId(lista);
+			}
+			usuario.setId(nuevoId);
+			lista.add(usuario);
+			Serializador.guardarLista(Constantes.USUARIOS_FILE, lista);
+			return Optional.of(usuario);
 		}
-		usuario.setId(nuevoId);
-		lista.add(usuario);
-		Serializador.guardarLista(Constantes.USUARIOS_FILE, lista);
-		return Optional.of(usuario);
 	}
 
 	/**
 	 * Actualiza un usuario existente (busca por id).
+	 * Solo se guarda si su versión coincide con la almacenada (nadie lo ha
+	 * cambiado desde que se leyó); al guardar se incrementa la versión.
 	 * 
 	 * @return Un Optional con el usuario actualizado si se encontró, o
 	 *         Optional.empty() si no.
+	 * @throws ConflictoVersionException si otro lo ha actualizado antes; se puede
+	 *                                   volver a leer y repetir el cambio.
 	 */
 	public Optional<Usuario> actualizar(Usuario usuario) throws IOException {
-		if (usuario == null || usuario.getId() == null) {
-			return Optional.empty();
-		}
+		try (Medicion m = Metricas.medir("UsuarioDAO.actualizar");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.USUARIOS_FILE)) {
+			if (usuario == null || usuario.getId() == null) {
+				return Optional.empty();
+			}
 
-		List<Usuario> lista = findAll();
-		for (int i = 0; i < lista.size(); i++) {
-			if (usuario.getId().equals(lista.get(i).getId())) {
-				lista.set(i, usuario);
-				Serializador.guardarLista(Constantes.USUARIOS_FILE, lista);
-				return Optional.of(usuario);
+			List<Usuario> lista = findAll();
+			for (int i = 0; i < lista.size(); i++) {
+				if (usuario.getId().equals(lista.get(i).getId())) {
+					long guardada = lista.get(i).getVersion();
+					if (guardada != usuario.getVersion()) {
+						throw ConflictoVersionException.deRegistro("El usuario", usuario.getId(), usuario.getVersion(),
+								guardada);
+					}
+					usuario.setVersion(guardada + 1);
+					lista.set(i, usuario);
+					try {
+						Serializador.guardarLista(Constantes.USUARIOS_FILE, lista);
+					} catch (IOException e) {
+						usuario.setVersion(guardada);
+						throw e;
+					}
+					return Optional.of(usuario);
+				}
 			}
+			return Optional.empty();
 		}
-		return Optional.empty();
 	}
 
 	/**
 	 * Elimina un usuario por id. Devuelve true si se eliminó.
 	 */
 	public boolean borrar(String id) throws IOException {
-		if (id == null) {
-			return false;
-		}
+		try (Medicion m = Metricas.medir("UsuarioDAO.borrar");
+				CerrojosSegmentados.Bloqueo b = Serializador.bloquearFichero(Constantes.USUARIOS_FILE)) {
+			if (id == null) {
+				return false;
+			}
 
-		List<Usuario> lista = findAll();
-		boolean removed = lista.removeIf(u -> id.equals(u.getId()));
-		if (removed) {
-			Serializador.guardarLista(Constantes.USUARIOS_FILE, lista);
+			List<Usuario> lista = findAll();
+			boolean removed = lista.removeIf(u -> id.equals(u.getId()));
+			if (removed) {
+				Serializador.guardarLista(Constantes.USUARIOS_FILE, lista);
+			}
+			return removed;
 		}
-		return removed;
 	}
 
 	/**
@@ -1,22 +1,126 @@
 package main;
 
+import java.io.IOException;
+
 import javax.swing.SwingUtilities;
 
+import api.ServidorApi;
+import remoto.ClienteDatos;
+import remoto.ServidorDatos;
+import service.CargaTecnicos;
+import service.DuplicadosTickets;
 import service.GestorUsuario;
+import service.MotorSla;
+import service.SeriesTickets;
 import service.exceptions.UserException;
+import util.Constantes;
+import util.Serializador;
 import view.LoginView;
 
 public class Main {
 
 	public static void main(String[] args) {
-		// TODO Auto-generated method stub
+		// --remoto=host:puerto: los datos los sirve otro proceso (--servidor-datos)
+		for (String arg : args) {
+			if (arg.startsWith("--remoto=")) {
+				conectarServidorDatos(arg.substring(9));
+			}
+		}
+
+		for (String arg : args) {
+			// --servidor-datos[=puerto]: este proceso es el dueño de Datos/ y lo sirve por TCP.
+			// Antes de nada más: no debe escribir esos ficheros por su cuenta, por detrás
+			// de lo que sirve a los clientes
+			if (arg.equals("--servidor-datos") || arg.startsWith("--servidor-datos=")) {
+				int puerto = arg.startsWith("--servidor-datos=") ? Integer.parseInt(arg.substring(17))
+						: ServidorDatos.PUERTO_POR_DEFECTO;
+				iniciarServidorDatos(puerto);
+				return;
+			}
+		}
+
 		configurarAdminInicial();
-		
+		// Carga de los técnicos contada desde los tickets antes de cualquier escritura
+		CargaTecnicos.iniciar();
+
+		for (String arg : args) {
+			// --api[=puerto]: servidor HTTP/JSON sin interfaz gráfica
+			if (arg.equals("--api") || arg.startsWith("--api=")) {
+				int puerto = arg.startsWith("--api=") ? Integer.parseInt(arg.substring(6))
+						: ServidorApi.PUERTO_POR_DEFECTO;
+				iniciarApi(puerto);
+				return;
+			}
+		}
+
+		// Vigilancia de los plazos de los tickets (escalados por SLA), series de
+		// creados/cerrados y grupos de duplicados
+		MotorSla.iniciar();
+		SeriesTickets.iniciar();
+		DuplicadosTickets.iniciar();
+
 		SwingUtilities.invokeLater(() -> {
             new LoginView().setVisible(true);
         });
 	}
 	
+	/**
+	 * Hace que toda la persistencia vaya al servidor de datos indicado.
+	 */
+	private static void conectarServidorDatos(String direccion) {
+		int separador = direccion.lastIndexOf(':');
+		String host = separador > 0 ? direccion.substring(0, separador) : direccion;
+		int puerto = separador > 0 ? Integer.parseInt(direccion.substring(separador + 1))
+				: ServidorDatos.PUERTO_POR_DEFECTO;
+		try {
+			Serializador.configurarAlmacen(new ClienteDatos(host, puerto));
+			System.out.println("INFO: Usando el servidor de datos " + host + ":" + puerto);
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Arranca el servidor de datos y deja el proceso vivo hasta que se detenga.
+	 */
+	private static void iniciarServidorDatos(int puerto) {
+		ServidorDatos servidor = new ServidorDatos();
+		String host = ServidorDatos.HOST_POR_DEFECTO;
+		try {
+			servidor.iniciar(host, puerto);
+		} catch (IOException e) {
+			System.err.println("No se pudo iniciar el servidor de datos en el puerto " + puerto + ". Causa: "
+					+ e.getMessage());
+			System.exit(1);
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(servidor::detener));
+		System.out.println("INFO: Servidor de datos escuchando en " + host + ":" + servidor.getPuerto()
+				+ " (datos en " + Constantes.DATA_DIR + ")");
+		if (servidor.isTokenGenerado()) {
+			System.out.println("INFO: Arranque los clientes con -Dgestortickets.datos.token=" + servidor.getToken());
+		}
+	}
+
+	/**
+	 * Arranca la API HTTP y deja el proceso vivo hasta que se detenga (Ctrl+C).
+	 */
+	private static void iniciarApi(int puerto) {
+		MotorSla.iniciar();
+		SeriesTickets.iniciar();
+		DuplicadosTickets.iniciar();
+		ServidorApi servidor = new ServidorApi();
+		try {
+			servidor.iniciar(ServidorApi.HOST_POR_DEFECTO, puerto);
+		} catch (IOException e) {
+			System.err.println("No se pudo iniciar la API en el puerto " + puerto + ". Causa: " + e.getMessage());
+			System.exit(1);
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> servidor.detener(2)));
+		System.out.println("INFO: API escuchando en http://" + ServidorApi.HOST_POR_DEFECTO + ":"
+				+ servidor.getPuerto() + "/api/");
+	}
+
 	/**
      * Verifica si existe un usuario administrador por defecto y, si no, lo crea.
      * Esto es útil para asegurar que siempre haya al menos un admin para gestionar el sistema.
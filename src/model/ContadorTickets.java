@@ -0,0 +1,132 @@
+package model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Contadores de tickets de una persona (cliente o técnico): cuántos ha creado y
+ * cuántos tiene asignados, en total y todavía abiertos (no CERRADO). Se
+ * mantienen en cada escritura de tickets para que las comprobaciones de borrado
+ * y los listados no tengan que recorrer todos los tickets. Persistible
+ * (Serializable).
+ */
+public class ContadorTickets implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String personaId;
+	private int creadosAbiertos;
+	private int creadosTotales;
+	private int asignadosAbiertos;
+	private int asignadosTotales;
+
+	// Constructor vacío (necesario para deserialización y frameworks)
+	public ContadorTickets() {
+	}
+
+	public ContadorTickets(String personaId) {
+		this.personaId = personaId;
+	}
+
+	// Getters
+	public String getPersonaId() {
+		return personaId;
+	}
+
+	public int getCreadosAbiertos() {
+		return creadosAbiertos;
+	}
+
+	public int getCreadosTotales() {
+		return creadosTotales;
+	}
+
+	public int getAsignadosAbiertos() {
+		return asignadosAbiertos;
+	}
+
+	public int getAsignadosTotales() {
+		return asignadosTotales;
+	}
+
+	/**
+	 * Indica si la persona aparece en algún ticket que no esté cerrado, ya sea
+	 * como autor o como técnico asignado.
+	 */
+	public boolean tieneTicketsAbiertos() {
+		return creadosAbiertos > 0 || asignadosAbiertos > 0;
+	}
+
+	/**
+	 * Un ticket nuevo creado por esta persona.
+	 */
+	public void sumarCreado() {
+		creadosTotales++;
+		creadosAbiertos++;
+	}
+
+	/**
+	 * Un ticket creado por esta persona se ha cerrado (no baja de 0).
+	 */
+	public void cerrarCreado() {
+		if (creadosAbiertos > 0)
+			creadosAbiertos--;
+	}
+
+	/**
+	 * Se ha asignado un ticket abierto a esta persona.
+	 */
+	public void sumarAsignado() {
+		asignadosTotales++;
+		asignadosAbiertos++;
+	}
+
+	/**
+	 * Un ticket asignado a esta persona se ha cerrado (no baja de 0).
+	 */
+	public void cerrarAsignado() {
+		if (asignadosAbiertos > 0)
+			asignadosAbiertos--;
+	}
+
+	/**
+	 * Un ticket abierto asignado a esta persona se ha reasignado a otra: deja de
+	 * contar para ella, también en el total (no baja de 0).
+	 */
+	public void quitarAsignado() {
+		cerrarAsignado();
+		if (asignadosTotales > 0)
+			asignadosTotales--;
+	}
+
+	/**
+	 * Equals basados en personaId (identidad lógica)
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+
+		ContadorTickets that = (ContadorTickets) o;
+		return Objects.equals(personaId, that.personaId);
+	}
+
+	/**
+	 * Hash code basado en personaId (identidad lógica)
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(personaId);
+	}
+
+	/**
+	 * Representación legible
+	 */
+	@Override
+	public String toString() {
+		return "ContadorTickets{" + "personaId='" + personaId + '\'' + ", creados=" + creadosAbiertos + "/"
+				+ creadosTotales + ", asignados=" + asignadosAbiertos + "/" + asignadosTotales + '}';
+	}
+}
@@ -17,6 +17,7 @@ public class Respuesta implements Serializable {
 	private String autorId; // id del Usuario (cliente, técnico o admin) que escribió
 	private String contenido; // texto del mensaje
 	private LocalDateTime fecha; // timestamp de creación
+	private long version; // Se incrementa en cada actualización guardada (control optimista)
 
 	// Constructor vacío (necesario para deserialización y frameworks)
 	public Respuesta() {
@@ -83,6 +84,18 @@ public class Respuesta implements Serializable {
 		return contenido.substring(0, max) + "...";
 	}
 
+	/**
+	 * Versión del registro tal como se leyó. El DAO solo acepta actualizar(...) si
+	 * coincide con la guardada, y entonces la incrementa.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
 	/**
 	 * Equals basados en id (identidad lógica)
 	 */
@@ -0,0 +1,99 @@
+package model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import util.SerieCircular;
+
+/**
+ * Series temporales de un tipo de evento (tickets creados o cerrados) de una
+ * categoría, a tres resoluciones: por minuto, por hora y por día. Cada una
+ * guarda una ventana distinta (las más finas, menos tiempo). Persistible
+ * (Serializable).
+ */
+public class SerieTickets implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String evento; // "CREADOS", "CERRADOS"
+	private String categoria;
+	private SerieCircular porMinuto;
+	private SerieCircular porHora;
+	private SerieCircular porDia;
+	private LocalDateTime contadoHasta; // Los eventos hasta esta fecha ya están sumados
+
+	// Constructor vacío (necesario para deserialización y frameworks)
+	public SerieTickets() {
+	}
+
+	public SerieTickets(String evento, String categoria, SerieCircular porMinuto, SerieCircular porHora,
+			SerieCircular porDia) {
+		this.evento = evento;
+		this.categoria = categoria;
+		this.porMinuto = porMinuto;
+		this.porHora = porHora;
+		this.porDia = porDia;
+	}
+
+	public String getEvento() {
+		return evento;
+	}
+
+	public String getCategoria() {
+		return categoria;
+	}
+
+	public SerieCircular getPorMinuto() {
+		return porMinuto;
+	}
+
+	public SerieCircular getPorHora() {
+		return porHora;
+	}
+
+	public SerieCircular getPorDia() {
+		return porDia;
+	}
+
+	public LocalDateTime getContadoHasta() {
+		return contadoHasta;
+	}
+
+	public void setContadoHasta(LocalDateTime contadoHasta) {
+		this.contadoHasta = contadoHasta;
+	}
+
+	/**
+	 * Suma n eventos en el instante indicado (segundos) en las tres resoluciones.
+	 */
+	public void sumar(long segundo, int n) {
+		porMinuto.sumar(segundo, n);
+		porHora.sumar(segundo, n);
+		porDia.sumar(segundo, n);
+	}
+
+	/**
+	 * Equals basados en evento y categoría (identidad lógica)
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		SerieTickets that = (SerieTickets) o;
+		return Objects.equals(evento, that.evento) && Objects.equals(categoria, that.categoria);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(evento, categoria);
+	}
+
+	@Override
+	public String toString() {
+		return "SerieTickets{" + "evento='" + evento + '\'' + ", categoria='" + categoria + '\'' + ", contadoHasta="
+				+ contadoHasta + '}';
+	}
+}
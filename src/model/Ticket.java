@@ -24,6 +24,10 @@ public class Ticket implements Serializable {
 	private String prioridad; // "BAJA","MEDIA","ALTA"
 	private LocalDateTime fechaCreacion;
 	private LocalDateTime fechaCierre; // null si sigue abierto
+	private LocalDateTime fechaLimite; // Vencimiento del SLA (null en tickets anteriores: se calcula)
+	private String duplicadoDe; // Id del primer ticket de su grupo de casi duplicados (null si no tiene)
+	private boolean reasignadoPorSla; // Si el SLA ya lo reasignó (solo se hace una vez)
+	private long version; // Se incrementa en cada actualización guardada (control optimista)
 
 	// Constructor vacío (útil para frameworks y para instanciar y luego setear)
 	public Ticket() {
@@ -45,6 +49,26 @@ public class Ticket implements Serializable {
 		this.fechaCierre = null;
 	}
 
+	/**
+	 * Copia de otro ticket (p. ej. para conservar cómo estaba antes de un cambio).
+	 */
+	public Ticket(Ticket otro) {
+		this.id = otro.id;
+		this.titulo = otro.titulo;
+		this.descripcion = otro.descripcion;
+		this.autorId = otro.autorId;
+		this.asignadoA = otro.asignadoA;
+		this.estado = otro.estado;
+		this.categoria = otro.categoria;
+		this.prioridad = otro.prioridad;
+		this.fechaCreacion = otro.fechaCreacion;
+		this.fechaCierre = otro.fechaCierre;
+		this.fechaLimite = otro.fechaLimite;
+		this.duplicadoDe = otro.duplicadoDe;
+		this.reasignadoPorSla = otro.reasignadoPorSla;
+		this.version = otro.version;
+	}
+
 	// Getters y Setters
 	public String getIdTicket() {
 		return id;
@@ -126,6 +150,54 @@ public class Ticket implements Serializable {
 		this.fechaCierre = fechaCierre;
 	}
 
+	/**
+	 * Fecha en la que vence el SLA del ticket si sigue abierto (ver
+	 * service.MotorSla).
+	 */
+	public LocalDateTime getFechaLimite() {
+		return fechaLimite;
+	}
+
+	public void setFechaLimite(LocalDateTime fechaLimite) {
+		this.fechaLimite = fechaLimite;
+	}
+
+	/**
+	 * Id del ticket con el que empezó el grupo de casi duplicados al que se unió
+	 * este al crearse (ver service.DuplicadosTickets), o null.
+	 */
+	public String getDuplicadoDe() {
+		return duplicadoDe;
+	}
+
+	public void setDuplicadoDe(String duplicadoDe) {
+		this.duplicadoDe = duplicadoDe;
+	}
+
+	/**
+	 * Si el motor de SLA ya lo reasignó por vencer siendo ALTA (ver
+	 * service.MotorSla); los vencimientos siguientes solo avisan.
+	 */
+	public boolean isReasignadoPorSla() {
+		return reasignadoPorSla;
+	}
+
+	public void setReasignadoPorSla(boolean reasignadoPorSla) {
+		this.reasignadoPorSla = reasignadoPorSla;
+	}
+
+	/**
+	 * Versión del registro tal como se leyó. El DAO solo acepta actualizar(...) si
+	 * coincide con la guardada, y entonces la incrementa.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
 	/**
 	 * Indica si el ticket está asignado o cerrado.
 	 * 
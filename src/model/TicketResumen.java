@@ -0,0 +1,143 @@
+package model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Fila desnormalizada del listado de tickets: el ticket junto con el nombre del
+ * cliente y del técnico asignado. Se mantiene actualizada en cada escritura
+ * para que el listado del administrador no tenga que cruzar tickets, usuarios y
+ * técnicos al pintarse. Persistible (Serializable).
+ */
+public class TicketResumen implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String idTicket;
+	private String descripcion;
+	private String estado;
+	private String autorId;
+	private String nombreCliente; // null si no se conoce
+	private String asignadoA;
+	private String nombreTecnico; // null si no está asignado
+	private LocalDateTime fechaCreacion;
+
+	// Constructor vacío (necesario para deserialización y frameworks)
+	public TicketResumen() {
+	}
+
+	public TicketResumen(Ticket ticket, String nombreCliente, String nombreTecnico) {
+		copiarDe(ticket);
+		this.nombreCliente = nombreCliente;
+		this.nombreTecnico = nombreTecnico;
+	}
+
+	/**
+	 * Copia los campos propios del ticket (no toca los nombres).
+	 */
+	public void copiarDe(Ticket ticket) {
+		this.idTicket = ticket.getIdTicket();
+		this.descripcion = ticket.getDescripcion();
+		this.estado = ticket.getEstado();
+		this.autorId = ticket.getAutorId();
+		this.asignadoA = ticket.getAsignadoA();
+		this.fechaCreacion = ticket.getFechaCreacion();
+	}
+
+	// Getters y Setters
+	public String getIdTicket() {
+		return idTicket;
+	}
+
+	public void setIdTicket(String idTicket) {
+		this.idTicket = idTicket;
+	}
+
+	public String getDescripcion() {
+		return descripcion;
+	}
+
+	public void setDescripcion(String descripcion) {
+		this.descripcion = descripcion;
+	}
+
+	public String getEstado() {
+		return estado;
+	}
+
+	public void setEstado(String estado) {
+		this.estado = estado;
+	}
+
+	public String getAutorId() {
+		return autorId;
+	}
+
+	public void setAutorId(String autorId) {
+		this.autorId = autorId;
+	}
+
+	public String getNombreCliente() {
+		return nombreCliente;
+	}
+
+	public void setNombreCliente(String nombreCliente) {
+		this.nombreCliente = nombreCliente;
+	}
+
+	public String getAsignadoA() {
+		return asignadoA;
+	}
+
+	public void setAsignadoA(String asignadoA) {
+		this.asignadoA = asignadoA;
+	}
+
+	public String getNombreTecnico() {
+		return nombreTecnico;
+	}
+
+	public void setNombreTecnico(String nombreTecnico) {
+		this.nombreTecnico = nombreTecnico;
+	}
+
+	public LocalDateTime getFechaCreacion() {
+		return fechaCreacion;
+	}
+
+	public void setFechaCreacion(LocalDateTime fechaCreacion) {
+		this.fechaCreacion = fechaCreacion;
+	}
+
+	/**
+	 * Equals basados en el id del ticket (identidad lógica)
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+
+		TicketResumen that = (TicketResumen) o;
+		return Objects.equals(idTicket, that.idTicket);
+	}
+
+	/**
+	 * Hash code basado en el id del ticket (identidad lógica)
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(idTicket);
+	}
+
+	/**
+	 * Representación legible
+	 */
+	@Override
+	public String toString() {
+		return "TicketResumen{" + "idTicket='" + idTicket + '\'' + ", estado='" + estado + '\'' + ", cliente='"
+				+ nombreCliente + '\'' + ", tecnico='" + nombreTecnico + '\'' + '}';
+	}
+}
@@ -19,6 +19,7 @@ public class Usuario implements Serializable {
 	private String correo;
 	private String contrasena;
 	private String rol; // "CLIENTE", "TECH" y "ADMIN"
+	private long version; // Se incrementa en cada actualización guardada (control optimista)
 
 	/*
 	 * La serialización requiere un constructos por defecto Tambien es norma en
@@ -79,6 +80,18 @@ public class Usuario implements Serializable {
 		}
 	}
 
+	/**
+	 * Versión del registro tal como se leyó. El DAO solo acepta actualizar(...) si
+	 * coincide con la guardada, y entonces la incrementa.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
 	/**
 	 * utiliza el metodo equals basado en id (identidad lógica) de la clase Usuario
 	 */
@@ -6,4 +6,11 @@
  */
 module ProyectoGestorTickets {
 	requires java.desktop;
+	requires java.management;
+	// transitive: los eventos de util.metricas extienden jdk.jfr.Event
+	requires transitive jdk.jfr;
+	requires jdk.httpserver;
+
+	// Las interfaces MBean y los eventos de JFR deben ser accesibles desde fuera
+	exports util.metricas;
 }
\ No newline at end of file
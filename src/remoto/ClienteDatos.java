@@ -0,0 +1,282 @@
+package remoto;
+
+import util.AlmacenDatos;
+import util.ConflictoVersionException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementación de AlmacenDatos que habla con un ServidorDatos. Se instala con
+ * Serializador.configurarAlmacen(), de modo que los DAOs (y por tanto las vistas
+ * Swing y la API) funcionan igual que con ficheros locales.
+ *
+ * - Las peticiones se encadenan por una única conexión sin esperar a las
+ * anteriores (cada una lleva un id y un hilo lector reparte las respuestas).
+ * - Las lecturas se guardan en caché; el servidor avisa de cada cambio y la
+ * entrada afectada se descarta. Para que un aviso que adelanta a una respuesta
+ * no deje en caché una versión vieja, se recuerda la última versión anunciada
+ * de cada fichero y no se cachea nada anterior.
+ * - Si la conexión se pierde se falla lo pendiente, se vacía la caché (y las
+ * versiones anunciadas: si el servidor se ha reiniciado, vuelven a empezar en 1)
+ * y se reconecta en la siguiente petición.
+ * - Al conectar presenta el token compartido del servidor.
+ */
+public class ClienteDatos implements AlmacenDatos {
+
+	private static final int TIEMPO_CONEXION_MS = 5_000;
+	private static final long TIEMPO_RESPUESTA_S = 30;
+
+	/**
+	 * Petición enviada a la espera de respuesta. Para las escrituras se guarda el
+	 * contenido, que pasa a la caché cuando el servidor la confirma.
+	 */
+	private static final class Pendiente {
+
+		private final byte operacion;
+		private final String fichero;
+		private final byte[] contenido;
+		private final long versionEsperada;
+		private final CompletableFuture<Object> resultado = new CompletableFuture<>();
+
+		Pendiente(byte operacion, String fichero, byte[] contenido, long versionEsperada) {
+			this.operacion = operacion;
+			this.fichero = fichero;
+			this.contenido = contenido;
+			this.versionEsperada = versionEsperada;
+		}
+	}
+
+	private final String host;
+	private final int puerto;
+	private final String token;
+
+	private final AtomicInteger siguienteId = new AtomicInteger();
+	private final Map<Integer, Pendiente> pendientes = new ConcurrentHashMap<>();
+	private final Map<String, Lectura> cache = new ConcurrentHashMap<>();
+	private final Map<String, Long> versionesAnunciadas = new ConcurrentHashMap<>();
+
+	/** Conexión actual; volatile para que el lector de una conexión vieja lo vea sin cerrojo. */
+	private volatile Socket socket;
+	private DataOutputStream out;
+
+	/**
+	 * Conecta con el servidor con el token configurado (-Dgestortickets.datos.token
+	 * o GESTORTICKETS_DATOS_TOKEN).
+	 */
+	public ClienteDatos(String host, int puerto) throws IOException {
+		this(host, puerto, Protocolo.tokenConfigurado());
+	}
+
+	/**
+	 * Conecta con el servidor (falla enseguida si no está disponible o rechaza el
+	 * token).
+	 */
+	public ClienteDatos(String host, int puerto, String token) throws IOException {
+		if (token == null) {
+			throw new IOException("Falta el token del servidor de datos (-D" + Protocolo.PROPIEDAD_TOKEN + " o "
+					+ Protocolo.VARIABLE_TOKEN + ")");
+		}
+		this.host = host;
+		this.puerto = puerto;
+		this.token = token;
+		conexion();
+	}
+
+	@Override
+	public Lectura leer(String fichero) throws IOException {
+		Lectura cacheada = cache.get(fichero);
+		if (cacheada != null) {
+			return cacheada;
+		}
+		return (Lectura) enviar(new Pendiente(Protocolo.LEER, fichero, null, 0));
+	}
+
+	@Override
+	public long escribir(String fichero, byte[] contenido, long versionEsperada) throws IOException {
+		return (Long) enviar(new Pendiente(Protocolo.ESCRIBIR, fichero, contenido, versionEsperada));
+	}
+
+	@Override
+	public void borrar(String fichero) throws IOException {
+		enviar(new Pendiente(Protocolo.BORRAR, fichero, null, 0));
+	}
+
+	/**
+	 * Cierra la conexión. Las peticiones pendientes fallan.
+	 */
+	public synchronized void cerrar() {
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Ya estaba cerrada
+			}
+		}
+	}
+
+	/**
+	 * Envía la petición y espera su respuesta. Si se deja de esperar (tiempo
+	 * agotado o interrupción) la petición sigue registrada hasta que llegue la
+	 * respuesta, porque el lector necesita saber qué operación era para
+	 * interpretarla.
+	 */
+	private Object enviar(Pendiente pendiente) throws IOException {
+		int id = siguienteId.incrementAndGet();
+		pendientes.put(id, pendiente);
+		try {
+			DataOutputStream salida = conexion();
+			synchronized (salida) {
+				salida.writeByte(pendiente.operacion);
+				salida.writeInt(id);
+				salida.writeUTF(pendiente.fichero);
+				if (pendiente.operacion == Protocolo.ESCRIBIR) {
+					salida.writeLong(pendiente.versionEsperada);
+					Protocolo.escribirBytes(salida, pendiente.contenido);
+				}
+				salida.flush();
+			}
+		} catch (IOException e) {
+			pendientes.remove(id);
+			desconectar();
+			throw e;
+		}
+
+		try {
+			return pendiente.resultado.get(TIEMPO_RESPUESTA_S, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException io) {
+				throw io;
+			}
+			throw new IOException(e.getCause());
+		} catch (TimeoutException e) {
+			throw new IOException("El servidor de datos no ha respondido en " + TIEMPO_RESPUESTA_S + " s");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrumpido esperando al servidor de datos");
+		}
+	}
+
+	/**
+	 * Devuelve el flujo de salida de la conexión actual, conectando si hace falta.
+	 */
+	private synchronized DataOutputStream conexion() throws IOException {
+		if (socket != null && !socket.isClosed()) {
+			return out;
+		}
+		Socket nuevo = new Socket();
+		try {
+			nuevo.connect(new InetSocketAddress(host, puerto), TIEMPO_CONEXION_MS);
+			nuevo.setTcpNoDelay(true);
+			DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(nuevo.getOutputStream()));
+			DataInputStream entrada = new DataInputStream(new BufferedInputStream(nuevo.getInputStream()));
+			salida.writeInt(Protocolo.MAGIA);
+			salida.writeInt(Protocolo.VERSION);
+			salida.writeUTF(token);
+			salida.flush();
+			int respuesta = entrada.readInt();
+			if (respuesta == Protocolo.RECHAZADA) {
+				throw new IOException("El servidor de datos ha rechazado el token");
+			}
+			if (respuesta != Protocolo.MAGIA) {
+				throw new IOException("El servidor " + host + ":" + puerto + " no es un servidor de datos");
+			}
+			// Lo anunciado por una conexión anterior puede ser de otra vida del servidor
+			versionesAnunciadas.clear();
+			cache.clear();
+			socket = nuevo;
+			out = salida;
+			Thread.ofPlatform().daemon(true).name("cliente-datos-lector").start(() -> leerRespuestas(nuevo, entrada));
+			return out;
+		} catch (IOException e) {
+			nuevo.close();
+			throw new IOException("No se pudo conectar con el servidor de datos " + host + ":" + puerto + ". Causa: "
+					+ e.getMessage(), e);
+		}
+	}
+
+	private void leerRespuestas(Socket origen, DataInputStream in) {
+		try {
+			while (true) {
+				byte tipo = in.readByte();
+				if (tipo == Protocolo.INVALIDAR) {
+					String fichero = in.readUTF();
+					long version = in.readLong();
+					if (socket != origen) {
+						// Aviso atrasado de una conexión ya sustituida
+						return;
+					}
+					versionesAnunciadas.merge(fichero, version, Math::max);
+					cache.computeIfPresent(fichero, (f, l) -> l.getVersion() >= version ? l : null);
+					continue;
+				}
+
+				int id = in.readInt();
+				Pendiente pendiente = pendientes.remove(id);
+				if (pendiente == null) {
+					throw new IOException("Respuesta del servidor de datos a una petición desconocida: " + id);
+				}
+				switch (tipo) {
+				case Protocolo.OK -> {
+					long version = in.readLong();
+					byte[] contenido = pendiente.operacion == Protocolo.LEER ? Protocolo.leerBytes(in)
+							: pendiente.operacion == Protocolo.ESCRIBIR ? pendiente.contenido : null;
+					Lectura lectura = new Lectura(contenido, version);
+					cachear(pendiente.fichero, lectura);
+					pendiente.resultado.complete(pendiente.operacion == Protocolo.LEER ? lectura : version);
+				}
+				case Protocolo.CONFLICTO -> {
+					long actual = in.readLong();
+					pendiente.resultado.completeExceptionally(
+							new ConflictoVersionException(pendiente.fichero, pendiente.versionEsperada, actual));
+				}
+				case Protocolo.ERROR -> {
+					String mensaje = in.readUTF();
+					pendiente.resultado.completeExceptionally(new IOException("Servidor de datos: " + mensaje));
+				}
+				default -> throw new IOException("Respuesta desconocida del servidor de datos: " + tipo);
+				}
+			}
+		} catch (IOException e) {
+			if (!origen.isClosed()) {
+				System.err.println("Conexión con el servidor de datos perdida. Causa: " + e.getMessage());
+			}
+		} finally {
+			synchronized (this) {
+				if (socket == origen) {
+					desconectar();
+				}
+			}
+		}
+	}
+
+	private void cachear(String fichero, Lectura lectura) {
+		if (lectura.getVersion() >= versionesAnunciadas.getOrDefault(fichero, 0L)) {
+			cache.merge(fichero, lectura, (vieja, nueva) -> nueva.getVersion() >= vieja.getVersion() ? nueva : vieja);
+		}
+	}
+
+	private synchronized void desconectar() {
+		cerrar();
+		socket = null;
+		out = null;
+		cache.clear();
+		versionesAnunciadas.clear();
+		IOException perdida = new IOException("Conexión con el servidor de datos perdida");
+		pendientes.values().forEach(p -> p.resultado.completeExceptionally(perdida));
+		pendientes.clear();
+	}
+}
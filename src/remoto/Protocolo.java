@@ -0,0 +1,109 @@
+package remoto;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Protocolo binario entre ClienteDatos y ServidorDatos (sobre TCP, con
+ * DataInput/DataOutput).
+ *
+ * Al conectar el cliente envía MAGIA, VERSION y el token compartido (utf) y el
+ * servidor responde con MAGIA, o con RECHAZADA y cierra si el token no coincide.
+ * A partir de ahí:
+ *
+ * <pre>
+ * petición:  byte operación, int id, utf fichero, [long versionEsperada, bytes contenido]  (ESCRIBIR)
+ * respuesta: byte tipo, int id, ...
+ *   OK de LEER:      long versión, bytes contenido (longitud -1 si no existe)
+ *   OK de ESCRIBIR:  long versión nueva
+ *   OK de BORRAR:    long versión nueva
+ *   CONFLICTO:       long versión actual
+ *   ERROR:           utf mensaje
+ * aviso (servidor a todos los clientes tras cada cambio):
+ *   byte INVALIDAR, utf fichero, long versión nueva
+ * </pre>
+ *
+ * Las peticiones llevan un id para poder encadenarlas sin esperar respuesta
+ * (pipelining); el servidor contesta en el orden en que termina cada una.
+ *
+ * Los contenidos mayores que MAX_BYTES se rechazan al leerlos, para que una
+ * longitud falsa no haga reservar gigas de memoria.
+ */
+final class Protocolo {
+
+	static final int MAGIA = 0x47544B44; // "GTKD"
+	static final int VERSION = 2;
+	static final int RECHAZADA = 0;
+
+	/** Tamaño máximo de un contenido (un fichero de datos) en una trama. */
+	static final int MAX_BYTES = 256 * 1024 * 1024;
+
+	/** Token compartido que deben presentar los clientes. */
+	static final String PROPIEDAD_TOKEN = "gestortickets.datos.token";
+	static final String VARIABLE_TOKEN = "GESTORTICKETS_DATOS_TOKEN";
+
+	static final byte LEER = 1;
+	static final byte ESCRIBIR = 2;
+	static final byte BORRAR = 3;
+
+	static final byte OK = 10;
+	static final byte CONFLICTO = 11;
+	static final byte ERROR = 12;
+	static final byte INVALIDAR = 20;
+
+	private Protocolo() {
+	}
+
+	/**
+	 * Token configurado con -Dgestortickets.datos.token o la variable de entorno
+	 * GESTORTICKETS_DATOS_TOKEN, o null si no hay.
+	 */
+	static String tokenConfigurado() {
+		String token = System.getProperty(PROPIEDAD_TOKEN, System.getenv(VARIABLE_TOKEN));
+		return token != null && !token.isBlank() ? token : null;
+	}
+
+	/**
+	 * Compara dos tokens en tiempo constante.
+	 */
+	static boolean mismoToken(String esperado, String recibido) {
+		return recibido != null && MessageDigest.isEqual(esperado.getBytes(StandardCharsets.UTF_8),
+				recibido.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static void escribirBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		if (bytes != null && bytes.length > MAX_BYTES) {
+			throw new IOException("Contenido de " + bytes.length + " bytes, el máximo es " + MAX_BYTES);
+		}
+		if (bytes == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	static byte[] leerBytes(DataInputStream in) throws IOException {
+		int longitud = in.readInt();
+		if (longitud < 0) {
+			return null;
+		}
+		if (longitud > MAX_BYTES) {
+			throw new IOException("Trama de " + longitud + " bytes, el máximo es " + MAX_BYTES);
+		}
+		byte[] bytes = new byte[longitud];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Solo se aceptan nombres simples (sin carpetas) para que un cliente no pueda
+	 * leer ni escribir fuera de la carpeta de datos del servidor.
+	 */
+	static boolean nombreValido(String fichero) {
+		return fichero != null && fichero.matches("[A-Za-z0-9_-][A-Za-z0-9_.-]*");
+	}
+}
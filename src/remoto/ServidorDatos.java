@@ -0,0 +1,386 @@
+package remoto;
+
+import util.Constantes;
+import util.Serializador;
+import util.metricas.Medicion;
+import util.metricas.Metricas;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Proceso dueño de los ficheros de datos. Los clientes (ClienteDatos, usado por
+ * el Serializador de cada aplicación de escritorio o API) leen y escriben por
+ * TCP en lugar de tocar Datos/ directamente, así que dos operadores a la vez ya
+ * no se pisan en silencio: cada escritura indica la versión que modificó y se
+ * rechaza si otro escribió entre medias.
+ *
+ * El servidor mantiene en memoria el contenido y la versión de cada fichero
+ * (las lecturas no tocan disco) y persiste cada escritura en Constantes.DATA_DIR
+ * con el mismo esquema de temporal + move que el Serializador. Tras cada cambio
+ * avisa a todos los clientes conectados para que invaliden su caché.
+ *
+ * Cada conexión tiene un hilo virtual lector y cada petición se atiende en su
+ * propio hilo virtual, de modo que las peticiones encadenadas de un cliente se
+ * procesan en paralelo.
+ *
+ * Por defecto solo escucha en la interfaz local (127.0.0.1; otra con
+ * -Dgestortickets.datos.host) y solo atiende a clientes que presentan el token
+ * compartido (Protocolo.tokenConfigurado(); si no hay ninguno se genera uno al
+ * crear el servidor).
+ */
+@SuppressWarnings("try")
+public class ServidorDatos {
+
+	public static final int PUERTO_POR_DEFECTO = Integer.getInteger("gestortickets.datos.puerto", 7070);
+	public static final String HOST_POR_DEFECTO = System.getProperty("gestortickets.datos.host", "127.0.0.1");
+
+	/** Tiempo para completar el saludo; una conexión que no lo envía se cierra. */
+	private static final int TIEMPO_SALUDO_MS = 10_000;
+
+	/**
+	 * Contenido en memoria de un fichero. Se reemplaza entera en cada cambio, así
+	 * que las lecturas no necesitan bloqueo.
+	 */
+	private static final class Entrada {
+
+		private final byte[] contenido;
+		private final long version;
+
+		Entrada(byte[] contenido, long version) {
+			this.contenido = contenido;
+			this.version = version;
+		}
+	}
+
+	private final Map<String, Entrada> ficheros = new ConcurrentHashMap<>();
+	private final Map<String, Object> cerrojos = new ConcurrentHashMap<>();
+	private final Set<Conexion> conexiones = ConcurrentHashMap.newKeySet();
+	private final String token;
+	private final boolean tokenGenerado;
+
+	private ServerSocket servidor;
+
+	/**
+	 * Servidor con el token configurado o, si no hay, uno aleatorio (ver
+	 * getToken()).
+	 */
+	public ServidorDatos() {
+		String configurado = Protocolo.tokenConfigurado();
+		if (configurado != null) {
+			this.token = configurado;
+			this.tokenGenerado = false;
+		} else {
+			byte[] aleatorio = new byte[24];
+			new SecureRandom().nextBytes(aleatorio);
+			this.token = Base64.getUrlEncoder().withoutPadding().encodeToString(aleatorio);
+			this.tokenGenerado = true;
+		}
+	}
+
+	/**
+	 * Token que deben presentar los clientes (-Dgestortickets.datos.token).
+	 */
+	public String getToken() {
+		return token;
+	}
+
+	/**
+	 * Si el token lo ha generado el servidor (no estaba configurado) y hay que
+	 * pasárselo a los clientes.
+	 */
+	public boolean isTokenGenerado() {
+		return tokenGenerado;
+	}
+
+	/**
+	 * Empieza a aceptar conexiones.
+	 *
+	 * @param host   Dirección en la que escuchar.
+	 * @param puerto Puerto, o 0 para uno libre cualquiera.
+	 */
+	public synchronized void iniciar(String host, int puerto) throws IOException {
+		if (servidor != null) {
+			throw new IllegalStateException("El servidor de datos ya está iniciado en el puerto " + getPuerto());
+		}
+		Files.createDirectories(Paths.get(Constantes.DATA_DIR));
+		servidor = new ServerSocket();
+		servidor.bind(new InetSocketAddress(host, puerto));
+		ServerSocket aceptador = servidor;
+		Thread.ofPlatform().name("servidor-datos").daemon(false).start(() -> aceptar(aceptador));
+	}
+
+	public synchronized void detener() {
+		if (servidor == null) {
+			return;
+		}
+		try {
+			servidor.close();
+		} catch (IOException e) {
+			System.err.println("Error al cerrar el servidor de datos. Causa: " + e.getMessage());
+		}
+		servidor = null;
+		conexiones.forEach(Conexion::cerrar);
+	}
+
+	public synchronized int getPuerto() {
+		return servidor != null ? servidor.getLocalPort() : -1;
+	}
+
+	private void aceptar(ServerSocket aceptador) {
+		while (!aceptador.isClosed()) {
+			try {
+				Socket socket = aceptador.accept();
+				socket.setTcpNoDelay(true);
+				Conexion conexion = new Conexion(socket);
+				conexiones.add(conexion);
+				Thread.ofVirtual().name("datos-" + socket.getRemoteSocketAddress()).start(conexion::atender);
+			} catch (IOException e) {
+				if (!aceptador.isClosed()) {
+					System.err.println("Error aceptando una conexión de datos. Causa: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	// --- Operaciones sobre los ficheros ---
+
+	private Entrada leer(String fichero) throws IOException {
+		Entrada entrada = ficheros.get(fichero);
+		if (entrada != null) {
+			return entrada;
+		}
+		synchronized (cerrojo(fichero)) {
+			return cargar(fichero);
+		}
+	}
+
+	/**
+	 * @return la nueva versión, o -(versión actual) - 1 si hay conflicto.
+	 */
+	private long escribir(String fichero, byte[] contenido, long versionEsperada) throws IOException {
+		long nueva;
+		synchronized (cerrojo(fichero)) {
+			Entrada actual = cargar(fichero);
+			if (versionEsperada >= 0 && versionEsperada != actual.version) {
+				return -actual.version - 1;
+			}
+			Path ruta = ruta(fichero);
+			Path temporal = Files.createTempFile(ruta.getParent(), fichero + ".", Constantes.TEMP_SUFFIX);
+			try {
+				Files.write(temporal, contenido);
+				Serializador.sustituir(temporal, ruta);
+			} finally {
+				Files.deleteIfExists(temporal);
+			}
+			nueva = actual.version + 1;
+			ficheros.put(fichero, new Entrada(contenido, nueva));
+		}
+		avisarCambio(fichero, nueva);
+		return nueva;
+	}
+
+	private long borrar(String fichero) throws IOException {
+		long nueva;
+		synchronized (cerrojo(fichero)) {
+			Entrada actual = cargar(fichero);
+			Files.deleteIfExists(ruta(fichero));
+			nueva = actual.version + 1;
+			ficheros.put(fichero, new Entrada(null, nueva));
+		}
+		avisarCambio(fichero, nueva);
+		return nueva;
+	}
+
+	/**
+	 * Devuelve la entrada en memoria, leyéndola de disco la primera vez. Se llama
+	 * con el cerrojo del fichero tomado.
+	 */
+	private Entrada cargar(String fichero) throws IOException {
+		Entrada entrada = ficheros.get(fichero);
+		if (entrada == null) {
+			Path ruta = ruta(fichero);
+			entrada = Files.exists(ruta) ? new Entrada(Files.readAllBytes(ruta), 1) : new Entrada(null, 0);
+			ficheros.put(fichero, entrada);
+		}
+		return entrada;
+	}
+
+	private Object cerrojo(String fichero) {
+		return cerrojos.computeIfAbsent(fichero, f -> new Object());
+	}
+
+	private static Path ruta(String fichero) {
+		return Paths.get(Constantes.DATA_DIR, fichero);
+	}
+
+	private void avisarCambio(String fichero, long version) {
+		for (Conexion conexion : conexiones) {
+			conexion.enviarAviso(fichero, version);
+		}
+	}
+
+	// --- Conexiones ---
+
+	private final class Conexion {
+
+		private final Socket socket;
+		private final DataInputStream in;
+		private final DataOutputStream out;
+
+		Conexion(Socket socket) throws IOException {
+			this.socket = socket;
+			this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+
+		void atender() {
+			try {
+				socket.setSoTimeout(TIEMPO_SALUDO_MS);
+				if (in.readInt() != Protocolo.MAGIA || in.readInt() != Protocolo.VERSION) {
+					System.err.println("Conexión de datos rechazada (protocolo desconocido) desde "
+							+ socket.getRemoteSocketAddress());
+					return;
+				}
+				boolean aceptada = Protocolo.mismoToken(token, in.readUTF());
+				synchronized (out) {
+					out.writeInt(aceptada ? Protocolo.MAGIA : Protocolo.RECHAZADA);
+					out.flush();
+				}
+				if (!aceptada) {
+					System.err.println("Conexión de datos rechazada (token no válido) desde "
+							+ socket.getRemoteSocketAddress());
+					return;
+				}
+				socket.setSoTimeout(0);
+				while (true) {
+					byte operacion = in.readByte();
+					int id = in.readInt();
+					String fichero = in.readUTF();
+					long versionEsperada = 0;
+					byte[] contenido = null;
+					if (operacion == Protocolo.ESCRIBIR) {
+						versionEsperada = in.readLong();
+						contenido = Protocolo.leerBytes(in);
+					}
+					long version = versionEsperada;
+					byte[] datos = contenido;
+					Thread.startVirtualThread(() -> procesar(operacion, id, fichero, version, datos));
+				}
+			} catch (EOFException | SocketException e) {
+				// El cliente ha cerrado la conexión
+			} catch (IOException e) {
+				System.err.println("Error en la conexión de datos con " + socket.getRemoteSocketAddress()
+						+ ". Causa: " + e.getMessage());
+			} finally {
+				cerrar();
+			}
+		}
+
+		private void procesar(byte operacion, int id, String fichero, long versionEsperada, byte[] contenido) {
+			try (Medicion m = Metricas.medir("ServidorDatos." + nombreOperacion(operacion))) {
+				if (!Protocolo.nombreValido(fichero)) {
+					enviarError(id, "Nombre de fichero no válido: " + fichero);
+					return;
+				}
+				switch (operacion) {
+				case Protocolo.LEER -> {
+					Entrada entrada = leer(fichero);
+					synchronized (out) {
+						out.writeByte(Protocolo.OK);
+						out.writeInt(id);
+						out.writeLong(entrada.version);
+						Protocolo.escribirBytes(out, entrada.contenido);
+						out.flush();
+					}
+				}
+				case Protocolo.ESCRIBIR -> {
+					long resultado = escribir(fichero, contenido, versionEsperada);
+					synchronized (out) {
+						out.writeByte(resultado >= 0 ? Protocolo.OK : Protocolo.CONFLICTO);
+						out.writeInt(id);
+						out.writeLong(resultado >= 0 ? resultado : -resultado - 1);
+						out.flush();
+					}
+				}
+				case Protocolo.BORRAR -> {
+					long version = borrar(fichero);
+					synchronized (out) {
+						out.writeByte(Protocolo.OK);
+						out.writeInt(id);
+						out.writeLong(version);
+						out.flush();
+					}
+				}
+				default -> enviarError(id, "Operación desconocida: " + operacion);
+				}
+			} catch (IOException e) {
+				enviarError(id, e.getMessage());
+			}
+		}
+
+		private void enviarError(int id, String mensaje) {
+			try {
+				synchronized (out) {
+					out.writeByte(Protocolo.ERROR);
+					out.writeInt(id);
+					out.writeUTF(mensaje != null ? mensaje : "Error desconocido");
+					out.flush();
+				}
+			} catch (IOException e) {
+				cerrar();
+			}
+		}
+
+		void enviarAviso(String fichero, long version) {
+			try {
+				synchronized (out) {
+					out.writeByte(Protocolo.INVALIDAR);
+					out.writeUTF(fichero);
+					out.writeLong(version);
+					out.flush();
+				}
+			} catch (IOException e) {
+				cerrar();
+			}
+		}
+
+		void cerrar() {
+			conexiones.remove(this);
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Ya estaba cerrada
+			}
+		}
+	}
+
+	private static String nombreOperacion(byte operacion) {
+		switch (operacion) {
+		case Protocolo.LEER:
+			return "leer";
+		case Protocolo.ESCRIBIR:
+			return "escribir";
+		case Protocolo.BORRAR:
+			return "borrar";
+		default:
+			return "desconocida";
+		}
+	}
+}
@@ -0,0 +1,273 @@
+package service;
+
+import model.Tecnico;
+import service.ColumnasTickets.Columnas;
+import service.ConsultaTickets.Acumulador;
+import service.ConsultaTickets.Dimension;
+import service.ConsultaTickets.Rango;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * El recorrido de ConsultaTickets sobre las columnas de ColumnasTickets. Cada
+ * fila se agrupa por los códigos de sus columnas, no por textos: la clave del
+ * grupo es un long que combina un código por dimensión (en base "número de
+ * valores posibles" de cada una), y los textos solo se buscan al final, una vez
+ * por grupo. Si hay pocos grupos posibles (LIMITE_DENSO) cada tramo acumula en
+ * arrays indexados por la clave, sin reservar memoria por fila.
+ */
+final class AgregacionColumnas {
+
+	/** Filas por tramo. */
+	private static final int UMBRAL = 64 * 1024;
+	/** Con hasta tantos grupos posibles se acumula en arrays; con más, en un mapa. */
+	private static final int LIMITE_DENSO = 4096;
+	/**
+	 * Códigos de más que se admiten en cada dimensión sobre los que había al
+	 * empezar (los de tickets que cambian durante el recorrido).
+	 */
+	private static final int HOLGURA = 16;
+
+	private AgregacionColumnas() {
+	}
+
+	/**
+	 * @return Los grupos con sus agregados, o null si la clave no cabe en un long
+	 *         (hay que recorrer los tickets).
+	 */
+	static Map<List<String>, Acumulador> agregar(Columnas c, ForkJoinPool pool, Dimension[] dimensiones,
+			Rango creacion, Rango cierre, Map<String, Tecnico> tecnicos) {
+		int tamano = c.tamano;
+		int mesMinimo = c.minSegundo <= c.maxSegundo ? mesDeSegundo(c.minSegundo) : 0;
+		int mesMaximo = c.minSegundo <= c.maxSegundo ? mesDeSegundo(c.maxSegundo) : 0;
+		long[] bases = new long[dimensiones.length];
+		long grupos = 1;
+		try {
+			for (int d = 0; d < dimensiones.length; d++) {
+				bases[d] = 1 + HOLGURA + switch (dimensiones[d]) {
+				case CATEGORIA -> c.categorias.getTamano();
+				case ESTADO -> c.estados.getTamano();
+				case PRIORIDAD -> c.prioridades.getTamano();
+				case TECNICO, NOMBRE_TECNICO, ESPECIALIDAD -> c.usuarios.getTamano();
+				case MES_CREACION, MES_CIERRE -> mesMaximo - mesMinimo + 1;
+				};
+				grupos = Math.multiplyExact(grupos, bases[d]);
+			}
+		} catch (ArithmeticException e) {
+			return null;
+		}
+		boolean[] estadosCerrados = ColumnasTickets.estadosCerrados(c, c.estados.getTamano() + HOLGURA);
+
+		Tramo tramo = new Tramo(c, 0, tamano, dimensiones, bases, grupos <= LIMITE_DENSO ? (int) grupos : -1,
+				mesMinimo, estadosCerrados, creacion, cierre);
+		Parcial parcial = pool.invoke(tramo);
+
+		// De códigos a textos; dos códigos pueden dar el mismo texto (p. ej. técnicos
+		// con el mismo nombre)
+		Map<List<String>, Acumulador> resultado = new HashMap<>();
+		parcial.porClave().forEach((clave, a) -> resultado.merge(textos(c, dimensiones, bases, mesMinimo, clave,
+				tecnicos), a, Acumulador::combinar));
+		return resultado;
+	}
+
+	private static List<String> textos(Columnas c, Dimension[] dimensiones, long[] bases, int mesMinimo, long clave,
+			Map<String, Tecnico> tecnicos) {
+		String[] valores = new String[dimensiones.length];
+		for (int d = dimensiones.length - 1; d >= 0; d--) {
+			int codigo = (int) (clave % bases[d]) - 1;
+			clave /= bases[d];
+			Dimension dimension = dimensiones[d];
+			String campo = switch (dimension) {
+			case CATEGORIA -> c.categorias.valor(codigo);
+			case ESTADO -> c.estados.valor(codigo);
+			case PRIORIDAD -> c.prioridades.valor(codigo);
+			case TECNICO, NOMBRE_TECNICO, ESPECIALIDAD -> c.usuarios.valor(codigo);
+			case MES_CREACION, MES_CIERRE -> codigo >= 0 ? ConsultaTickets.mes(mesMinimo + codigo) : null;
+			};
+			valores[d] = dimension.valor(campo, dimension.esDeTecnico() && campo != null ? tecnicos.get(campo) : null);
+		}
+		return List.of(valores);
+	}
+
+	/**
+	 * Mes (año * 12 + mes - 1) de un segundo de ColumnasTickets.segundos(), sin
+	 * crear objetos de fecha (algoritmo de días civiles de H. Hinnant).
+	 */
+	static int mesDeSegundo(long segundo) {
+		long z = Math.floorDiv(segundo, 86400) + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long diaDeEra = z - era * 146097;
+		long anoDeEra = (diaDeEra - diaDeEra / 1460 + diaDeEra / 36524 - diaDeEra / 146096) / 365;
+		long diaDelAno = diaDeEra - (365 * anoDeEra + anoDeEra / 4 - anoDeEra / 100);
+		long mp = (5 * diaDelAno + 2) / 153;
+		long mes = mp < 10 ? mp + 3 : mp - 9;
+		long ano = anoDeEra + era * 400 + (mes <= 2 ? 1 : 0);
+		return (int) (ano * 12 + mes - 1);
+	}
+
+	/**
+	 * Agregados de un tramo: en arrays indexados por la clave (denso) o en un
+	 * mapa.
+	 */
+	private static final class Parcial {
+
+		final long[] tickets;
+		final long[] cerrados;
+		final long[] suma;
+		final long[] min;
+		final long[] max;
+		final Map<Long, Acumulador> grupos;
+
+		Parcial(int denso) {
+			if (denso >= 0) {
+				tickets = new long[denso];
+				cerrados = new long[denso];
+				suma = new long[denso];
+				min = new long[denso];
+				max = new long[denso];
+				Arrays.fill(min, Long.MAX_VALUE);
+				grupos = null;
+			} else {
+				tickets = cerrados = suma = min = max = null;
+				grupos = new HashMap<>();
+			}
+		}
+
+		void sumar(long clave, boolean cerradoConFechas, long segundos) {
+			if (grupos != null) {
+				grupos.computeIfAbsent(clave, k -> new Acumulador()).sumar(cerradoConFechas, segundos);
+				return;
+			}
+			int i = (int) clave;
+			tickets[i]++;
+			if (cerradoConFechas) {
+				segundos = Math.max(0, segundos);
+				cerrados[i]++;
+				suma[i] += segundos;
+				min[i] = Math.min(min[i], segundos);
+				max[i] = Math.max(max[i], segundos);
+			}
+		}
+
+		Parcial combinar(Parcial otro) {
+			if (grupos != null) {
+				return ConsultaTickets.combinar(grupos, otro.grupos) == grupos ? this : otro;
+			}
+			for (int i = 0; i < tickets.length; i++) {
+				tickets[i] += otro.tickets[i];
+				cerrados[i] += otro.cerrados[i];
+				suma[i] += otro.suma[i];
+				min[i] = Math.min(min[i], otro.min[i]);
+				max[i] = Math.max(max[i], otro.max[i]);
+			}
+			return this;
+		}
+
+		Map<Long, Acumulador> porClave() {
+			if (grupos != null) {
+				return grupos;
+			}
+			Map<Long, Acumulador> resultado = new HashMap<>();
+			for (int i = 0; i < tickets.length; i++) {
+				if (tickets[i] > 0) {
+					Acumulador a = new Acumulador();
+					a.tickets = tickets[i];
+					a.cerrados = cerrados[i];
+					a.sumaResolucionS = suma[i];
+					a.minResolucionS = min[i];
+					a.maxResolucionS = max[i];
+					resultado.put((long) i, a);
+				}
+			}
+			return resultado;
+		}
+	}
+
+	private static final class Tramo extends RecursiveTask<Parcial> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient Columnas c;
+		private final int desde;
+		private final int hasta;
+		private final Dimension[] dimensiones;
+		private final long[] bases;
+		private final int denso;
+		private final int mesMinimo;
+		private final boolean[] estadosCerrados;
+		private final transient Rango creacion;
+		private final transient Rango cierre;
+
+		Tramo(Columnas c, int desde, int hasta, Dimension[] dimensiones, long[] bases, int denso, int mesMinimo,
+				boolean[] estadosCerrados, Rango creacion, Rango cierre) {
+			this.c = c;
+			this.desde = desde;
+			this.hasta = hasta;
+			this.dimensiones = dimensiones;
+			this.bases = bases;
+			this.denso = denso;
+			this.mesMinimo = mesMinimo;
+			this.estadosCerrados = estadosCerrados;
+			this.creacion = creacion;
+			this.cierre = cierre;
+		}
+
+		private Tramo parte(int desde, int hasta) {
+			return new Tramo(c, desde, hasta, dimensiones, bases, denso, mesMinimo, estadosCerrados, creacion, cierre);
+		}
+
+		@Override
+		protected Parcial compute() {
+			if (hasta - desde <= UMBRAL) {
+				return agregar();
+			}
+			int mitad = (desde + hasta) >>> 1;
+			Tramo izquierda = parte(desde, mitad);
+			izquierda.fork();
+			Parcial derecha = parte(mitad, hasta).compute();
+			return izquierda.join().combinar(derecha);
+		}
+
+		private Parcial agregar() {
+			Parcial parcial = new Parcial(denso);
+			filas: for (int i = desde; i < hasta; i++) {
+				long creado = c.creacion[i];
+				if (creacion != null && !creacion.contiene(creado)) {
+					continue;
+				}
+				int estado = c.estado[i];
+				boolean cerrado = estado >= 0 && estado < estadosCerrados.length && estadosCerrados[estado];
+				long cerradoEn = c.cierre[i];
+				if (cierre != null && !(cerrado && cierre.contiene(cerradoEn))) {
+					continue;
+				}
+				long clave = 0;
+				for (int d = 0; d < dimensiones.length; d++) {
+					long codigo = switch (dimensiones[d]) {
+					case CATEGORIA -> c.categoria[i] + 1;
+					case ESTADO -> estado + 1;
+					case PRIORIDAD -> c.prioridad[i] + 1;
+					case TECNICO, NOMBRE_TECNICO, ESPECIALIDAD -> c.asignado[i] + 1;
+					case MES_CREACION -> creado != ColumnasTickets.SIN_FECHA ? mesDeSegundo(creado) - mesMinimo + 1 : 0;
+					case MES_CIERRE -> cerradoEn != ColumnasTickets.SIN_FECHA ? mesDeSegundo(cerradoEn) - mesMinimo + 1
+							: 0;
+					};
+					if (codigo < 0 || codigo >= bases[d]) {
+						// Ticket cambiado durante el recorrido con un valor nuevo: se deja fuera
+						continue filas;
+					}
+					clave = clave * bases[d] + codigo;
+				}
+				boolean conFechas = cerrado && creado != ColumnasTickets.SIN_FECHA
+						&& cerradoEn != ColumnasTickets.SIN_FECHA;
+				parcial.sumar(clave, conFechas, conFechas ? cerradoEn - creado : 0);
+			}
+			return parcial;
+		}
+	}
+}
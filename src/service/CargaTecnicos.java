@@ -0,0 +1,192 @@
+package service;
+
+import controller.TecnicoDAO;
+import controller.TicketDAO;
+import model.Tecnico;
+import model.Ticket;
+import util.Serializador;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carga de trabajo en vivo de cada técnico (tickets asignados sin cerrar). Es la
+ * fuente de verdad para repartir tickets y para los paneles: asignar y resolver
+ * solo suman o restan uno en un AtomicInteger, sin leer ni reescribir el fichero
+ * de técnicos.
+ *
+ * - Se construye contando los tickets abiertos asignados a cada técnico en
+ * iniciar(), que se llama al arrancar y al crear un GestorTicket, antes de que
+ * el hilo escritor pueda guardar nada. Los cambios que llegaran antes (ya están
+ * en los tickets, que es de donde se cuenta) no se suman otra vez.
+ * - Cada PERIODO_PUNTO_CONTROL_S segundos, si ha habido cambios, se copia al
+ * campo cargaTrabajo del fichero de técnicos (a través del hilo escritor), y una
+ * última vez al cerrar el proceso. Ese campo queda como copia informativa.
+ *
+ * En modo cliente/servidor cada proceso lleva su propia cuenta; al arrancar
+ * todos parten de los tickets, que sí son compartidos. La copia al fichero solo
+ * la hace un proceso que usa Datos/ en local: los clientes se pisarían entre sí
+ * las cuentas.
+ */
+public final class CargaTecnicos {
+
+	private static final long PERIODO_PUNTO_CONTROL_S = 10;
+	private static final long ESPERA_CIERRE_S = 5;
+
+	private static final Map<String, AtomicInteger> CARGAS = new ConcurrentHashMap<>();
+	/** Cambios hechos y cambios ya copiados al fichero: si difieren toca punto de control. */
+	private static final AtomicLong CAMBIOS = new AtomicLong();
+	private static final AtomicLong CAMBIOS_GUARDADOS = new AtomicLong();
+	private static volatile boolean iniciado;
+
+	private CargaTecnicos() {
+	}
+
+	/**
+	 * Cuenta la carga desde los tickets y, en modo local, programa los puntos de
+	 * control. Llamadas posteriores no hacen nada. No se debe llamar por primera
+	 * vez desde una acción tras guardar: contaría un cambio que ya está en los
+	 * tickets (por eso no se hace en un bloque static).
+	 */
+	public static void iniciar() {
+		if (iniciado) {
+			return;
+		}
+		synchronized (CargaTecnicos.class) {
+			if (iniciado) {
+				return;
+			}
+			reconstruir();
+			if (!Serializador.esRemoto()) {
+				ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(
+						r -> Thread.ofPlatform().daemon(true).name("carga-tecnicos-punto-control").unstarted(r));
+				planificador.scheduleWithFixedDelay(CargaTecnicos::puntoDeControl, PERIODO_PUNTO_CONTROL_S,
+						PERIODO_PUNTO_CONTROL_S, TimeUnit.SECONDS);
+				Runtime.getRuntime().addShutdownHook(new Thread(CargaTecnicos::puntoDeControlAlCerrar));
+			}
+			iniciado = true;
+		}
+	}
+
+	/**
+	 * Carga actual del técnico (0 si no tiene tickets abiertos).
+	 */
+	public static int carga(String tecnicoId) {
+		iniciar();
+		AtomicInteger carga = tecnicoId != null ? CARGAS.get(tecnicoId) : null;
+		return carga != null ? carga.get() : 0;
+	}
+
+	/**
+	 * Copia la carga en vivo al técnico leído del fichero y lo devuelve.
+	 */
+	public static <T extends Tecnico> T aplicar(T tecnico) {
+		if (tecnico != null) {
+			tecnico.setCargaTrabajo(carga(tecnico.getId()));
+		}
+		return tecnico;
+	}
+
+	public static <T extends Tecnico> List<T> aplicar(List<T> tecnicos) {
+		tecnicos.forEach(CargaTecnicos::aplicar);
+		return tecnicos;
+	}
+
+	/**
+	 * Vuelve a contar la carga de cada técnico desde los tickets abiertos. Para el
+	 * arranque y para herramientas que regeneran los datos.
+	 */
+	public static void reconstruir() {
+		Map<String, Integer> cuenta = new HashMap<>();
+		for (Ticket t : new TicketDAO().findAll()) {
+			if (t.asignado() && !t.cerrado()) {
+				cuenta.merge(t.getAsignadoA(), 1, Integer::sum);
+			}
+		}
+		CARGAS.keySet().retainAll(cuenta.keySet());
+		cuenta.forEach((id, n) -> CARGAS.computeIfAbsent(id, k -> new AtomicInteger()).set(n));
+		CAMBIOS.incrementAndGet();
+	}
+
+	/**
+	 * Suma uno tras guardar una asignación. Sin iniciar no hace nada: la cuenta se
+	 * hará desde los tickets, que ya la incluyen.
+	 */
+	static void incrementar(String tecnicoId) {
+		if (!iniciado) {
+			return;
+		}
+		CARGAS.computeIfAbsent(tecnicoId, k -> new AtomicInteger()).incrementAndGet();
+		CAMBIOS.incrementAndGet();
+	}
+
+	/**
+	 * Resta uno sin bajar de 0 (sin iniciar no hace nada, como incrementar).
+	 */
+	static void disminuir(String tecnicoId) {
+		if (!iniciado) {
+			return;
+		}
+		AtomicInteger carga = CARGAS.get(tecnicoId);
+		if (carga != null) {
+			carga.getAndUpdate(n -> n > 0 ? n - 1 : 0);
+			CAMBIOS.incrementAndGet();
+		}
+	}
+
+	static void olvidar(String tecnicoId) {
+		if (CARGAS.remove(tecnicoId) != null) {
+			CAMBIOS.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Copia las cargas al fichero de técnicos si han cambiado desde la última vez.
+	 * Se encola en el hilo escritor para no cruzarse con otras modificaciones de
+	 * técnicos.
+	 */
+	private static void puntoDeControl() {
+		try {
+			guardarSiHayCambios().get(PERIODO_PUNTO_CONTROL_S, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			System.err.println("No se pudo guardar la carga de los técnicos, se reintentará. Causa: " + e.getMessage());
+		}
+	}
+
+	private static void puntoDeControlAlCerrar() {
+		try {
+			guardarSiHayCambios().get(ESPERA_CIERRE_S, TimeUnit.SECONDS);
+		} catch (TimeoutException e) {
+			System.err.println(
+					"No dio tiempo a guardar la carga de los técnicos al cerrar; se reconstruirá al arrancar.");
+		} catch (Exception e) {
+			System.err.println("No se pudo guardar la carga de los técnicos al cerrar. Causa: " + e.getMessage());
+		}
+	}
+
+	private static CompletableFuture<Integer> guardarSiHayCambios() {
+		long cambios = CAMBIOS.get();
+		if (cambios == CAMBIOS_GUARDADOS.get()) {
+			return CompletableFuture.completedFuture(0);
+		}
+		return EscritorUnico.<Integer>enviar(() -> {
+			Map<String, Integer> cargas = new HashMap<>();
+			CARGAS.forEach((id, n) -> cargas.put(id, n.get()));
+			return new TecnicoDAO().guardarCargas(cargas);
+		}, e -> new IOException("Error de persistencia al guardar la carga de los técnicos: " + e.getMessage(), e))
+				.thenApply(cambiados -> {
+					CAMBIOS_GUARDADOS.accumulateAndGet(cambios, Math::max);
+					return cambiados;
+				});
+	}
+}
@@ -0,0 +1,24 @@
+package service;
+
+import util.CerrojosSegmentados;
+
+/**
+ * Cerrojos compartidos por todos los gestores del proceso (cada vista crea los
+ * suyos, así que no pueden ser campos de instancia).
+ *
+ * - TICKETS, por id de ticket: hace lineales las transiciones de estado de un
+ * mismo ticket (comprobar estado + cambiar + guardar) sin frenar las de otros.
+ * - TECNICOS, por id de técnico: protege los datos del técnico mientras se leen
+ * y se vuelven a guardar (la carga de trabajo va aparte, en CargaTecnicos).
+ *
+ * Orden de adquisición para evitar interbloqueos: primero el ticket, después el
+ * técnico y por último (dentro de los DAOs) el fichero.
+ */
+final class Cerrojos {
+
+	static final CerrojosSegmentados TICKETS = new CerrojosSegmentados(256);
+	static final CerrojosSegmentados TECNICOS = new CerrojosSegmentados(64);
+
+	private Cerrojos() {
+	}
+}
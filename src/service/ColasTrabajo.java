@@ -0,0 +1,221 @@
+package service;
+
+import controller.TicketDAO;
+import model.Ticket;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Colas de trabajo por urgencia: los tickets sin cerrar de cada técnico y los
+ * abiertos sin asignar de cada especialidad (la categoría del ticket), ordenados
+ * por prioridad (ALTA, MEDIA, BAJA) y, a igual prioridad, por antigüedad. El
+ * siguiente ticket de una cola se obtiene sin ordenar ni recorrer los tickets, y
+ * meter o sacar uno cuesta O(log n).
+ *
+ * Cada cambio que guarda GestorTicket (creación, asignación, resolución,
+ * escalado) mueve el ticket de cola (OyenteTickets). Como EstadisticasTickets,
+ * se calculan desde los tickets al usarse por primera vez y cada
+ * PERIODO_RECONSTRUCCION_MIN, siempre en el hilo escritor.
+ */
+public final class ColasTrabajo {
+
+	private static final long PERIODO_RECONSTRUCCION_MIN = 10;
+
+	/**
+	 * Los más urgentes primero; el id desempata para que no haya dos entradas
+	 * iguales.
+	 */
+	private static final Comparator<Entrada> URGENCIA = Comparator.comparingInt((Entrada e) -> e.rango)
+			.thenComparing(e -> e.fechaCreacion).thenComparing(e -> e.ticket.getIdTicket());
+
+	/**
+	 * El mismo orden que las colas, para ordenar tickets leídos de otra parte (los
+	 * que no tienen fecha de creación, al final).
+	 */
+	public static final Comparator<Ticket> POR_URGENCIA = Comparator
+			.comparingInt((Ticket t) -> rango(t.getPrioridad()))
+			.thenComparing(Ticket::getFechaCreacion, Comparator.nullsLast(Comparator.naturalOrder()))
+			.thenComparing(Ticket::getIdTicket, Comparator.nullsLast(Comparator.naturalOrder()));
+
+	/**
+	 * Un ticket en una cola, con la clave de orden fijada al entrar: si el ticket
+	 * cambia, se saca la entrada y se mete otra.
+	 */
+	private static final class Entrada {
+
+		final Ticket ticket;
+		final int rango;
+		final LocalDateTime fechaCreacion;
+		final NavigableSet<Entrada> cola;
+
+		Entrada(Ticket ticket, NavigableSet<Entrada> cola) {
+			this.ticket = ticket;
+			this.rango = rango(ticket.getPrioridad());
+			this.fechaCreacion = ticket.getFechaCreacion() != null ? ticket.getFechaCreacion() : LocalDateTime.MAX;
+			this.cola = cola;
+		}
+	}
+
+	/**
+	 * Colas de un cálculo completo más los cambios aplicados después. Solo las
+	 * modifica el hilo escritor; se leen desde cualquier hilo.
+	 */
+	private static final class Estado {
+
+		private final Map<String, NavigableSet<Entrada>> porTecnico = new ConcurrentHashMap<>();
+		private final Map<String, NavigableSet<Entrada>> sinAsignar = new ConcurrentHashMap<>();
+		/** Entrada actual de cada ticket que está en alguna cola. */
+		private final Map<String, Entrada> porId = new ConcurrentHashMap<>();
+
+		void poner(Ticket t) {
+			quitar(t.getIdTicket());
+			NavigableSet<Entrada> cola;
+			if (t.cerrado()) {
+				return;
+			} else if (t.asignado()) {
+				cola = porTecnico.computeIfAbsent(t.getAsignadoA(), k -> new ConcurrentSkipListSet<>(URGENCIA));
+			} else if ("ABIERTO".equalsIgnoreCase(t.getEstado())) {
+				cola = sinAsignar.computeIfAbsent(clave(t.getCategoria()), k -> new ConcurrentSkipListSet<>(URGENCIA));
+			} else {
+				return;
+			}
+			Entrada entrada = new Entrada(t, cola);
+			cola.add(entrada);
+			porId.put(t.getIdTicket(), entrada);
+		}
+
+		void quitar(String ticketId) {
+			Entrada anterior = ticketId != null ? porId.remove(ticketId) : null;
+			if (anterior != null) {
+				anterior.cola.remove(anterior);
+			}
+		}
+	}
+
+	private static volatile Estado estado = new Estado();
+	private static volatile boolean iniciado;
+
+	private ColasTrabajo() {
+	}
+
+	/**
+	 * El ticket sin cerrar más urgente del técnico.
+	 */
+	public static Optional<Ticket> siguiente(String tecnicoId) {
+		iniciar();
+		return primero(tecnicoId != null ? estado.porTecnico.get(tecnicoId) : null);
+	}
+
+	/**
+	 * Tickets sin cerrar del técnico, del más urgente al menos urgente.
+	 */
+	public static List<Ticket> pendientes(String tecnicoId) {
+		iniciar();
+		return tickets(tecnicoId != null ? estado.porTecnico.get(tecnicoId) : null);
+	}
+
+	/**
+	 * El ticket abierto sin asignar más urgente de la especialidad (categoría del
+	 * ticket, sin distinguir mayúsculas).
+	 */
+	public static Optional<Ticket> siguienteSinAsignar(String especialidad) {
+		iniciar();
+		return primero(estado.sinAsignar.get(clave(especialidad)));
+	}
+
+	/**
+	 * Tickets abiertos sin asignar de la especialidad, del más urgente al menos
+	 * urgente.
+	 */
+	public static List<Ticket> sinAsignar(String especialidad) {
+		iniciar();
+		return tickets(estado.sinAsignar.get(clave(especialidad)));
+	}
+
+	/**
+	 * Vuelve a calcular todas las colas desde los tickets guardados.
+	 */
+	public static void reconstruir() {
+		try {
+			EscritorUnico.<Void>enviar(() -> {
+				Estado nuevo = new Estado();
+				for (Ticket t : new TicketDAO().findAllSoloLectura()) {
+					nuevo.poner(t);
+				}
+				estado = nuevo;
+				return null;
+			}, e -> new IOException("Error de persistencia al calcular las colas de trabajo: " + e.getMessage(), e))
+					.join();
+		} catch (CompletionException e) {
+			System.err.println("No se pudieron calcular las colas de trabajo. Causa: " + e.getCause());
+		}
+	}
+
+	/**
+	 * Se engancha a los cambios de tickets y hace el primer cálculo (fuera de un
+	 * bloque static por el mismo motivo que EstadisticasTickets).
+	 */
+	private static void iniciar() {
+		if (iniciado) {
+			return;
+		}
+		synchronized (ColasTrabajo.class) {
+			if (iniciado) {
+				return;
+			}
+			GestorTicket.registrarOyente((antes, despues) -> estado.poner(despues));
+			reconstruir();
+			ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(
+					r -> Thread.ofPlatform().daemon(true).name("colas-trabajo").unstarted(r));
+			planificador.scheduleWithFixedDelay(ColasTrabajo::reconstruir, PERIODO_RECONSTRUCCION_MIN,
+					PERIODO_RECONSTRUCCION_MIN, TimeUnit.MINUTES);
+			iniciado = true;
+		}
+	}
+
+	private static Optional<Ticket> primero(NavigableSet<Entrada> cola) {
+		if (cola == null) {
+			return Optional.empty();
+		}
+		// Sin first(): la cola puede quedarse vacía entre mirarla y leerla
+		Iterator<Entrada> it = cola.iterator();
+		return it.hasNext() ? Optional.of(new Ticket(it.next().ticket)) : Optional.empty();
+	}
+
+	private static List<Ticket> tickets(NavigableSet<Entrada> cola) {
+		List<Ticket> tickets = new ArrayList<>();
+		if (cola != null) {
+			cola.forEach(e -> tickets.add(new Ticket(e.ticket)));
+		}
+		return tickets;
+	}
+
+	/**
+	 * 0 para ALTA, 1 para MEDIA y 2 para BAJA o desconocida.
+	 */
+	static int rango(String prioridad) {
+		if ("ALTA".equalsIgnoreCase(prioridad)) {
+			return 0;
+		}
+		return "MEDIA".equalsIgnoreCase(prioridad) ? 1 : 2;
+	}
+
+	private static String clave(String categoria) {
+		return categoria != null ? categoria.toUpperCase(Locale.ROOT) : "";
+	}
+}
@@ -0,0 +1,282 @@
+package service;
+
+import controller.TicketDAO;
+import model.Ticket;
+import util.Diccionario;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copia por columnas de los campos de los tickets que usan los informes:
+ * estado, prioridad y categoría como códigos (Diccionario), autor y técnico
+ * asignado como códigos de id, y fechas de creación y cierre como segundos.
+ * Recorrerla lee unos 30 bytes contiguos por ticket en vez de saltar por
+ * objetos Ticket con sus textos (título, descripción...), y no reserva memoria.
+ * La usa ConsultaTickets.ejecutar().
+ *
+ * - Se construye desde los tickets la primera vez que se pide y cada
+ * PERIODO_RECONSTRUCCION_MIN (cambios de otros procesos en modo
+ * cliente/servidor, tickets borrados).
+ * - Entre medias la mantienen los cambios que guarda GestorTicket
+ * (OyenteTickets), en el hilo escritor.
+ * - Se desactiva con -Dgestortickets.columnas=false; entonces las consultas
+ * recorren los tickets.
+ *
+ * Los tickets nuevos se publican enteros (primero la fila, luego el tamaño).
+ * Un ticket que cambia mientras se recorre la tabla puede verse con algunas
+ * columnas de antes y otras de después, como si el recorrido se hubiera hecho
+ * un instante antes o después.
+ */
+public final class ColumnasTickets {
+
+	/** Valor de las columnas de fecha cuando la fecha es null. */
+	static final long SIN_FECHA = Long.MIN_VALUE;
+
+	private static final boolean ACTIVADAS = !"false"
+			.equalsIgnoreCase(System.getProperty("gestortickets.columnas", "true"));
+	private static final long PERIODO_RECONSTRUCCION_MIN = 10;
+	private static final int CAPACIDAD_INICIAL = 1024;
+
+	/**
+	 * Las columnas. Una fila por ticket, en el orden en que se añadieron; solo las
+	 * filas por debajo de tamano son válidas. Al ampliarse se copian en una
+	 * instancia nueva que comparte diccionarios.
+	 */
+	static final class Columnas {
+
+		final Diccionario estados;
+		final Diccionario prioridades;
+		final Diccionario categorias;
+		/** Ids de autores y técnicos. */
+		final Diccionario usuarios;
+		/** Fila de cada id de ticket (solo la usa el hilo escritor). */
+		final Map<String, Integer> filaPorId;
+
+		final byte[] estado;
+		final byte[] prioridad;
+		final int[] categoria;
+		final int[] autor;
+		final int[] asignado;
+		final long[] creacion;
+		final long[] cierre;
+
+		volatile int tamano;
+		/** Menor y mayor segundo de las columnas de fecha (sin contar SIN_FECHA). */
+		volatile long minSegundo = Long.MAX_VALUE;
+		volatile long maxSegundo = Long.MIN_VALUE;
+
+		Columnas(int capacidad) {
+			this(capacidad, new Diccionario(Byte.MAX_VALUE), new Diccionario(Byte.MAX_VALUE),
+					new Diccionario(Integer.MAX_VALUE), new Diccionario(Integer.MAX_VALUE), new HashMap<>());
+		}
+
+		private Columnas(int capacidad, Diccionario estados, Diccionario prioridades, Diccionario categorias,
+				Diccionario usuarios, Map<String, Integer> filaPorId) {
+			this.estados = estados;
+			this.prioridades = prioridades;
+			this.categorias = categorias;
+			this.usuarios = usuarios;
+			this.filaPorId = filaPorId;
+			this.estado = new byte[capacidad];
+			this.prioridad = new byte[capacidad];
+			this.categoria = new int[capacidad];
+			this.autor = new int[capacidad];
+			this.asignado = new int[capacidad];
+			this.creacion = new long[capacidad];
+			this.cierre = new long[capacidad];
+		}
+
+		/**
+		 * Copia con el doble de capacidad.
+		 */
+		Columnas ampliada() {
+			Columnas nueva = new Columnas(estado.length * 2, estados, prioridades, categorias, usuarios, filaPorId);
+			int n = tamano;
+			System.arraycopy(estado, 0, nueva.estado, 0, n);
+			System.arraycopy(prioridad, 0, nueva.prioridad, 0, n);
+			System.arraycopy(categoria, 0, nueva.categoria, 0, n);
+			System.arraycopy(autor, 0, nueva.autor, 0, n);
+			System.arraycopy(asignado, 0, nueva.asignado, 0, n);
+			System.arraycopy(creacion, 0, nueva.creacion, 0, n);
+			System.arraycopy(cierre, 0, nueva.cierre, 0, n);
+			nueva.minSegundo = minSegundo;
+			nueva.maxSegundo = maxSegundo;
+			nueva.tamano = n;
+			return nueva;
+		}
+
+		/**
+		 * Escribe el ticket en su fila (o en una nueva al final, si cabe).
+		 *
+		 * @return false si no cabe (hay que ampliar) o si algún código no cabe en su
+		 *         columna.
+		 */
+		boolean poner(Ticket t) {
+			int codigoEstado = estados.codigo(t.getEstado());
+			int codigoPrioridad = prioridades.codigo(t.getPrioridad());
+			int codigoCategoria = categorias.codigo(t.getCategoria());
+			int codigoAutor = usuarios.codigo(t.getAutorId());
+			int codigoAsignado = t.asignado() ? usuarios.codigo(t.getAsignadoA()) : Diccionario.NULO;
+			if (codigoEstado == Diccionario.LLENO || codigoPrioridad == Diccionario.LLENO
+					|| codigoCategoria == Diccionario.LLENO || codigoAutor == Diccionario.LLENO
+					|| codigoAsignado == Diccionario.LLENO) {
+				return false;
+			}
+			Integer existente = filaPorId.get(t.getIdTicket());
+			int fila = existente != null ? existente : tamano;
+			if (fila >= estado.length) {
+				return false;
+			}
+			estado[fila] = (byte) codigoEstado;
+			prioridad[fila] = (byte) codigoPrioridad;
+			categoria[fila] = codigoCategoria;
+			autor[fila] = codigoAutor;
+			asignado[fila] = codigoAsignado;
+			creacion[fila] = segundos(t.getFechaCreacion());
+			cierre[fila] = segundos(t.getFechaCierre());
+			ampliarRango(creacion[fila]);
+			ampliarRango(cierre[fila]);
+			if (existente == null) {
+				filaPorId.put(t.getIdTicket(), fila);
+				// Al final: quien lea el tamaño ya ve la fila entera
+				tamano = fila + 1;
+			}
+			return true;
+		}
+
+		private void ampliarRango(long segundo) {
+			if (segundo == SIN_FECHA) {
+				return;
+			}
+			if (segundo < minSegundo) {
+				minSegundo = segundo;
+			}
+			if (segundo > maxSegundo) {
+				maxSegundo = segundo;
+			}
+		}
+	}
+
+	private static volatile Columnas columnas;
+	private static volatile boolean iniciado;
+
+	private ColumnasTickets() {
+	}
+
+	/**
+	 * Número de tickets en las columnas (0 si están desactivadas).
+	 */
+	public static int tamano() {
+		Columnas c = actual();
+		return c != null ? c.tamano : 0;
+	}
+
+	/**
+	 * Vuelve a construir las columnas desde los tickets guardados.
+	 */
+	public static void reconstruir() {
+		if (!ACTIVADAS) {
+			return;
+		}
+		try {
+			EscritorUnico.<Void>enviar(() -> {
+				List<Ticket> tickets = new TicketDAO().findAllSoloLectura();
+				Columnas nuevas = new Columnas(Math.max(CAPACIDAD_INICIAL, Integer.highestOneBit(tickets.size()) * 2));
+				for (Ticket t : tickets) {
+					if (t != null && t.getIdTicket() != null && !nuevas.poner(t)) {
+						System.err.println("Demasiados valores distintos para las columnas de tickets ("
+								+ t.getIdTicket() + "); las consultas recorrerán los tickets.");
+						columnas = null;
+						return null;
+					}
+				}
+				columnas = nuevas;
+				return null;
+			}, e -> new IOException("Error de persistencia al construir las columnas de tickets: " + e.getMessage(),
+					e)).join();
+		} catch (CompletionException e) {
+			System.err.println("No se pudieron construir las columnas de tickets. Causa: " + e.getCause());
+		}
+	}
+
+	/**
+	 * Columnas actuales, o null si están desactivadas o no se han podido
+	 * construir.
+	 */
+	static Columnas actual() {
+		if (!ACTIVADAS) {
+			return null;
+		}
+		iniciar();
+		return columnas;
+	}
+
+	/**
+	 * Igual que EstadisticasTickets.iniciar(): no en un bloque static, porque la
+	 * construcción corre en el hilo escritor.
+	 */
+	private static void iniciar() {
+		if (iniciado) {
+			return;
+		}
+		synchronized (ColumnasTickets.class) {
+			if (iniciado) {
+				return;
+			}
+			GestorTicket.registrarOyente(ColumnasTickets::aplicar);
+			reconstruir();
+			ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(
+					r -> Thread.ofPlatform().daemon(true).name("columnas-tickets").unstarted(r));
+			planificador.scheduleWithFixedDelay(ColumnasTickets::reconstruir, PERIODO_RECONSTRUCCION_MIN,
+					PERIODO_RECONSTRUCCION_MIN, TimeUnit.MINUTES);
+			iniciado = true;
+		}
+	}
+
+	private static void aplicar(Ticket antes, Ticket despues) {
+		Columnas c = columnas;
+		if (c == null || despues.getIdTicket() == null) {
+			return;
+		}
+		if (!c.poner(despues)) {
+			if (c.filaPorId.containsKey(despues.getIdTicket()) || c.tamano < c.estado.length) {
+				// No es falta de sitio: un código no cabe en su columna
+				System.err.println("Demasiados valores distintos para las columnas de tickets ("
+						+ despues.getIdTicket() + "); las consultas recorrerán los tickets.");
+				columnas = null;
+				return;
+			}
+			c = c.ampliada();
+			c.poner(despues);
+			columnas = c;
+		}
+	}
+
+	/**
+	 * Segundos de la fecha local contada como UTC (SIN_FECHA si es null), igual
+	 * que SeriesTickets.
+	 */
+	static long segundos(LocalDateTime fecha) {
+		return fecha != null ? fecha.toEpochSecond(ZoneOffset.UTC) : SIN_FECHA;
+	}
+
+	/**
+	 * Códigos de estado que corresponden a tickets cerrados (Ticket.cerrado()).
+	 */
+	static boolean[] estadosCerrados(Columnas c, int tamano) {
+		boolean[] cerrados = new boolean[tamano];
+		for (int i = 0; i < tamano && i < c.estados.getTamano(); i++) {
+			cerrados[i] = "CERRADO".equalsIgnoreCase(c.estados.valor(i));
+		}
+		return cerrados;
+	}
+}
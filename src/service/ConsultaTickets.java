@@ -0,0 +1,453 @@
+package service;
+
+import controller.TecnicoDAO;
+import controller.TicketDAO;
+import model.Tecnico;
+import model.Ticket;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/**
+ * Consultas analíticas sobre los tickets en memoria: filtrar, agrupar por una o
+ * varias dimensiones y agregar (tickets, cerrados y tiempo de resolución). Por
+ * ejemplo, el tiempo medio de resolución por categoría y técnico de los tickets
+ * cerrados en el tercer trimestre:
+ *
+ * <pre>
+ * new ConsultaTickets().cerradosEntre(LocalDateTime.of(2025, 7, 1, 0, 0), LocalDateTime.of(2025, 10, 1, 0, 0))
+ * 		.agruparPor(Dimension.CATEGORIA, Dimension.TECNICO).ejecutar();
+ * </pre>
+ *
+ * Los tickets se parten en tramos que se reparten entre los hilos de un
+ * ForkJoinPool (el común, salvo que se indique otro con usando()). Cada tramo
+ * agrega en su propio mapa, sin compartir nada con los demás, y los mapas se
+ * combinan al volver, así que el tiempo baja casi en proporción a los núcleos.
+ * Los datos del técnico (nombre, especialidad) se cruzan con un mapa por id
+ * que se construye una sola vez por consulta.
+ *
+ * ejecutar() recorre las columnas de ColumnasTickets si están disponibles y la
+ * consulta no tiene filtros propios (filtrar()); si no, los objetos Ticket.
+ * Las fechas se comparan a la resolución de un segundo en los dos casos.
+ *
+ * Una consulta se configura y se ejecuta desde un mismo hilo; se puede ejecutar
+ * varias veces.
+ */
+public class ConsultaTickets {
+
+	/** Tickets por tramo: por debajo, repartir cuesta más de lo que se gana. */
+	private static final int UMBRAL = 16 * 1024;
+	static final String SIN_INDICAR = "Sin indicar";
+	static final String SIN_ASIGNAR = "Sin asignar";
+
+	/**
+	 * Campo por el que se puede agrupar.
+	 */
+	public enum Dimension {
+		CATEGORIA, ESTADO, PRIORIDAD,
+		/** Id del técnico asignado. */
+		TECNICO,
+		/** Nombre del técnico asignado. */
+		NOMBRE_TECNICO,
+		/** Especialidad del técnico asignado. */
+		ESPECIALIDAD,
+		/** Año y mes de creación, p. ej. "2025-07". */
+		MES_CREACION,
+		/** Año y mes de cierre ("Sin indicar" si sigue abierto). */
+		MES_CIERRE;
+
+		boolean necesitaTecnico() {
+			return this == NOMBRE_TECNICO || this == ESPECIALIDAD;
+		}
+
+		boolean esDeTecnico() {
+			return this == TECNICO || necesitaTecnico();
+		}
+
+		boolean esMes() {
+			return this == MES_CREACION || this == MES_CIERRE;
+		}
+
+		String valor(Ticket t, Tecnico tecnico) {
+			switch (this) {
+			case CATEGORIA:
+				return valor(t.getCategoria(), tecnico);
+			case ESTADO:
+				return valor(t.getEstado(), tecnico);
+			case PRIORIDAD:
+				return valor(t.getPrioridad(), tecnico);
+			case MES_CREACION:
+				return valor(mes(t.getFechaCreacion()), tecnico);
+			case MES_CIERRE:
+				return valor(mes(t.getFechaCierre()), tecnico);
+			default:
+				return valor(t.asignado() ? t.getAsignadoA() : null, tecnico);
+			}
+		}
+
+		/**
+		 * Valor de la dimensión a partir del campo del ticket (el id del técnico en
+		 * las dimensiones de técnico, el texto del mes en las de mes).
+		 */
+		String valor(String campo, Tecnico tecnico) {
+			switch (this) {
+			case TECNICO:
+				return campo != null ? campo : SIN_ASIGNAR;
+			case NOMBRE_TECNICO:
+				return tecnico != null ? nombre(tecnico.getNombre()) : SIN_ASIGNAR;
+			case ESPECIALIDAD:
+				return tecnico != null ? nombre(tecnico.getEspecialidad()) : SIN_ASIGNAR;
+			default:
+				return nombre(campo);
+			}
+		}
+	}
+
+	/**
+	 * Resultado de un grupo. Los tiempos de resolución se calculan solo con los
+	 * tickets cerrados con fechas de creación y cierre conocidas.
+	 */
+	public static final class Fila {
+
+		private final List<String> clave;
+		private final long tickets;
+		private final long cerrados;
+		private final long sumaResolucionS;
+		private final long minResolucionS;
+		private final long maxResolucionS;
+
+		Fila(List<String> clave, Acumulador a) {
+			this.clave = clave;
+			this.tickets = a.tickets;
+			this.cerrados = a.cerrados;
+			this.sumaResolucionS = a.sumaResolucionS;
+			this.minResolucionS = a.cerrados > 0 ? a.minResolucionS : 0;
+			this.maxResolucionS = a.maxResolucionS;
+		}
+
+		/**
+		 * Valores del grupo, uno por dimensión y en el orden de agruparPor() (vacía
+		 * si no se agrupa).
+		 */
+		public List<String> getClave() {
+			return clave;
+		}
+
+		public long getTickets() {
+			return tickets;
+		}
+
+		public long getCerrados() {
+			return cerrados;
+		}
+
+		public Duration getTiempoMedioResolucion() {
+			return Duration.ofSeconds(cerrados > 0 ? Math.round(sumaResolucionS / (double) cerrados) : 0);
+		}
+
+		public Duration getTiempoMinimoResolucion() {
+			return Duration.ofSeconds(minResolucionS);
+		}
+
+		public Duration getTiempoMaximoResolucion() {
+			return Duration.ofSeconds(maxResolucionS);
+		}
+
+		@Override
+		public String toString() {
+			return clave + ": " + tickets + " tickets, " + cerrados + " cerrados, resolución media "
+					+ getTiempoMedioResolucion();
+		}
+	}
+
+	/**
+	 * Agregados de un grupo mientras se recorre un tramo (no es seguro entre
+	 * hilos: cada tramo tiene los suyos).
+	 */
+	static final class Acumulador {
+
+		long tickets;
+		long cerrados;
+		long sumaResolucionS;
+		long minResolucionS = Long.MAX_VALUE;
+		long maxResolucionS;
+
+		void sumar(Ticket t) {
+			long creacion = ColumnasTickets.segundos(t.getFechaCreacion());
+			long cierre = ColumnasTickets.segundos(t.getFechaCierre());
+			boolean conFechas = t.cerrado() && creacion != ColumnasTickets.SIN_FECHA
+					&& cierre != ColumnasTickets.SIN_FECHA;
+			sumar(conFechas, conFechas ? cierre - creacion : 0);
+		}
+
+		/**
+		 * @param cerradoConFechas Si es un ticket cerrado con fechas de creación y
+		 *                         cierre.
+		 * @param segundos         Su tiempo de resolución (si lo es).
+		 */
+		void sumar(boolean cerradoConFechas, long segundos) {
+			tickets++;
+			if (cerradoConFechas) {
+				segundos = Math.max(0, segundos);
+				cerrados++;
+				sumaResolucionS += segundos;
+				minResolucionS = Math.min(minResolucionS, segundos);
+				maxResolucionS = Math.max(maxResolucionS, segundos);
+			}
+		}
+
+		Acumulador combinar(Acumulador otro) {
+			tickets += otro.tickets;
+			cerrados += otro.cerrados;
+			sumaResolucionS += otro.sumaResolucionS;
+			minResolucionS = Math.min(minResolucionS, otro.minResolucionS);
+			maxResolucionS = Math.max(maxResolucionS, otro.maxResolucionS);
+			return this;
+		}
+	}
+
+	/**
+	 * Intervalo [desde, hasta) de segundos (ver ColumnasTickets.segundos()).
+	 */
+	static final class Rango {
+
+		final long desde;
+		final long hasta;
+
+		Rango(long desde, long hasta) {
+			this.desde = desde;
+			this.hasta = hasta;
+		}
+
+		static Rango de(LocalDateTime desde, LocalDateTime hasta) {
+			return new Rango(desde != null ? ColumnasTickets.segundos(desde) : Long.MIN_VALUE + 1,
+					hasta != null ? ColumnasTickets.segundos(hasta) : Long.MAX_VALUE);
+		}
+
+		/**
+		 * La parte común de los dos (otro puede ser null: sin límite).
+		 */
+		Rango y(Rango otro) {
+			return otro == null ? this : new Rango(Math.max(desde, otro.desde), Math.min(hasta, otro.hasta));
+		}
+
+		boolean contiene(long segundo) {
+			return segundo != ColumnasTickets.SIN_FECHA && segundo >= desde && segundo < hasta;
+		}
+	}
+
+	private Predicate<Ticket> filtro;
+	private Rango creacion;
+	private Rango cierre;
+	private Dimension[] dimensiones = new Dimension[0];
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/**
+	 * Se queda solo con los tickets que cumplen la condición (se combina con los
+	 * filtros anteriores). La condición se evalúa desde varios hilos a la vez, y
+	 * obliga a recorrer los objetos Ticket en vez de las columnas.
+	 */
+	public ConsultaTickets filtrar(Predicate<Ticket> condicion) {
+		filtro = filtro == null ? condicion : filtro.and(condicion);
+		return this;
+	}
+
+	/**
+	 * Tickets creados en [desde, hasta). Cualquiera de los dos puede ser null
+	 * (sin límite por ese lado).
+	 */
+	public ConsultaTickets creadosEntre(LocalDateTime desde, LocalDateTime hasta) {
+		creacion = Rango.de(desde, hasta).y(creacion);
+		return this;
+	}
+
+	/**
+	 * Tickets cerrados en [desde, hasta). Cualquiera de los dos puede ser null
+	 * (sin límite por ese lado).
+	 */
+	public ConsultaTickets cerradosEntre(LocalDateTime desde, LocalDateTime hasta) {
+		cierre = Rango.de(desde, hasta).y(cierre);
+		return this;
+	}
+
+	/**
+	 * Agrupa por las dimensiones indicadas (sustituye a las anteriores). Sin
+	 * dimensiones sale una sola fila con el total.
+	 */
+	public ConsultaTickets agruparPor(Dimension... dimensiones) {
+		this.dimensiones = dimensiones.clone();
+		return this;
+	}
+
+	/**
+	 * Pool en el que repartir el recorrido (por defecto, el común).
+	 */
+	public ConsultaTickets usando(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * Ejecuta la consulta sobre los tickets y técnicos actuales: las columnas de
+	 * ColumnasTickets o, si no se pueden usar, la última versión publicada de los
+	 * tickets.
+	 *
+	 * @return Una fila por grupo, ordenadas por clave.
+	 */
+	public List<Fila> ejecutar() {
+		Map<String, Tecnico> tecnicos = necesitaTecnicos() ? porId(new TecnicoDAO().findAll()) : Map.of();
+		ColumnasTickets.Columnas columnas = filtro == null ? ColumnasTickets.actual() : null;
+		if (columnas != null) {
+			Map<List<String>, Acumulador> grupos = AgregacionColumnas.agregar(columnas, pool, dimensiones.clone(),
+					creacion, cierre, tecnicos);
+			if (grupos != null) {
+				return filas(grupos);
+			}
+		}
+		return ejecutar(new TicketDAO().findAllSoloLectura(), tecnicos);
+	}
+
+	/**
+	 * Ejecuta la consulta sobre una lista de tickets cualquiera (no se modifica).
+	 *
+	 * @param tecnicos Técnicos con los que cruzar NOMBRE_TECNICO y ESPECIALIDAD.
+	 * @return Una fila por grupo, ordenadas por clave.
+	 */
+	public List<Fila> ejecutar(List<Ticket> tickets, Collection<Tecnico> tecnicos) {
+		return ejecutar(tickets, necesitaTecnicos() ? porId(tecnicos) : Map.of());
+	}
+
+	private List<Fila> ejecutar(List<Ticket> tickets, Map<String, Tecnico> tecnicos) {
+		List<Ticket> indexable = tickets instanceof RandomAccess ? tickets : new ArrayList<>(tickets);
+		return filas(pool.invoke(new Tramo(indexable, 0, indexable.size(), condicion(), dimensiones.clone(), tecnicos)));
+	}
+
+	/**
+	 * Los filtros de la consulta como una sola condición sobre Ticket (null si no
+	 * hay ninguno).
+	 */
+	private Predicate<Ticket> condicion() {
+		Predicate<Ticket> condicion = filtro;
+		if (creacion != null) {
+			Rango r = creacion;
+			Predicate<Ticket> p = t -> r.contiene(ColumnasTickets.segundos(t.getFechaCreacion()));
+			condicion = condicion == null ? p : p.and(condicion);
+		}
+		if (cierre != null) {
+			Rango r = cierre;
+			Predicate<Ticket> p = t -> t.cerrado() && r.contiene(ColumnasTickets.segundos(t.getFechaCierre()));
+			condicion = condicion == null ? p : p.and(condicion);
+		}
+		return condicion;
+	}
+
+	private boolean necesitaTecnicos() {
+		return Arrays.stream(dimensiones).anyMatch(Dimension::necesitaTecnico);
+	}
+
+	private static Map<String, Tecnico> porId(Collection<Tecnico> tecnicos) {
+		Map<String, Tecnico> porId = new HashMap<>();
+		tecnicos.forEach(t -> porId.put(t.getId(), t));
+		return porId;
+	}
+
+	private static List<Fila> filas(Map<List<String>, Acumulador> grupos) {
+		List<Fila> filas = new ArrayList<>(grupos.size());
+		grupos.forEach((clave, a) -> filas.add(new Fila(clave, a)));
+		filas.sort(Comparator.comparing(f -> String.join("\u0000", f.getClave())));
+		return filas;
+	}
+
+	/**
+	 * Agrega los tickets [desde, hasta): si son muchos los parte en dos y suma una
+	 * mitad en otro hilo.
+	 */
+	private static final class Tramo extends RecursiveTask<Map<List<String>, Acumulador>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient List<Ticket> tickets;
+		private final int desde;
+		private final int hasta;
+		private final transient Predicate<Ticket> filtro;
+		private final Dimension[] dimensiones;
+		private final transient Map<String, Tecnico> tecnicos;
+
+		Tramo(List<Ticket> tickets, int desde, int hasta, Predicate<Ticket> filtro, Dimension[] dimensiones,
+				Map<String, Tecnico> tecnicos) {
+			this.tickets = tickets;
+			this.desde = desde;
+			this.hasta = hasta;
+			this.filtro = filtro;
+			this.dimensiones = dimensiones;
+			this.tecnicos = tecnicos;
+		}
+
+		@Override
+		protected Map<List<String>, Acumulador> compute() {
+			if (hasta - desde <= UMBRAL) {
+				return agregar();
+			}
+			int mitad = (desde + hasta) >>> 1;
+			Tramo izquierda = new Tramo(tickets, desde, mitad, filtro, dimensiones, tecnicos);
+			izquierda.fork();
+			Map<List<String>, Acumulador> derecha = new Tramo(tickets, mitad, hasta, filtro, dimensiones, tecnicos)
+					.compute();
+			return combinar(izquierda.join(), derecha);
+		}
+
+		private Map<List<String>, Acumulador> agregar() {
+			Map<List<String>, Acumulador> grupos = new HashMap<>();
+			for (int i = desde; i < hasta; i++) {
+				Ticket t = tickets.get(i);
+				if (t == null || (filtro != null && !filtro.test(t))) {
+					continue;
+				}
+				Tecnico tecnico = !tecnicos.isEmpty() && t.asignado() ? tecnicos.get(t.getAsignadoA()) : null;
+				String[] valores = new String[dimensiones.length];
+				for (int d = 0; d < dimensiones.length; d++) {
+					valores[d] = dimensiones[d].valor(t, tecnico);
+				}
+				grupos.computeIfAbsent(List.of(valores), k -> new Acumulador()).sumar(t);
+			}
+			return grupos;
+		}
+	}
+
+	/**
+	 * Vuelca el mapa pequeño en el grande y devuelve este.
+	 */
+	static <K> Map<K, Acumulador> combinar(Map<K, Acumulador> a, Map<K, Acumulador> b) {
+		Map<K, Acumulador> destino = a.size() >= b.size() ? a : b;
+		Map<K, Acumulador> origen = destino == a ? b : a;
+		origen.forEach((clave, acumulado) -> destino.merge(clave, acumulado, Acumulador::combinar));
+		return destino;
+	}
+
+	/**
+	 * Índice de mes (año * 12 + mes - 1) como texto, p. ej. "2025-07".
+	 */
+	static String mes(int indice) {
+		int mes = Math.floorMod(indice, 12) + 1;
+		return Math.floorDiv(indice, 12) + (mes < 10 ? "-0" : "-") + mes;
+	}
+
+	private static String mes(LocalDateTime fecha) {
+		return fecha != null ? mes(fecha.getYear() * 12 + fecha.getMonthValue() - 1) : null;
+	}
+
+	private static String nombre(String valor) {
+		return valor != null ? valor : SIN_INDICAR;
+	}
+}
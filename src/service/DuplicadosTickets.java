@@ -0,0 +1,257 @@
+package service;
+
+import controller.TicketDAO;
+import model.Ticket;
+import util.FirmaMinHash;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grupos de tickets abiertos casi duplicados (p. ej. cientos de avisos de la
+ * misma caída). Al crear un ticket, GestorTicket busca aquí con la firma
+ * MinHash de su descripción (FirmaMinHash) un ticket abierto parecido; si lo
+ * hay, el nuevo se une a su grupo (Ticket.duplicadoDe) y el administrador puede
+ * cerrar el grupo entero de una vez (GestorTicket.resolverGrupo).
+ *
+ * Los candidatos salen de un índice LSH (tickets que comparten alguna banda de
+ * la firma) y solo con ellos se estima la similitud, así que buscar no depende
+ * del número de tickets abiertos.
+ *
+ * Los tickets nuevos se indexan al quedar guardados (en el hilo escritor, antes
+ * de aplicar el lote siguiente); los cierres los quita un OyenteTickets. Se
+ * calcula desde los tickets al arrancar (iniciar(), desde Main) y cada
+ * PERIODO_RECONSTRUCCION_MIN, lo que corrige cualquier cambio que se hubiera
+ * perdido. Nadie espera a ese primer cálculo: hasta que termina no hay grupos y
+ * los tickets nuevos no se agrupan.
+ */
+public final class DuplicadosTickets {
+
+	private static final long PERIODO_RECONSTRUCCION_MIN = 10;
+	/** Similitud estimada a partir de la que dos descripciones se agrupan. */
+	private static final double UMBRAL = 0.6;
+
+	/**
+	 * Un ticket abierto indexado.
+	 */
+	private static final class Entrada {
+
+		final String ticketId;
+		final long[] firma;
+		final String grupo;
+
+		Entrada(String ticketId, long[] firma, String grupo) {
+			this.ticketId = ticketId;
+			this.firma = firma;
+			this.grupo = grupo;
+		}
+	}
+
+	/**
+	 * Índice de un cálculo completo más los cambios aplicados después. Solo lo
+	 * modifica el hilo escritor; se lee desde cualquier hilo.
+	 */
+	private static final class Estado {
+
+		private final Map<String, Entrada> porId = new ConcurrentHashMap<>();
+		/** Clave de banda (FirmaMinHash.banda) -> tickets con esa banda. */
+		private final Map<Long, Set<String>> bandas = new ConcurrentHashMap<>();
+		/** Grupo (id de su primer ticket) -> tickets abiertos del grupo. */
+		private final Map<String, Set<String>> grupos = new ConcurrentHashMap<>();
+
+		void poner(Ticket t) {
+			if (t.cerrado()) {
+				quitar(t.getIdTicket());
+				return;
+			}
+			if (porId.containsKey(t.getIdTicket())) {
+				return;
+			}
+			long[] firma = FirmaMinHash.firmar(t.getDescripcion());
+			if (firma == null) {
+				return;
+			}
+			String grupo = t.getDuplicadoDe() != null ? t.getDuplicadoDe() : t.getIdTicket();
+			porId.put(t.getIdTicket(), new Entrada(t.getIdTicket(), firma, grupo));
+			for (int b = 0; b < FirmaMinHash.BANDAS; b++) {
+				bandas.computeIfAbsent(FirmaMinHash.banda(firma, b), k -> ConcurrentHashMap.newKeySet())
+						.add(t.getIdTicket());
+			}
+			grupos.computeIfAbsent(grupo, k -> ConcurrentHashMap.newKeySet()).add(t.getIdTicket());
+		}
+
+		void quitar(String ticketId) {
+			Entrada entrada = porId.remove(ticketId);
+			if (entrada == null) {
+				return;
+			}
+			for (int b = 0; b < FirmaMinHash.BANDAS; b++) {
+				long clave = FirmaMinHash.banda(entrada.firma, b);
+				Set<String> ids = bandas.get(clave);
+				if (ids != null) {
+					ids.remove(ticketId);
+					if (ids.isEmpty()) {
+						bandas.remove(clave);
+					}
+				}
+			}
+			Set<String> miembros = grupos.get(entrada.grupo);
+			if (miembros != null) {
+				miembros.remove(ticketId);
+				if (miembros.isEmpty()) {
+					grupos.remove(entrada.grupo);
+				}
+			}
+		}
+
+		/**
+		 * El ticket indexado más parecido a la firma, si llega al UMBRAL.
+		 */
+		Entrada masParecido(long[] firma) {
+			Entrada mejor = null;
+			double mejorSimilitud = UMBRAL;
+			Set<String> vistos = new HashSet<>();
+			for (int b = 0; b < FirmaMinHash.BANDAS; b++) {
+				Set<String> ids = bandas.get(FirmaMinHash.banda(firma, b));
+				if (ids == null) {
+					continue;
+				}
+				for (String id : ids) {
+					Entrada candidata = vistos.add(id) ? porId.get(id) : null;
+					if (candidata == null) {
+						continue;
+					}
+					double similitud = FirmaMinHash.similitud(firma, candidata.firma);
+					if (similitud >= mejorSimilitud) {
+						mejor = candidata;
+						mejorSimilitud = similitud;
+					}
+				}
+			}
+			return mejor;
+		}
+	}
+
+	private static volatile Estado estado = new Estado();
+	private static volatile boolean iniciado;
+	/** Si ya se ha hecho el primer cálculo. */
+	private static volatile boolean listo;
+
+	private DuplicadosTickets() {
+	}
+
+	/**
+	 * Grupo al que se uniría un ticket nuevo con esta descripción: el del ticket
+	 * abierto más parecido, si alguno llega al umbral. Solo desde el hilo escritor
+	 * (lo llama GestorTicket al crear).
+	 *
+	 * @return Id del grupo (su primer ticket), o vacío si no se parece a ninguno.
+	 */
+	static Optional<String> buscarGrupo(String descripcion) {
+		iniciar();
+		if (!listo) {
+			return Optional.empty();
+		}
+		long[] firma = FirmaMinHash.firmar(descripcion);
+		Entrada parecido = firma != null ? estado.masParecido(firma) : null;
+		return parecido != null ? Optional.of(parecido.grupo) : Optional.empty();
+	}
+
+	/**
+	 * Grupos con más de un ticket abierto: id del grupo -> ids de sus tickets
+	 * abiertos (el primero puede estar ya cerrado). Vacío hasta el primer
+	 * cálculo.
+	 */
+	public static Map<String, List<String>> grupos() {
+		iniciar();
+		Map<String, List<String>> resultado = new TreeMap<>();
+		if (!listo) {
+			return resultado;
+		}
+		estado.grupos.forEach((grupo, ids) -> {
+			if (ids.size() > 1) {
+				List<String> ordenados = new ArrayList<>(ids);
+				ordenados.sort(null);
+				resultado.put(grupo, ordenados);
+			}
+		});
+		return resultado;
+	}
+
+	/**
+	 * Ids de los tickets abiertos del grupo (vacío si no tiene ninguno o aún no se
+	 * ha hecho el primer cálculo).
+	 */
+	public static List<String> miembros(String grupo) {
+		iniciar();
+		Set<String> ids = listo && grupo != null ? estado.grupos.get(grupo) : null;
+		List<String> resultado = ids != null ? new ArrayList<>(ids) : new ArrayList<>();
+		resultado.sort(null);
+		return resultado;
+	}
+
+	/**
+	 * Indexa un ticket recién creado. Solo desde el hilo escritor (lo llama
+	 * GestorTicket cuando la creación queda guardada).
+	 */
+	static void registrar(Ticket t) {
+		if (listo) {
+			estado.poner(t);
+		}
+	}
+
+	/**
+	 * Vuelve a indexar todos los tickets abiertos guardados.
+	 */
+	public static void reconstruir() {
+		try {
+			EscritorUnico.<Void>enviar(() -> {
+				Estado nuevo = new Estado();
+				for (Ticket t : new TicketDAO().findAllSoloLectura()) {
+					if (!t.cerrado()) {
+						nuevo.poner(t);
+					}
+				}
+				estado = nuevo;
+				listo = true;
+				return null;
+			}, e -> new IOException("Error de persistencia al agrupar los duplicados: " + e.getMessage(), e))
+					.join();
+		} catch (CompletionException e) {
+			System.err.println("No se pudieron agrupar los tickets duplicados. Causa: " + e.getCause());
+		}
+	}
+
+	/**
+	 * Se engancha a los cambios de tickets y pide el primer cálculo en segundo
+	 * plano, sin esperarlo (fuera de un bloque static por el mismo motivo que
+	 * EstadisticasTickets). Se llama al arrancar y, por si no, al primer uso.
+	 */
+	public static void iniciar() {
+		if (iniciado) {
+			return;
+		}
+		synchronized (DuplicadosTickets.class) {
+			if (iniciado) {
+				return;
+			}
+			GestorTicket.registrarOyente((antes, despues) -> estado.poner(despues));
+			ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(
+					r -> Thread.ofPlatform().daemon(true).name("duplicados-tickets").unstarted(r));
+			planificador.scheduleWithFixedDelay(DuplicadosTickets::reconstruir, 0, PERIODO_RECONSTRUCCION_MIN,
+					TimeUnit.MINUTES);
+			iniciado = true;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Ejecutor compartido por las variantes asíncronas (métodos *Async) de los
+ * gestores. Por defecto cada llamada se ejecuta en su propio hilo virtual, así
+ * que esperar a disco o al servidor de datos no ocupa un hilo de plataforma;
+ * cada gestor puede usar otro con setEjecutor(). Las variantes que modifican
+ * datos no usan este ejecutor: se encolan en EscritorUnico.
+ *
+ * Las excepciones de negocio (TicketException, UserException...) completan el
+ * CompletableFuture de forma excepcional con la excepción original como causa.
+ */
+public final class EjecucionAsincrona {
+
+	private static volatile Executor ejecutorPorDefecto = Executors.newVirtualThreadPerTaskExecutor();
+
+	private EjecucionAsincrona() {
+	}
+
+	public static Executor getEjecutorPorDefecto() {
+		return ejecutorPorDefecto;
+	}
+
+	/**
+	 * Cambia el ejecutor de los gestores que no tengan uno propio.
+	 */
+	public static void setEjecutorPorDefecto(Executor ejecutor) {
+		if (ejecutor == null) {
+			throw new IllegalArgumentException("El ejecutor no puede ser nulo.");
+		}
+		ejecutorPorDefecto = ejecutor;
+	}
+
+	/**
+	 * Llamada bloqueante a un gestor, que puede lanzar sus excepciones de negocio.
+	 */
+	@FunctionalInterface
+	interface Llamada<T> {
+		T ejecutar() throws Exception;
+	}
+
+	/**
+	 * Lanza la llamada en el ejecutor indicado (o en el de por defecto si es null).
+	 */
+	static <T> CompletableFuture<T> ejecutar(Executor ejecutor, Llamada<T> llamada) {
+		CompletableFuture<T> futuro = new CompletableFuture<>();
+		try {
+			(ejecutor != null ? ejecutor : ejecutorPorDefecto).execute(() -> {
+				try {
+					futuro.complete(llamada.ejecutar());
+				} catch (Throwable e) {
+					futuro.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			futuro.completeExceptionally(e);
+		}
+		return futuro;
+	}
+}
@@ -0,0 +1,329 @@
+package service;
+
+import util.BufferCircular;
+import util.ConflictoVersionException;
+import util.Constantes;
+import util.LoteIncompletoException;
+import util.Serializador;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Hilo escritor único. Todas las operaciones que modifican datos (crear,
+ * asignar y resolver tickets, responder, registrar, actualizar y eliminar
+ * usuarios) se encolan como comandos en un BufferCircular acotado y las aplica
+ * de una en una este hilo, así que nunca hay dos modificaciones a la vez en el
+ * proceso.
+ *
+ * El hilo saca todos los comandos que encuentra esperando (hasta MAX_LOTE), los
+ * aplica dentro de un lote de Serializador y escribe cada fichero tocado una
+ * sola vez. Los futuros se completan después de escribir, de modo que quien
+ * recibe el resultado sabe que ya está guardado.
+ *
+ * - Un comando que falla no deja nada retenido en el lote (se vuelve a la marca
+ * de antes de aplicarlo), ni acciones tras guardar.
+ * - Un comando que choca con otra escritura (Reintentos.Reintento) se vuelve a
+ * encolar pasada una espera, sin dormir este hilo.
+ * - Si la escritura del lote falla sin haber escrito nada (p. ej. conflicto de
+ * versión con otro cliente) se repiten los comandos uno a uno para que el fallo
+ * solo afecte al que lo provoca.
+ * - Si falla a medias, los comandos cuyos ficheros (sin contar los derivados)
+ * quedaron escritos se dan por guardados; los ficheros derivados que no se
+ * escribieron se borran para que se reconstruyan.
+ */
+final class EscritorUnico {
+
+	private static final int CAPACIDAD = 1024;
+	private static final int MAX_LOTE = 64;
+
+	private static final BufferCircular<Comando<?>> COLA = new BufferCircular<>(CAPACIDAD);
+	private static final Thread HILO = Thread.ofPlatform().daemon(true).name("escritor-unico")
+			.start(EscritorUnico::bucle);
+	/** Vuelve a encolar los comandos que deben reintentarse, pasada su espera. */
+	private static final ScheduledExecutorService REINTENTOS = Executors.newSingleThreadScheduledExecutor(
+			r -> Thread.ofPlatform().daemon(true).name("escritor-unico-reintentos").unstarted(r));
+
+	/** Comando del lote que se está aplicando (solo lo toca HILO). */
+	private static Comando<?> enCurso;
+
+	/**
+	 * Modificación pendiente: la llamada al gestor y cómo informar si luego no se
+	 * puede guardar.
+	 */
+	private static final class Comando<T> {
+
+		private final EjecucionAsincrona.Llamada<T> llamada;
+		private final Function<IOException, ? extends Exception> errorPersistencia;
+		private final CompletableFuture<T> futuro = new CompletableFuture<>();
+		/** Acciones tras guardar registradas por el comando (y los que llama). */
+		private final List<Runnable> trasGuardar = new ArrayList<>();
+		private int intento = 1;
+		private T resultado;
+		private Throwable error;
+		private Reintentos.Reintento reintento;
+		/** Ficheros que ha retenido en el lote. */
+		private Set<String> ficheros = Set.of();
+
+		Comando(EjecucionAsincrona.Llamada<T> llamada, Function<IOException, ? extends Exception> errorPersistencia) {
+			this.llamada = llamada;
+			this.errorPersistencia = errorPersistencia;
+		}
+
+		void aplicar() {
+			resultado = null;
+			error = null;
+			reintento = null;
+			trasGuardar.clear();
+			try {
+				resultado = llamada.ejecutar();
+			} catch (Reintentos.Reintento e) {
+				reintento = e;
+			} catch (Throwable e) {
+				error = e;
+			}
+		}
+
+		boolean fallido() {
+			return error != null || reintento != null;
+		}
+
+		/**
+		 * Con el lote ya guardado: ejecuta sus acciones tras guardar y completa el
+		 * futuro, o lo vuelve a encolar si pidió reintentarse.
+		 */
+		void terminar() {
+			if (reintento != null) {
+				if (reintentar()) {
+					return;
+				}
+				error = reintento.agotados();
+			}
+			for (Runnable accion : trasGuardar) {
+				try {
+					accion.run();
+				} catch (RuntimeException e) {
+					System.err.println("Error en una acción posterior al guardado. Causa: " + e.getMessage());
+				}
+			}
+			trasGuardar.clear();
+			completar();
+		}
+
+		/**
+		 * Vuelve a encolar el comando pasada la espera de Reintentos.
+		 *
+		 * @return false si ya no le quedan intentos.
+		 */
+		boolean reintentar() {
+			if (intento >= Reintentos.MAX_INTENTOS) {
+				return false;
+			}
+			REINTENTOS.schedule(() -> COLA.publicar(this), Reintentos.espera(intento++), TimeUnit.MILLISECONDS);
+			return true;
+		}
+
+		void completar() {
+			if (error != null) {
+				futuro.completeExceptionally(error);
+			} else {
+				futuro.complete(resultado);
+			}
+		}
+
+		void fallarAlGuardar(IOException e) {
+			futuro.completeExceptionally(error != null ? error : errorPersistencia.apply(e));
+		}
+	}
+
+	private EscritorUnico() {
+	}
+
+	/**
+	 * Encola la modificación. Si la cola está llena espera a que haya sitio.
+	 *
+	 * @param errorPersistencia Excepción de negocio con la que se completa el
+	 *                          futuro si la modificación se aplica pero no se
+	 *                          puede guardar.
+	 */
+	static <T> CompletableFuture<T> enviar(EjecucionAsincrona.Llamada<T> llamada,
+			Function<IOException, ? extends Exception> errorPersistencia) {
+		Comando<T> comando = new Comando<>(llamada, errorPersistencia);
+		if (Thread.currentThread() == HILO) {
+			// Un comando que llama a otra operación de escritura: se aplica dentro del lote
+			// en curso (encolarlo y esperarlo bloquearía al propio escritor). Sus acciones
+			// tras guardar y sus reintentos son los del comando que lo llama.
+			comando.aplicar();
+			if (comando.reintento != null) {
+				comando.error = comando.reintento;
+			}
+			comando.completar();
+		} else {
+			COLA.publicar(comando);
+		}
+		return comando.futuro;
+	}
+
+	/**
+	 * Ejecuta la acción cuando el lote del comando en curso quede guardado (y no
+	 * la ejecuta si no se guarda). Para estado en memoria que debe reflejar solo
+	 * cambios persistidos. Fuera del hilo escritor se ejecuta enseguida.
+	 */
+	static void trasGuardar(Runnable accion) {
+		if (Thread.currentThread() == HILO && enCurso != null) {
+			enCurso.trasGuardar.add(accion);
+		} else {
+			accion.run();
+		}
+	}
+
+	/**
+	 * Espera el resultado de un comando y relanza la excepción de negocio con la
+	 * que falló.
+	 */
+	static <T, A extends Exception, B extends Exception, C extends Exception> T esperar(CompletableFuture<T> futuro,
+			Class<A> a, Class<B> b, Class<C> c) throws A, B, C {
+		try {
+			return futuro.join();
+		} catch (CompletionException e) {
+			Throwable causa = e.getCause();
+			if (a.isInstance(causa)) {
+				throw a.cast(causa);
+			}
+			if (b.isInstance(causa)) {
+				throw b.cast(causa);
+			}
+			if (c.isInstance(causa)) {
+				throw c.cast(causa);
+			}
+			if (causa instanceof RuntimeException r) {
+				throw r;
+			}
+			if (causa instanceof Error err) {
+				throw err;
+			}
+			throw e;
+		}
+	}
+
+	static <T, A extends Exception, B extends Exception> T esperar(CompletableFuture<T> futuro, Class<A> a,
+			Class<B> b) throws A, B {
+		return esperar(futuro, a, b, b);
+	}
+
+	static <T, A extends Exception> T esperar(CompletableFuture<T> futuro, Class<A> a) throws A {
+		return esperar(futuro, a, a, a);
+	}
+
+	private static void bucle() {
+		List<Comando<?>> lote = new ArrayList<>(MAX_LOTE);
+		while (true) {
+			try {
+				lote.add(COLA.tomar());
+			} catch (InterruptedException e) {
+				// Nadie interrumpe este hilo; si ocurre se sigue atendiendo la cola
+				continue;
+			}
+			Comando<?> siguiente;
+			while (lote.size() < MAX_LOTE && (siguiente = COLA.sondear()) != null) {
+				lote.add(siguiente);
+			}
+			aplicar(lote);
+			lote.clear();
+		}
+	}
+
+	private static void aplicar(List<Comando<?>> lote) {
+		Serializador.iniciarLote();
+		try {
+			for (Comando<?> comando : lote) {
+				Serializador.MarcaLote marca = Serializador.marcarLote();
+				enCurso = comando;
+				try {
+					comando.aplicar();
+				} finally {
+					enCurso = null;
+				}
+				if (comando.fallido()) {
+					Serializador.volverAMarca(marca);
+					comando.trasGuardar.clear();
+				} else {
+					comando.ficheros = Serializador.ficherosDesde(marca);
+				}
+			}
+			Serializador.confirmarLote();
+		} catch (LoteIncompletoException e) {
+			System.err.println("Lote de " + lote.size() + " modificaciones guardado solo en parte. Causa: "
+					+ e.getMessage());
+			invalidarDerivados(e.getPendientes());
+			for (Comando<?> comando : lote) {
+				if (comando.fallido() || e.getEscritos().containsAll(principales(comando.ficheros))) {
+					comando.terminar();
+				} else {
+					comando.fallarAlGuardar(e);
+				}
+			}
+			return;
+		} catch (IOException e) {
+			if (lote.size() == 1) {
+				Comando<?> comando = lote.get(0);
+				if (!(e instanceof ConflictoVersionException) || !comando.reintentar()) {
+					comando.fallarAlGuardar(e);
+				}
+				return;
+			}
+			// No se ha escrito nada: se vuelve a aplicar cada comando por separado, sobre
+			// lo que hay en disco (los que ya fallaron no hace falta repetirlos)
+			System.err.println("No se pudo guardar un lote de " + lote.size()
+					+ " modificaciones, se aplican una a una. Causa: " + e.getMessage());
+			for (Comando<?> comando : lote) {
+				if (comando.fallido()) {
+					comando.terminar();
+				} else {
+					aplicar(List.of(comando));
+				}
+			}
+			return;
+		} finally {
+			Serializador.descartarLote();
+		}
+		lote.forEach(Comando::terminar);
+	}
+
+	/**
+	 * Los ficheros que no son derivados (Constantes.FICHEROS_DERIVADOS).
+	 */
+	private static List<String> principales(Set<String> ficheros) {
+		List<String> principales = new ArrayList<>();
+		for (String f : ficheros) {
+			if (!Constantes.FICHEROS_DERIVADOS.contains(f)) {
+				principales.add(f);
+			}
+		}
+		return principales;
+	}
+
+	/**
+	 * Borra los ficheros derivados que no se pudieron guardar, para que se
+	 * reconstruyan desde los demás en la siguiente lectura.
+	 */
+	private static void invalidarDerivados(List<String> pendientes) {
+		for (String f : pendientes) {
+			if (Constantes.FICHEROS_DERIVADOS.contains(f)) {
+				try {
+					Serializador.borrar(f);
+				} catch (IOException e) {
+					System.err.println("No se pudo invalidar " + f + ". Causa: " + e.getMessage());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package service;
+
+import controller.TicketDAO;
+import model.Ticket;
+import util.metricas.Histograma;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estadísticas de tickets mantenidas al vuelo: tickets abiertos por estado y
+ * por categoría, tiempo de resolución (de fechaCreacion a fechaCierre: media y
+ * percentiles) y cierres por técnico. Cada cambio que guarda GestorTicket las
+ * actualiza (OyenteTickets), así que leerlas no recorre los tickets.
+ *
+ * - Al consultarse por primera vez se calculan desde los tickets.
+ * - Cada PERIODO_RECONSTRUCCION_MIN se recalculan, para recoger los cambios de
+ * otros procesos en modo cliente/servidor.
+ *
+ * Tanto los cambios como los recálculos se aplican en el hilo escritor, de modo
+ * que un recálculo nunca cuenta dos veces un cambio ni se lo salta.
+ */
+public final class EstadisticasTickets {
+
+	private static final long PERIODO_RECONSTRUCCION_MIN = 10;
+
+	/**
+	 * Agregados de un cálculo completo más los cambios aplicados después.
+	 * Solo los modifica el hilo escritor; se leen desde cualquier hilo.
+	 */
+	private static final class Estado {
+
+		private final Map<String, LongAdder> abiertosPorEstado = new ConcurrentHashMap<>();
+		private final Map<String, LongAdder> abiertosPorCategoria = new ConcurrentHashMap<>();
+		/** Segundos de creación a cierre. */
+		private final Histograma resolucion = new Histograma();
+		private final Map<String, Histograma> resolucionPorTecnico = new ConcurrentHashMap<>();
+
+		void contarAbierto(Ticket t, int delta) {
+			abiertosPorEstado.computeIfAbsent(nombre(t.getEstado()), k -> new LongAdder()).add(delta);
+			abiertosPorCategoria.computeIfAbsent(nombre(t.getCategoria()), k -> new LongAdder()).add(delta);
+		}
+
+		void contarCierre(Ticket t) {
+			if (t.getFechaCreacion() == null || t.getFechaCierre() == null) {
+				return;
+			}
+			long segundos = Duration.between(t.getFechaCreacion(), t.getFechaCierre()).toSeconds();
+			resolucion.registrar(segundos);
+			if (t.asignado()) {
+				resolucionPorTecnico.computeIfAbsent(t.getAsignadoA(), k -> new Histograma()).registrar(segundos);
+			}
+		}
+	}
+
+	private static volatile Estado estado = new Estado();
+	private static volatile boolean iniciado;
+
+	private EstadisticasTickets() {
+	}
+
+	/**
+	 * Tickets sin cerrar por estado (sin los que tienen 0).
+	 */
+	public static Map<String, Long> abiertosPorEstado() {
+		iniciar();
+		return sumas(estado.abiertosPorEstado);
+	}
+
+	/**
+	 * Tickets sin cerrar por categoría (sin las que tienen 0).
+	 */
+	public static Map<String, Long> abiertosPorCategoria() {
+		iniciar();
+		return sumas(estado.abiertosPorCategoria);
+	}
+
+	/**
+	 * Número de tickets cerrados con fechas de creación y cierre conocidas.
+	 */
+	public static long cerrados() {
+		iniciar();
+		return estado.resolucion.getCuenta();
+	}
+
+	public static Duration tiempoMedioResolucion() {
+		iniciar();
+		return Duration.ofSeconds(Math.round(estado.resolucion.getMedia()));
+	}
+
+	/**
+	 * Tiempo de resolución por debajo del cual están la fracción q de los
+	 * tickets cerrados (p. ej. 0.9 para el p90), con un error menor del 12,5%.
+	 */
+	public static Duration percentilResolucion(double q) {
+		iniciar();
+		return Duration.ofSeconds(estado.resolucion.percentil(q));
+	}
+
+	/**
+	 * Tickets cerrados por cada técnico (id del técnico -> cierres).
+	 */
+	public static Map<String, Long> cierresPorTecnico() {
+		iniciar();
+		Map<String, Long> cierres = new TreeMap<>();
+		estado.resolucionPorTecnico.forEach((id, h) -> cierres.put(id, h.getCuenta()));
+		return cierres;
+	}
+
+	/**
+	 * Tiempo medio de resolución de los tickets cerrados por el técnico (0 si no
+	 * ha cerrado ninguno).
+	 */
+	public static Duration tiempoMedioResolucion(String tecnicoId) {
+		iniciar();
+		Histograma h = tecnicoId != null ? estado.resolucionPorTecnico.get(tecnicoId) : null;
+		return Duration.ofSeconds(h != null ? Math.round(h.getMedia()) : 0);
+	}
+
+	/**
+	 * Vuelve a calcular todas las estadísticas desde los tickets guardados.
+	 */
+	public static void reconstruir() {
+		try {
+			EscritorUnico.<Void>enviar(() -> {
+				Estado nuevo = new Estado();
+				for (Ticket t : new TicketDAO().findAllSoloLectura()) {
+					if (t.cerrado()) {
+						nuevo.contarCierre(t);
+					} else {
+						nuevo.contarAbierto(t, 1);
+					}
+				}
+				estado = nuevo;
+				return null;
+			}, e -> new IOException("Error de persistencia al calcular las estadísticas: " + e.getMessage(), e))
+					.join();
+		} catch (CompletionException e) {
+			System.err.println("No se pudieron calcular las estadísticas de tickets. Causa: " + e.getCause());
+		}
+	}
+
+	/**
+	 * Se engancha a los cambios de tickets y hace el primer cálculo. No se hace en
+	 * un bloque static porque el cálculo corre en el hilo escritor, que se
+	 * quedaría esperando a que terminara de inicializarse esta clase.
+	 */
+	private static void iniciar() {
+		if (iniciado) {
+			return;
+		}
+		synchronized (EstadisticasTickets.class) {
+			if (iniciado) {
+				return;
+			}
+			// Antes de calcular: los cambios posteriores al cálculo no se pierden
+			GestorTicket.registrarOyente(EstadisticasTickets::aplicar);
+			reconstruir();
+			ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(
+					r -> Thread.ofPlatform().daemon(true).name("estadisticas-tickets").unstarted(r));
+			planificador.scheduleWithFixedDelay(EstadisticasTickets::reconstruir, PERIODO_RECONSTRUCCION_MIN,
+					PERIODO_RECONSTRUCCION_MIN, TimeUnit.MINUTES);
+			iniciado = true;
+		}
+	}
+
+	private static void aplicar(Ticket antes, Ticket despues) {
+		Estado actual = estado;
+		if (antes != null && !antes.cerrado()) {
+			actual.contarAbierto(antes, -1);
+		}
+		if (!despues.cerrado()) {
+			actual.contarAbierto(despues, 1);
+		} else if (antes == null || !antes.cerrado()) {
+			actual.contarCierre(despues);
+		}
+	}
+
+	private static Map<String, Long> sumas(Map<String, LongAdder> contadores) {
+		Map<String, Long> resultado = new TreeMap<>();
+		contadores.forEach((clave, n) -> {
+			long valor = n.sum();
+			if (valor > 0) {
+				resultado.put(clave, valor);
+			}
+		});
+		return resultado;
+	}
+
+	private static String nombre(String valor) {
+		return valor != null ? valor : "Sin indicar";
+	}
+}
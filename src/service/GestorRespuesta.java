@@ -6,22 +6,30 @@ import model.Respuesta;
 import model.Ticket;
 import model.Usuario;
 import service.exceptions.*;
+import util.CerrojosSegmentados;
+import util.metricas.Medicion;
+import util.metricas.Metricas;
 import java.io.IOException;
 
 import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
  * Capa de servicio para la gestión de respuestas en los tickets. Contiene la
  * lógica de negocio para añadir y consultar respuestas.
  */
+@SuppressWarnings("try")
 public class GestorRespuesta {
 
 	private final RespuestaDAO respuestaDAO;
 	private final TicketDAO ticketDAO;
 
+	private volatile Executor ejecutor;
+
 	/**
 	 * Constructor que inicializa los DAOs necesarios.
 	 */
@@ -44,32 +52,46 @@ public class GestorRespuesta {
 	 */
 	public Respuesta anadirRespuesta(Usuario autor, String ticketId, String contenido)
 			throws TicketException, UserException, RespuestaException {
-		if (autor == null) {
-			throw new UserException("El autor de la respuesta no puede ser nulo.");
-		}
+		return EscritorUnico.esperar(anadirRespuestaAsync(autor, ticketId, contenido),
+				TicketException.class, UserException.class, RespuestaException.class);
+	}
+
+	/**
+	 * Cuerpo de anadirRespuesta; se ejecuta en el hilo escritor.
+	 */
+	private Respuesta aplicarAnadirRespuesta(Usuario autor, String ticketId, String contenido)
+			throws TicketException, UserException, RespuestaException {
+		try (Medicion m = Metricas.medirServicio("GestorRespuesta.anadirRespuesta", autor != null ? autor.getId() : null, ticketId)) {
+			if (autor == null) {
+				throw new UserException("El autor de la respuesta no puede ser nulo.");
+			}
 
-		Ticket ticket = ticketDAO.findById(ticketId)
-				.orElseThrow(() -> new TicketException("No se encontró el ticket con ID: " + ticketId));
+			// Con el ticket bloqueado nadie puede cerrarlo entre la comprobación y el alta
+			try (CerrojosSegmentados.Bloqueo bloqueoTicket = Cerrojos.TICKETS.bloquear(ticketId)) {
+				Ticket ticket = ticketDAO.findById(ticketId)
+						.orElseThrow(() -> new TicketException("No se encontró el ticket con ID: " + ticketId));
 
-		if (ticket.cerrado()) {
-			throw new TicketException("No se puede responder a un ticket que ya está cerrado.");
-		}
+				if (ticket.cerrado()) {
+					throw new TicketException("No se puede responder a un ticket que ya está cerrado.");
+				}
+
+				Respuesta nuevaRespuesta = new Respuesta();
+				nuevaRespuesta.setTicketId(ticketId);
+				nuevaRespuesta.setAutorId(autor.getId());
+				nuevaRespuesta.setContenido(contenido);
+				nuevaRespuesta.setFecha(LocalDateTime.now());
 
-		Respuesta nuevaRespuesta = new Respuesta();
-		nuevaRespuesta.setTicketId(ticketId);
-		nuevaRespuesta.setAutorId(autor.getId());
-		nuevaRespuesta.setContenido(contenido);
-		nuevaRespuesta.setFecha(LocalDateTime.now());
-
-		try {
-			// Intentamos crear la respuesta. El DAO puede lanzar IOException si falla la
-			// escritura.
-			return respuestaDAO.crear(nuevaRespuesta)
-					.orElseThrow(() -> new RespuestaException("Error interno: No se pudo guardar la respuesta."));
-		} catch (IOException e) {
-			// Si ocurre un error de I/O, lo envolvemos en una RespuestaException para
-			// notificar a la capa superior.
-			throw new RespuestaException("Error de persistencia al guardar la respuesta: " + e.getMessage());
+				try {
+					// Intentamos crear la respuesta. El DAO puede lanzar IOException si falla la
+					// escritura.
+					return m.ok(respuestaDAO.crear(nuevaRespuesta)
+							.orElseThrow(() -> new RespuestaException("Error interno: No se pudo guardar la respuesta.")));
+				} catch (IOException e) {
+					// Si ocurre un error de I/O, lo envolvemos en una RespuestaException para
+					// notificar a la capa superior.
+					throw new RespuestaException("Error de persistencia al guardar la respuesta: " + e.getMessage(), e);
+				}
+			}
 		}
 	}
 
@@ -80,7 +102,36 @@ public class GestorRespuesta {
 	 * @return Una lista de respuestas ordenadas cronológicamente.
 	 */
 	public List<Respuesta> consultarRespuestasPorTicket(String ticketId) {
-		return respuestaDAO.findByTicketId(ticketId).stream().sorted(Comparator.comparing(Respuesta::getFecha))
-				.collect(Collectors.toList());
+		try (Medicion m = Metricas.medirServicio("GestorRespuesta.consultarRespuestasPorTicket", ticketId)) {
+			return m.ok(respuestaDAO.findByTicketId(ticketId).stream().sorted(Comparator.comparing(Respuesta::getFecha))
+					.collect(Collectors.toList()));
+		}
+	}
+
+	/**
+	 * Ejecutor de los métodos *Async de consulta de este gestor (los que
+	 * modifican datos van siempre al hilo escritor). Con null se usa el de
+	 * EjecucionAsincrona (hilos virtuales por defecto).
+	 */
+	public void setEjecutor(Executor ejecutor) {
+		this.ejecutor = ejecutor;
+	}
+
+	// --- Variantes asíncronas: las consultas en el ejecutor del gestor, las modificaciones en EscritorUnico ---
+
+	/**
+	 * Versión asíncrona de anadirRespuesta.
+	 */
+	public CompletableFuture<Respuesta> anadirRespuestaAsync(Usuario autor, String ticketId, String contenido) {
+		return EscritorUnico.enviar(() -> aplicarAnadirRespuesta(autor, ticketId, contenido),
+				e -> new RespuestaException("Error de persistencia al añadir la respuesta: " + e.getMessage(), e));
+	}
+
+	/**
+	 * Versión asíncrona de consultarRespuestasPorTicket.
+	 */
+	public CompletableFuture<List<Respuesta>> consultarRespuestasPorTicketAsync(String ticketId) {
+		return EjecucionAsincrona.ejecutar(ejecutor, () -> consultarRespuestasPorTicket(ticketId));
 	}
 }
+
@@ -1,29 +1,64 @@
 package service;
 
+import controller.ContadorTicketsDAO;
 import controller.TecnicoDAO;
 import controller.TicketDAO;
+import controller.TicketResumenDAO;
+import model.ContadorTickets;
 import model.Tecnico;
 import model.Ticket;
+import model.TicketResumen;
 import model.Usuario;
 import service.exceptions.TicketException;
 import service.exceptions.UserException;
+import util.CerrojosSegmentados;
+import util.ConflictoVersionException;
+import util.metricas.Medicion;
+import util.metricas.Metricas;
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 /**
  * Capa de servicio para la gestión de tickets. Contiene la lógica de negocio
  * relacionada con la creación, asignación, y resolución de tickets. Orquesta
  * las operaciones utilizando los DAOs.
  */
+@SuppressWarnings("try")
 public class GestorTicket {
 
+	private static final List<OyenteTickets> OYENTES = new CopyOnWriteArrayList<>();
+
 	private final TicketDAO ticketDAO;
 	private final TecnicoDAO tecnicoDAO;
+	private final TicketResumenDAO resumenDAO;
+	private final ContadorTicketsDAO contadorDAO;
+
+	private volatile Executor ejecutor;
 
 	public GestorTicket() {
 		this.ticketDAO = new TicketDAO();
 		this.tecnicoDAO = new TecnicoDAO();
+		this.resumenDAO = new TicketResumenDAO();
+		this.contadorDAO = new ContadorTicketsDAO();
+		// Antes de que el hilo escritor pueda guardar nada con este gestor
+		CargaTecnicos.iniciar();
+	}
+
+	/**
+	 * Registra un oyente que recibe cada ticket creado o modificado por este
+	 * proceso, una vez guardado.
+	 */
+	public static void registrarOyente(OyenteTickets oyente) {
+		OYENTES.add(oyente);
 	}
 
 	/**
@@ -38,24 +73,44 @@ public class GestorTicket {
 	 */
 	public Ticket crearTicket(Usuario cliente, String categoria, String descripcion)
 			throws UserException, TicketException {
-		if (cliente == null || !"CLIENTE".equals(cliente.getRol())) {
-			throw new UserException("Solo los clientes pueden crear tickets.");
-		}
+		return EscritorUnico.esperar(crearTicketAsync(cliente, categoria, descripcion),
+				UserException.class, TicketException.class);
+	}
+
+	/**
+	 * Cuerpo de crearTicket; se ejecuta en el hilo escritor.
+	 */
+	private Ticket aplicarCrearTicket(Usuario cliente, String categoria, String descripcion)
+			throws UserException, TicketException {
+		try (Medicion m = Metricas.medirServicio("GestorTicket.crearTicket", cliente != null ? cliente.getId() : null, categoria)) {
+			if (cliente == null || !"CLIENTE".equals(cliente.getRol())) {
+				throw new UserException("Solo los clientes pueden crear tickets.");
+			}
 
-		Ticket nuevoTicket = new Ticket();
-		nuevoTicket.setAutorId(cliente.getId());
-		nuevoTicket.setCategoria(categoria);
-		nuevoTicket.setDescripcion(descripcion);
-		nuevoTicket.setEstado("ABIERTO");
-		nuevoTicket.setFechaCreacion(LocalDateTime.now());
+			Ticket nuevoTicket = new Ticket();
+			nuevoTicket.setAutorId(cliente.getId());
+			nuevoTicket.setCategoria(categoria);
+			nuevoTicket.setDescripcion(descripcion);
+			nuevoTicket.setEstado("ABIERTO");
+			nuevoTicket.setFechaCreacion(LocalDateTime.now());
+			nuevoTicket.setFechaLimite(nuevoTicket.getFechaCreacion()
+					.plus(MotorSla.plazo(nuevoTicket.getPrioridad(), categoria)));
+			// Si se parece a un ticket abierto (p. ej. la misma caída), entra en su grupo
+			DuplicadosTickets.buscarGrupo(descripcion).ifPresent(nuevoTicket::setDuplicadoDe);
 
-		try {
-			return ticketDAO.crear(nuevoTicket)
-					.orElseThrow(() -> new TicketException("Error interno: No se pudo guardar el ticket."));
-		} catch (IOException e) {
-			// Si ocurre un error de I/O, lo envolvemos en una TicketException para
-			// notificar a la capa superior.
-			throw new TicketException("Error de persistencia al crear el ticket: " + e.getMessage());
+			try {
+				Ticket creado = ticketDAO.crear(nuevoTicket)
+						.orElseThrow(() -> new TicketException("Error interno: No se pudo guardar el ticket."));
+				EscritorUnico.trasGuardar(() -> DuplicadosTickets.registrar(creado));
+				actualizarContadores(() -> contadorDAO.registrarCreacion(creado.getAutorId()));
+				actualizarResumen(creado, cliente.getNombre(), null);
+				notificar(null, creado);
+				return m.ok(creado);
+			} catch (IOException e) {
+				// Si ocurre un error de I/O, lo envolvemos en una TicketException para
+				// notificar a la capa superior.
+				throw new TicketException("Error de persistencia al crear el ticket: " + e.getMessage(), e);
+			}
 		}
 	}
 
@@ -72,38 +127,167 @@ public class GestorTicket {
 	 */
 	public Ticket asignarTicket(Usuario admin, String ticketId, String tecnicoId)
 			throws UserException, TicketException {
-		if (admin == null || !"ADMIN".equals(admin.getRol())) {
-			throw new UserException("Solo los administradores pueden asignar tickets.");
-		}
+		return EscritorUnico.esperar(asignarTicketAsync(admin, ticketId, tecnicoId), UserException.class,
+				TicketException.class);
+	}
 
-		Ticket ticket = ticketDAO.findById(ticketId)
-				.orElseThrow(() -> new TicketException("No se encontró el ticket con ID: " + ticketId));
+	/**
+	 * Cuerpo de asignarTicket; se ejecuta en el hilo escritor.
+	 */
+	private Ticket aplicarAsignarTicket(Usuario admin, String ticketId, String tecnicoId)
+			throws UserException, TicketException {
+		try (Medicion m = Metricas.medirServicio("GestorTicket.asignarTicket", admin != null ? admin.getId() : null, ticketId, tecnicoId)) {
+			if (admin == null || !"ADMIN".equals(admin.getRol())) {
+				throw new UserException("Solo los administradores pueden asignar tickets.");
+			}
 
-		if (!"ABIERTO".equalsIgnoreCase(ticket.getEstado())) {
-			throw new TicketException(
-					"El ticket no puede ser asignado porque su estado es '" + ticket.getEstado() + "'.");
-		}
+			// El estado se comprueba y se cambia con el ticket bloqueado: dos asignaciones
+			// simultáneas del mismo ticket no pueden pasar ambas la comprobación. Desde
+			// otros procesos (modo cliente/servidor) lo impide la versión del ticket: si
+			// cambió desde la lectura se vuelve a leer y a comprobar
+			try (CerrojosSegmentados.Bloqueo bloqueoTicket = Cerrojos.TICKETS.bloquear(ticketId)) {
+				Ticket ticket = ticketDAO.findById(ticketId)
+						.orElseThrow(() -> new TicketException("No se encontró el ticket con ID: " + ticketId));
 
-		Tecnico tecnico = tecnicoDAO.findById(tecnicoId)
-				.orElseThrow(() -> new TicketException("No se encontró el técnico con ID: " + tecnicoId));
+				if (!"ABIERTO".equalsIgnoreCase(ticket.getEstado())) {
+					throw new TicketException(
+							"El ticket no puede ser asignado porque su estado es '" + ticket.getEstado() + "'.");
+				}
 
-		// Lógica de negocio: actualizar estado y técnico del ticket
-		ticket.setAsignadoA(tecnico.getId());
-		ticket.setEstado("ASIGNADO");
+				Tecnico tecnico = tecnicoDAO.findById(tecnicoId)
+						.orElseThrow(() -> new TicketException("No se encontró el técnico con ID: " + tecnicoId));
 
-		// Orquestación: actualizar la carga de trabajo del técnico
-		tecnico.incrementarCarga();
+				// Lógica de negocio: actualizar estado y técnico del ticket
+				Ticket antes = new Ticket(ticket);
+				ticket.setAsignadoA(tecnico.getId());
+				ticket.setEstado("ASIGNADO");
 
-		try {
-			// Persistir ambos cambios
-			ticketDAO.actualizar(ticket);
-			tecnicoDAO.actualizar(tecnico);
-		} catch (IOException e) {
-			throw new TicketException("Error de persistencia al asignar el ticket: " + e.getMessage());
+				try {
+					ticketDAO.actualizar(ticket);
+				} catch (ConflictoVersionException e) {
+					throw Reintentos.reintentar(new TicketException("No se pudo asignar el ticket: " + e.getMessage()));
+				} catch (IOException e) {
+					throw new TicketException("Error de persistencia al asignar el ticket: " + e.getMessage(), e);
+				}
+
+				// Orquestación: la carga de trabajo del técnico sube cuando el cambio queda
+				// guardado
+				String asignadoId = tecnico.getId();
+				EscritorUnico.trasGuardar(() -> CargaTecnicos.incrementar(asignadoId));
+
+				actualizarContadores(() -> contadorDAO.registrarAsignacion(asignadoId));
+				actualizarResumen(ticket, null, tecnico.getNombre());
+				notificar(antes, ticket);
+				return m.ok(ticket);
+			}
+		}
+	}
+
+	/**
+	 * El técnico toma el siguiente ticket abierto sin asignar de su especialidad
+	 * (ver RepartoTrabajo): el más antiguo de la prioridad más alta que tenga en su
+	 * reparto o, si no le queda ninguno, uno robado a un compañero. Si no queda
+	 * ninguno en los repartos, el más urgente de los libres guardados (los creados
+	 * por otro proceso aún no están repartidos). Queda asignado como con
+	 * asignarTicket.
+	 *
+	 * @param tecnico El usuario técnico que toma el ticket.
+	 * @return El ticket asignado, o vacío si no queda ninguno libre.
+	 * @throws UserException   si el usuario no es un técnico.
+	 * @throws TicketException si el técnico no existe o no se puede guardar.
+	 */
+	public Optional<Ticket> tomarTicket(Usuario tecnico) throws UserException, TicketException {
+		try (Medicion m = Metricas.medirServicio("GestorTicket.tomarTicket", tecnico != null ? tecnico.getId() : null)) {
+			if (tecnico == null || !"TECH".equals(tecnico.getRol())) {
+				throw new UserException("Solo los técnicos pueden tomar tickets.");
+			}
+			Tecnico datos = tecnicoDAO.findById(tecnico.getId())
+					.orElseThrow(() -> new TicketException("No se encontró el técnico con ID: " + tecnico.getId()));
+			// Los candidatos se sacan fuera del hilo escritor; si otro se adelantó con
+			// uno, se descarta y se prueba el siguiente
+			for (Optional<RepartoTrabajo.Candidato> candidato = RepartoTrabajo.sacar(datos.getId(),
+					datos.getEspecialidad()); candidato.isPresent(); candidato = RepartoTrabajo.sacar(datos.getId(),
+							datos.getEspecialidad())) {
+				Ticket tomado;
+				try {
+					String ticketId = candidato.get().ticketId;
+					tomado = tomar(() -> aplicarTomarTicket(datos, ticketId));
+				} catch (TicketException | RuntimeException e) {
+					// No se llegó a asignar: sigue siendo el siguiente del técnico
+					RepartoTrabajo.devolver(datos.getId(), datos.getEspecialidad(), candidato.get());
+					throw e;
+				}
+				if (tomado != null) {
+					return m.ok(Optional.of(tomado));
+				}
+			}
+			// Todo en un solo comando: recorrerlos desde aquí costaría una espera al hilo
+			// escritor por cada ticket que otro técnico ya está tomando
+			return m.ok(Optional.ofNullable(tomar(() -> aplicarTomarLibreEnDatos(datos))));
+		}
+	}
+
+	/**
+	 * Manda la asignación al hilo escritor y la espera.
+	 *
+	 * @return El ticket asignado, o null si ya no estaba libre.
+	 */
+	private Ticket tomar(EjecucionAsincrona.Llamada<Ticket> asignacion) throws TicketException {
+		return EscritorUnico.esperar(EscritorUnico.enviar(asignacion,
+				e -> new TicketException("Error de persistencia al tomar el ticket: " + e.getMessage(), e)),
+				TicketException.class);
+	}
+
+	/**
+	 * Asigna al técnico el más urgente de los tickets libres de su especialidad
+	 * según los datos guardados; se ejecuta en el hilo escritor.
+	 *
+	 * @return El ticket asignado, o null si no queda ninguno libre.
+	 */
+	private Ticket aplicarTomarLibreEnDatos(Tecnico tecnico) throws TicketException {
+		for (String ticketId : RepartoTrabajo.libresEnDatos(tecnico.getEspecialidad())) {
+			Ticket tomado = aplicarTomarTicket(tecnico, ticketId);
+			if (tomado != null) {
+				return tomado;
+			}
 		}
+		return null;
+	}
+
+	/**
+	 * Asigna el ticket al técnico si sigue libre; se ejecuta en el hilo escritor.
+	 *
+	 * @return El ticket asignado, o null si ya no estaba libre.
+	 */
+	private Ticket aplicarTomarTicket(Tecnico tecnico, String ticketId) throws TicketException {
+		// Bloqueado por ticket, como asignarTicket
+		try (CerrojosSegmentados.Bloqueo bloqueoTicket = Cerrojos.TICKETS.bloquear(ticketId)) {
+			Optional<Ticket> leido = ticketDAO.findById(ticketId);
+			if (leido.isEmpty() || !RepartoTrabajo.libre(leido.get())) {
+				return null;
+			}
+			Ticket ticket = leido.get();
+			Ticket antes = new Ticket(ticket);
+			ticket.setAsignadoA(tecnico.getId());
+			ticket.setEstado("ASIGNADO");
+
+			try {
+				ticketDAO.actualizar(ticket);
+			} catch (ConflictoVersionException e) {
+				throw Reintentos.reintentar(new TicketException("No se pudo tomar el ticket: " + e.getMessage()));
+			} catch (IOException e) {
+				throw new TicketException("Error de persistencia al tomar el ticket: " + e.getMessage(), e);
+			}
 
-		return ticket;
+			String asignadoId = tecnico.getId();
+			EscritorUnico.trasGuardar(() -> CargaTecnicos.incrementar(asignadoId));
+			actualizarContadores(() -> contadorDAO.registrarAsignacion(asignadoId));
+			actualizarResumen(ticket, null, tecnico.getNombre());
+			notificar(antes, ticket);
+			return ticket;
+		}
 	}
+
 	/**
 	 * Marca un ticket como resuelto. Operación solo para el técnico asignado.
      *
@@ -114,38 +298,210 @@ public class GestorTicket {
      * @throws TicketException  si el ticket no existe o no está en un estado válido para ser resuelto.
      */
     public Ticket resolverTicket(Usuario tecnico, String ticketId) throws UserException, TicketException {
-        if (tecnico == null || !"TECH".equals(tecnico.getRol())) {
-            throw new UserException("Solo los técnicos pueden resolver tickets.");
-        }
+        return EscritorUnico.esperar(resolverTicketAsync(tecnico, ticketId), UserException.class,
+                TicketException.class);
+    }
 
-        Ticket ticket = ticketDAO.findById(ticketId)
-                .orElseThrow(() -> new TicketException("No se encontró el ticket con ID: " + ticketId));
+    /**
+     * Cuerpo de resolverTicket; se ejecuta en el hilo escritor.
+     */
+    private Ticket aplicarResolverTicket(Usuario tecnico, String ticketId) throws UserException, TicketException {
+        try (Medicion m = Metricas.medirServicio("GestorTicket.resolverTicket", tecnico != null ? tecnico.getId() : null, ticketId)) {
+            if (tecnico == null || !"TECH".equals(tecnico.getRol())) {
+                throw new UserException("Solo los técnicos pueden resolver tickets.");
+            }
 
-        if (!tecnico.getId().equals(ticket.getAsignadoA())) {
-            throw new UserException("No puede resolver un ticket que no le ha sido asignado.");
-        }
+            // Bloqueado por ticket, como asignarTicket
+            try (CerrojosSegmentados.Bloqueo bloqueoTicket = Cerrojos.TICKETS.bloquear(ticketId)) {
+                Ticket ticket = ticketDAO.findById(ticketId)
+                        .orElseThrow(() -> new TicketException("No se encontró el ticket con ID: " + ticketId));
 
-        if (ticket.cerrado()) {
-            throw new TicketException("El ticket ya se encuentra cerrado.");
-        }
+                if (!tecnico.getId().equals(ticket.getAsignadoA())) {
+                    throw new UserException("No puede resolver un ticket que no le ha sido asignado.");
+                }
+
+                if (ticket.cerrado()) {
+                    throw new TicketException("El ticket ya se encuentra cerrado.");
+                }
 
-        Tecnico tecnicoAsignado = tecnicoDAO.findById(tecnico.getId())
-                .orElseThrow(() -> new TicketException("Error interno: No se encontró al técnico asignado."));
+                // Lógica de negocio: actualizar estado y fecha (la carga del técnico se
+                // descuenta al guardar)
+                Ticket antes = new Ticket(ticket);
+                ticket.setEstado("CERRADO");
+                ticket.setFechaCierre(LocalDateTime.now());
 
-        // Lógica de negocio: actualizar estado, fecha y carga de trabajo
-        ticket.setEstado("CERRADO");
-        ticket.setFechaCierre(LocalDateTime.now());
-        tecnicoAsignado.disminuirCarga();
+                try {
+                    ticketDAO.actualizar(ticket);
+                } catch (ConflictoVersionException e) {
+                    throw Reintentos.reintentar(new TicketException("No se pudo resolver el ticket: " + e.getMessage()));
+                } catch (IOException e) {
+                    throw new TicketException("Error de persistencia al resolver el ticket: " + e.getMessage(), e);
+                }
 
-        try {
-            ticketDAO.actualizar(ticket);
-            tecnicoDAO.actualizar(tecnicoAsignado);
-        } catch (IOException e) {
-            throw new TicketException("Error de persistencia al resolver el ticket: " + e.getMessage());
+                EscritorUnico.trasGuardar(() -> CargaTecnicos.disminuir(tecnico.getId()));
+
+                actualizarContadores(() -> contadorDAO.registrarCierre(ticket.getAutorId(), ticket.getAsignadoA()));
+                actualizarResumen(ticket, null, null);
+                notificar(antes, ticket);
+                return m.ok(ticket);
+            }
         }
-        return ticket;
     }
 
+	/**
+	 * Cierra todos los tickets abiertos de un grupo de casi duplicados (ver
+	 * DuplicadosTickets). Operación solo para administradores.
+	 *
+	 * @param admin El usuario administrador.
+	 * @param grupo El id del grupo (el de su primer ticket).
+	 * @return Los tickets cerrados (vacío si el grupo ya no tenía ninguno abierto).
+	 * @throws UserException   si el usuario no es un administrador.
+	 * @throws TicketException si no se pueden guardar los cierres.
+	 */
+	public List<Ticket> resolverGrupo(Usuario admin, String grupo) throws UserException, TicketException {
+		return EscritorUnico.esperar(resolverGrupoAsync(admin, grupo), UserException.class, TicketException.class);
+	}
+
+	/**
+	 * Cuerpo de resolverGrupo; se ejecuta en el hilo escritor, así que todos los
+	 * cierres van en el mismo lote.
+	 *
+	 * @param miembros Los tickets del grupo, leídos antes de encolar.
+	 */
+	private List<Ticket> aplicarResolverGrupo(Usuario admin, String grupo, List<String> miembros)
+			throws UserException, TicketException {
+		try (Medicion m = Metricas.medirServicio("GestorTicket.resolverGrupo", admin != null ? admin.getId() : null, grupo)) {
+			if (admin == null || !"ADMIN".equals(admin.getRol())) {
+				throw new UserException("Solo los administradores pueden resolver grupos de tickets.");
+			}
+
+			List<Ticket> cerrados = new ArrayList<>();
+			for (String ticketId : miembros) {
+				// Bloqueado por ticket, como resolverTicket
+				try (CerrojosSegmentados.Bloqueo bloqueoTicket = Cerrojos.TICKETS.bloquear(ticketId)) {
+					Optional<Ticket> leido = ticketDAO.findById(ticketId);
+					if (leido.isEmpty() || leido.get().cerrado()) {
+						continue;
+					}
+					Ticket ticket = leido.get();
+					Ticket antes = new Ticket(ticket);
+					ticket.setEstado("CERRADO");
+					ticket.setFechaCierre(LocalDateTime.now());
+
+					try {
+						ticketDAO.actualizar(ticket);
+					} catch (ConflictoVersionException e) {
+						throw Reintentos.reintentar(new TicketException("No se pudo resolver el ticket " + ticketId + ": " + e.getMessage()));
+					} catch (IOException e) {
+						throw new TicketException("Error de persistencia al resolver el grupo: " + e.getMessage(), e);
+					}
+
+					if (ticket.asignado()) {
+						EscritorUnico.trasGuardar(() -> CargaTecnicos.disminuir(ticket.getAsignadoA()));
+					}
+					actualizarContadores(() -> contadorDAO.registrarCierre(ticket.getAutorId(),
+							ticket.asignado() ? ticket.getAsignadoA() : null));
+					actualizarResumen(ticket, null, null);
+					notificar(antes, ticket);
+					cerrados.add(ticket);
+				}
+			}
+			return m.ok(cerrados);
+		}
+	}
+
+	/**
+	 * Escala un ticket cuyo SLA ha vencido (ver MotorSla): sube su prioridad o,
+	 * si ya es ALTA y el SLA no lo había reasignado antes, lo reasigna al técnico
+	 * menos cargado, y le fija una fecha límite nueva. Se ejecuta en el hilo
+	 * escritor.
+	 *
+	 * @return Futuro con el escalado aplicado, o con null si no había nada que
+	 *         hacer (el ticket se cerró o su fecha límite ya no ha pasado).
+	 */
+	CompletableFuture<MotorSla.Aviso> escalarPorSlaAsync(String ticketId) {
+		return EscritorUnico.enviar(() -> aplicarEscalarPorSla(ticketId),
+				e -> new TicketException("Error de persistencia al escalar el ticket: " + e.getMessage(), e));
+	}
+
+	private MotorSla.Aviso aplicarEscalarPorSla(String ticketId) throws TicketException {
+		try (Medicion m = Metricas.medirServicio("GestorTicket.escalarPorSla", ticketId)) {
+			// Bloqueado por ticket, como asignarTicket: la fecha límite se vuelve a
+			// comprobar con lo guardado, así que el mismo vencimiento no se escala dos veces
+			try (CerrojosSegmentados.Bloqueo bloqueoTicket = Cerrojos.TICKETS.bloquear(ticketId)) {
+				Optional<Ticket> leido = ticketDAO.findById(ticketId);
+				if (leido.isEmpty() || leido.get().cerrado()) {
+					return m.ok(null);
+				}
+				Ticket ticket = leido.get();
+				LocalDateTime ahora = LocalDateTime.now();
+				if (MotorSla.fechaLimite(ticket).isAfter(ahora)) {
+					// Lo escaló otro proceso o cambió el plazo: se programa el vencimiento nuevo
+					MotorSla.programar(ticket);
+					return m.ok(null);
+				}
+
+				Ticket antes = new Ticket(ticket);
+				Tecnico nuevoTecnico = null;
+				String accion;
+				String prioridad = MotorSla.siguientePrioridad(ticket.getPrioridad());
+				if (prioridad != null) {
+					ticket.setPrioridad(prioridad);
+					accion = "prioridad " + antes.getPrioridad() + " -> " + prioridad;
+				} else if (ticket.isReasignadoPorSla()) {
+					accion = "prioridad ALTA, ya reasignado por SLA";
+				} else {
+					nuevoTecnico = elegirTecnicoParaReasignar(ticket).orElse(null);
+					if (nuevoTecnico == null) {
+						accion = "prioridad ALTA y ningún otro técnico al que reasignarlo";
+					} else {
+						ticket.setAsignadoA(nuevoTecnico.getId());
+						ticket.setEstado("ASIGNADO");
+						ticket.setReasignadoPorSla(true);
+						accion = "reasignado de " + (antes.asignado() ? antes.getAsignadoA() : "nadie") + " a "
+								+ nuevoTecnico.getId();
+					}
+				}
+				ticket.setFechaLimite(ahora.plus(MotorSla.plazo(ticket.getPrioridad(), ticket.getCategoria())));
+
+				try {
+					ticketDAO.actualizar(ticket);
+				} catch (ConflictoVersionException e) {
+					throw Reintentos.reintentar(new TicketException("No se pudo escalar el ticket: " + e.getMessage()));
+				} catch (IOException e) {
+					throw new TicketException("Error de persistencia al escalar el ticket: " + e.getMessage(), e);
+				}
+
+				if (nuevoTecnico != null) {
+					String anteriorId = antes.asignado() ? antes.getAsignadoA() : null;
+					String nuevoId = nuevoTecnico.getId();
+					EscritorUnico.trasGuardar(() -> {
+						if (anteriorId != null) {
+							CargaTecnicos.disminuir(anteriorId);
+						}
+						CargaTecnicos.incrementar(nuevoId);
+					});
+					actualizarContadores(() -> contadorDAO.registrarReasignacion(anteriorId, nuevoId));
+				}
+				actualizarResumen(ticket, null, nuevoTecnico != null ? nuevoTecnico.getNombre() : null);
+				notificar(antes, ticket);
+				return m.ok(new MotorSla.Aviso(ticketId, accion));
+			}
+		}
+	}
+
+	/**
+	 * Técnico al que pasar un ticket escalado: el menos cargado de los de su
+	 * especialidad o, si no hay, de todos (sin contar el que ya lo tiene).
+	 */
+	private Optional<Tecnico> elegirTecnicoParaReasignar(Ticket ticket) {
+		Comparator<Tecnico> orden = Comparator
+				.comparing((Tecnico t) -> t.getEspecialidad() == null
+						|| !t.getEspecialidad().equalsIgnoreCase(ticket.getCategoria()))
+				.thenComparingInt(t -> CargaTecnicos.carga(t.getId()));
+		return tecnicoDAO.findAll().stream().filter(t -> !t.getId().equals(ticket.getAsignadoA())).min(orden);
+	}
+
 	/**
 	 * Consulta todos los tickets asociados a un cliente específico.
 	 *
@@ -153,7 +509,9 @@ public class GestorTicket {
 	 * @return Una lista de tickets pertenecientes a ese cliente.
 	 */
 	public List<Ticket> consultarTicketsPorCliente(Usuario cliente) {
-		return ticketDAO.findByClienteId(cliente.getId());
+		try (Medicion m = Metricas.medirServicio("GestorTicket.consultarTicketsPorCliente", cliente != null ? cliente.getId() : null)) {
+			return m.ok(ticketDAO.findByClienteId(cliente.getId()));
+		}
 	}
 
 	/**
@@ -163,6 +521,189 @@ public class GestorTicket {
 	 * @return Una lista de tickets asignados a ese técnico.
 	 */
 	public List<Ticket> consultarTicketsPorTecnico(Usuario tecnico) {
-		return ticketDAO.findByTecnicoId(tecnico.getId());
+		try (Medicion m = Metricas.medirServicio("GestorTicket.consultarTicketsPorTecnico", tecnico != null ? tecnico.getId() : null)) {
+			return m.ok(ticketDAO.findByTecnicoId(tecnico.getId()));
+		}
+	}
+
+	/**
+	 * El ticket sin cerrar más urgente del técnico (ver ColasTrabajo).
+	 *
+	 * @param tecnico El usuario técnico.
+	 * @return El ticket, o vacío si no tiene ninguno pendiente.
+	 */
+	public Optional<Ticket> siguienteTicket(Usuario tecnico) {
+		try (Medicion m = Metricas.medirServicio("GestorTicket.siguienteTicket", tecnico != null ? tecnico.getId() : null)) {
+			return m.ok(ColasTrabajo.siguiente(tecnico.getId()));
+		}
+	}
+
+	/**
+	 * Consulta el listado completo de tickets ya cruzado con los nombres de
+	 * cliente y técnico (vista desnormalizada, una sola lectura).
+	 *
+	 * @return Una lista con una fila por ticket, de solo lectura: es la última
+	 *         versión guardada y no espera a las escrituras en curso.
+	 */
+	public List<TicketResumen> consultarResumenTickets() {
+		try (Medicion m = Metricas.medirServicio("GestorTicket.consultarResumenTickets")) {
+			return m.ok(resumenDAO.findAllSoloLectura());
+		}
+	}
+
+	/**
+	 * Consulta los contadores de tickets (creados/asignados, abiertos/totales) de
+	 * todas las personas que aparecen en algún ticket.
+	 *
+	 * @return Un Map id de persona -> contadores (de solo lectura).
+	 */
+	public Map<String, ContadorTickets> consultarContadoresPorPersona() {
+		try (Medicion m = Metricas.medirServicio("GestorTicket.consultarContadoresPorPersona")) {
+			Map<String, ContadorTickets> contadores = new HashMap<>();
+			contadorDAO.findAllSoloLectura().forEach(c -> contadores.put(c.getPersonaId(), c));
+			return m.ok(contadores);
+		}
+	}
+
+	/**
+	 * Ejecutor de los métodos *Async de consulta de este gestor (los que
+	 * modifican datos van siempre al hilo escritor). Con null se usa el de
+	 * EjecucionAsincrona (hilos virtuales por defecto).
+	 */
+	public void setEjecutor(Executor ejecutor) {
+		this.ejecutor = ejecutor;
+	}
+
+	// --- Variantes asíncronas: las consultas en el ejecutor del gestor, las modificaciones en EscritorUnico ---
+
+	/**
+	 * Versión asíncrona de crearTicket.
+	 */
+	public CompletableFuture<Ticket> crearTicketAsync(Usuario cliente, String categoria, String descripcion) {
+		return EscritorUnico.enviar(() -> aplicarCrearTicket(cliente, categoria, descripcion),
+				e -> new TicketException("Error de persistencia al crear el ticket: " + e.getMessage(), e));
+	}
+
+	/**
+	 * Versión asíncrona de asignarTicket.
+	 */
+	public CompletableFuture<Ticket> asignarTicketAsync(Usuario admin, String ticketId, String tecnicoId) {
+		return EscritorUnico.enviar(() -> aplicarAsignarTicket(admin, ticketId, tecnicoId),
+				e -> new TicketException("Error de persistencia al asignar el ticket: " + e.getMessage(), e));
+	}
+
+	/**
+	 * Versión asíncrona de resolverTicket.
+	 */
+	public CompletableFuture<Ticket> resolverTicketAsync(Usuario tecnico, String ticketId) {
+		return EscritorUnico.enviar(() -> aplicarResolverTicket(tecnico, ticketId),
+				e -> new TicketException("Error de persistencia al resolver el ticket: " + e.getMessage(), e));
+	}
+
+	/**
+	 * Versión asíncrona de resolverGrupo.
+	 */
+	public CompletableFuture<List<Ticket>> resolverGrupoAsync(Usuario admin, String grupo) {
+		List<String> miembros = DuplicadosTickets.miembros(grupo);
+		return EscritorUnico.enviar(() -> aplicarResolverGrupo(admin, grupo, miembros),
+				e -> new TicketException("Error de persistencia al resolver el grupo: " + e.getMessage(), e));
+	}
+
+	/**
+	 * Versión asíncrona de tomarTicket (los candidatos se sacan en el ejecutor del
+	 * gestor y la asignación va al hilo escritor).
+	 */
+	public CompletableFuture<Optional<Ticket>> tomarTicketAsync(Usuario tecnico) {
+		return EjecucionAsincrona.ejecutar(ejecutor, () -> tomarTicket(tecnico));
+	}
+
+	/**
+	 * Versión asíncrona de consultarTicketsPorCliente.
+	 */
+	public CompletableFuture<List<Ticket>> consultarTicketsPorClienteAsync(Usuario cliente) {
+		return EjecucionAsincrona.ejecutar(ejecutor, () -> consultarTicketsPorCliente(cliente));
+	}
+
+	/**
+	 * Versión asíncrona de consultarTicketsPorTecnico.
+	 */
+	public CompletableFuture<List<Ticket>> consultarTicketsPorTecnicoAsync(Usuario tecnico) {
+		return EjecucionAsincrona.ejecutar(ejecutor, () -> consultarTicketsPorTecnico(tecnico));
+	}
+
+	/**
+	 * Versión asíncrona de siguienteTicket.
+	 */
+	public CompletableFuture<Optional<Ticket>> siguienteTicketAsync(Usuario tecnico) {
+		return EjecucionAsincrona.ejecutar(ejecutor, () -> siguienteTicket(tecnico));
+	}
+
+	/**
+	 * Versión asíncrona de consultarResumenTickets.
+	 */
+	public CompletableFuture<List<TicketResumen>> consultarResumenTicketsAsync() {
+		return EjecucionAsincrona.ejecutar(ejecutor, this::consultarResumenTickets);
+	}
+
+	/**
+	 * Versión asíncrona de consultarContadoresPorPersona.
+	 */
+	public CompletableFuture<Map<String, ContadorTickets>> consultarContadoresPorPersonaAsync() {
+		return EjecucionAsincrona.ejecutar(ejecutor, this::consultarContadoresPorPersona);
+	}
+
+	/**
+	 * Pasa el ticket guardado a los oyentes cuando el lote quede escrito.
+	 */
+	private static void notificar(Ticket antes, Ticket despues) {
+		if (OYENTES.isEmpty()) {
+			return;
+		}
+		Ticket guardado = new Ticket(despues);
+		EscritorUnico.trasGuardar(() -> {
+			for (OyenteTickets oyente : OYENTES) {
+				try {
+					oyente.ticketGuardado(antes, guardado);
+				} catch (RuntimeException e) {
+					System.err.println("Error en un oyente de tickets. Causa: " + e.getMessage());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Aplica un cambio a los contadores tras una escritura de tickets ya
+	 * persistida. Si no se puede guardar, los contadores se invalidan y se
+	 * recalculan desde los tickets en la siguiente lectura.
+	 */
+	private void actualizarContadores(EscrituraContadores cambio) {
+		try {
+			cambio.aplicar();
+		} catch (IOException e) {
+			System.err.println("No se pudieron actualizar los contadores, se reconstruirán. Causa: " + e.getMessage());
+			contadorDAO.invalidar();
+		}
+	}
+
+	/**
+	 * Escritura sobre los contadores que puede fallar por I/O.
+	 */
+	@FunctionalInterface
+	private interface EscrituraContadores {
+		void aplicar() throws IOException;
+	}
+
+	/**
+	 * Refleja en la vista desnormalizada un ticket que ya se ha guardado. Si la
+	 * vista no se puede escribir se invalida (se reconstruirá en la siguiente
+	 * lectura) en lugar de fallar la operación, que ya está persistida.
+	 */
+	private void actualizarResumen(Ticket ticket, String nombreCliente, String nombreTecnico) {
+		try {
+			resumenDAO.registrar(ticket, nombreCliente, nombreTecnico);
+		} catch (IOException e) {
+			System.err.println("No se pudo actualizar la vista de tickets, se reconstruirá. Causa: " + e.getMessage());
+			resumenDAO.invalidar();
+		}
 	}
 }
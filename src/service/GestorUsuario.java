@@ -1,13 +1,26 @@
 package service;
 
 import service.exceptions.UserException;
+import controller.ContadorTicketsDAO;
 import controller.TecnicoDAO;
+import controller.TicketResumenDAO;
 import controller.UsuarioDAO;
 import model.Tecnico;
 import model.Usuario;
+import util.CerrojosSegmentados;
+import util.ConflictoVersionException;
+import util.metricas.Medicion;
+import util.metricas.Metricas;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 
 /**
@@ -15,10 +28,15 @@ import java.util.regex.Pattern;
  * relacionada con usuarios, como el registro, la autenticación y la gestión de
  * roles. Orquesta las operaciones utilizando los DAOs correspondientes.
  */
+@SuppressWarnings("try")
 public class GestorUsuario {
 
 	private final UsuarioDAO usuarioDAO;
 	private final TecnicoDAO tecnicoDAO;
+	private final TicketResumenDAO resumenDAO;
+	private final ContadorTicketsDAO contadorDAO;
+
+	private volatile Executor ejecutor;
 
 	/**
 	 * Constructor que inicializa los DAOs necesarios.
@@ -26,6 +44,8 @@ public class GestorUsuario {
 	public GestorUsuario() {
 		this.usuarioDAO = new UsuarioDAO();
 		this.tecnicoDAO = new TecnicoDAO();
+		this.resumenDAO = new TicketResumenDAO();
+		this.contadorDAO = new ContadorTicketsDAO();
 	}
 
 	private static final Pattern EMAIL_PATTERN = Pattern.compile("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,6}$");
@@ -39,23 +59,54 @@ public class GestorUsuario {
 	 *         de lo contrario, un Optional vacío.
 	 */
 	public Optional<? extends Usuario> autenticarUsuario(String correo, String contrasena) {
-		if (correo == null || contrasena == null || correo.isBlank() || contrasena.isBlank()) {
-			return Optional.empty();
-		}
+		try (Medicion m = Metricas.medirServicio("GestorUsuario.autenticarUsuario", correo)) {
+			if (correo == null || contrasena == null || correo.isBlank() || contrasena.isBlank()) {
+				return m.ok(Optional.empty());
+			}
+
+			if (!EMAIL_PATTERN.matcher(correo).matches()) {
+				return m.ok(Optional.empty());
+			}
 
-		if (!EMAIL_PATTERN.matcher(correo).matches()) {
-			return Optional.empty();
+			Optional<? extends Usuario> usuarioOpt = usuarioDAO.findAll().stream()
+					.filter(u -> correo.equalsIgnoreCase(u.getCorreo())).findFirst();
+
+			if (usuarioOpt.isEmpty()) {
+				usuarioOpt = tecnicoDAO.findAll().stream().filter(t -> correo.equalsIgnoreCase(t.getCorreo())).findFirst();
+			}
+			return m.ok(usuarioOpt.filter(usuario -> contrasena.equals(usuario.getContrasena()))
+					// Hacemos un cast para que el tipo de retorno sea Optional<Usuario>
+					.map(usuario -> (Usuario) usuario));
 		}
+	}
+
+	/**
+	 * Resuelve de una vez un conjunto de ids de usuario (clientes, admins o
+	 * técnicos). Se hace una sola lectura del fichero de usuarios y, solo si
+	 * quedan ids sin resolver, una sola lectura del de técnicos. Pensado para
+	 * pintar listados (p. ej. los autores de las respuestas de un ticket) sin
+	 * hacer una búsqueda por fila.
+	 *
+	 * @param ids Los ids a resolver (se ignoran nulos y repetidos).
+	 * @return Un Map id -> Usuario con los que se encontraron (nunca null).
+	 */
+	public Map<String, Usuario> buscarUsuariosPorIds(Collection<String> ids) {
+		try (Medicion m = Metricas.medirServicio("GestorUsuario.buscarUsuariosPorIds")) {
+			Map<String, Usuario> resultado = new HashMap<>();
+			if (ids == null || ids.isEmpty()) {
+				return m.ok(resultado);
+			}
 
-		Optional<? extends Usuario> usuarioOpt = usuarioDAO.findAll().stream()
-				.filter(u -> correo.equalsIgnoreCase(u.getCorreo())).findFirst();
+			Set<String> pendientes = new HashSet<>(ids);
+			pendientes.remove(null);
+			resultado.putAll(usuarioDAO.findAllByIds(pendientes));
+			pendientes.removeAll(resultado.keySet());
 
-		if (usuarioOpt.isEmpty()) {
-			usuarioOpt = tecnicoDAO.findAll().stream().filter(t -> correo.equalsIgnoreCase(t.getCorreo())).findFirst();
+			if (!pendientes.isEmpty()) {
+				resultado.putAll(tecnicoDAO.findAllByIds(pendientes));
+			}
+			return m.ok(resultado);
 		}
-		return usuarioOpt.filter(usuario -> contrasena.equals(usuario.getContrasena()))
-				// Hacemos un cast para que el tipo de retorno sea Optional<Usuario>
-				.map(usuario -> (Usuario) usuario);
 	}
 
 	/**
@@ -70,22 +121,32 @@ public class GestorUsuario {
 	 */
 	public Optional<Usuario> registrarNuevoCliente(String nombre, String correo, String contrasena)
 			throws UserException {
-		validarCorreoNoExistente(correo);
+		return EscritorUnico.esperar(registrarNuevoClienteAsync(nombre, correo, contrasena), UserException.class);
+	}
 
-		if (!EMAIL_PATTERN.matcher(correo).matches()) {
-			throw new UserException("El formato del correo electrónico no es válido.");
-		}
+	/**
+	 * Cuerpo de registrarNuevoCliente; se ejecuta en el hilo escritor.
+	 */
+	private Optional<Usuario> aplicarRegistrarNuevoCliente(String nombre, String correo, String contrasena)
+			throws UserException {
+		try (Medicion m = Metricas.medirServicio("GestorUsuario.registrarNuevoCliente", correo)) {
+			validarCorreoNoExistente(correo);
 
-		Usuario nuevoUsuario = new Usuario();
-		nuevoUsuario.setNombre(nombre);
-		nuevoUsuario.setCorreo(correo);
-		nuevoUsuario.setContrasena(contrasena);
-		nuevoUsuario.setRol("CLIENTE");
+			if (!EMAIL_PATTERN.matcher(correo).matches()) {
+				throw new UserException("El formato del correo electrónico no es válido.");
+			}
 
-		try {
-			return usuarioDAO.crear(nuevoUsuario);
-		} catch (IOException e) {
-			throw new UserException("Error de persistencia al registrar el cliente: " + e.getMessage());
+			Usuario nuevoUsuario = new Usuario();
+			nuevoUsuario.setNombre(nombre);
+			nuevoUsuario.setCorreo(correo);
+			nuevoUsuario.setContrasena(contrasena);
+			nuevoUsuario.setRol("CLIENTE");
+
+			try {
+				return m.ok(usuarioDAO.crear(nuevoUsuario));
+			} catch (IOException e) {
+				throw new UserException("Error de persistencia al registrar el cliente: " + e.getMessage(), e);
+			}
 		}
 	}
 
@@ -101,23 +162,34 @@ public class GestorUsuario {
 	 */
 	public Optional<Tecnico> registrarNuevoTecnico(String nombre, String correo, String contrasena, String especialidad)
 			throws UserException {
-		validarCorreoNoExistente(correo);
+		return EscritorUnico.esperar(registrarNuevoTecnicoAsync(nombre, correo, contrasena, especialidad),
+				UserException.class);
+	}
 
-		if (!EMAIL_PATTERN.matcher(correo).matches()) {
-			throw new UserException("El formato del correo electrónico no es válido.");
-		}
+	/**
+	 * Cuerpo de registrarNuevoTecnico; se ejecuta en el hilo escritor.
+	 */
+	private Optional<Tecnico> aplicarRegistrarNuevoTecnico(String nombre, String correo, String contrasena,
+			String especialidad) throws UserException {
+		try (Medicion m = Metricas.medirServicio("GestorUsuario.registrarNuevoTecnico", correo)) {
+			validarCorreoNoExistente(correo);
 
-		Tecnico nuevoTecnico = new Tecnico();
-		nuevoTecnico.setNombre(nombre);
-		nuevoTecnico.setCorreo(correo);
-		nuevoTecnico.setContrasena(contrasena);
-		nuevoTecnico.setEspecialidad(especialidad);
-		// El rol y la carga de trabajo se establecen en el constructor de Tecnico.
+			if (!EMAIL_PATTERN.matcher(correo).matches()) {
+				throw new UserException("El formato del correo electrónico no es válido.");
+			}
 
-		try {
-			return tecnicoDAO.crear(nuevoTecnico);
-		} catch (IOException e) {
-			throw new UserException("Error de persistencia al registrar el técnico: " + e.getMessage());
+			Tecnico nuevoTecnico = new Tecnico();
+			nuevoTecnico.setNombre(nombre);
+			nuevoTecnico.setCorreo(correo);
+			nuevoTecnico.setContrasena(contrasena);
+			nuevoTecnico.setEspecialidad(especialidad);
+			// El rol y la carga de trabajo se establecen en el constructor de Tecnico.
+
+			try {
+				return m.ok(tecnicoDAO.crear(nuevoTecnico));
+			} catch (IOException e) {
+				throw new UserException("Error de persistencia al registrar el técnico: " + e.getMessage(), e);
+			}
 		}
 	}
 
@@ -132,22 +204,32 @@ public class GestorUsuario {
 	 * @throws UsuarioException si el correo ya está registrado.
 	 */
 	public Optional<Usuario> registrarNuevoAdmin(String nombre, String correo, String contrasena) throws UserException {
-		validarCorreoNoExistente(correo);
+		return EscritorUnico.esperar(registrarNuevoAdminAsync(nombre, correo, contrasena), UserException.class);
+	}
 
-		if (!EMAIL_PATTERN.matcher(correo).matches()) {
-			throw new UserException("El formato del correo electrónico no es válido.");
-		}
+	/**
+	 * Cuerpo de registrarNuevoAdmin; se ejecuta en el hilo escritor.
+	 */
+	private Optional<Usuario> aplicarRegistrarNuevoAdmin(String nombre, String correo, String contrasena)
+			throws UserException {
+		try (Medicion m = Metricas.medirServicio("GestorUsuario.registrarNuevoAdmin", correo)) {
+			validarCorreoNoExistente(correo);
 
-		Usuario nuevoAdmin = new Usuario();
-		nuevoAdmin.setNombre(nombre);
-		nuevoAdmin.setCorreo(correo);
-		nuevoAdmin.setContrasena(contrasena);
-		nuevoAdmin.setRol("ADMIN");
+			if (!EMAIL_PATTERN.matcher(correo).matches()) {
+				throw new UserException("El formato del correo electrónico no es válido.");
+			}
 
-		try {
-			return usuarioDAO.crear(nuevoAdmin);
-		} catch (IOException e) {
-			throw new UserException("Error de persistencia al registrar el administrador: " + e.getMessage());
+			Usuario nuevoAdmin = new Usuario();
+			nuevoAdmin.setNombre(nombre);
+			nuevoAdmin.setCorreo(correo);
+			nuevoAdmin.setContrasena(contrasena);
+			nuevoAdmin.setRol("ADMIN");
+
+			try {
+				return m.ok(usuarioDAO.crear(nuevoAdmin));
+			} catch (IOException e) {
+				throw new UserException("Error de persistencia al registrar el administrador: " + e.getMessage(), e);
+			}
 		}
 	}
 
@@ -168,53 +250,314 @@ public class GestorUsuario {
 	 */
 	public Optional<Usuario> actualizarDatosUsuario(Usuario admin, String idUsuarioAActualizar, String nuevoNombre,
 			String nuevoCorreo, String nuevoRol) throws UserException {
-		// 1. Validación de permisos
-		if (admin == null || !"ADMIN".equals(admin.getRol())) {
-			throw new UserException("Error de autorización: Solo los administradores pueden actualizar usuarios.");
-		}
+		return EscritorUnico.esperar(
+				actualizarDatosUsuarioAsync(admin, idUsuarioAActualizar, nuevoNombre, nuevoCorreo, nuevoRol),
+				UserException.class);
+	}
 
-		// 2. Encontrar el usuario a modificar
-		Optional<Usuario> usuarioOpt = usuarioDAO.findById(idUsuarioAActualizar);
-		if (usuarioOpt.isEmpty()) {
-			return Optional.empty();
+	/**
+	 * Cuerpo de actualizarDatosUsuario; se ejecuta en el hilo escritor.
+	 */
+	private Optional<Usuario> aplicarActualizarDatosUsuario(Usuario admin, String idUsuarioAActualizar,
+			String nuevoNombre, String nuevoCorreo, String nuevoRol) throws UserException {
+		try (Medicion m = Metricas.medirServicio("GestorUsuario.actualizarDatosUsuario", admin != null ? admin.getId() : null, idUsuarioAActualizar)) {
+			// 1. Validación de permisos
+			if (admin == null || !"ADMIN".equals(admin.getRol())) {
+				throw new UserException("Error de autorización: Solo los administradores pueden actualizar usuarios.");
+			}
+
+			// Si otro guarda el usuario entre la lectura y la escritura (versión distinta)
+			// el comando se repite entero: se vuelve a leer y a validar (ver Reintentos)
+			// 2. Encontrar el usuario a modificar
+			Optional<Usuario> usuarioOpt = usuarioDAO.findById(idUsuarioAActualizar);
+			if (usuarioOpt.isEmpty()) {
+				return m.ok(Optional.empty());
+			}
+			Usuario usuarioAActualizar = usuarioOpt.get();
+
+			// 3. Validar si el nuevo correo ya está en uso por OTRO usuario
+			if (nuevoCorreo != null && !nuevoCorreo.equalsIgnoreCase(usuarioAActualizar.getCorreo())) {
+				if (!EMAIL_PATTERN.matcher(nuevoCorreo).matches()) {
+					throw new UserException("El formato del nuevo correo electrónico no es válido.");
+				}
+				validarCorreoNoExistente(nuevoCorreo);
+			}
+
+			// Validar que el nuevo rol sea uno de los permitidos
+			if (nuevoRol != null && !nuevoRol.trim().toUpperCase().matches("^(CLIENTE|TECH|ADMIN)$")) {
+				throw new UserException("El rol '" + nuevoRol + "' no es válido. Roles permitidos: CLIENTE, TECH, ADMIN.");
+			}
+
+			// 4. Lógica de negocio: Manejar cambio de rol a Técnico
+			// Si el rol cambia a "TECH" y antes no lo era, debemos crear un Técnico.
+			try {
+				if ("TECH".equalsIgnoreCase(nuevoRol) && !(usuarioAActualizar instanceof Tecnico)) {
+					tecnicoDAO.borrar(idUsuarioAActualizar); // Borramos la instancia de Tecnico (si existiera por error)
+					usuarioDAO.borrar(idUsuarioAActualizar); // Borramos la instancia de Usuario
+
+					Tecnico tecnico = new Tecnico(idUsuarioAActualizar, nuevoNombre, nuevoCorreo,
+							usuarioAActualizar.getContrasena(), "Indefinida");
+					tecnico.setRol(nuevoRol); // El setter ya se encarga de estandarizar
+					Optional<Usuario> creado = tecnicoDAO.crear(tecnico).map(t -> t); // Convertimos Optional<Tecnico> a Optional<Usuario>
+					creado.ifPresent(t -> propagarNombre(t.getId(), t.getNombre()));
+					return m.ok(creado);
+				}
+
+				// 5. Actualizar los datos del usuario existente
+				usuarioAActualizar.setNombre(nuevoNombre);
+				usuarioAActualizar.setCorreo(nuevoCorreo);
+				usuarioAActualizar.setRol(nuevoRol);
+
+				// 6. Persistir los cambios usando el DAO correspondiente
+				Optional<Usuario> actualizado = usuarioDAO.actualizar(usuarioAActualizar);
+				actualizado.ifPresent(u -> propagarNombre(u.getId(), u.getNombre()));
+				return m.ok(actualizado);
+			} catch (ConflictoVersionException e) {
+				throw Reintentos.reintentar(new UserException("No se pudo actualizar el usuario: " + e.getMessage()));
+			} catch (IOException e) {
+				throw new UserException("Error de persistencia al actualizar el usuario: " + e.getMessage(), e);
+			}
 		}
-		Usuario usuarioAActualizar = usuarioOpt.get();
+	}
+
+	/**
+	 * Actualiza los datos de un técnico existente. Esta operación solo puede ser
+	 * realizada por un administrador.
+	 *
+	 * @param admin             El usuario que realiza la operación (debe tener rol
+	 *                          "ADMIN").
+	 * @param idTecnico         El ID del técnico a modificar.
+	 * @param nuevoNombre       El nuevo nombre.
+	 * @param nuevoCorreo       El nuevo correo.
+	 * @param nuevaEspecialidad La nueva especialidad.
+	 * @return Un Optional con el técnico actualizado, o vacío si no existe.
+	 * @throws UserException si no es un administrador o el correo no es válido.
+	 */
+	public Optional<Tecnico> actualizarDatosTecnico(Usuario admin, String idTecnico, String nuevoNombre,
+			String nuevoCorreo, String nuevaEspecialidad) throws UserException {
+		return EscritorUnico.esperar(
+				actualizarDatosTecnicoAsync(admin, idTecnico, nuevoNombre, nuevoCorreo, nuevaEspecialidad),
+				UserException.class);
+	}
+
+	/**
+	 * Cuerpo de actualizarDatosTecnico; se ejecuta en el hilo escritor.
+	 */
+	private Optional<Tecnico> aplicarActualizarDatosTecnico(Usuario admin, String idTecnico, String nuevoNombre,
+			String nuevoCorreo, String nuevaEspecialidad) throws UserException {
+		try (Medicion m = Metricas.medirServicio("GestorUsuario.actualizarDatosTecnico", admin != null ? admin.getId() : null, idTecnico)) {
+			if (admin == null || !"ADMIN".equals(admin.getRol())) {
+				throw new UserException("Error de autorización: Solo los administradores pueden actualizar técnicos.");
+			}
+
+			// Bloqueado por técnico; la carga que se guarda es la viva de CargaTecnicos,
+			// no la copia (quizá atrasada) del fichero
+			try (CerrojosSegmentados.Bloqueo bloqueoTecnico = Cerrojos.TECNICOS.bloquear(idTecnico)) {
+				Optional<Tecnico> tecnicoOpt = tecnicoDAO.findById(idTecnico);
+				if (tecnicoOpt.isEmpty()) {
+					return m.ok(Optional.empty());
+				}
+				Tecnico tecnico = tecnicoOpt.get();
 
-		// 3. Validar si el nuevo correo ya está en uso por OTRO usuario
-		if (nuevoCorreo != null && !nuevoCorreo.equalsIgnoreCase(usuarioAActualizar.getCorreo())) {
-			if (!EMAIL_PATTERN.matcher(nuevoCorreo).matches()) {
-				throw new UserException("El formato del nuevo correo electrónico no es válido.");
+				if (nuevoCorreo != null && !nuevoCorreo.equalsIgnoreCase(tecnico.getCorreo())
+						&& !EMAIL_PATTERN.matcher(nuevoCorreo).matches()) {
+					throw new UserException("El formato del nuevo correo electrónico no es válido.");
+				}
+
+				tecnico.setNombre(nuevoNombre);
+				tecnico.setCorreo(nuevoCorreo);
+				tecnico.setEspecialidad(nuevaEspecialidad);
+
+				CargaTecnicos.aplicar(tecnico);
+
+				try {
+					Optional<Tecnico> actualizado = tecnicoDAO.actualizar(tecnico);
+					actualizado.ifPresent(t -> propagarNombre(t.getId(), t.getNombre()));
+					return m.ok(actualizado);
+				} catch (ConflictoVersionException e) {
+					throw Reintentos.reintentar(new UserException("No se pudo actualizar el técnico: " + e.getMessage()));
+				} catch (IOException e) {
+					throw new UserException("Error de persistencia al actualizar el técnico: " + e.getMessage(), e);
+				}
 			}
-			validarCorreoNoExistente(nuevoCorreo);
 		}
+	}
+
+	/**
+	 * Elimina un usuario (cliente o administrador). No se permite si tiene tickets
+	 * abiertos, ni que un administrador se elimine a sí mismo.
+	 *
+	 * @param admin     El usuario que realiza la operación (debe tener rol
+	 *                  "ADMIN").
+	 * @param idUsuario El ID del usuario a eliminar.
+	 * @return true si se eliminó, false si no existía.
+	 * @throws UserException si no está permitido eliminarlo.
+	 */
+	public boolean eliminarUsuario(Usuario admin, String idUsuario) throws UserException {
+		return EscritorUnico.esperar(eliminarUsuarioAsync(admin, idUsuario), UserException.class);
+	}
 
-		// Validar que el nuevo rol sea uno de los permitidos
-		if (nuevoRol != null && !nuevoRol.trim().toUpperCase().matches("^(CLIENTE|TECH|ADMIN)$")) {
-			throw new UserException("El rol '" + nuevoRol + "' no es válido. Roles permitidos: CLIENTE, TECH, ADMIN.");
+	/**
+	 * Cuerpo de eliminarUsuario; se ejecuta en el hilo escritor.
+	 */
+	private boolean aplicarEliminarUsuario(Usuario admin, String idUsuario) throws UserException {
+		try (Medicion m = Metricas.medirServicio("GestorUsuario.eliminarUsuario", admin != null ? admin.getId() : null, idUsuario)) {
+			if (admin == null || !"ADMIN".equals(admin.getRol())) {
+				throw new UserException("Error de autorización: Solo los administradores pueden eliminar usuarios.");
+			}
+			if (admin.getId().equals(idUsuario)) {
+				throw new UserException("No puede eliminar su propia cuenta de administrador.");
+			}
+			if (contadorDAO.findByPersonaId(idUsuario).tieneTicketsAbiertos()) {
+				throw new UserException("No se puede eliminar al usuario porque tiene tickets abiertos.");
+			}
+
+			try {
+				return m.ok(usuarioDAO.borrar(idUsuario));
+			} catch (IOException e) {
+				throw new UserException("Error de persistencia al eliminar el usuario: " + e.getMessage(), e);
+			}
 		}
+	}
 
-		// 4. Lógica de negocio: Manejar cambio de rol a Técnico
-		// Si el rol cambia a "TECH" y antes no lo era, debemos crear un Técnico.
-		try {
-			if ("TECH".equalsIgnoreCase(nuevoRol) && !(usuarioAActualizar instanceof Tecnico)) {
-				tecnicoDAO.borrar(idUsuarioAActualizar); // Borramos la instancia de Tecnico (si existiera por error)
-				usuarioDAO.borrar(idUsuarioAActualizar); // Borramos la instancia de Usuario
+	/**
+	 * Elimina un técnico. No se permite si tiene tickets activos asignados.
+	 *
+	 * @param admin     El usuario que realiza la operación (debe tener rol
+	 *                  "ADMIN").
+	 * @param idTecnico El ID del técnico a eliminar.
+	 * @return true si se eliminó, false si no existía.
+	 * @throws UserException si no está permitido eliminarlo.
+	 */
+	public boolean eliminarTecnico(Usuario admin, String idTecnico) throws UserException {
+		return EscritorUnico.esperar(eliminarTecnicoAsync(admin, idTecnico), UserException.class);
+	}
 
-				Tecnico tecnico = new Tecnico(idUsuarioAActualizar, nuevoNombre, nuevoCorreo,
-						usuarioAActualizar.getContrasena(), "Indefinida");
-				tecnico.setRol(nuevoRol); // El setter ya se encarga de estandarizar
-				return tecnicoDAO.crear(tecnico).map(t -> t); // Convertimos Optional<Tecnico> a Optional<Usuario>
+	/**
+	 * Cuerpo de eliminarTecnico; se ejecuta en el hilo escritor.
+	 */
+	private boolean aplicarEliminarTecnico(Usuario admin, String idTecnico) throws UserException {
+		try (Medicion m = Metricas.medirServicio("GestorUsuario.eliminarTecnico", admin != null ? admin.getId() : null, idTecnico)) {
+			if (admin == null || !"ADMIN".equals(admin.getRol())) {
+				throw new UserException("Error de autorización: Solo los administradores pueden eliminar técnicos.");
+			}
+			try (CerrojosSegmentados.Bloqueo bloqueoTecnico = Cerrojos.TECNICOS.bloquear(idTecnico)) {
+				if (contadorDAO.findByPersonaId(idTecnico).tieneTicketsAbiertos()) {
+					throw new UserException(
+							"No se puede eliminar al técnico porque tiene tickets activos asignados. Reasígnelos primero.");
+				}
+
+				try {
+					boolean borrado = tecnicoDAO.borrar(idTecnico);
+					if (borrado) {
+						EscritorUnico.trasGuardar(() -> CargaTecnicos.olvidar(idTecnico));
+					}
+					return m.ok(borrado);
+				} catch (IOException e) {
+					throw new UserException("Error de persistencia al eliminar el técnico: " + e.getMessage(), e);
+				}
 			}
+		}
+	}
+
+	/**
+	 * Ejecutor de los métodos *Async de consulta de este gestor (los que
+	 * modifican datos van siempre al hilo escritor). Con null se usa el de
+	 * EjecucionAsincrona (hilos virtuales por defecto).
+	 */
+	public void setEjecutor(Executor ejecutor) {
+		this.ejecutor = ejecutor;
+	}
 
-			// 5. Actualizar los datos del usuario existente
-			usuarioAActualizar.setNombre(nuevoNombre);
-			usuarioAActualizar.setCorreo(nuevoCorreo);
-			usuarioAActualizar.setRol(nuevoRol);
+	// --- Variantes asíncronas: las consultas en el ejecutor del gestor, las modificaciones en EscritorUnico ---
+
+	/**
+	 * Versión asíncrona de autenticarUsuario.
+	 */
+	public CompletableFuture<Optional<? extends Usuario>> autenticarUsuarioAsync(String correo, String contrasena) {
+		return EjecucionAsincrona.ejecutar(ejecutor, () -> autenticarUsuario(correo, contrasena));
+	}
 
-			// 6. Persistir los cambios usando el DAO correspondiente
-			return usuarioDAO.actualizar(usuarioAActualizar);
+	/**
+	 * Versión asíncrona de buscarUsuariosPorIds.
+	 */
+	public CompletableFuture<Map<String, Usuario>> buscarUsuariosPorIdsAsync(Collection<String> ids) {
+		return EjecucionAsincrona.ejecutar(ejecutor, () -> buscarUsuariosPorIds(ids));
+	}
+
+	/**
+	 * Versión asíncrona de registrarNuevoCliente.
+	 */
+	public CompletableFuture<Optional<Usuario>> registrarNuevoClienteAsync(String nombre, String correo,
+			String contrasena) {
+		return EscritorUnico.enviar(() -> aplicarRegistrarNuevoCliente(nombre, correo, contrasena),
+				e -> new UserException("Error de persistencia al registrar el cliente: " + e.getMessage(), e));
+	}
+
+	/**
+	 * Versión asíncrona de registrarNuevoTecnico.
+	 */
+	public CompletableFuture<Optional<Tecnico>> registrarNuevoTecnicoAsync(String nombre, String correo,
+			String contrasena, String especialidad) {
+		return EscritorUnico.enviar(() -> aplicarRegistrarNuevoTecnico(nombre, correo, contrasena, especialidad),
+				e -> new UserException("Error de persistencia al registrar el técnico: " + e.getMessage(), e));
+	}
+
+	/**
+	 * Versión asíncrona de registrarNuevoAdmin.
+	 */
+	public CompletableFuture<Optional<Usuario>> registrarNuevoAdminAsync(String nombre, String correo,
+			String contrasena) {
+		return EscritorUnico.enviar(() -> aplicarRegistrarNuevoAdmin(nombre, correo, contrasena),
+				e -> new UserException("Error de persistencia al registrar el administrador: " + e.getMessage(), e));
+	}
+
+	/**
+	 * Versión asíncrona de actualizarDatosUsuario.
+	 */
+	public CompletableFuture<Optional<Usuario>> actualizarDatosUsuarioAsync(Usuario admin,
+			String idUsuarioAActualizar, String nuevoNombre, String nuevoCorreo, String nuevoRol) {
+		return EscritorUnico.enviar(
+				() -> aplicarActualizarDatosUsuario(admin, idUsuarioAActualizar, nuevoNombre, nuevoCorreo, nuevoRol),
+				e -> new UserException("Error de persistencia al actualizar el usuario: " + e.getMessage(), e));
+	}
+
+	/**
+	 * Versión asíncrona de actualizarDatosTecnico.
+	 */
+	public CompletableFuture<Optional<Tecnico>> actualizarDatosTecnicoAsync(Usuario admin, String idTecnico,
+			String nuevoNombre, String nuevoCorreo, String nuevaEspecialidad) {
+		return EscritorUnico.enviar(
+				() -> aplicarActualizarDatosTecnico(admin, idTecnico, nuevoNombre, nuevoCorreo, nuevaEspecialidad),
+				e -> new UserException("Error de persistencia al actualizar el técnico: " + e.getMessage(), e));
+	}
+
+	/**
+	 * Versión asíncrona de eliminarUsuario.
+	 */
+	public CompletableFuture<Boolean> eliminarUsuarioAsync(Usuario admin, String idUsuario) {
+		return EscritorUnico.enviar(() -> aplicarEliminarUsuario(admin, idUsuario),
+				e -> new UserException("Error de persistencia al eliminar el usuario: " + e.getMessage(), e));
+	}
+
+	/**
+	 * Versión asíncrona de eliminarTecnico.
+	 */
+	public CompletableFuture<Boolean> eliminarTecnicoAsync(Usuario admin, String idTecnico) {
+		return EscritorUnico.enviar(() -> aplicarEliminarTecnico(admin, idTecnico),
+				e -> new UserException("Error de persistencia al eliminar el técnico: " + e.getMessage(), e));
+	}
+
+	/**
+	 * Lleva un cambio de nombre a la vista desnormalizada de tickets. Si falla, la
+	 * vista se invalida para que se reconstruya en la siguiente lectura.
+	 */
+	private void propagarNombre(String personaId, String nombre) {
+		try {
+			resumenDAO.renombrar(personaId, nombre);
 		} catch (IOException e) {
-			throw new UserException("Error de persistencia al actualizar el usuario: " + e.getMessage());
+			System.err.println("No se pudo actualizar la vista de tickets, se reconstruirá. Causa: " + e.getMessage());
+			resumenDAO.invalidar();
 		}
 	}
 
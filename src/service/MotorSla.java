@@ -0,0 +1,245 @@
+package service;
+
+import controller.TicketDAO;
+import model.Ticket;
+import util.RuedaTemporizadores;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Motor de SLA: cada ticket abierto tiene una fecha límite que depende de su
+ * prioridad y su categoría (plazo()). Si llega sin cerrarse se escala:
+ *
+ * - Si la prioridad no es ALTA, sube un nivel.
+ * - Si ya es ALTA, se reasigna al técnico menos cargado (primero los de la
+ * especialidad del ticket). Solo la primera vez (Ticket.isReasignadoPorSla()):
+ * después solo se avisa, para no pasarlo de técnico en técnico.
+ *
+ * En ambos casos se fija una fecha límite nueva desde ese momento y se avisa al
+ * administrador (avisosRecientes() y alEscalar()).
+ *
+ * Los vencimientos pendientes se guardan en una RuedaTemporizadores (programar
+ * y avanzar son O(1) aunque haya cientos de miles). Se rellena al iniciar desde
+ * los tickets abiertos y después la mantienen los cambios que guarda
+ * GestorTicket. La fecha límite se persiste en el ticket y el escalado la
+ * vuelve a comprobar con el ticket bloqueado, así que si otro proceso (modo
+ * cliente/servidor) ya lo escaló no se repite; por lo mismo, cada
+ * PERIODO_RECONSTRUCCION_MIN se reconstruye la rueda para recoger los tickets
+ * creados por otros procesos.
+ */
+public final class MotorSla {
+
+	private static final long MS_POR_TICK = 1000;
+	/** Con ticks de 1 s, 64^4 s (unos 194 días) sin recolocaciones. */
+	private static final int NIVELES = 4;
+	/** Escalados que se lanzan como mucho por tick; el resto pasa al siguiente. */
+	private static final int MAX_ESCALADOS_POR_TICK = 64;
+	private static final long REINTENTO_MS = 60_000;
+	private static final long PERIODO_RECONSTRUCCION_MIN = 10;
+	private static final int MAX_AVISOS = 200;
+
+	private static final Map<String, Duration> PLAZOS = Map.of("ALTA", Duration.ofHours(4), "MEDIA",
+			Duration.ofHours(24), "BAJA", Duration.ofHours(72));
+	/** Porcentaje del plazo para categorías que bloquean a mucha gente (el resto, 100). */
+	private static final Map<String, Integer> PORCENTAJE_CATEGORIA = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+	static {
+		PORCENTAJE_CATEGORIA.put("Redes", 50);
+		PORCENTAJE_CATEGORIA.put("Correo", 50);
+		PORCENTAJE_CATEGORIA.put("Cuentas", 75);
+	}
+
+	private static final RuedaTemporizadores<String> RUEDA = new RuedaTemporizadores<>(MS_POR_TICK, NIVELES,
+			System.currentTimeMillis());
+	private static final Deque<Aviso> AVISOS = new ConcurrentLinkedDeque<>();
+	private static final List<Consumer<Aviso>> OYENTES_AVISOS = new CopyOnWriteArrayList<>();
+	private static final GestorTicket GESTOR = new GestorTicket();
+
+	private static boolean iniciado;
+
+	/**
+	 * Escalado aplicado a un ticket.
+	 */
+	public static final class Aviso {
+
+		private final LocalDateTime fecha = LocalDateTime.now();
+		private final String ticketId;
+		private final String accion;
+
+		Aviso(String ticketId, String accion) {
+			this.ticketId = ticketId;
+			this.accion = accion;
+		}
+
+		public LocalDateTime getFecha() {
+			return fecha;
+		}
+
+		public String getTicketId() {
+			return ticketId;
+		}
+
+		public String getAccion() {
+			return accion;
+		}
+
+		@Override
+		public String toString() {
+			return "SLA vencido en " + ticketId + ": " + accion;
+		}
+	}
+
+	private MotorSla() {
+	}
+
+	/**
+	 * Empieza a vigilar los plazos: carga los tickets abiertos y arranca el hilo
+	 * que hace avanzar la rueda. Llamadas posteriores no hacen nada.
+	 */
+	public static synchronized void iniciar() {
+		if (iniciado) {
+			return;
+		}
+		iniciado = true;
+		// Antes de reconstruir, para no perder cambios guardados mientras tanto
+		GestorTicket.registrarOyente((antes, despues) -> programar(despues));
+		reconstruir();
+		ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(
+				r -> Thread.ofPlatform().daemon(true).name("motor-sla").unstarted(r));
+		planificador.scheduleAtFixedRate(MotorSla::tic, MS_POR_TICK, MS_POR_TICK, TimeUnit.MILLISECONDS);
+		planificador.scheduleWithFixedDelay(MotorSla::reconstruir, PERIODO_RECONSTRUCCION_MIN,
+				PERIODO_RECONSTRUCCION_MIN, TimeUnit.MINUTES);
+	}
+
+	/**
+	 * Vuelve a programar el vencimiento de todos los tickets abiertos.
+	 */
+	public static void reconstruir() {
+		for (Ticket t : new TicketDAO().findAll()) {
+			programar(t);
+		}
+	}
+
+	/**
+	 * Plazo para resolver un ticket con esta prioridad y categoría. Una prioridad
+	 * desconocida cuenta como BAJA.
+	 */
+	public static Duration plazo(String prioridad, String categoria) {
+		Duration base = PLAZOS.getOrDefault(prioridad != null ? prioridad.toUpperCase() : "", PLAZOS.get("BAJA"));
+		int porcentaje = categoria != null ? PORCENTAJE_CATEGORIA.getOrDefault(categoria, 100) : 100;
+		return base.multipliedBy(porcentaje).dividedBy(100);
+	}
+
+	/**
+	 * Fecha límite del ticket: la guardada o, en tickets anteriores al SLA, la
+	 * creación más el plazo.
+	 */
+	public static LocalDateTime fechaLimite(Ticket ticket) {
+		if (ticket.getFechaLimite() != null) {
+			return ticket.getFechaLimite();
+		}
+		LocalDateTime desde = ticket.getFechaCreacion() != null ? ticket.getFechaCreacion() : LocalDateTime.now();
+		return desde.plus(plazo(ticket.getPrioridad(), ticket.getCategoria()));
+	}
+
+	/**
+	 * Número de tickets con vencimiento pendiente.
+	 */
+	public static int pendientes() {
+		return RUEDA.tamano();
+	}
+
+	/**
+	 * Últimos escalados (el más reciente primero).
+	 */
+	public static List<Aviso> avisosRecientes() {
+		return new ArrayList<>(AVISOS);
+	}
+
+	/**
+	 * Registra una acción que se ejecuta con cada escalado (en el hilo escritor:
+	 * debe ser rápida, p. ej. pasar el aviso al hilo de Swing).
+	 */
+	public static void alEscalar(Consumer<Aviso> oyente) {
+		OYENTES_AVISOS.add(oyente);
+	}
+
+	/**
+	 * Siguiente prioridad al escalar, o null si ya es la máxima.
+	 */
+	static String siguientePrioridad(String prioridad) {
+		if ("ALTA".equalsIgnoreCase(prioridad)) {
+			return null;
+		}
+		return "MEDIA".equalsIgnoreCase(prioridad) ? "ALTA" : "MEDIA";
+	}
+
+	/**
+	 * Programa el vencimiento del ticket, o lo quita si está cerrado.
+	 */
+	static void programar(Ticket ticket) {
+		if (ticket == null || ticket.getIdTicket() == null) {
+			return;
+		}
+		if (ticket.cerrado()) {
+			RUEDA.cancelar(ticket.getIdTicket());
+		} else {
+			RUEDA.programar(ticket.getIdTicket(),
+					fechaLimite(ticket).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+		}
+	}
+
+	private static void tic() {
+		try {
+			long ahora = System.currentTimeMillis();
+			List<String> vencidos = RUEDA.avanzar(ahora);
+			for (int i = 0; i < vencidos.size(); i++) {
+				String ticketId = vencidos.get(i);
+				if (i >= MAX_ESCALADOS_POR_TICK) {
+					RUEDA.programar(ticketId, ahora + MS_POR_TICK);
+					continue;
+				}
+				GESTOR.escalarPorSlaAsync(ticketId).whenComplete((aviso, error) -> {
+					if (error != null) {
+						System.err.println("No se pudo escalar el ticket " + ticketId + ", se reintentará. Causa: "
+								+ error.getMessage());
+						RUEDA.programar(ticketId, System.currentTimeMillis() + REINTENTO_MS);
+					} else if (aviso != null) {
+						avisar(aviso);
+					}
+				});
+			}
+		} catch (RuntimeException e) {
+			// Una excepción cancelaría la tarea periódica
+			System.err.println("Error en el motor de SLA. Causa: " + e.getMessage());
+		}
+	}
+
+	private static void avisar(Aviso aviso) {
+		System.out.println("AVISO: " + aviso);
+		AVISOS.addFirst(aviso);
+		while (AVISOS.size() > MAX_AVISOS) {
+			AVISOS.pollLast();
+		}
+		for (Consumer<Aviso> oyente : OYENTES_AVISOS) {
+			try {
+				oyente.accept(aviso);
+			} catch (RuntimeException e) {
+				System.err.println("Error al avisar de un escalado de SLA. Causa: " + e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package service;
+
+import model.Ticket;
+
+/**
+ * Recibe los cambios de tickets una vez guardados (ver
+ * GestorTicket.registrarOyente). Se llama en el hilo escritor, después de
+ * escribir el lote: debe ser rápido y no debe modificar los tickets que recibe.
+ */
+@FunctionalInterface
+public interface OyenteTickets {
+
+	/**
+	 * @param antes   El ticket antes del cambio, o null si es nuevo.
+	 * @param despues El ticket tal como ha quedado guardado.
+	 */
+	void ticketGuardado(Ticket antes, Ticket despues);
+}
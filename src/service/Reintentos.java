@@ -0,0 +1,70 @@
+package service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reintentos ante conflictos de versión (util.ConflictoVersionException): otro hilo,
+ * proceso o cliente guardó el mismo registro o fichero entre nuestra lectura y
+ * nuestra escritura. La operación se repite entera desde la lectura, tras una
+ * espera aleatoria que crece con cada intento para que los que chocan no vuelvan
+ * a coincidir.
+ *
+ * Las operaciones se ejecutan en el hilo escritor, que no debe dormir esperando:
+ * el comando lanza un Reintento y EscritorUnico deshace lo que había retenido y
+ * lo vuelve a encolar pasada la espera.
+ *
+ * Uso (dentro de un comando de EscritorUnico):
+ *
+ * <pre>
+ * try {
+ * 	... guardar ...
+ * } catch (ConflictoVersionException e) {
+ * 	throw Reintentos.reintentar(new TicketException("... " + e.getMessage()));
+ * }
+ * </pre>
+ */
+final class Reintentos {
+
+	static final int MAX_INTENTOS = 6;
+
+	/**
+	 * Pide a EscritorUnico que repita el comando más tarde. Si ya no quedan
+	 * intentos, el comando falla con la excepción indicada.
+	 */
+	static final class Reintento extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private Reintento(Exception siSeAgotan) {
+			super(siSeAgotan.getMessage(), siSeAgotan, false, false);
+		}
+
+		/**
+		 * Excepción con la que falla el comando si no quedan intentos.
+		 */
+		Exception agotados() {
+			return (Exception) getCause();
+		}
+	}
+
+	private Reintentos() {
+	}
+
+	/**
+	 * @param siSeAgotan Excepción de negocio con la que informar del conflicto
+	 *                   si ya no quedan intentos.
+	 */
+	static Reintento reintentar(Exception siSeAgotan) {
+		return new Reintento(siSeAgotan);
+	}
+
+	/**
+	 * Milisegundos a esperar antes del siguiente intento.
+	 *
+	 * @param intento Número del intento que acaba de fallar (desde 1).
+	 */
+	static long espera(int intento) {
+		return ThreadLocalRandom.current().nextLong(1, 2L << intento);
+	}
+
+}
@@ -0,0 +1,283 @@
+package service;
+
+import controller.CriteriosTickets;
+import controller.TecnicoDAO;
+import controller.TicketDAO;
+import model.Tecnico;
+import model.Ticket;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reparto de tickets abiertos sin asignar por robo de trabajo: en lugar de que
+ * un administrador los empuje a un técnico, cada técnico los toma cuando está
+ * libre (GestorTicket.tomarTicket).
+ *
+ * - Cada técnico tiene un deque por prioridad con tickets de su especialidad
+ * (la categoría del ticket). Los tickets nuevos se reparten por turnos entre los
+ * técnicos de la especialidad.
+ * - Al tomar, el técnico saca del principio de su deque (el más antiguo); si
+ * está vacío, roba del final del deque de un compañero elegido al azar. Se
+ * miran primero los deques de ALTA de todos, luego los de MEDIA y luego BAJA.
+ *
+ * Los deques no tienen cerrojos (ConcurrentLinkedDeque) y el dueño y los
+ * ladrones trabajan por extremos distintos, así que cientos de técnicos pueden
+ * tomar a la vez sin esperarse; solo la asignación en sí pasa por el hilo
+ * escritor. Un ticket que ya no está libre (lo asignó un administrador, se
+ * cerró...) se queda en su deque hasta que alguien lo saca y lo descarta.
+ *
+ * Se calcula desde los tickets al usarse por primera vez y cada
+ * PERIODO_RECONSTRUCCION_MIN (como ColasTrabajo), lo que además limpia esos
+ * tickets ya no libres. Los que se crean o liberan en otro proceso (modo
+ * cliente/servidor) no llegan a los deques hasta entonces: cuando se vacían,
+ * tomarTicket los busca en los datos (libresEnDatos()).
+ */
+public final class RepartoTrabajo {
+
+	private static final long PERIODO_RECONSTRUCCION_MIN = 10;
+	private static final int PRIORIDADES = 3;
+
+	/**
+	 * Los deques de un técnico, uno por prioridad (ColasTrabajo.rango()).
+	 */
+	private static final class Trabajador {
+
+		final String tecnicoId;
+		final List<Deque<String>> deques = new ArrayList<>(PRIORIDADES);
+
+		Trabajador(String tecnicoId) {
+			this.tecnicoId = tecnicoId;
+			for (int i = 0; i < PRIORIDADES; i++) {
+				deques.add(new ConcurrentLinkedDeque<>());
+			}
+		}
+	}
+
+	/**
+	 * Un ticket sacado de un deque, con su prioridad para poder devolverlo.
+	 */
+	static final class Candidato {
+
+		final String ticketId;
+		final int rango;
+
+		Candidato(String ticketId, int rango) {
+			this.ticketId = ticketId;
+			this.rango = rango;
+		}
+	}
+
+	/**
+	 * Técnicos de una especialidad.
+	 */
+	private static final class Especialidad {
+
+		final List<Trabajador> trabajadores = new CopyOnWriteArrayList<>();
+		/** Turno para repartir los tickets nuevos. */
+		final AtomicInteger turno = new AtomicInteger();
+
+		Trabajador trabajador(String tecnicoId) {
+			for (Trabajador t : trabajadores) {
+				if (t.tecnicoId.equals(tecnicoId)) {
+					return t;
+				}
+			}
+			synchronized (this) {
+				for (Trabajador t : trabajadores) {
+					if (t.tecnicoId.equals(tecnicoId)) {
+						return t;
+					}
+				}
+				Trabajador nuevo = new Trabajador(tecnicoId);
+				trabajadores.add(nuevo);
+				return nuevo;
+			}
+		}
+
+		/**
+		 * Mete el ticket al final del deque del siguiente técnico por turno. Sin
+		 * técnicos en la especialidad no se reparte: queda para el administrador.
+		 */
+		void repartir(Ticket t) {
+			List<Trabajador> todos = trabajadores;
+			if (todos.isEmpty()) {
+				return;
+			}
+			Trabajador destino = todos.get(Math.floorMod(turno.getAndIncrement(), todos.size()));
+			destino.deques.get(ColasTrabajo.rango(t.getPrioridad())).addLast(t.getIdTicket());
+		}
+
+		/**
+		 * Siguiente ticket candidato para el técnico: del principio de su deque o,
+		 * si está vacío, del final del de un compañero, empezando por uno al azar.
+		 */
+		Candidato sacar(Trabajador propio) {
+			List<Trabajador> todos = trabajadores;
+			for (int rango = 0; rango < PRIORIDADES; rango++) {
+				String id = propio.deques.get(rango).pollFirst();
+				if (id != null) {
+					return new Candidato(id, rango);
+				}
+				int n = todos.size();
+				int desde = n > 0 ? ThreadLocalRandom.current().nextInt(n) : 0;
+				for (int i = 0; i < n; i++) {
+					Trabajador victima = todos.get((desde + i) % n);
+					if (victima != propio) {
+						id = victima.deques.get(rango).pollLast();
+						if (id != null) {
+							return new Candidato(id, rango);
+						}
+					}
+				}
+			}
+			return null;
+		}
+	}
+
+	private static volatile Map<String, Especialidad> especialidades = new ConcurrentHashMap<>();
+	private static volatile boolean iniciado;
+
+	private RepartoTrabajo() {
+	}
+
+	/**
+	 * Saca el siguiente ticket candidato para el técnico, propio o robado. No
+	 * comprueba que siga libre: eso lo hace la asignación.
+	 *
+	 * @return El candidato, o vacío si no queda ninguno en la especialidad.
+	 */
+	static Optional<Candidato> sacar(String tecnicoId, String especialidad) {
+		iniciar();
+		Especialidad e = especialidades.computeIfAbsent(clave(especialidad), k -> new Especialidad());
+		return Optional.ofNullable(e.sacar(e.trabajador(tecnicoId)));
+	}
+
+	/**
+	 * Vuelve a poner el candidato al principio del deque del técnico, para que sea
+	 * el siguiente que saque (si no se pudo guardar la asignación).
+	 */
+	static void devolver(String tecnicoId, String especialidad, Candidato candidato) {
+		Especialidad e = especialidades.computeIfAbsent(clave(especialidad), k -> new Especialidad());
+		e.trabajador(tecnicoId).deques.get(candidato.rango).addFirst(candidato.ticketId);
+	}
+
+	/**
+	 * Ids de los tickets libres de la especialidad según los datos guardados, del
+	 * más urgente al menos urgente.
+	 */
+	static List<String> libresEnDatos(String especialidad) {
+		List<Ticket> libres = new ArrayList<>();
+		for (Ticket t : new TicketDAO().buscar(new CriteriosTickets().estado("ABIERTO").categoria(especialidad))) {
+			if (libre(t)) {
+				libres.add(t);
+			}
+		}
+		libres.sort(ColasTrabajo.POR_URGENCIA);
+		List<String> ids = new ArrayList<>(libres.size());
+		for (Ticket t : libres) {
+			ids.add(t.getIdTicket());
+		}
+		return ids;
+	}
+
+	/**
+	 * Vuelve a repartir los tickets abiertos sin asignar entre los técnicos de
+	 * cada especialidad, del más antiguo al más reciente.
+	 */
+	public static void reconstruir() {
+		try {
+			EscritorUnico.<Void>enviar(() -> {
+				Map<String, Especialidad> nuevas = new ConcurrentHashMap<>();
+				for (Tecnico tecnico : new TecnicoDAO().findAll()) {
+					nuevas.computeIfAbsent(clave(tecnico.getEspecialidad()), k -> new Especialidad())
+							.trabajador(tecnico.getId());
+				}
+				List<Ticket> libres = new ArrayList<>();
+				for (Ticket t : new TicketDAO().findAllSoloLectura()) {
+					if (libre(t)) {
+						libres.add(t);
+					}
+				}
+				libres.sort(Comparator.comparing(Ticket::getFechaCreacion,
+						Comparator.nullsLast(Comparator.naturalOrder())));
+				for (Ticket t : libres) {
+					Especialidad e = nuevas.get(clave(t.getCategoria()));
+					if (e != null) {
+						e.repartir(t);
+					}
+				}
+				especialidades = nuevas;
+				return null;
+			}, e -> new IOException("Error de persistencia al repartir los tickets: " + e.getMessage(), e)).join();
+		} catch (CompletionException e) {
+			System.err.println("No se pudieron repartir los tickets sin asignar. Causa: " + e.getCause());
+		}
+	}
+
+	/**
+	 * Se engancha a los cambios de tickets y hace el primer reparto (fuera de un
+	 * bloque static por el mismo motivo que EstadisticasTickets).
+	 */
+	private static void iniciar() {
+		if (iniciado) {
+			return;
+		}
+		synchronized (RepartoTrabajo.class) {
+			if (iniciado) {
+				return;
+			}
+			GestorTicket.registrarOyente(RepartoTrabajo::aplicar);
+			reconstruir();
+			ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(
+					r -> Thread.ofPlatform().daemon(true).name("reparto-trabajo").unstarted(r));
+			planificador.scheduleWithFixedDelay(RepartoTrabajo::reconstruir, PERIODO_RECONSTRUCCION_MIN,
+					PERIODO_RECONSTRUCCION_MIN, TimeUnit.MINUTES);
+			iniciado = true;
+		}
+	}
+
+	/**
+	 * Reparte los tickets que pasan a estar libres o cambian de prioridad sin
+	 * dejar de estarlo. La entrada anterior, si la había, se descarta al sacarla.
+	 */
+	private static void aplicar(Ticket antes, Ticket despues) {
+		if (!libre(despues)) {
+			return;
+		}
+		boolean yaRepartido = antes != null && libre(antes)
+				&& ColasTrabajo.rango(antes.getPrioridad()) == ColasTrabajo.rango(despues.getPrioridad());
+		if (!yaRepartido) {
+			Especialidad e = especialidades.get(clave(despues.getCategoria()));
+			if (e != null) {
+				e.repartir(despues);
+			}
+		}
+	}
+
+	/**
+	 * Si el ticket se puede tomar: abierto y sin técnico.
+	 */
+	static boolean libre(Ticket t) {
+		return t != null && !t.asignado() && "ABIERTO".equalsIgnoreCase(t.getEstado());
+	}
+
+	private static String clave(String especialidad) {
+		return especialidad != null ? especialidad.toUpperCase(Locale.ROOT) : "";
+	}
+}
@@ -0,0 +1,308 @@
+package service;
+
+import controller.SerieTicketsDAO;
+import controller.TicketDAO;
+import model.SerieTickets;
+import model.Ticket;
+import util.SerieCircular;
+import util.Serializador;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Series temporales de tickets creados y cerrados por categoría, por minuto
+ * (CUBETAS_MINUTO), por hora (CUBETAS_HORA) y por día (CUBETAS_DIA). Cada
+ * evento suma uno en las tres; al consultar se usa la más fina que todavía
+ * cubre el rango pedido y se agrega al paso pedido, así que un año de
+ * historia se responde con unos cientos de sumas sin leer los tickets.
+ *
+ * - Se alimentan de los cambios que guarda GestorTicket (OyenteTickets).
+ * - Cada PERIODO_PUNTO_CONTROL_S, si han cambiado, se guardan en
+ * Constantes.SERIES_FILE (a través del hilo escritor), y una última vez al
+ * cerrar el proceso.
+ * - Al iniciar se cargan del fichero y se suman los tickets creados o cerrados
+ * después del último guardado (o todos, si no hay fichero).
+ *
+ * Las fechas se toman en hora local: las cubetas diarias van de medianoche a
+ * medianoche.
+ *
+ * En modo cliente/servidor cada proceso suma sus propios cambios y no guarda el
+ * fichero (borraría los de los demás procesos y los daría por contados): los de
+ * otros procesos se recogen volviendo a cargar cada PERIODO_RECARGA_MIN.
+ */
+public final class SeriesTickets {
+
+	public static final String CREADOS = "CREADOS";
+	public static final String CERRADOS = "CERRADOS";
+
+	private static final long MINUTO_S = 60;
+	private static final long HORA_S = 3600;
+	private static final long DIA_S = 86400;
+	/** 14 días por minuto, unos 6 meses por hora y 5 años por día. */
+	private static final int CUBETAS_MINUTO = 14 * 24 * 60;
+	private static final int CUBETAS_HORA = 183 * 24;
+	private static final int CUBETAS_DIA = 5 * 366;
+
+	private static final long PERIODO_PUNTO_CONTROL_S = 60;
+	private static final long PERIODO_RECARGA_MIN = 10;
+	private static final long ESPERA_CIERRE_S = 5;
+
+	/**
+	 * Series por evento + "|" + categoría. Solo las modifica el hilo escritor; al
+	 * cargar se sustituye el mapa entero.
+	 */
+	private static volatile Map<String, SerieTickets> series = new ConcurrentHashMap<>();
+	private static final AtomicLong CAMBIOS = new AtomicLong();
+	private static final AtomicLong CAMBIOS_GUARDADOS = new AtomicLong();
+
+	/** true cuando series ya tiene lo del fichero y los tickets (solo lo toca el hilo escritor). */
+	private static boolean cargadas;
+	private static volatile boolean iniciado;
+
+	private SeriesTickets() {
+	}
+
+	/**
+	 * Carga las series y empieza a alimentarlas. Llamadas posteriores no hacen
+	 * nada; las consultas lo llaman solas. Los puntos de control solo en modo
+	 * local; en modo cliente/servidor se vuelven a cargar periódicamente.
+	 */
+	public static void iniciar() {
+		if (iniciado) {
+			return;
+		}
+		synchronized (SeriesTickets.class) {
+			if (iniciado) {
+				return;
+			}
+			GestorTicket.registrarOyente(SeriesTickets::aplicar);
+			recargar();
+			ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(
+					r -> Thread.ofPlatform().daemon(true).name("series-tickets-punto-control").unstarted(r));
+			if (!Serializador.esRemoto()) {
+				planificador.scheduleWithFixedDelay(SeriesTickets::puntoDeControl, PERIODO_PUNTO_CONTROL_S,
+						PERIODO_PUNTO_CONTROL_S, TimeUnit.SECONDS);
+				Runtime.getRuntime().addShutdownHook(new Thread(SeriesTickets::puntoDeControlAlCerrar));
+			} else {
+				planificador.scheduleWithFixedDelay(SeriesTickets::recargar, PERIODO_RECARGA_MIN,
+						PERIODO_RECARGA_MIN, TimeUnit.MINUTES);
+			}
+			iniciado = true;
+		}
+	}
+
+	/**
+	 * Número de eventos en cada paso entre desde (redondeado hacia abajo a un
+	 * múltiplo del paso) y hasta.
+	 *
+	 * @param evento    CREADOS o CERRADOS.
+	 * @param categoria Categoría, o null para todas.
+	 * @param paso      Múltiplo de un minuto (p. ej. 15 minutos, 1 hora, 1 día).
+	 * @return Un valor por paso; 0 en los tramos que ya no se conservan.
+	 */
+	public static long[] serie(String evento, String categoria, LocalDateTime desde, LocalDateTime hasta,
+			Duration paso) {
+		iniciar();
+		long pasoS = paso.toSeconds();
+		if (pasoS <= 0 || pasoS % MINUTO_S != 0) {
+			throw new IllegalArgumentException("El paso debe ser un múltiplo de un minuto: " + paso);
+		}
+		long inicio = Math.floorDiv(segundos(desde), pasoS) * pasoS;
+		long fin = segundos(hasta);
+		int pasos = (int) Math.max(0, Math.ceilDiv(fin - inicio, pasoS));
+		long[] resultado = new long[pasos];
+		for (SerieTickets s : seleccionar(evento, categoria)) {
+			SerieCircular serie = resolucion(s, inicio, pasoS);
+			long cubetasPorPaso = pasoS / serie.getSegundosPorCubeta();
+			long primera = serie.indice(inicio);
+			for (int i = 0; i < pasos; i++) {
+				long desdeCubeta = primera + i * cubetasPorPaso;
+				resultado[i] += serie.suma(desdeCubeta, desdeCubeta + cubetasPorPaso);
+			}
+		}
+		return resultado;
+	}
+
+	/**
+	 * Número de eventos entre desde y hasta, a la resolución más fina que cubra
+	 * desde (los extremos se redondean a esa resolución).
+	 *
+	 * @param categoria Categoría, o null para todas.
+	 */
+	public static long total(String evento, String categoria, LocalDateTime desde, LocalDateTime hasta) {
+		iniciar();
+		long inicio = segundos(desde);
+		long fin = segundos(hasta);
+		long total = 0;
+		for (SerieTickets s : seleccionar(evento, categoria)) {
+			// Todas las resoluciones dividen un día: se queda la más fina que cubra inicio
+			SerieCircular serie = resolucion(s, inicio, DIA_S);
+			total += serie.suma(serie.indice(inicio), Math.ceilDiv(fin, serie.getSegundosPorCubeta()));
+		}
+		return total;
+	}
+
+	/**
+	 * Categorías con alguna serie.
+	 */
+	public static Set<String> categorias() {
+		iniciar();
+		Set<String> categorias = new TreeSet<>();
+		series.values().forEach(s -> categorias.add(s.getCategoria()));
+		return categorias;
+	}
+
+	private static List<SerieTickets> seleccionar(String evento, String categoria) {
+		List<SerieTickets> seleccionadas = new ArrayList<>();
+		for (SerieTickets s : series.values()) {
+			if (s.getEvento().equals(evento) && (categoria == null || s.getCategoria().equals(categoria))) {
+				seleccionadas.add(s);
+			}
+		}
+		return seleccionadas;
+	}
+
+	/**
+	 * La resolución más fina que divide el paso y todavía conserva el instante
+	 * inicio; si ninguna lo conserva, la más gruesa que divide el paso.
+	 */
+	private static SerieCircular resolucion(SerieTickets s, long inicio, long pasoS) {
+		SerieCircular elegida = s.getPorMinuto();
+		for (SerieCircular serie : new SerieCircular[] { s.getPorMinuto(), s.getPorHora(), s.getPorDia() }) {
+			if (pasoS % serie.getSegundosPorCubeta() != 0) {
+				break;
+			}
+			elegida = serie;
+			if (serie.primeraRetenida() <= serie.indice(inicio)) {
+				break;
+			}
+		}
+		return elegida;
+	}
+
+	/**
+	 * Vuelve a cargar las series en el hilo escritor: los cambios guardados antes
+	 * ya están en los tickets y los posteriores llegan por el oyente, sin huecos ni
+	 * duplicados.
+	 */
+	private static void recargar() {
+		try {
+			EscritorUnico.<Void>enviar(() -> {
+				cargar();
+				return null;
+			}, e -> new IOException("Error de persistencia al cargar las series de tickets: " + e.getMessage(), e))
+					.join();
+		} catch (CompletionException e) {
+			System.err.println("No se pudieron cargar las series de tickets. Causa: " + e.getCause());
+		}
+	}
+
+	/**
+	 * Carga las series del fichero y suma lo que falte desde los tickets. Se
+	 * ejecuta en el hilo escritor.
+	 */
+	private static void cargar() {
+		Map<String, SerieTickets> nuevas = new ConcurrentHashMap<>();
+		SerieTicketsDAO dao = new SerieTicketsDAO();
+		LocalDateTime contadoHasta = null;
+		if (dao.existe()) {
+			for (SerieTickets s : dao.findAll()) {
+				nuevas.put(s.getEvento() + "|" + s.getCategoria(), s);
+				contadoHasta = s.getContadoHasta();
+			}
+		}
+		for (Ticket t : new TicketDAO().findAllSoloLectura()) {
+			if (t.getFechaCreacion() != null && (contadoHasta == null || t.getFechaCreacion().isAfter(contadoHasta))) {
+				sumar(nuevas, CREADOS, t.getCategoria(), t.getFechaCreacion());
+			}
+			if (t.cerrado() && t.getFechaCierre() != null
+					&& (contadoHasta == null || t.getFechaCierre().isAfter(contadoHasta))) {
+				sumar(nuevas, CERRADOS, t.getCategoria(), t.getFechaCierre());
+			}
+		}
+		series = nuevas;
+		cargadas = true;
+	}
+
+	private static void aplicar(Ticket antes, Ticket despues) {
+		if (!cargadas) {
+			// Ya está en los tickets: lo sumará cargar()
+			return;
+		}
+		if (antes == null && despues.getFechaCreacion() != null) {
+			sumar(series, CREADOS, despues.getCategoria(), despues.getFechaCreacion());
+		}
+		if (despues.cerrado() && (antes == null || !antes.cerrado()) && despues.getFechaCierre() != null) {
+			sumar(series, CERRADOS, despues.getCategoria(), despues.getFechaCierre());
+		}
+	}
+
+	private static void sumar(Map<String, SerieTickets> destino, String evento, String categoria,
+			LocalDateTime fecha) {
+		String cat = categoria != null ? categoria : "Sin indicar";
+		destino.computeIfAbsent(evento + "|" + cat,
+				k -> new SerieTickets(evento, cat, new SerieCircular(MINUTO_S, CUBETAS_MINUTO),
+						new SerieCircular(HORA_S, CUBETAS_HORA), new SerieCircular(DIA_S, CUBETAS_DIA)))
+				.sumar(segundos(fecha), 1);
+		CAMBIOS.incrementAndGet();
+	}
+
+	/**
+	 * Segundos de la fecha local contada como si fuera UTC: así las cubetas de un
+	 * día empiezan a medianoche local.
+	 */
+	private static long segundos(LocalDateTime fecha) {
+		return fecha.toEpochSecond(ZoneOffset.UTC);
+	}
+
+	private static void puntoDeControl() {
+		try {
+			guardarSiHayCambios().get(PERIODO_PUNTO_CONTROL_S, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			System.err.println("No se pudieron guardar las series de tickets, se reintentará. Causa: "
+					+ e.getMessage());
+		}
+	}
+
+	private static void puntoDeControlAlCerrar() {
+		try {
+			guardarSiHayCambios().get(ESPERA_CIERRE_S, TimeUnit.SECONDS);
+		} catch (TimeoutException e) {
+			System.err.println("No dio tiempo a guardar las series de tickets al cerrar; se completarán al arrancar.");
+		} catch (Exception e) {
+			System.err.println("No se pudieron guardar las series de tickets al cerrar. Causa: " + e.getMessage());
+		}
+	}
+
+	private static CompletableFuture<Void> guardarSiHayCambios() {
+		long cambios = CAMBIOS.get();
+		if (cambios == CAMBIOS_GUARDADOS.get()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		return EscritorUnico.<Void>enviar(() -> {
+			// En el hilo escritor: todo lo guardado hasta ahora ya está sumado
+			LocalDateTime ahora = LocalDateTime.now();
+			List<SerieTickets> aGuardar = new ArrayList<>(series.values());
+			aGuardar.forEach(s -> s.setContadoHasta(ahora));
+			new SerieTicketsDAO().guardarTodas(aGuardar);
+			return null;
+		}, e -> new IOException("Error de persistencia al guardar las series de tickets: " + e.getMessage(), e))
+				.thenRun(() -> CAMBIOS_GUARDADOS.accumulateAndGet(cambios, Math::max));
+	}
+}
@@ -10,4 +10,8 @@ public class RespuestaException extends Exception {
 	public RespuestaException(String message) {
 		super(message);
 	}
+
+	public RespuestaException(String message, Throwable cause) {
+		super(message, cause);
+	}
 }
@@ -0,0 +1,64 @@
+package util;
+
+import java.io.IOException;
+
+/**
+ * Almacén de los ficheros de datos cuando no están en el disco local, sino en
+ * otro proceso que es su único dueño (ver remoto.ServidorDatos). El Serializador
+ * lo usa en lugar de leer y escribir los ficheros directamente si se ha
+ * configurado con Serializador.configurarAlmacen().
+ *
+ * Los ficheros se identifican por su nombre sin carpeta ("tickets.txt") y el
+ * contenido son los bytes serializados tal cual. Cada fichero tiene una versión
+ * que aumenta con cada escritura o borrado; las escrituras indican la versión
+ * sobre la que se hicieron y se rechazan si otro cliente escribió entre medias.
+ */
+public interface AlmacenDatos {
+
+	/** Versión esperada que desactiva la comprobación (sobrescritura completa). */
+	long SIN_COMPROBAR = -1;
+
+	/**
+	 * Contenido de un fichero en una versión concreta.
+	 */
+	final class Lectura {
+
+		private final byte[] contenido;
+		private final long version;
+
+		public Lectura(byte[] contenido, long version) {
+			this.contenido = contenido;
+			this.version = version;
+		}
+
+		/** Los bytes del fichero, o null si no existe. */
+		public byte[] getContenido() {
+			return contenido;
+		}
+
+		public long getVersion() {
+			return version;
+		}
+
+		public boolean existe() {
+			return contenido != null;
+		}
+	}
+
+	Lectura leer(String fichero) throws IOException;
+
+	/**
+	 * Reemplaza el contenido del fichero.
+	 *
+	 * @param versionEsperada Versión leída antes de modificar, o SIN_COMPROBAR.
+	 * @return La nueva versión del fichero.
+	 * @throws ConflictoVersionException si el fichero ya no está en
+	 *                                   versionEsperada.
+	 */
+	long escribir(String fichero, byte[] contenido, long versionEsperada) throws IOException;
+
+	/**
+	 * Borra el fichero (no es un error que no exista).
+	 */
+	void borrar(String fichero) throws IOException;
+}
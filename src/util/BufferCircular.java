@@ -0,0 +1,114 @@
+package util;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cola circular acotada para varios productores y un único consumidor, sin
+ * cerrojos. Cada productor reserva una posición con un incremento atómico y
+ * publica el elemento en su celda; el consumidor recorre las celdas en orden y
+ * las vacía. Si la cola está llena el productor espera (contrapresión) hasta que
+ * el consumidor libere sitio.
+ *
+ * Solo un hilo puede llamar a tomar() y sondear().
+ */
+public final class BufferCircular<T> {
+
+	private static final long ESPERA_LLENA_NS = 50_000;
+
+	private final AtomicReferenceArray<T> celdas;
+	private final int mascara;
+
+	/** Siguiente posición que reservará un productor. */
+	private final AtomicLong reservadas = new AtomicLong();
+	/** Posiciones ya vaciadas por el consumidor (las productoras esperan a que avance). */
+	private volatile long consumidas;
+	/** Siguiente posición a leer (solo la toca el consumidor). */
+	private long leida;
+	/** Consumidor dormido esperando elementos, o null. */
+	private volatile Thread consumidorEsperando;
+
+	/**
+	 * @param capacidad Capacidad mínima (se redondea a potencia de 2).
+	 */
+	public BufferCircular(int capacidad) {
+		int n = Integer.highestOneBit(Math.max(1, capacidad - 1)) << 1;
+		celdas = new AtomicReferenceArray<>(n);
+		mascara = n - 1;
+	}
+
+	/**
+	 * Añade el elemento al final de la cola. Si está llena espera a que el
+	 * consumidor saque elementos.
+	 */
+	public void publicar(T elemento) {
+		Objects.requireNonNull(elemento);
+		long posicion = reservadas.getAndIncrement();
+		while (posicion - consumidas >= celdas.length()) {
+			LockSupport.parkNanos(ESPERA_LLENA_NS);
+		}
+		celdas.set(indice(posicion), elemento);
+		Thread esperando = consumidorEsperando;
+		if (esperando != null) {
+			LockSupport.unpark(esperando);
+		}
+	}
+
+	/**
+	 * Saca el siguiente elemento, o devuelve null si aún no se ha publicado.
+	 */
+	public T sondear() {
+		int i = indice(leida);
+		T elemento = celdas.get(i);
+		if (elemento == null) {
+			return null;
+		}
+		celdas.set(i, null);
+		leida++;
+		consumidas = leida;
+		return elemento;
+	}
+
+	/**
+	 * Saca el siguiente elemento, esperando a que se publique si hace falta.
+	 */
+	public T tomar() throws InterruptedException {
+		T elemento = sondear();
+		while (elemento == null) {
+			consumidorEsperando = Thread.currentThread();
+			try {
+				// Se vuelve a mirar tras anunciarse: un productor que publicó justo antes
+				// no ha podido ver al consumidor esperando
+				elemento = sondear();
+				if (elemento == null) {
+					LockSupport.park(this);
+					if (Thread.interrupted()) {
+						throw new InterruptedException();
+					}
+					elemento = sondear();
+				}
+			} finally {
+				consumidorEsperando = null;
+			}
+		}
+		return elemento;
+	}
+
+	/**
+	 * Número aproximado de elementos reservados o publicados que aún no se han
+	 * sacado.
+	 */
+	public long tamano() {
+		return Math.max(0, reservadas.get() - consumidas);
+	}
+
+	public int capacidad() {
+		return celdas.length();
+	}
+
+	private int indice(long posicion) {
+		return (int) (posicion & mascara);
+	}
+}
@@ -0,0 +1,85 @@
+package util;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cerrojos por clave con un número fijo de segmentos (lock striping). Cada
+ * clave se asigna siempre al mismo segmento, así que dos operaciones sobre la
+ * misma clave se excluyen y operaciones sobre claves distintas casi nunca se
+ * esperan entre sí (solo si coinciden de segmento), sin guardar un cerrojo por
+ * cada clave existente.
+ *
+ * Uso:
+ *
+ * <pre>
+ * try (CerrojosSegmentados.Bloqueo b = cerrojos.bloquear(ticketId)) {
+ * 	...
+ * }
+ * </pre>
+ *
+ * Los cerrojos son reentrantes. bloquear() con varias claves toma los segmentos
+ * en orden de índice, de modo que dos hilos que bloquean los mismos conjuntos no
+ * se quedan esperándose mutuamente.
+ */
+public final class CerrojosSegmentados {
+
+	private final ReentrantLock[] segmentos;
+
+	/**
+	 * @param numSegmentos Número mínimo de segmentos (se redondea a potencia de 2).
+	 */
+	public CerrojosSegmentados(int numSegmentos) {
+		int n = Integer.highestOneBit(Math.max(1, numSegmentos - 1)) << 1;
+		segmentos = new ReentrantLock[n];
+		for (int i = 0; i < n; i++) {
+			segmentos[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Cerrojos tomados; se liberan al cerrar (en orden inverso).
+	 */
+	public static final class Bloqueo implements AutoCloseable {
+
+		private final ReentrantLock[] tomados;
+
+		private Bloqueo(ReentrantLock[] tomados) {
+			this.tomados = tomados;
+		}
+
+		@Override
+		public void close() {
+			for (int i = tomados.length - 1; i >= 0; i--) {
+				tomados[i].unlock();
+			}
+		}
+	}
+
+	/**
+	 * Bloquea los segmentos de las claves indicadas (las null se ignoran).
+	 */
+	public Bloqueo bloquear(Object... claves) {
+		int[] indices = Arrays.stream(claves).filter(c -> c != null).mapToInt(this::indice).sorted().distinct()
+				.toArray();
+		ReentrantLock[] tomados = new ReentrantLock[indices.length];
+		for (int i = 0; i < indices.length; i++) {
+			tomados[i] = segmentos[indices[i]];
+			tomados[i].lock();
+		}
+		return new Bloqueo(tomados);
+	}
+
+	/**
+	 * Indica si el hilo actual tiene bloqueado el segmento de la clave.
+	 */
+	public boolean estaBloqueadaPorHiloActual(Object clave) {
+		return clave != null && segmentos[indice(clave)].isHeldByCurrentThread();
+	}
+
+	private int indice(Object clave) {
+		int h = clave.hashCode();
+		h ^= (h >>> 16); // Mezcla los bits altos, como HashMap
+		return h & (segmentos.length - 1);
+	}
+}
@@ -0,0 +1,43 @@
+package util;
+
+import java.io.IOException;
+
+/**
+ * Se lanza al guardar un fichero que otro cliente ha modificado desde que se
+ * leyó, o un registro (ticket, usuario, respuesta) cuya versión ya no es la que
+ * se leyó. Es una IOException para que los DAOs la propaguen como cualquier
+ * otro fallo de persistencia; la operación se puede repetir desde el principio.
+ */
+public class ConflictoVersionException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long versionActual;
+
+	public ConflictoVersionException(String fichero, long versionEsperada, long versionActual) {
+		this(mensaje("El fichero " + fichero, versionEsperada, versionActual), versionActual);
+	}
+
+	private ConflictoVersionException(String mensaje, long versionActual) {
+		super(mensaje);
+		this.versionActual = versionActual;
+	}
+
+	/**
+	 * Conflicto sobre un registro concreto (p. ej. deRegistro("El ticket", "TK001",
+	 * 3, 4)).
+	 */
+	public static ConflictoVersionException deRegistro(String tipo, String id, long versionEsperada,
+			long versionActual) {
+		return new ConflictoVersionException(mensaje(tipo + " " + id, versionEsperada, versionActual), versionActual);
+	}
+
+	private static String mensaje(String recurso, long versionEsperada, long versionActual) {
+		return recurso + " ha cambiado mientras se modificaba (versión leída " + versionEsperada + ", versión actual "
+				+ versionActual + "). Vuelva a intentarlo.";
+	}
+
+	public long getVersionActual() {
+		return versionActual;
+	}
+}
@@ -1,5 +1,7 @@
 package util;
 
+import java.util.Set;
+
 public class Constantes {
 
 	/**
@@ -9,8 +11,10 @@ public class Constantes {
 	private Constantes() {
 	}
 
-	// Carpeta donde se guardan los .dat serializados (puedes cambiarla si quieres)
-	public static final String DATA_DIR = "./Datos";
+	// Carpeta donde se guardan los .dat serializados (puedes cambiarla si quieres).
+	// Se puede sobrescribir al arrancar con -Dgestortickets.datos=<carpeta>
+	// (benchmarks, pruebas de carga...) sin tocar los datos reales.
+	public static final String DATA_DIR = System.getProperty("gestortickets.datos", "./Datos");
 
 	// Nombres de ficheros (extensión .dat para indicar binario/serializado)
 	public static final String USUARIOS_FILE = DATA_DIR + "/usuarios.txt";
@@ -18,6 +22,21 @@ public class Constantes {
 	public static final String TICKETS_FILE = DATA_DIR + "/tickets.txt";
 	public static final String RESPUESTAS_FILE = DATA_DIR + "/respuestas.txt";
 
+	// Vista desnormalizada de tickets (se puede borrar: se reconstruye sola)
+	public static final String TICKETS_RESUMEN_FILE = DATA_DIR + "/tickets_resumen.txt";
+
+	// Contadores de tickets por persona (se puede borrar: se reconstruye solo)
+	public static final String CONTADORES_FILE = DATA_DIR + "/contadores_tickets.txt";
+
+	// Series temporales de tickets creados/cerrados (se puede borrar: se reconstruye
+	// desde los tickets)
+	public static final String SERIES_FILE = DATA_DIR + "/series_tickets.txt";
+
+	// Ficheros que se pueden borrar y se reconstruyen desde los demás. En un lote
+	// se escriben los últimos; si no se pueden guardar se borran.
+	public static final Set<String> FICHEROS_DERIVADOS = Set.of(TICKETS_RESUMEN_FILE, CONTADORES_FILE,
+			SERIES_FILE);
+
 	// Nombre temporal usado para escritura segura
 	public static final String TEMP_SUFFIX = ".tmp";
 }
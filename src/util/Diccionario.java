@@ -0,0 +1,87 @@
+package util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Codificación de textos como enteros consecutivos (0, 1, 2...) en el orden en
+ * que aparecen, para guardar columnas de valores repetidos (estados,
+ * categorías, ids) como arrays de primitivos. Los códigos no cambian nunca:
+ * solo se añaden.
+ *
+ * Solo un hilo a la vez debe añadir valores (codigo()); buscar(), valor() y
+ * getTamano() se pueden llamar desde cualquier hilo sin bloqueos.
+ */
+public final class Diccionario {
+
+	/** Código de null. */
+	public static final int NULO = -1;
+	/** Código que devuelve codigo() cuando ya no caben más valores. */
+	public static final int LLENO = -2;
+
+	private final int maximo;
+	private final Map<String, Integer> codigos = new ConcurrentHashMap<>();
+	private volatile String[] valores = new String[16];
+	private volatile int tamano;
+
+	/**
+	 * @param maximo Número máximo de valores distintos (p. ej. 127 si los códigos
+	 *               se guardan en un byte).
+	 */
+	public Diccionario(int maximo) {
+		this.maximo = maximo;
+	}
+
+	/**
+	 * Código del valor, añadiéndolo si es nuevo.
+	 *
+	 * @return El código, NULO si el valor es null o LLENO si es nuevo y ya hay
+	 *         maximo valores.
+	 */
+	public int codigo(String valor) {
+		if (valor == null) {
+			return NULO;
+		}
+		Integer existente = codigos.get(valor);
+		if (existente != null) {
+			return existente;
+		}
+		int nuevo = tamano;
+		if (nuevo >= maximo) {
+			return LLENO;
+		}
+		String[] actuales = valores;
+		if (nuevo == actuales.length) {
+			actuales = Arrays.copyOf(actuales, Math.min(actuales.length * 2, Math.max(maximo, 1)));
+		}
+		actuales[nuevo] = valor;
+		valores = actuales;
+		codigos.put(valor, nuevo);
+		// Al final: quien lea el tamaño ya ve el valor en valores
+		tamano = nuevo + 1;
+		return nuevo;
+	}
+
+	/**
+	 * Código del valor sin añadirlo: NULO si es null o no está.
+	 */
+	public int buscar(String valor) {
+		Integer codigo = valor != null ? codigos.get(valor) : null;
+		return codigo != null ? codigo : NULO;
+	}
+
+	/**
+	 * Valor de un código (null para NULO o un código que no existe).
+	 */
+	public String valor(int codigo) {
+		if (codigo < 0 || codigo >= tamano) {
+			return null;
+		}
+		return valores[codigo];
+	}
+
+	public int getTamano() {
+		return tamano;
+	}
+}
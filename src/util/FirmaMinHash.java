@@ -0,0 +1,112 @@
+package util;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Firmas MinHash de textos, para encontrar textos casi iguales sin compararlos
+ * enteros. El texto se normaliza (minúsculas, sin tildes ni signos) y se parte
+ * en trozos de TROZO caracteres; la firma guarda, para cada una de TAMANO
+ * funciones hash, el menor valor entre los trozos. La fracción de posiciones en
+ * que coinciden dos firmas estima la similitud de Jaccard de sus trozos.
+ *
+ * Para buscar candidatos sin comparar con todas, la firma se divide en BANDAS
+ * bandas de FILAS posiciones (LSH): dos textos comparten al menos una banda con
+ * probabilidad 1 - (1 - s^FILAS)^BANDAS, que con 16 bandas de 4 es ~90% para
+ * una similitud s de 0,6 y ~12% para 0,3.
+ */
+public final class FirmaMinHash {
+
+	public static final int BANDAS = 16;
+	public static final int FILAS = 4;
+	public static final int TAMANO = BANDAS * FILAS;
+	private static final int TROZO = 5;
+
+	private static final long[] SEMILLAS = new long[TAMANO];
+
+	static {
+		long semilla = 0x5DEECE66DL;
+		for (int i = 0; i < TAMANO; i++) {
+			semilla = mezclar(semilla + i);
+			SEMILLAS[i] = semilla;
+		}
+	}
+
+	private FirmaMinHash() {
+	}
+
+	/**
+	 * Firma del texto, o null si no tiene letras ni números (no se parece a
+	 * nada).
+	 */
+	public static long[] firmar(String texto) {
+		String normal = normalizar(texto);
+		if (normal.isEmpty()) {
+			return null;
+		}
+		long[] firma = new long[TAMANO];
+		Arrays.fill(firma, Long.MAX_VALUE);
+		int trozos = Math.max(1, normal.length() - TROZO + 1);
+		for (int t = 0; t < trozos; t++) {
+			long base = hash(normal, t, Math.min(normal.length(), t + TROZO));
+			for (int i = 0; i < TAMANO; i++) {
+				long h = mezclar(base ^ SEMILLAS[i]);
+				if (h < firma[i]) {
+					firma[i] = h;
+				}
+			}
+		}
+		return firma;
+	}
+
+	/**
+	 * Similitud estimada (de 0 a 1): fracción de posiciones iguales.
+	 */
+	public static double similitud(long[] a, long[] b) {
+		int iguales = 0;
+		for (int i = 0; i < TAMANO; i++) {
+			if (a[i] == b[i]) {
+				iguales++;
+			}
+		}
+		return iguales / (double) TAMANO;
+	}
+
+	/**
+	 * Clave de la banda (0 a BANDAS - 1) de la firma: dos firmas con las mismas
+	 * FILAS posiciones en esa banda tienen la misma clave.
+	 */
+	public static long banda(long[] firma, int banda) {
+		long clave = banda;
+		for (int i = banda * FILAS; i < (banda + 1) * FILAS; i++) {
+			clave = mezclar(clave * 31 + firma[i]);
+		}
+		return clave;
+	}
+
+	private static String normalizar(String texto) {
+		if (texto == null) {
+			return "";
+		}
+		String sinTildes = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+		return sinTildes.toLowerCase(Locale.ROOT).replaceAll("[^\\p{Alnum}]+", " ").trim();
+	}
+
+	private static long hash(String texto, int desde, int hasta) {
+		long h = 1125899906842597L;
+		for (int i = desde; i < hasta; i++) {
+			h = 31 * h + texto.charAt(i);
+		}
+		return h;
+	}
+
+	/**
+	 * Mezcla de bits de SplitMix64.
+	 */
+	private static long mezclar(long x) {
+		x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+		x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+		return x ^ (x >>> 31);
+	}
+}
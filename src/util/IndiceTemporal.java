@@ -0,0 +1,139 @@
+package util;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Índice ordenado por fecha de una lista de elementos, para consultas por
+ * rango: buscar dónde empieza y acaba el rango es una búsqueda binaria
+ * (log n) y sus elementos están seguidos, así que una página de k elementos
+ * cuesta log n + k, sin recorrer el resto.
+ *
+ * Es inmutable: se construye una vez a partir de una versión de los datos (p.
+ * ej. una Instantanea) y se vuelve a construir cuando cambian. Los elementos sin
+ * fecha no se indexan. A igual fecha se conserva el orden de la lista.
+ */
+public final class IndiceTemporal<T> {
+
+	private final LocalDateTime[] fechas;
+	private final Object[] elementos;
+
+	private IndiceTemporal(LocalDateTime[] fechas, Object[] elementos) {
+		this.fechas = fechas;
+		this.elementos = elementos;
+	}
+
+	/**
+	 * Ordena los elementos por la fecha indicada. Si la lista ya está casi
+	 * ordenada (p. ej. por fecha de creación) cuesta poco más que recorrerla.
+	 */
+	public static <T> IndiceTemporal<T> construir(List<T> lista, Function<T, LocalDateTime> fecha) {
+		List<Par> pares = new ArrayList<>(lista.size());
+		for (T elemento : lista) {
+			LocalDateTime f = elemento != null ? fecha.apply(elemento) : null;
+			if (f != null) {
+				pares.add(new Par(f, elemento));
+			}
+		}
+		// List.sort es estable: a igual fecha, el orden de la lista
+		pares.sort(Comparator.comparing(p -> p.fecha));
+		LocalDateTime[] fechas = new LocalDateTime[pares.size()];
+		Object[] elementos = new Object[pares.size()];
+		for (int i = 0; i < fechas.length; i++) {
+			fechas[i] = pares.get(i).fecha;
+			elementos[i] = pares.get(i).elemento;
+		}
+		return new IndiceTemporal<>(fechas, elementos);
+	}
+
+	private static final class Par {
+
+		final LocalDateTime fecha;
+		final Object elemento;
+
+		Par(LocalDateTime fecha, Object elemento) {
+			this.fecha = fecha;
+			this.elemento = elemento;
+		}
+	}
+
+	/**
+	 * Número de elementos indexados.
+	 */
+	public int tamano() {
+		return fechas.length;
+	}
+
+	/**
+	 * Número de elementos con fecha en [desde, hasta).
+	 *
+	 * @param desde null para no poner límite inferior.
+	 * @param hasta null para no poner límite superior.
+	 */
+	public int contar(LocalDateTime desde, LocalDateTime hasta) {
+		return Math.max(0, fin(hasta) - inicio(desde));
+	}
+
+	/**
+	 * Elementos con fecha en [desde, hasta), en orden de fecha, saltándose los
+	 * saltar primeros y devolviendo como mucho maximo.
+	 *
+	 * @param desde null para no poner límite inferior.
+	 * @param hasta null para no poner límite superior.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<T> entre(LocalDateTime desde, LocalDateTime hasta, int saltar, int maximo) {
+		if (saltar < 0 || maximo < 0) {
+			throw new IllegalArgumentException("Página no válida: saltar " + saltar + ", máximo " + maximo);
+		}
+		int inicio = inicio(desde);
+		int fin = fin(hasta);
+		long primero = (long) inicio + saltar;
+		if (primero >= fin) {
+			return List.of();
+		}
+		int ultimo = (int) Math.min(fin, primero + maximo);
+		return (List<T>) List.of(Arrays.copyOfRange(elementos, (int) primero, ultimo));
+	}
+
+	/**
+	 * Elemento en una posición del orden por fecha (de 0 a tamano() - 1).
+	 */
+	@SuppressWarnings("unchecked")
+	public T elemento(int posicion) {
+		return (T) elementos[posicion];
+	}
+
+	/**
+	 * Primera posición con fecha >= desde (0 si desde es null).
+	 */
+	public int inicio(LocalDateTime desde) {
+		return desde == null ? 0 : primeraNoMenor(desde);
+	}
+
+	/**
+	 * Primera posición con fecha >= hasta, es decir, el final (exclusivo) del
+	 * rango (tamano() si hasta es null).
+	 */
+	public int fin(LocalDateTime hasta) {
+		return hasta == null ? fechas.length : primeraNoMenor(hasta);
+	}
+
+	private int primeraNoMenor(LocalDateTime fecha) {
+		int bajo = 0;
+		int alto = fechas.length;
+		while (bajo < alto) {
+			int medio = (bajo + alto) >>> 1;
+			if (fechas[medio].isBefore(fecha)) {
+				bajo = medio + 1;
+			} else {
+				alto = medio;
+			}
+		}
+		return bajo;
+	}
+}
@@ -0,0 +1,103 @@
+package util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Índice invertido de un campo de texto: para cada valor, las posiciones (en
+ * orden creciente) de los elementos de la lista que lo tienen. Saber cuántos
+ * elementos tienen un valor cuesta O(1), y las posiciones de varios criterios
+ * se cruzan con interseccion() sin mirar los elementos.
+ *
+ * Es inmutable: se construye una vez a partir de una versión de los datos (p.
+ * ej. una Instantanea) y se vuelve a construir cuando cambian. Los valores null
+ * no se indexan.
+ */
+public final class IndiceValores {
+
+	private static final int[] VACIO = new int[0];
+
+	private final Map<String, int[]> posiciones;
+	private final boolean ignorarMayusculas;
+
+	private IndiceValores(Map<String, int[]> posiciones, boolean ignorarMayusculas) {
+		this.posiciones = posiciones;
+		this.ignorarMayusculas = ignorarMayusculas;
+	}
+
+	/**
+	 * @param ignorarMayusculas Si "abierto" y "ABIERTO" cuentan como el mismo
+	 *                          valor.
+	 */
+	public static <T> IndiceValores construir(List<T> lista, Function<T, String> campo, boolean ignorarMayusculas) {
+		// Primera pasada: cuántos hay de cada valor, para reservar lo justo
+		String[] claves = new String[lista.size()];
+		Map<String, int[]> cuentas = new HashMap<>();
+		for (int i = 0; i < claves.length; i++) {
+			T elemento = lista.get(i);
+			String valor = elemento != null ? campo.apply(elemento) : null;
+			if (valor != null) {
+				claves[i] = normalizar(valor, ignorarMayusculas);
+				cuentas.computeIfAbsent(claves[i], k -> new int[1])[0]++;
+			}
+		}
+		Map<String, int[]> posiciones = new HashMap<>(cuentas.size() * 2);
+		cuentas.forEach((clave, n) -> posiciones.put(clave, new int[n[0]]));
+		cuentas.values().forEach(n -> n[0] = 0);
+		for (int i = 0; i < claves.length; i++) {
+			if (claves[i] != null) {
+				posiciones.get(claves[i])[cuentas.get(claves[i])[0]++] = i;
+			}
+		}
+		return new IndiceValores(posiciones, ignorarMayusculas);
+	}
+
+	/**
+	 * Posiciones de los elementos con el valor, en orden creciente (vacío si no
+	 * hay ninguno). El array es del índice: no se debe modificar.
+	 */
+	public int[] posiciones(String valor) {
+		if (valor == null) {
+			return VACIO;
+		}
+		return posiciones.getOrDefault(normalizar(valor, ignorarMayusculas), VACIO);
+	}
+
+	public int contar(String valor) {
+		return posiciones(valor).length;
+	}
+
+	/**
+	 * Posiciones que están en los dos arrays (ordenados de menor a mayor). Se
+	 * recorre el más corto y se busca en el otro, así que cuesta
+	 * min * log(max): poco si uno de los dos es pequeño.
+	 */
+	public static int[] interseccion(int[] a, int[] b) {
+		int[] corto = a.length <= b.length ? a : b;
+		int[] largo = corto == a ? b : a;
+		int[] resultado = new int[corto.length];
+		int n = 0;
+		int desde = 0;
+		for (int posicion : corto) {
+			int encontrada = Arrays.binarySearch(largo, desde, largo.length, posicion);
+			if (encontrada >= 0) {
+				resultado[n++] = posicion;
+				desde = encontrada + 1;
+			} else {
+				desde = -encontrada - 1;
+			}
+			if (desde >= largo.length) {
+				break;
+			}
+		}
+		return n == resultado.length ? resultado : Arrays.copyOf(resultado, n);
+	}
+
+	private static String normalizar(String valor, boolean ignorarMayusculas) {
+		return ignorarMayusculas ? valor.toUpperCase(Locale.ROOT) : valor;
+	}
+}
@@ -0,0 +1,101 @@
+package util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Contenido de un fichero de datos tal como quedó tras una escritura concreta
+ * (su versión). Es inmutable: una escritura posterior publica otra Instantanea
+ * en lugar de modificar esta, así que quien la tiene ve siempre el mismo estado
+ * completo aunque se esté escribiendo a la vez.
+ *
+ * getElementos() devuelve una lista de solo lectura compartida por todos los
+ * lectores de la misma versión (sus objetos tampoco se deben modificar);
+ * copiar() devuelve objetos nuevos que sí se pueden modificar y guardar.
+ *
+ * El contenido puede venir de un servidor de datos, así que solo se
+ * deserializan las clases del modelo y las colecciones y tipos básicos del JDK
+ * (FILTRO); cualquier otra clase hace fallar la lectura.
+ */
+public final class Instantanea<T> {
+
+	static final ObjectInputFilter FILTRO = ObjectInputFilter.Config.createFilter(
+			"maxdepth=20;model.*;util.SerieCircular;java.util.*;java.time.*;java.lang.*;!*");
+
+	private final long version;
+	private final byte[] contenido;
+	private final boolean existe;
+	private volatile List<T> elementos;
+
+	/**
+	 * @param contenido Lista serializada (null o vacío si no hay elementos).
+	 * @param existe    false si el fichero no existe.
+	 */
+	Instantanea(long version, byte[] contenido, boolean existe) {
+		this.version = version;
+		this.contenido = contenido;
+		this.existe = existe;
+	}
+
+	/**
+	 * Versión del fichero. Crece con cada escritura publicada.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public boolean existe() {
+		return existe;
+	}
+
+	/**
+	 * Elementos en solo lectura. Se deserializan la primera vez que se piden.
+	 */
+	public List<T> getElementos() {
+		List<T> lista = elementos;
+		if (lista == null) {
+			// Si dos hilos llegan a la vez ambos deserializan lo mismo; se queda una
+			lista = Collections.unmodifiableList(deserializar());
+			elementos = lista;
+		}
+		return lista;
+	}
+
+	/**
+	 * Copia modificable con objetos propios (para leer, cambiar y volver a
+	 * guardar).
+	 */
+	public List<T> copiar() {
+		return deserializar();
+	}
+
+	int getTamanoBytes() {
+		return contenido != null ? contenido.length : 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<T> deserializar() {
+		if (contenido == null || contenido.length == 0) {
+			return new ArrayList<>();
+		}
+		try (ObjectInputStream ois = lector(contenido)) {
+			return (List<T>) ois.readObject();
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			throw new IllegalStateException("Contenido no válido en la versión " + version + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Flujo para deserializar un contenido de datos, con FILTRO puesto.
+	 */
+	static ObjectInputStream lector(byte[] contenido) throws IOException {
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(contenido));
+		ois.setObjectInputFilter(FILTRO);
+		return ois;
+	}
+}
@@ -0,0 +1,47 @@
+package util;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Se lanza al confirmar un lote de Serializador cuando algunos ficheros ya se
+ * habían escrito antes del fallo: lo guardado no se puede deshacer, así que las
+ * operaciones del lote no deben repetirse. Indica qué ficheros se escribieron y
+ * cuáles no, para saber qué operaciones quedaron guardadas.
+ */
+public class LoteIncompletoException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	// Arrays y no List: los campos de una excepción deben ser serializables
+	private final String[] escritos;
+	private final String[] pendientes;
+
+	public LoteIncompletoException(List<String> escritos, List<String> pendientes, IOException causa) {
+		super("Lote guardado solo en parte (ya escritos: " + nombres(escritos) + "). Causa: " + causa.getMessage(),
+				causa);
+		this.escritos = escritos.toArray(new String[0]);
+		this.pendientes = pendientes.toArray(new String[0]);
+	}
+
+	/**
+	 * Rutas de los ficheros que sí se escribieron.
+	 */
+	public List<String> getEscritos() {
+		return List.of(escritos);
+	}
+
+	/**
+	 * Rutas de los ficheros que no se llegaron a escribir (el primero es el que
+	 * falló).
+	 */
+	public List<String> getPendientes() {
+		return List.of(pendientes);
+	}
+
+	private static String nombres(List<String> rutas) {
+		return rutas.stream().map(r -> Paths.get(r).getFileName().toString()).collect(Collectors.joining(", "));
+	}
+}
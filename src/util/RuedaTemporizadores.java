@@ -0,0 +1,208 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rueda de temporizadores jerárquica: guarda muchos vencimientos (uno por
+ * clave) y devuelve los que han pasado a medida que avanza el tiempo.
+ *
+ * El tiempo se cuenta en ticks de msPorTick. Hay varios niveles de
+ * RANURAS ranuras cada uno: una ranura del nivel 0 abarca un tick, una del
+ * nivel 1 abarca RANURAS ticks, etc. Cada temporizador se cuelga de la ranura
+ * del nivel más bajo que alcanza su vencimiento, así que programar y cancelar
+ * cuestan O(1). Al avanzar un tick se vacía una ranura del nivel 0 (lo que
+ * vence) y, cuando una vuelta del nivel inferior se completa, la ranura actual
+ * del nivel superior se reparte en los de abajo. Los vencimientos más allá del
+ * último nivel se dejan en su ranura más lejana y se recolocan al llegar.
+ *
+ * Es segura entre hilos (todos los métodos se sincronizan sobre la rueda).
+ */
+public final class RuedaTemporizadores<K> {
+
+	private static final int BITS_RANURA = 6;
+	private static final int RANURAS = 1 << BITS_RANURA;
+	private static final int MASCARA = RANURAS - 1;
+
+	/** Temporizador pendiente, enlazado en la lista de su ranura. */
+	private static final class Nodo<K> {
+		private final K clave;
+		private final long tick;
+		private Nodo<K> anterior, siguiente;
+		private Nodo<K>[] ranuras;
+		private int ranura;
+
+		Nodo(K clave, long tick) {
+			this.clave = clave;
+			this.tick = tick;
+		}
+	}
+
+	private final long msPorTick;
+	private final Nodo<K>[][] niveles;
+	private final Map<K, Nodo<K>> porClave = new HashMap<>();
+	/** Programados para un tick que ya ha pasado: se entregan en el siguiente avanzar(). */
+	private final List<K> vencidos = new ArrayList<>();
+	private long tickActual;
+
+	/**
+	 * @param msPorTick  Resolución: duración de un tick en milisegundos.
+	 * @param numNiveles Número de niveles; el alcance sin recolocaciones es
+	 *                   64^numNiveles ticks.
+	 * @param ahoraMs    Instante inicial (ms, p. ej. System.currentTimeMillis()).
+	 */
+	@SuppressWarnings("unchecked")
+	public RuedaTemporizadores(long msPorTick, int numNiveles, long ahoraMs) {
+		if (msPorTick <= 0 || numNiveles <= 0 || numNiveles * BITS_RANURA >= Long.SIZE - 1) {
+			throw new IllegalArgumentException("Configuración de la rueda no válida: " + msPorTick + " ms, "
+					+ numNiveles + " niveles");
+		}
+		this.msPorTick = msPorTick;
+		this.niveles = (Nodo<K>[][]) new Nodo<?>[numNiveles][RANURAS];
+		this.tickActual = ahoraMs / msPorTick;
+	}
+
+	/**
+	 * Programa (o reprograma) el vencimiento de la clave.
+	 *
+	 * @param vencimientoMs Instante en ms; si ya ha pasado, la clave vence en el
+	 *                      siguiente avanzar().
+	 */
+	public synchronized void programar(K clave, long vencimientoMs) {
+		cancelar(clave);
+		// Redondeo hacia arriba: nunca vence antes de tiempo
+		Nodo<K> nodo = new Nodo<>(clave, Math.floorDiv(vencimientoMs + msPorTick - 1, msPorTick));
+		porClave.put(clave, nodo);
+		colocar(nodo);
+	}
+
+	/**
+	 * Quita el temporizador de la clave.
+	 *
+	 * @return true si había uno pendiente.
+	 */
+	public synchronized boolean cancelar(K clave) {
+		Nodo<K> nodo = porClave.remove(clave);
+		if (nodo == null) {
+			return false;
+		}
+		if (nodo.ranuras != null) {
+			desenlazar(nodo);
+		} else {
+			vencidos.remove(clave);
+		}
+		return true;
+	}
+
+	/**
+	 * Avanza la rueda hasta el instante indicado.
+	 *
+	 * @return Claves cuyo vencimiento ha pasado, en orden de vencimiento
+	 *         aproximado (por tick). Ya no quedan programadas.
+	 */
+	public synchronized List<K> avanzar(long ahoraMs) {
+		List<K> resultado = new ArrayList<>(vencidos);
+		vencidos.forEach(porClave::remove);
+		vencidos.clear();
+
+		long objetivo = ahoraMs / msPorTick;
+		while (tickActual < objetivo) {
+			tickActual++;
+			// Primero los niveles altos: lo que bajan puede caer en una ranura de un
+			// nivel inferior que también toca repartir ahora
+			for (int nivel = niveles.length - 1; nivel > 0; nivel--) {
+				if ((tickActual & ((1L << (BITS_RANURA * nivel)) - 1)) == 0) {
+					recolocar(niveles[nivel], (int) ((tickActual >>> (BITS_RANURA * nivel)) & MASCARA));
+				}
+			}
+			Nodo<K>[] nivel0 = niveles[0];
+			int ranura = (int) (tickActual & MASCARA);
+			for (Nodo<K> nodo = vaciar(nivel0, ranura); nodo != null; nodo = nodo.siguiente) {
+				porClave.remove(nodo.clave);
+				resultado.add(nodo.clave);
+			}
+			resultado.addAll(vencidos);
+			vencidos.forEach(porClave::remove);
+			vencidos.clear();
+		}
+		return resultado;
+	}
+
+	/**
+	 * Número de temporizadores pendientes.
+	 */
+	public synchronized int tamano() {
+		return porClave.size();
+	}
+
+	public synchronized boolean contiene(K clave) {
+		return porClave.containsKey(clave);
+	}
+
+	private void colocar(Nodo<K> nodo) {
+		long delta = nodo.tick - tickActual;
+		if (delta <= 0) {
+			nodo.ranuras = null;
+			vencidos.add(nodo.clave);
+			return;
+		}
+		for (int nivel = 0; nivel < niveles.length; nivel++) {
+			if (delta < 1L << (BITS_RANURA * (nivel + 1))) {
+				enlazar(nodo, niveles[nivel], (int) ((nodo.tick >>> (BITS_RANURA * nivel)) & MASCARA));
+				return;
+			}
+		}
+		// Más allá del alcance: a la ranura del último nivel que se reparte más tarde
+		int ultimo = niveles.length - 1;
+		enlazar(nodo, niveles[ultimo], (int) (((tickActual >>> (BITS_RANURA * ultimo)) - 1) & MASCARA));
+	}
+
+	private void recolocar(Nodo<K>[] ranuras, int ranura) {
+		Nodo<K> nodo = vaciar(ranuras, ranura);
+		while (nodo != null) {
+			Nodo<K> siguiente = nodo.siguiente;
+			colocar(nodo);
+			nodo = siguiente;
+		}
+	}
+
+	/**
+	 * Desengancha la lista entera de la ranura y la devuelve (sus nodos siguen
+	 * enlazados entre sí por siguiente).
+	 */
+	private Nodo<K> vaciar(Nodo<K>[] ranuras, int ranura) {
+		Nodo<K> primero = ranuras[ranura];
+		ranuras[ranura] = null;
+		for (Nodo<K> nodo = primero; nodo != null; nodo = nodo.siguiente) {
+			nodo.ranuras = null;
+			nodo.anterior = null;
+		}
+		return primero;
+	}
+
+	private void enlazar(Nodo<K> nodo, Nodo<K>[] ranuras, int ranura) {
+		nodo.ranuras = ranuras;
+		nodo.ranura = ranura;
+		nodo.anterior = null;
+		nodo.siguiente = ranuras[ranura];
+		if (nodo.siguiente != null) {
+			nodo.siguiente.anterior = nodo;
+		}
+		ranuras[ranura] = nodo;
+	}
+
+	private void desenlazar(Nodo<K> nodo) {
+		if (nodo.anterior != null) {
+			nodo.anterior.siguiente = nodo.siguiente;
+		} else {
+			nodo.ranuras[nodo.ranura] = nodo.siguiente;
+		}
+		if (nodo.siguiente != null) {
+			nodo.siguiente.anterior = nodo.anterior;
+		}
+		nodo.ranuras = null;
+		nodo.anterior = nodo.siguiente = null;
+	}
+}
@@ -1,9 +1,23 @@
 package util;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import util.metricas.Medicion;
+import util.metricas.Metricas;
 
 /**
  * Se usa para leer/escribir listas de objetos serializables en archivos.
@@ -11,12 +25,290 @@ import java.util.List;
  * - Usa un enfoque read-modify-write (ideal para acceso secuencial). - Realiza
  * escritura atómica (escribe a temp file y luego mueve). - Intenta bloquear el
  * archivo durante la operación de escritura para evitar corrupciones.
+ *
+ * Si se configura un AlmacenDatos (modo cliente/servidor) los ficheros no se
+ * tocan en local: se leen y escriben en el almacén por su nombre. En ese modo
+ * cada hilo recuerda la versión de cada fichero que leyó por última vez y la
+ * envía al guardar, de modo que un read-modify-write que se cruza con el de
+ * otro cliente falla con ConflictoVersionException en lugar de pisarlo.
+ *
+ * Dentro de un mismo proceso los DAOs serializan sus read-modify-write por
+ * fichero con bloquearFichero().
+ *
+ * Un hilo puede abrir un lote (iniciarLote): hasta confirmarLote() sus
+ * escrituras se retienen en memoria (ya serializadas) y sus lecturas de esos
+ * ficheros devuelven lo retenido; al confirmar, cada fichero se escribe una sola
+ * vez. Mientras el lote está abierto los ficheros que ha tocado quedan
+ * bloqueados para los demás hilos.
+ *
+ * Lecturas: cada fichero se mantiene en memoria como una Instantanea inmutable
+ * (el contenido serializado y una versión). Una escritura publica una
+ * instantánea nueva de golpe tras mover el fichero, así que quien lee obtiene
+ * siempre una versión completa, nunca a medio escribir, y sin esperar a nadie.
+ * En modo local cada lectura compara la fecha de modificación, el tamaño y el
+ * inodo del fichero con los de la instantánea (Sello) y solo vuelve a leerlo si
+ * otro proceso lo ha cambiado; en modo cliente/servidor se pregunta la versión
+ * al almacén en cada lectura y solo se descarga el contenido si ha cambiado.
+ *
+ * En los dos modos guardarLista() falla con ConflictoVersionException si el
+ * fichero ha cambiado desde que este hilo lo leyó con leerLista(). En local la
+ * comprobación y el cambio de fichero se hacen con un cerrojo del sistema
+ * operativo (fichero .lock), así que otro proceso que comparta DATA_DIR no puede
+ * colarse entre medias.
  */
+@SuppressWarnings("try")
 public final class Serializador {
 
+	/** Versión registrada cuando la última lectura falló: no se permite guardar encima. */
+	private static final long LECTURA_FALLIDA = -2;
+
+	private static volatile AlmacenDatos almacen;
+
+	private static final ThreadLocal<Map<String, Long>> VERSIONES_LEIDAS = ThreadLocal.withInitial(HashMap::new);
+
+	private static final CerrojosSegmentados CERROJOS_FICHEROS = new CerrojosSegmentados(64);
+
+	private static final ThreadLocal<Lote> LOTE = new ThreadLocal<>();
+
+	/** Última instantánea publicada de cada fichero (por ruta). */
+	private static final Map<String, Instantanea<?>> INSTANTANEAS = new ConcurrentHashMap<>();
+
+	/** Versiones de las instantáneas en modo local: cada carga del disco o escritura, una más. */
+	private static final AtomicLong VERSIONES_LOCALES = new AtomicLong();
+
+	/** En modo local, cómo estaba en disco cada fichero de INSTANTANEAS al cargarlo o escribirlo. */
+	private static final Map<String, Sello> SELLOS = new ConcurrentHashMap<>();
+
+	/**
+	 * Identifica una versión de un fichero en disco sin leerlo: la escritura
+	 * atómica (temporal + move) cambia el inodo, y cualquier otra cambia la fecha
+	 * o el tamaño.
+	 */
+	private static final class Sello {
+
+		private final Object clave;
+		private final Object modificado;
+		private final long tamano;
+
+		private Sello(Object clave, Object modificado, long tamano) {
+			this.clave = clave;
+			this.modificado = modificado;
+			this.tamano = tamano;
+		}
+
+		static Sello de(Path p) throws IOException {
+			try {
+				BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+				return new Sello(a.fileKey(), a.lastModifiedTime(), a.size());
+			} catch (NoSuchFileException e) {
+				return new Sello(null, null, -1);
+			}
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Sello otro && Objects.equals(clave, otro.clave)
+					&& Objects.equals(modificado, otro.modificado) && tamano == otro.tamano;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(clave, modificado, tamano);
+		}
+	}
+
+	/**
+	 * Escrituras retenidas por un lote abierto y cerrojos de los ficheros que ha
+	 * tocado.
+	 */
+	private static final class Lote {
+
+		/** Contenido serializado por fichero; null si se ha borrado. */
+		private final Map<String, byte[]> contenidos = new LinkedHashMap<>();
+		private final Map<String, Integer> registros = new HashMap<>();
+		private final Map<String, Boolean> comprobarVersion = new HashMap<>();
+		private final List<CerrojosSegmentados.Bloqueo> bloqueos = new ArrayList<>();
+		private final Map<String, Boolean> bloqueados = new HashMap<>();
+		/** Instantáneas de lo retenido, para no deserializarlo en cada instantanea(). */
+		private final Map<String, Instantanea<?>> instantaneas = new HashMap<>();
+
+		void bloquear(String path) {
+			if (bloqueados.putIfAbsent(path, Boolean.TRUE) == null) {
+				bloqueos.add(bloquearFichero(path));
+			}
+		}
+
+		void retener(String path, byte[] contenido, int numRegistros, boolean comprobar) {
+			bloquear(path);
+			contenidos.put(path, contenido);
+			instantaneas.remove(path);
+			registros.put(path, numRegistros);
+			// Basta con que una de las escrituras del lote dependiera de lo leído
+			comprobarVersion.merge(path, comprobar, Boolean::logicalOr);
+		}
+
+		void liberar() {
+			for (int i = bloqueos.size() - 1; i >= 0; i--) {
+				bloqueos.get(i).close();
+			}
+		}
+	}
+
+	/**
+	 * Lo retenido por un lote en un momento dado (marcarLote), para volver a ello
+	 * o ver qué ficheros se han tocado desde entonces. Los contenidos no se copian:
+	 * cada retención guarda un array nuevo.
+	 */
+	public static final class MarcaLote {
+
+		private final Map<String, byte[]> contenidos;
+		private final Map<String, Integer> registros;
+		private final Map<String, Boolean> comprobarVersion;
+
+		private MarcaLote(Lote lote) {
+			this.contenidos = new LinkedHashMap<>(lote.contenidos);
+			this.registros = new HashMap<>(lote.registros);
+			this.comprobarVersion = new HashMap<>(lote.comprobarVersion);
+		}
+	}
+
 	private Serializador() {
 	}
 
+	/**
+	 * Hace que todas las lecturas y escrituras vayan al almacén indicado en lugar
+	 * de a los ficheros locales. Con null se vuelve a los ficheros locales.
+	 */
+	public static void configurarAlmacen(AlmacenDatos nuevoAlmacen) {
+		almacen = nuevoAlmacen;
+		// Las instantáneas eran del almacén anterior
+		INSTANTANEAS.clear();
+	}
+
+	/**
+	 * Si los datos están en un almacén (modo cliente/servidor) en lugar de en los
+	 * ficheros locales.
+	 */
+	public static boolean esRemoto() {
+		return almacen != null;
+	}
+
+	/**
+	 * Bloquea el fichero frente a otros hilos de este proceso. Los DAOs lo toman
+	 * alrededor de cada read-modify-write (leerLista, cambio, guardarLista) para
+	 * que dos escrituras simultáneas sobre registros distintos no se pierdan una a
+	 * la otra. Entre procesos distintos esa protección la da la comprobación de
+	 * versión del modo cliente/servidor.
+	 */
+	public static CerrojosSegmentados.Bloqueo bloquearFichero(String path) {
+		return CERROJOS_FICHEROS.bloquear(path);
+	}
+
+	/**
+	 * Abre un lote en el hilo actual: las escrituras siguientes se retienen hasta
+	 * confirmarLote() o descartarLote().
+	 */
+	public static void iniciarLote() {
+		if (LOTE.get() != null) {
+			throw new IllegalStateException("Ya hay un lote abierto en este hilo.");
+		}
+		LOTE.set(new Lote());
+	}
+
+	/**
+	 * Marca lo retenido hasta ahora por el lote del hilo actual.
+	 */
+	public static MarcaLote marcarLote() {
+		return new MarcaLote(loteAbierto());
+	}
+
+	/**
+	 * Deshace lo retenido por el lote desde la marca (los ficheros siguen
+	 * bloqueados hasta cerrar el lote).
+	 */
+	public static void volverAMarca(MarcaLote marca) {
+		Lote lote = loteAbierto();
+		lote.contenidos.clear();
+		lote.contenidos.putAll(marca.contenidos);
+		lote.registros.clear();
+		lote.registros.putAll(marca.registros);
+		lote.comprobarVersion.clear();
+		lote.comprobarVersion.putAll(marca.comprobarVersion);
+		lote.instantaneas.clear();
+	}
+
+	/**
+	 * Ficheros que el lote ha retenido (escrito o borrado) desde la marca.
+	 */
+	public static Set<String> ficherosDesde(MarcaLote marca) {
+		Set<String> ficheros = new HashSet<>();
+		loteAbierto().contenidos.forEach((path, contenido) -> {
+			if (!marca.contenidos.containsKey(path) || marca.contenidos.get(path) != contenido) {
+				ficheros.add(path);
+			}
+		});
+		return ficheros;
+	}
+
+	private static Lote loteAbierto() {
+		Lote lote = LOTE.get();
+		if (lote == null) {
+			throw new IllegalStateException("No hay ningún lote abierto en este hilo.");
+		}
+		return lote;
+	}
+
+	/**
+	 * Escribe (una vez por fichero) todo lo retenido en el lote y lo cierra. Los
+	 * ficheros derivados (Constantes.FICHEROS_DERIVADOS) se escriben los últimos,
+	 * así que si falla uno de ellos los demás ya están guardados. Si falla, lo que
+	 * no llegó a escribirse se pierde y el lote queda cerrado igual.
+	 *
+	 * @throws LoteIncompletoException si falla después de haber escrito algún
+	 *                                 fichero. Con cualquier otra IOException no
+	 *                                 se ha escrito nada.
+	 */
+	public static void confirmarLote() throws IOException {
+		Lote lote = LOTE.get();
+		if (lote == null) {
+			throw new IllegalStateException("No hay ningún lote abierto en este hilo.");
+		}
+		List<String> pendientes = new ArrayList<>(lote.contenidos.keySet());
+		pendientes.sort(Comparator.comparing(Constantes.FICHEROS_DERIVADOS::contains));
+		List<String> escritos = new ArrayList<>();
+		try {
+			while (!pendientes.isEmpty()) {
+				String path = pendientes.get(0);
+				byte[] contenido = lote.contenidos.get(path);
+				if (contenido == null) {
+					borrarFichero(path);
+				} else {
+					escribir(path, contenido, lote.registros.get(path), lote.comprobarVersion.get(path));
+				}
+				escritos.add(pendientes.remove(0));
+			}
+		} catch (IOException e) {
+			if (escritos.isEmpty()) {
+				throw e;
+			}
+			throw new LoteIncompletoException(escritos, pendientes, e);
+		} finally {
+			LOTE.remove();
+			lote.liberar();
+		}
+	}
+
+	/**
+	 * Cierra el lote del hilo actual sin escribir nada.
+	 */
+	public static void descartarLote() {
+		Lote lote = LOTE.get();
+		if (lote != null) {
+			LOTE.remove();
+			lote.liberar();
+		}
+	}
+
 	/**
 	 * Asegura que exista la carpeta DATA_DIR.
 	 */
@@ -30,69 +322,438 @@ public final class Serializador {
 	 * Lee una lista de objetos desde el archivo serializado. Si el archivo no
 	 * existe o está vacío devuelve una lista vacía.
 	 *
+	 * La lista y sus objetos son una copia propia del que llama (se pueden
+	 * modificar y volver a guardar). Para solo consultar es más barato
+	 * instantanea().
+	 *
 	 * @param path ruta del archivo (ej. Constantes.TICKETS_FILE)
 	 * @param <T>  tipo de los elementos de la lista
-	 * @return List<T> (nunca null). Devuelve lista vacía en caso de error o si no
-	 *         existe el archivo.
+	 * @return List<T> (nunca null). Devuelve lista vacía si no existe el archivo
+	 *         o si no se ha podido cargar nunca (error de disco o del servidor de
+	 *         datos); una vez cargado, una escritura en curso no afecta a la
+	 *         lectura.
 	 */
-	@SuppressWarnings("unchecked") // Porque en tiempo de ejecución (runtime) Java no sabe realmente de qué tipo es
-									// la lista que estamos leyendo del archivo
 	public static <T> List<T> leerLista(String path) {
-		try {
-			asegurarDirectorioDatos();
-
-			Path p = Paths.get(path);
-			if (Files.notExists(p) || Files.size(p) == 0) {
-				return new ArrayList<>();
-			}
-
-			try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(p)))) {
-				return (List<T>) ois.readObject();
+		Lote lote = LOTE.get();
+		if (lote != null) {
+			lote.bloquear(path);
+			if (lote.contenidos.containsKey(path)) {
+				return leerRetenida(path, lote.contenidos.get(path));
 			}
-		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+		}
+		try {
+			Instantanea<T> instantanea = obtenerInstantanea(path, true);
+			return instantanea.copiar();
+		} catch (IOException | IllegalStateException e) {
 			System.err.println("Error al leer o procesar el archivo: " + path + ". Se devuelve una lista vacía. Causa: "
 					+ e.getMessage());
 			return new ArrayList<>();
 		}
 	}
 
+	/**
+	 * Última versión publicada del fichero, para consultas de solo lectura: no se
+	 * copia nada y no espera a las escrituras en curso. Dentro de un lote devuelve
+	 * lo retenido por el lote.
+	 *
+	 * No cuenta como lectura para el control de versiones en modo
+	 * cliente/servidor: para leer, modificar y guardar hay que usar leerLista().
+	 *
+	 * @return Nunca null. Si el fichero no se ha podido cargar, una instantánea
+	 *         vacía (que no se guarda, así que la siguiente llamada lo reintenta).
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Instantanea<T> instantanea(String path) {
+		Lote lote = LOTE.get();
+		if (lote != null && lote.contenidos.containsKey(path)) {
+			return (Instantanea<T>) lote.instantaneas.computeIfAbsent(path, p -> {
+				byte[] contenido = lote.contenidos.get(p);
+				return new Instantanea<>(0, contenido, contenido != null);
+			});
+		}
+		try {
+			return obtenerInstantanea(path, false);
+		} catch (IOException | IllegalStateException e) {
+			System.err.println("Error al leer o procesar el archivo: " + path + ". Se consulta como vacío. Causa: "
+					+ e.getMessage());
+			return new Instantanea<>(-1, null, false);
+		}
+	}
+
 	/**
 	 * Guarda una lista de objetos serializables en el archivo indicado.
 	 *
 	 * @param path  Ruta del archivo donde se guardará la lista.
 	 * @param lista Lista de objetos a guardar.
+	 * @throws ConflictoVersionException en modo cliente/servidor, si otro cliente
+	 *                                   ha modificado el fichero desde que este
+	 *                                   hilo lo leyó.
 	 */
 	public static <T extends Serializable> void guardarLista(String path, List<T> lista) throws IOException {
-		asegurarDirectorioDatos();
-		Path filePath = Paths.get(path);
-		Path tempPath = Paths.get(path + Constantes.TEMP_SUFFIX);
+		guardar(path, lista, true);
+	}
 
-		try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(tempPath))) {
-			oos.writeObject(lista);
-			Files.move(tempPath, filePath, StandardCopyOption.REPLACE_EXISTING);
+	/**
+	 * Como guardarLista, pero sin comprobar la versión en modo cliente/servidor.
+	 * Para escrituras que no dependen de lo que hubiera antes en el fichero (p.
+	 * ej. reconstruir una vista completa desde otros ficheros).
+	 */
+	public static <T extends Serializable> void sobrescribirLista(String path, List<T> lista) throws IOException {
+		guardar(path, lista, false);
+	}
+
+	/**
+	 * Indica si el fichero existe (en local o en el almacén configurado).
+	 */
+	public static boolean existe(String path) {
+		Lote lote = LOTE.get();
+		if (lote != null && lote.contenidos.containsKey(path)) {
+			return lote.contenidos.get(path) != null;
+		}
+		AlmacenDatos remoto = almacen;
+		if (remoto == null) {
+			return Files.exists(Paths.get(path));
+		}
+		try {
+			return remoto.leer(nombreFichero(path)).existe();
+		} catch (IOException e) {
+			System.err.println("No se pudo consultar el fichero " + path + " en el servidor de datos. Causa: "
+					+ e.getMessage());
+			// Ante la duda se considera que existe, para no disparar reconstrucciones
+			return true;
+		}
+	}
+
+	/**
+	 * Borra el fichero (en local o en el almacén configurado) si existe.
+	 */
+	public static void borrar(String path) throws IOException {
+		Lote lote = LOTE.get();
+		if (lote != null) {
+			lote.retener(path, null, 0, false);
+		} else {
+			borrarFichero(path);
+		}
+	}
+
+	private static void borrarFichero(String path) throws IOException {
+		AlmacenDatos remoto = almacen;
+		if (remoto == null) {
+			try (CerrojosSegmentados.Bloqueo b = bloquearFichero(path); CerrojoDisco cerrojo = CerrojoDisco.tomar(path)) {
+				Files.deleteIfExists(Paths.get(path));
+				SELLOS.put(path, Sello.de(Paths.get(path)));
+				publicar(path, new Instantanea<>(VERSIONES_LOCALES.incrementAndGet(), null, false));
+			}
+		} else {
+			remoto.borrar(nombreFichero(path));
+			VERSIONES_LEIDAS.get().remove(nombreFichero(path));
+			INSTANTANEAS.remove(path);
 		}
 	}
 
 	/**
 	 * Añade un objeto a la lista persistida (operación conveniente: lee lista,
-	 * añade elemento, escribe lista). NOTA: bajo concurrencia entre
-	 * procesos/instancias múltiples, esta operación no es transaccional.
+	 * añade elemento, escribe lista) con el fichero bloqueado. NOTA: bajo
+	 * concurrencia entre procesos/instancias múltiples, esta operación no es
+	 * transaccional salvo en modo cliente/servidor.
 	 *
 	 * @param <T>  tipo del objeto
 	 * @param path ruta del fichero
 	 * @param item objeto a añadir
 	 */
 	public static <T extends Serializable> void agregarABase(String path, T item) throws IOException {
-		List<T> lista = leerLista(path);
-		lista.add(item);
-		guardarLista(path, lista);
+		try (CerrojosSegmentados.Bloqueo b = bloquearFichero(path)) {
+			List<T> lista = leerLista(path);
+			lista.add(item);
+			guardarLista(path, lista);
+		}
 	}
 
 	/**
 	 * Elimina todos los datos (usa con precaución, útil para pruebas).
 	 */
 	public static <T extends Serializable> void vaciarArchivo(String path) throws IOException {
-		guardarLista(path, new ArrayList<T>());
+		sobrescribirLista(path, new ArrayList<T>());
+	}
+
+	private static <T extends Serializable> void guardar(String path, List<T> lista, boolean comprobarVersion)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+			oos.writeObject(lista);
+		}
+
+		Lote lote = LOTE.get();
+		if (lote != null) {
+			lote.retener(path, bytes.toByteArray(), lista.size(), comprobarVersion);
+			return;
+		}
+		escribir(path, bytes.toByteArray(), lista.size(), comprobarVersion);
+	}
+
+	private static void escribir(String path, byte[] contenido, int registros, boolean comprobarVersion)
+			throws IOException {
+		try (Medicion m = Metricas.medirPersistencia("Serializador.guardarLista[" + nombreFichero(path) + "]", path)) {
+			m.registros(registros);
+			m.sumarBytesEscritos(contenido.length);
+			AlmacenDatos remoto = almacen;
+			if (remoto != null) {
+				long version = guardarListaRemota(remoto, path, contenido, comprobarVersion);
+				publicar(path, new Instantanea<>(version, contenido, true));
+				return;
+			}
+
+			asegurarDirectorioDatos();
+			Path filePath = Paths.get(path);
+			// Temporal único por escritura: con un nombre fijo dos escrituras simultáneas
+			// del mismo fichero se pisan el temporal y una de ellas falla al moverlo
+			Path tempPath = Files.createTempFile(filePath.toAbsolutePath().getParent(), nombreFichero(path) + ".",
+					Constantes.TEMP_SUFFIX);
+			try (CerrojosSegmentados.Bloqueo b = bloquearFichero(path); CerrojoDisco cerrojo = CerrojoDisco.tomar(path)) {
+				if (comprobarVersion) {
+					comprobarVersionLocal(path);
+				}
+				Files.write(tempPath, contenido);
+				sustituir(tempPath, filePath);
+				// Con el fichero bloqueado, para que las versiones sigan el orden de los move
+				Instantanea<?> nueva = new Instantanea<>(VERSIONES_LOCALES.incrementAndGet(), contenido, true);
+				SELLOS.put(path, Sello.de(filePath));
+				publicar(path, nueva);
+				VERSIONES_LEIDAS.get().put(nombreFichero(path), nueva.getVersion());
+			} finally {
+				Files.deleteIfExists(tempPath);
+			}
+		}
+	}
+
+	/**
+	 * Pone el temporal en lugar del fichero con un rename atómico. Con
+	 * REPLACE_EXISTING solo, Java borra primero el fichero y luego renombra: otro
+	 * proceso que lea entre medias no lo encuentra y lo toma por vacío.
+	 */
+	public static void sustituir(Path temporal, Path destino) throws IOException {
+		try {
+			Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Falla si el fichero ha cambiado (en este proceso o en otro) desde que este
+	 * hilo lo leyó con leerLista(). Se llama con el fichero bloqueado.
+	 */
+	private static void comprobarVersionLocal(String path) throws IOException {
+		String fichero = nombreFichero(path);
+		Map<String, Long> versiones = VERSIONES_LEIDAS.get();
+		Long leida = versiones.get(fichero);
+		if (leida == null) {
+			return;
+		}
+		if (leida == LECTURA_FALLIDA) {
+			// Lo leído era una lista vacía de emergencia: guardarla borraría los datos
+			versiones.remove(fichero);
+			throw new IOException("No se guarda " + fichero + " porque no se pudo leer antes.");
+		}
+		long actual = obtenerInstantanea(path, false).getVersion();
+		if (actual != leida) {
+			versiones.remove(fichero);
+			throw new ConflictoVersionException(fichero, leida, actual);
+		}
+	}
+
+	/**
+	 * Cerrojo del sistema operativo sobre fichero.lock, para que otro proceso que
+	 * use la misma carpeta no escriba el fichero a la vez. Se toma después de
+	 * bloquearFichero(): dentro del proceso ya no hay dos hilos intentándolo con el
+	 * mismo fichero.
+	 */
+	private static final class CerrojoDisco implements AutoCloseable {
+
+		private final FileChannel canal;
+
+		private CerrojoDisco(FileChannel canal) {
+			this.canal = canal;
+		}
+
+		static CerrojoDisco tomar(String path) throws IOException {
+			asegurarDirectorioDatos();
+			FileChannel canal = FileChannel.open(Paths.get(path + ".lock"), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE);
+			try {
+				canal.lock();
+				return new CerrojoDisco(canal);
+			} catch (IOException | RuntimeException e) {
+				canal.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * Cerrar el canal suelta el cerrojo.
+		 */
+		@Override
+		public void close() throws IOException {
+			canal.close();
+		}
+	}
+
+	/**
+	 * Lectura de un fichero retenido en el lote: se deserializa de nuevo para que
+	 * quien lo modifique no toque los objetos retenidos.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> List<T> leerRetenida(String path, byte[] contenido) {
+		if (contenido == null) {
+			return new ArrayList<>();
+		}
+		try (ObjectInputStream ois = Instantanea.lector(contenido)) {
+			return (List<T>) ois.readObject();
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			// No debería pasar: el contenido lo acaba de serializar este mismo proceso
+			throw new IllegalStateException("No se pudo leer " + path + " retenido en el lote", e);
+		}
+	}
+
+	/**
+	 * Instantánea actual del fichero, cargándola si hace falta.
+	 *
+	 * @param registrarLectura En modo cliente/servidor, recordar la versión leída
+	 *                         para el siguiente guardarLista de este hilo.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Instantanea<T> obtenerInstantanea(String path, boolean registrarLectura) throws IOException {
+		AlmacenDatos remoto = almacen;
+		if (remoto != null) {
+			return (Instantanea<T>) instantaneaRemota(remoto, path, registrarLectura);
+		}
+		try {
+			Instantanea<?> actual = INSTANTANEAS.get(path);
+			Path p = Paths.get(path);
+			if (actual == null || !Sello.de(p).equals(SELLOS.get(path))) {
+				// Primera lectura o lo ha cambiado otro proceso: con el fichero bloqueado
+				// para no cruzarse con una escritura que publique una versión más nueva
+				try (CerrojosSegmentados.Bloqueo b = bloquearFichero(path)) {
+					actual = INSTANTANEAS.get(path);
+					if (actual == null || !Sello.de(p).equals(SELLOS.get(path))) {
+						actual = cargarDeDisco(path);
+					}
+				}
+			}
+			if (registrarLectura) {
+				VERSIONES_LEIDAS.get().put(nombreFichero(path), actual.getVersion());
+			}
+			return (Instantanea<T>) actual;
+		} catch (IOException | IllegalStateException e) {
+			if (registrarLectura) {
+				VERSIONES_LEIDAS.get().put(nombreFichero(path), LECTURA_FALLIDA);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Lee el fichero, lo publica como instantánea nueva y guarda su Sello. Se
+	 * llama con el fichero bloqueado.
+	 */
+	private static Instantanea<?> cargarDeDisco(String path) throws IOException {
+		try (Medicion m = Metricas.medirPersistencia("Serializador.leerLista[" + nombreFichero(path) + "]", path)) {
+			asegurarDirectorioDatos();
+			Path p = Paths.get(path);
+			for (;;) {
+				Sello antes = Sello.de(p);
+				byte[] contenido;
+				try {
+					contenido = Files.readAllBytes(p);
+				} catch (NoSuchFileException e) {
+					contenido = null;
+				}
+				// Si otro proceso lo ha sustituido mientras se leía, no se sabe de qué
+				// versión es lo leído: se vuelve a leer
+				if (!antes.equals(Sello.de(p))) {
+					continue;
+				}
+				Instantanea<?> instantanea = new Instantanea<>(VERSIONES_LOCALES.incrementAndGet(), contenido,
+						contenido != null);
+				if (contenido != null) {
+					m.sumarBytesLeidos(contenido.length);
+					// Se deserializa ya para no guardar un fichero corrupto como válido
+					m.registros(instantanea.getElementos().size());
+				}
+				SELLOS.put(path, antes);
+				INSTANTANEAS.put(path, instantanea);
+				return instantanea;
+			}
+		}
+	}
+
+	private static Instantanea<?> instantaneaRemota(AlmacenDatos remoto, String path, boolean registrarLectura)
+			throws IOException {
+		String fichero = nombreFichero(path);
+		try (Medicion m = Metricas.medirPersistencia("Serializador.leerLista[" + fichero + "]", path)) {
+			AlmacenDatos.Lectura lectura;
+			try {
+				lectura = remoto.leer(fichero);
+			} catch (IOException e) {
+				if (registrarLectura) {
+					VERSIONES_LEIDAS.get().put(fichero, LECTURA_FALLIDA);
+				}
+				throw e;
+			}
+			Instantanea<?> actual = INSTANTANEAS.get(path);
+			if (actual == null || actual.getVersion() != lectura.getVersion()) {
+				byte[] contenido = lectura.getContenido();
+				actual = new Instantanea<>(lectura.getVersion(), contenido, lectura.existe());
+				m.sumarBytesLeidos(actual.getTamanoBytes());
+				m.registros(actual.getElementos().size());
+				publicar(path, actual);
+			}
+			if (registrarLectura) {
+				VERSIONES_LEIDAS.get().put(fichero, lectura.getVersion());
+			}
+			return actual;
+		}
+	}
+
+	/**
+	 * Sustituye la instantánea del fichero salvo que ya haya una de versión más
+	 * nueva.
+	 */
+	private static void publicar(String path, Instantanea<?> nueva) {
+		INSTANTANEAS.merge(path, nueva, (vieja, n) -> n.getVersion() >= vieja.getVersion() ? n : vieja);
+	}
+
+	/**
+	 * @return Versión del fichero en el almacén tras guardarlo.
+	 */
+	private static long guardarListaRemota(AlmacenDatos remoto, String path, byte[] contenido,
+			boolean comprobarVersion) throws IOException {
+		String fichero = nombreFichero(path);
+		Map<String, Long> versiones = VERSIONES_LEIDAS.get();
+		long esperada = comprobarVersion ? versiones.getOrDefault(fichero, AlmacenDatos.SIN_COMPROBAR)
+				: AlmacenDatos.SIN_COMPROBAR;
+		if (esperada == LECTURA_FALLIDA) {
+			// Lo leído era una lista vacía de emergencia: guardarla borraría los datos
+			versiones.remove(fichero);
+			throw new IOException("No se guarda " + fichero + " porque no se pudo leer antes del servidor de datos.");
+		}
+
+		try {
+			long version = remoto.escribir(fichero, contenido, esperada);
+			versiones.put(fichero, version);
+			return version;
+		} catch (ConflictoVersionException e) {
+			versiones.remove(fichero);
+			throw e;
+		}
+	}
+
+	/**
+	 * Nombre del fichero sin la carpeta (para nombrar las métricas).
+	 */
+	private static String nombreFichero(String path) {
+		Path nombre = Paths.get(path).getFileName();
+		return nombre != null ? nombre.toString() : path;
 	}
 
 }
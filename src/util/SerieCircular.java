@@ -0,0 +1,96 @@
+package util;
+
+import java.io.Serializable;
+
+/**
+ * Serie temporal de contadores en un búfer circular: una cubeta por cada
+ * intervalo de segundosPorCubeta segundos, y solo las numCubetas más recientes.
+ * Al avanzar el tiempo las cubetas que salen de la ventana se reutilizan (se
+ * ponen a 0), así que ocupa siempre lo mismo: numCubetas enteros.
+ *
+ * Los instantes se dan en segundos desde una época cualquiera (siempre la
+ * misma); las cubetas se alinean a múltiplos de segundosPorCubeta.
+ *
+ * Segura entre hilos (métodos sincronizados).
+ */
+public final class SerieCircular implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long segundosPorCubeta;
+	private final int[] cubetas;
+	/** Índice absoluto (segundo / segundosPorCubeta) de la cubeta más reciente. */
+	private long ultima = Long.MIN_VALUE;
+
+	public SerieCircular(long segundosPorCubeta, int numCubetas) {
+		if (segundosPorCubeta <= 0 || numCubetas <= 0) {
+			throw new IllegalArgumentException("Serie no válida: " + numCubetas + " cubetas de " + segundosPorCubeta
+					+ " s");
+		}
+		this.segundosPorCubeta = segundosPorCubeta;
+		this.cubetas = new int[numCubetas];
+	}
+
+	public long getSegundosPorCubeta() {
+		return segundosPorCubeta;
+	}
+
+	public int getNumCubetas() {
+		return cubetas.length;
+	}
+
+	/**
+	 * Suma n a la cubeta del instante. Si es anterior a la ventana retenida se
+	 * descarta.
+	 */
+	public synchronized void sumar(long segundo, int n) {
+		long indice = Math.floorDiv(segundo, segundosPorCubeta);
+		if (ultima == Long.MIN_VALUE) {
+			ultima = indice;
+		} else if (indice > ultima) {
+			// Las cubetas que quedan fuera de la ventana pasan a ser las nuevas
+			long vaciar = Math.min(indice - ultima, cubetas.length);
+			for (long k = indice - vaciar + 1; k <= indice; k++) {
+				cubetas[posicion(k)] = 0;
+			}
+			ultima = indice;
+		} else if (indice <= ultima - cubetas.length) {
+			return;
+		}
+		cubetas[posicion(indice)] += n;
+	}
+
+	/**
+	 * Índice de la cubeta que contiene el instante.
+	 */
+	public long indice(long segundo) {
+		return Math.floorDiv(segundo, segundosPorCubeta);
+	}
+
+	/**
+	 * Primer índice de cubeta que sigue retenido (lo anterior ya se ha
+	 * reutilizado).
+	 */
+	public synchronized long primeraRetenida() {
+		return ultima == Long.MIN_VALUE ? Long.MIN_VALUE : ultima - cubetas.length + 1;
+	}
+
+	/**
+	 * Suma de las cubetas con índice en [desde, hasta). Las que no están
+	 * retenidas cuentan 0.
+	 */
+	public synchronized long suma(long desde, long hasta) {
+		if (ultima == Long.MIN_VALUE) {
+			return 0;
+		}
+		long total = 0;
+		for (long k = Math.max(desde, ultima - cubetas.length + 1); k < hasta && k <= ultima; k++) {
+			total += cubetas[posicion(k)];
+		}
+		return total;
+	}
+
+	private int posicion(long indice) {
+		return (int) Math.floorMod(indice, (long) cubetas.length);
+	}
+}
@@ -0,0 +1,38 @@
+package util.metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de JDK Flight Recorder emitido en cada lectura o escritura de un
+ * fichero de datos del Serializador. La duración la pone JFR (begin/commit), lo
+ * que permite cruzarla con las pausas de GC de la misma grabación.
+ */
+@Name("gestortickets.Persistencia")
+@Label("Persistencia")
+@Category({ "Gestor de Tickets", "Persistencia" })
+@Description("Lectura o escritura completa de un fichero de datos")
+@StackTrace(false)
+public class EventoPersistencia extends jdk.jfr.Event {
+
+	@Label("Operación")
+	String operacion;
+
+	@Label("Ruta")
+	String ruta;
+
+	@Label("Registros")
+	int registros;
+
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+	/** Solo los crea Metricas. */
+	EventoPersistencia() {
+	}
+}
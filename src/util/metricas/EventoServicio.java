@@ -0,0 +1,33 @@
+package util.metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento de JDK Flight Recorder emitido en cada operación de la capa de
+ * servicio (GestorTicket, GestorRespuesta, GestorUsuario).
+ */
+@Name("gestortickets.Servicio")
+@Label("Operación de servicio")
+@Category({ "Gestor de Tickets", "Servicio" })
+@Description("Operación de negocio con los ids implicados y su resultado")
+@StackTrace(false)
+public class EventoServicio extends jdk.jfr.Event {
+
+	@Label("Operación")
+	String operacion;
+
+	@Label("Ids")
+	String ids;
+
+	@Label("Resultado")
+	@Description("OK si terminó normalmente, ERROR si lanzó una excepción")
+	String resultado;
+
+	/** Solo los crea Metricas. */
+	EventoServicio() {
+	}
+}
@@ -0,0 +1,120 @@
+package util.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma log-lineal de valores no negativos (nanosegundos, segundos...).
+ * Cada potencia de dos se divide en SUBCUBETAS partes iguales, con lo que los
+ * percentiles tienen un error relativo menor del 1/SUBCUBETAS (12,5%) en
+ * cualquier rango. Registrar es un par de incrementos atómicos, sin bloqueos
+ * ni reservas de memoria, y consultar un percentil recorre un número fijo de
+ * cubetas.
+ */
+public final class Histograma {
+
+	private static final int BITS_SUBCUBETA = 3;
+	private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+	private static final int NUM_CUBETAS = (64 - BITS_SUBCUBETA) * SUBCUBETAS;
+
+	private final LongAdder cuenta = new LongAdder();
+	private final LongAdder suma = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+	private final AtomicLongArray cubetas = new AtomicLongArray(NUM_CUBETAS);
+
+	public Histograma() {
+	}
+
+	/**
+	 * Registra un valor (los negativos cuentan como 0).
+	 */
+	public void registrar(long valor) {
+		if (valor < 0) {
+			valor = 0;
+		}
+		cuenta.increment();
+		suma.add(valor);
+		cubetas.incrementAndGet(indiceCubeta(valor));
+		long actual = max.get();
+		while (valor > actual && !max.compareAndSet(actual, valor)) {
+			actual = max.get();
+		}
+	}
+
+	public long getCuenta() {
+		return cuenta.sum();
+	}
+
+	public long getSuma() {
+		return suma.sum();
+	}
+
+	public double getMedia() {
+		long n = cuenta.sum();
+		return n == 0 ? 0 : suma.sum() / (double) n;
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public void reiniciar() {
+		cuenta.reset();
+		suma.reset();
+		max.set(0);
+		for (int i = 0; i < NUM_CUBETAS; i++) {
+			cubetas.set(i, 0);
+		}
+	}
+
+	/**
+	 * Valor por debajo del cual está la fracción q de los registrados. Se
+	 * devuelve el límite superior de la cubeta, acotado por el máximo observado.
+	 */
+	public long percentil(double q) {
+		long[] copia = new long[NUM_CUBETAS];
+		long total = 0;
+		for (int i = 0; i < NUM_CUBETAS; i++) {
+			copia[i] = cubetas.get(i);
+			total += copia[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long objetivo = (long) Math.ceil(q * total);
+		long acumulado = 0;
+		for (int i = 0; i < NUM_CUBETAS; i++) {
+			acumulado += copia[i];
+			if (acumulado >= objetivo) {
+				return Math.min(limiteSuperior(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Cubeta de un valor: los valores pequeños (< SUBCUBETAS) van uno por cubeta;
+	 * el resto se agrupa por potencia de dos y, dentro de ella, por los
+	 * BITS_SUBCUBETA bits siguientes al más significativo.
+	 */
+	private static int indiceCubeta(long valor) {
+		if (valor < SUBCUBETAS) {
+			return (int) valor;
+		}
+		int exponente = 63 - Long.numberOfLeadingZeros(valor);
+		int sub = (int) (valor >>> (exponente - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+		return (exponente - BITS_SUBCUBETA + 1) * SUBCUBETAS + sub;
+	}
+
+	private static long limiteSuperior(int indice) {
+		if (indice < SUBCUBETAS) {
+			return indice;
+		}
+		int exponente = indice / SUBCUBETAS + BITS_SUBCUBETA - 1;
+		long sub = indice % SUBCUBETAS;
+		long ancho = 1L << (exponente - BITS_SUBCUBETA);
+		return (1L << exponente) + (sub + 1) * ancho - 1;
+	}
+}
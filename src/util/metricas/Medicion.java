@@ -0,0 +1,86 @@
+package util.metricas;
+
+/**
+ * Una llamada en curso de una operación medida. Se usa con try-with-resources
+ * para que la latencia se registre también cuando la operación lanza una
+ * excepción:
+ *
+ * <pre>
+ * try (Medicion m = Metricas.medir("TicketDAO.findAll")) {
+ * 	...
+ * }
+ * </pre>
+ *
+ * Cuando el cuerpo no usa m, javac avisa con -Xlint:try; las clases que miden
+ * así llevan @SuppressWarnings("try").
+ *
+ * Las mediciones de servicio y de persistencia emiten además un evento de JFR
+ * (EventoServicio / EventoPersistencia). Si no hay ninguna grabación activa el
+ * evento no se confirma y su coste es prácticamente nulo.
+ */
+public final class Medicion implements AutoCloseable {
+
+	private final MetricaOperacion metrica;
+	private final long inicio;
+	private final EventoServicio eventoServicio;
+	private final EventoPersistencia eventoPersistencia;
+	private boolean exito;
+
+	Medicion(MetricaOperacion metrica, EventoServicio eventoServicio, EventoPersistencia eventoPersistencia) {
+		this.metrica = metrica;
+		this.eventoServicio = eventoServicio;
+		this.eventoPersistencia = eventoPersistencia;
+		if (eventoServicio != null) {
+			eventoServicio.begin();
+		}
+		if (eventoPersistencia != null) {
+			eventoPersistencia.begin();
+		}
+		this.inicio = System.nanoTime();
+	}
+
+	public void sumarBytesLeidos(long bytes) {
+		metrica.sumarBytesLeidos(bytes);
+		if (eventoPersistencia != null) {
+			eventoPersistencia.bytes += bytes;
+		}
+	}
+
+	public void sumarBytesEscritos(long bytes) {
+		metrica.sumarBytesEscritos(bytes);
+		if (eventoPersistencia != null) {
+			eventoPersistencia.bytes += bytes;
+		}
+	}
+
+	/**
+	 * Número de registros leídos o escritos (solo para persistencia).
+	 */
+	public void registros(int registros) {
+		if (eventoPersistencia != null) {
+			eventoPersistencia.registros = registros;
+		}
+	}
+
+	/**
+	 * Marca la operación como terminada con éxito y devuelve el valor recibido,
+	 * para poder escribir {@code return m.ok(ticket);}. Si la medición se cierra
+	 * sin haber pasado por aquí, el evento queda con resultado ERROR.
+	 */
+	public <T> T ok(T valor) {
+		exito = true;
+		return valor;
+	}
+
+	@Override
+	public void close() {
+		metrica.registrar(System.nanoTime() - inicio);
+		if (eventoServicio != null && eventoServicio.shouldCommit()) {
+			eventoServicio.resultado = exito ? "OK" : "ERROR";
+			eventoServicio.commit();
+		}
+		if (eventoPersistencia != null && eventoPersistencia.shouldCommit()) {
+			eventoPersistencia.commit();
+		}
+	}
+}
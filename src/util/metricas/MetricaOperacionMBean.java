@@ -0,0 +1,28 @@
+package util.metricas;
+
+/**
+ * Interfaz JMX de una operación medida (un método de DAO, de servicio o una
+ * lectura/escritura del Serializador). Las latencias se exponen en
+ * microsegundos.
+ */
+public interface MetricaOperacionMBean {
+
+	long getLlamadas();
+
+	long getBytesLeidos();
+
+	long getBytesEscritos();
+
+	double getLatenciaMediaMicros();
+
+	double getLatenciaP50Micros();
+
+	double getLatenciaP99Micros();
+
+	double getLatenciaMaxMicros();
+
+	/**
+	 * Pone a cero todos los contadores de la operación.
+	 */
+	void reiniciar();
+}
@@ -0,0 +1,100 @@
+package util.metricas;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registro de las métricas de operaciones de la aplicación. Cada operación se
+ * crea la primera vez que se mide y se publica como MBean en el servidor de
+ * MBeans de la plataforma, bajo gestortickets:type=Operacion,name=...
+ * (visible con jconsole o VisualVM).
+ *
+ * Mientras no se llama a ninguna operación el coste es nulo: no hay hilos ni
+ * muestreo, solo contadores que se incrementan al medir.
+ */
+public final class Metricas {
+
+	private static final String DOMINIO = "gestortickets";
+
+	private static final Map<String, MetricaOperacion> OPERACIONES = new ConcurrentHashMap<>();
+
+	private Metricas() {
+	}
+
+	/**
+	 * Empieza a medir una llamada a la operación indicada (p. ej.
+	 * "TicketDAO.findById").
+	 */
+	public static Medicion medir(String operacion) {
+		return operacion(operacion).iniciar();
+	}
+
+	/**
+	 * Igual que medir, pero emite además un EventoServicio de JFR con los ids
+	 * implicados y el resultado (ver Medicion#ok).
+	 */
+	public static Medicion medirServicio(String operacion, String... ids) {
+		EventoServicio evento = new EventoServicio();
+		if (evento.isEnabled()) {
+			evento.operacion = operacion;
+			evento.ids = String.join(",", Arrays.stream(ids).map(String::valueOf).toArray(String[]::new));
+		}
+		return new Medicion(operacion(operacion), evento, null);
+	}
+
+	/**
+	 * Igual que medir, pero emite además un EventoPersistencia de JFR con la ruta,
+	 * los registros y los bytes (ver Medicion#registros y Medicion#sumarBytes*).
+	 */
+	public static Medicion medirPersistencia(String operacion, String ruta) {
+		EventoPersistencia evento = new EventoPersistencia();
+		if (evento.isEnabled()) {
+			evento.operacion = operacion;
+			evento.ruta = ruta;
+		}
+		return new Medicion(operacion(operacion), null, evento);
+	}
+
+	/**
+	 * Devuelve la métrica de una operación, creándola y registrándola en JMX si es
+	 * la primera vez.
+	 */
+	public static MetricaOperacion operacion(String nombre) {
+		MetricaOperacion metrica = OPERACIONES.get(nombre);
+		if (metrica != null) {
+			return metrica;
+		}
+		return OPERACIONES.computeIfAbsent(nombre, n -> {
+			MetricaOperacion nueva = new MetricaOperacion(n);
+			registrarEnJmx(nueva);
+			return nueva;
+		});
+	}
+
+	/**
+	 * Copia de solo lectura de todas las operaciones medidas hasta ahora.
+	 */
+	public static Map<String, MetricaOperacion> todas() {
+		return Map.copyOf(OPERACIONES);
+	}
+
+	private static void registrarEnJmx(MetricaOperacion metrica) {
+		try {
+			MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+			ObjectName nombre = new ObjectName(DOMINIO + ":type=Operacion,name=" + ObjectName.quote(metrica.getNombre()));
+			if (!servidor.isRegistered(nombre)) {
+				servidor.registerMBean(metrica, nombre);
+			}
+		} catch (JMException | SecurityException e) {
+			// Sin JMX la métrica sigue funcionando, solo que no se publica
+			System.err.println("No se pudo registrar la métrica " + metrica.getNombre() + " en JMX. Causa: "
+					+ e.getMessage());
+		}
+	}
+}
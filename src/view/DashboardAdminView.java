@@ -3,36 +3,46 @@ package view;
 import controller.TecnicoDAO;
 import controller.TicketDAO;
 import controller.UsuarioDAO;
+import model.ContadorTickets;
 import model.Tecnico;
 import model.Ticket;
+import model.TicketResumen;
 import model.Usuario;
+import service.CargaTecnicos;
+import service.DuplicadosTickets;
+import service.EstadisticasTickets;
 import service.GestorTicket;
 import service.GestorUsuario;
+import service.MotorSla;
+import service.SeriesTickets;
 import service.exceptions.UserException;
 import service.exceptions.TicketException;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 public class DashboardAdminView extends JFrame {
 
 	private static final long serialVersionUID = 1L;
 
 	private final Usuario admin;
-	private final GestorTicket gestorTickets;
-	private final GestorUsuario gestorUsuario;
-	private final UsuarioDAO usuarioDAO;
-	private final TecnicoDAO tecnicoDAO;
+	private final transient GestorTicket gestorTickets;
+	private final transient GestorUsuario gestorUsuario;
+	private final transient UsuarioDAO usuarioDAO;
+	private final transient TecnicoDAO tecnicoDAO;
+	private final transient TicketDAO ticketDAO;
 
 	private JTable ticketsTable, usuariosTable, tecnicosTable;
-	private DefaultTableModel ticketsTableModel, usuariosTableModel, tecnicosTableModel;
+	private DefaultTableModel ticketsTableModel, usuariosTableModel, tecnicosTableModel, avisosTableModel;
+	private DefaultTableModel porEstadoTableModel, porCategoriaTableModel, porTecnicoTableModel, duplicadosTableModel;
+	private JLabel resolucionLabel, ritmoLabel;
 
 	public DashboardAdminView(Usuario admin) {
 		this.admin = admin;
@@ -40,6 +50,7 @@ public class DashboardAdminView extends JFrame {
 		this.gestorUsuario = new GestorUsuario();
 		this.usuarioDAO = new UsuarioDAO();
 		this.tecnicoDAO = new TecnicoDAO();
+		this.ticketDAO = new TicketDAO();
 
 		setTitle("Dashboard de Administrador - " + admin.getNombre());
 		setSize(1000, 700);
@@ -51,6 +62,19 @@ public class DashboardAdminView extends JFrame {
 		tabbedPane.addTab("Gestionar Tickets", createTicketsPanel());
 		tabbedPane.addTab("Gestionar Usuarios", createUsersPanel());
 		tabbedPane.addTab("Gestionar Técnicos", createTechsPanel());
+		tabbedPane.addTab("Avisos SLA", createAvisosSlaPanel());
+		JPanel estadisticasPanel = createEstadisticasPanel();
+		tabbedPane.addTab("Estadísticas", estadisticasPanel);
+		JPanel duplicadosPanel = createDuplicadosPanel();
+		tabbedPane.addTab("Duplicados", duplicadosPanel);
+		// Se recalculan al entrar en la pestaña (leerlas no recorre los tickets)
+		tabbedPane.addChangeListener(e -> {
+			if (tabbedPane.getSelectedComponent() == estadisticasPanel) {
+				cargarEstadisticas();
+			} else if (tabbedPane.getSelectedComponent() == duplicadosPanel) {
+				cargarDuplicados();
+			}
+		});
 
 		add(tabbedPane);
 
@@ -58,6 +82,14 @@ public class DashboardAdminView extends JFrame {
 		cargarTodosLosTickets();
 		cargarTodosLosUsuarios();
 		cargarTodosLosTecnicos();
+
+		// Cada escalado llega desde el hilo escritor: se pinta en el de Swing
+		MotorSla.avisosRecientes().forEach(aviso -> avisosTableModel.addRow(filaAvisoSla(aviso)));
+		MotorSla.alEscalar(aviso -> SwingUtilities.invokeLater(() -> {
+			avisosTableModel.insertRow(0, filaAvisoSla(aviso));
+			cargarTodosLosTickets();
+			cargarTodosLosTecnicos();
+		}));
 	}
 
 	private JPanel createTicketsPanel() {
@@ -86,13 +118,17 @@ public class DashboardAdminView extends JFrame {
             }
 
             String ticketId = (String) ticketsTableModel.getValueAt(selectedRow, 0);
-            List<Tecnico> tecnicos = tecnicoDAO.findAll();
+            // Los menos cargados primero, con la carga en vivo
+            List<Tecnico> tecnicos = CargaTecnicos.aplicar(tecnicoDAO.findAll());
+            tecnicos.sort(Comparator.comparingInt(Tecnico::getCargaTrabajo));
             if (tecnicos.isEmpty()) {
                 JOptionPane.showMessageDialog(this, "No hay técnicos disponibles para asignar el ticket.", "Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
 
-            String[] tecnicosNombres = tecnicos.stream().map(t -> t.getNombre() + " (ID: " + t.getId() + ")").toArray(String[]::new);
+            String[] tecnicosNombres = tecnicos.stream()
+                    .map(t -> t.getNombre() + " [carga " + t.getCargaTrabajo() + "] (ID: " + t.getId() + ")")
+                    .toArray(String[]::new);
             String seleccion = (String) JOptionPane.showInputDialog(this, "Seleccione un técnico:", "Asignar Ticket",
                     JOptionPane.PLAIN_MESSAGE, null, tecnicosNombres, tecnicosNombres[0]);
 
@@ -115,7 +151,7 @@ public class DashboardAdminView extends JFrame {
 		JPanel panel = new JPanel(new BorderLayout(10, 10));
 		panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
-		String[] columns = { "ID", "Nombre", "Correo", "Rol" };
+		String[] columns = { "ID", "Nombre", "Correo", "Rol", "Tickets (abiertos/total)" };
 		usuariosTableModel = new DefaultTableModel(columns, 0) {
 			public boolean isCellEditable(int row, int column) {
 				return false;
@@ -216,6 +252,7 @@ public class DashboardAdminView extends JFrame {
                         // Recargamos ambas tablas por si hubo un cambio de rol
                         cargarTodosLosUsuarios();
                         cargarTodosLosTecnicos();
+                        cargarTodosLosTickets();
                     } catch (UserException ex) {
                         JOptionPane.showMessageDialog(this, ex.getMessage(), "Error de Actualización", JOptionPane.ERROR_MESSAGE);
                     } catch (Exception ex) {
@@ -244,14 +281,15 @@ public class DashboardAdminView extends JFrame {
 
             if (confirm == JOptionPane.YES_OPTION) {
                 try {
-                    if (usuarioDAO.borrar(userId)) {
+                    // El servicio comprueba con los contadores que no tenga tickets abiertos
+                    if (gestorUsuario.eliminarUsuario(admin, userId)) {
                         JOptionPane.showMessageDialog(this, "Usuario eliminado exitosamente.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
                         cargarTodosLosUsuarios(); // Recargar la tabla
                     } else {
                         JOptionPane.showMessageDialog(this, "No se pudo encontrar al usuario para eliminar.", "Error", JOptionPane.ERROR_MESSAGE);
                     }
-                } catch (IOException ex) {
-                    JOptionPane.showMessageDialog(this, "Error de persistencia al eliminar el usuario: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } catch (UserException ex) {
+                    JOptionPane.showMessageDialog(this, ex.getMessage(), "Acción no permitida", JOptionPane.WARNING_MESSAGE);
                 }
             }
         });
@@ -263,7 +301,8 @@ public class DashboardAdminView extends JFrame {
 		JPanel panel = new JPanel(new BorderLayout(10, 10));
 		panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
-		String[] columns = { "ID", "Nombre", "Correo", "Especialidad", "Carga de Trabajo" };
+		String[] columns = { "ID", "Nombre", "Correo", "Especialidad", "Carga de Trabajo",
+				"Tickets Asignados (abiertos/total)" };
 		tecnicosTableModel = new DefaultTableModel(columns, 0) {
 			public boolean isCellEditable(int row, int column) {
 				return false;
@@ -361,16 +400,14 @@ public class DashboardAdminView extends JFrame {
                     }
 
                     try {
-                        // Se actualiza el objeto y se persiste con el DAO
-                        tecnico.setNombre(nuevoNombre);
-                        tecnico.setCorreo(nuevoCorreo);
-                        tecnico.setEspecialidad(nuevaEspecialidad);
-                        tecnicoDAO.actualizar(tecnico);
+                        // El servicio persiste el técnico y propaga el nombre a la vista de tickets
+                        gestorUsuario.actualizarDatosTecnico(admin, tecnico.getId(), nuevoNombre, nuevoCorreo, nuevaEspecialidad);
 
                         JOptionPane.showMessageDialog(this, "Técnico actualizado exitosamente.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
                         cargarTodosLosTecnicos(); // Recargar la tabla
-                    } catch (IOException ex) {
-                        JOptionPane.showMessageDialog(this, "Error de persistencia al actualizar el técnico: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                        cargarTodosLosTickets();
+                    } catch (UserException ex) {
+                        JOptionPane.showMessageDialog(this, ex.getMessage(), "Error de Actualización", JOptionPane.ERROR_MESSAGE);
                     }
                 }
             });
@@ -385,27 +422,19 @@ public class DashboardAdminView extends JFrame {
 
             String techId = (String) tecnicosTableModel.getValueAt(selectedRow, 0);
 
-            // Validar que el técnico no tenga tickets asignados
-            boolean tieneTickets = new TicketDAO().findAll().stream()
-                    .anyMatch(ticket -> techId.equals(ticket.getAsignadoA()) && !"CERRADO".equalsIgnoreCase(ticket.getEstado()));
-
-            if (tieneTickets) {
-                JOptionPane.showMessageDialog(this, "No se puede eliminar al técnico porque tiene tickets activos asignados. Reasígnelos primero.", "Acción no permitida", JOptionPane.WARNING_MESSAGE);
-                return;
-            }
-
             int confirm = JOptionPane.showConfirmDialog(this, "¿Está seguro de que desea eliminar a este técnico? Esta acción no se puede deshacer.", "Confirmar Eliminación", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
             if (confirm == JOptionPane.YES_OPTION) {
                 try {
-                    if (tecnicoDAO.borrar(techId)) {
+                    // El servicio rechaza el borrado si tiene tickets activos asignados
+                    if (gestorUsuario.eliminarTecnico(admin, techId)) {
                         JOptionPane.showMessageDialog(this, "Técnico eliminado exitosamente.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
                         cargarTodosLosTecnicos(); // Recargar la tabla
                     } else {
                         JOptionPane.showMessageDialog(this, "No se pudo encontrar al técnico para eliminar.", "Error", JOptionPane.ERROR_MESSAGE);
                     }
-                } catch (IOException ex) {
-                    JOptionPane.showMessageDialog(this, "Error de persistencia al eliminar el técnico: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } catch (UserException ex) {
+                    JOptionPane.showMessageDialog(this, ex.getMessage(), "Acción no permitida", JOptionPane.WARNING_MESSAGE);
                 }
             }
         });
@@ -413,21 +442,185 @@ public class DashboardAdminView extends JFrame {
 		return panel;
 	}
 
+	private JPanel createAvisosSlaPanel() {
+		JPanel panel = new JPanel(new BorderLayout(10, 10));
+		panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+		String[] columns = { "Fecha", "Ticket", "Acción" };
+		avisosTableModel = new DefaultTableModel(columns, 0) {
+			public boolean isCellEditable(int row, int column) {
+				return false;
+			}
+		};
+		panel.add(new JScrollPane(new JTable(avisosTableModel)), BorderLayout.CENTER);
+		panel.add(new JLabel("Tickets que han superado su plazo (SLA) y cómo se han escalado, los más recientes arriba."),
+				BorderLayout.NORTH);
+		return panel;
+	}
+
+	private JPanel createEstadisticasPanel() {
+		JPanel panel = new JPanel(new BorderLayout(10, 10));
+		panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+		resolucionLabel = new JLabel();
+		ritmoLabel = new JLabel();
+		JPanel resumenPanel = new JPanel(new GridLayout(0, 1));
+		resumenPanel.add(resolucionLabel);
+		resumenPanel.add(ritmoLabel);
+		panel.add(resumenPanel, BorderLayout.NORTH);
+
+		porEstadoTableModel = tablaSoloLectura("Estado", "Abiertos");
+		porCategoriaTableModel = tablaSoloLectura("Categoría", "Abiertos");
+		porTecnicoTableModel = tablaSoloLectura("Técnico", "Cerrados", "Tiempo medio");
+		JPanel tablasPanel = new JPanel(new GridLayout(1, 3, 10, 10));
+		tablasPanel.add(conTitulo("Tickets abiertos por estado", new JScrollPane(new JTable(porEstadoTableModel))));
+		tablasPanel.add(
+				conTitulo("Tickets abiertos por categoría", new JScrollPane(new JTable(porCategoriaTableModel))));
+		tablasPanel.add(conTitulo("Cierres por técnico", new JScrollPane(new JTable(porTecnicoTableModel))));
+		panel.add(tablasPanel, BorderLayout.CENTER);
+
+		JPanel actionsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+		JButton refreshButton = new JButton("Actualizar");
+		actionsPanel.add(refreshButton);
+		panel.add(actionsPanel, BorderLayout.SOUTH);
+		refreshButton.addActionListener(e -> cargarEstadisticas());
+
+		return panel;
+	}
+
+	private JPanel createDuplicadosPanel() {
+		JPanel panel = new JPanel(new BorderLayout(10, 10));
+		panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+		duplicadosTableModel = tablaSoloLectura("Grupo", "Tickets abiertos", "Descripción", "IDs");
+		JTable duplicadosTable = new JTable(duplicadosTableModel);
+		panel.add(new JScrollPane(duplicadosTable), BorderLayout.CENTER);
+		panel.add(new JLabel("Tickets abiertos con descripciones casi iguales, agrupados al crearse."),
+				BorderLayout.NORTH);
+
+		JPanel actionsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+		JButton refreshButton = new JButton("Actualizar");
+		actionsPanel.add(refreshButton);
+		JButton resolveGroupButton = new JButton("Resolver grupo");
+		actionsPanel.add(resolveGroupButton);
+		panel.add(actionsPanel, BorderLayout.SOUTH);
+		refreshButton.addActionListener(e -> cargarDuplicados());
+
+		resolveGroupButton.addActionListener(e -> {
+			int selectedRow = duplicadosTable.getSelectedRow();
+			if (selectedRow == -1) {
+				JOptionPane.showMessageDialog(this, "Por favor, seleccione un grupo para resolver.", "Error", JOptionPane.ERROR_MESSAGE);
+				return;
+			}
+			String grupo = (String) duplicadosTableModel.getValueAt(selectedRow, 0);
+			int confirm = JOptionPane.showConfirmDialog(this,
+					"¿Cerrar los " + duplicadosTableModel.getValueAt(selectedRow, 1) + " tickets abiertos del grupo " + grupo + "?",
+					"Confirmar Acción", JOptionPane.YES_NO_OPTION);
+			if (confirm != JOptionPane.YES_OPTION) {
+				return;
+			}
+			try {
+				List<Ticket> cerrados = gestorTickets.resolverGrupo(admin, grupo);
+				JOptionPane.showMessageDialog(this, "Se han cerrado " + cerrados.size() + " tickets.", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+				cargarDuplicados();
+				cargarTodosLosTickets();
+				cargarTodosLosTecnicos();
+			} catch (UserException | TicketException ex) {
+				JOptionPane.showMessageDialog(this, ex.getMessage(), "Error al resolver grupo", JOptionPane.ERROR_MESSAGE);
+			}
+		});
+
+		return panel;
+	}
+
+	private void cargarDuplicados() {
+		duplicadosTableModel.setRowCount(0);
+		DuplicadosTickets.grupos().forEach((grupo, ids) -> {
+			String descripcion = ticketDAO.findById(grupo).or(() -> ticketDAO.findById(ids.get(0)))
+					.map(Ticket::getDescripcion).orElse("");
+			duplicadosTableModel.addRow(new Object[] { grupo, ids.size(), descripcion, String.join(", ", ids) });
+		});
+	}
+
+	private static DefaultTableModel tablaSoloLectura(String... columns) {
+		return new DefaultTableModel(columns, 0) {
+			public boolean isCellEditable(int row, int column) {
+				return false;
+			}
+		};
+	}
+
+	private static JPanel conTitulo(String titulo, JComponent contenido) {
+		JPanel panel = new JPanel(new BorderLayout());
+		panel.setBorder(BorderFactory.createTitledBorder(titulo));
+		panel.add(contenido, BorderLayout.CENTER);
+		return panel;
+	}
+
+	private void cargarEstadisticas() {
+		resolucionLabel.setText("Tickets cerrados: " + EstadisticasTickets.cerrados() + "    Tiempo de resolución: medio "
+				+ formatearDuracion(EstadisticasTickets.tiempoMedioResolucion()) + ", p90 "
+				+ formatearDuracion(EstadisticasTickets.percentilResolucion(0.9)));
+		LocalDateTime ahora = LocalDateTime.now();
+		ritmoLabel.setText("Creados / cerrados: últimas 24 h "
+				+ SeriesTickets.total(SeriesTickets.CREADOS, null, ahora.minusDays(1), ahora) + " / "
+				+ SeriesTickets.total(SeriesTickets.CERRADOS, null, ahora.minusDays(1), ahora) + ", últimos 30 días "
+				+ SeriesTickets.total(SeriesTickets.CREADOS, null, ahora.minusDays(30), ahora) + " / "
+				+ SeriesTickets.total(SeriesTickets.CERRADOS, null, ahora.minusDays(30), ahora));
+
+		porEstadoTableModel.setRowCount(0);
+		EstadisticasTickets.abiertosPorEstado()
+				.forEach((estado, n) -> porEstadoTableModel.addRow(new Object[] { estado, n }));
+		porCategoriaTableModel.setRowCount(0);
+		EstadisticasTickets.abiertosPorCategoria()
+				.forEach((categoria, n) -> porCategoriaTableModel.addRow(new Object[] { categoria, n }));
+
+		porTecnicoTableModel.setRowCount(0);
+		Map<String, Long> cierres = EstadisticasTickets.cierresPorTecnico();
+		for (Tecnico tecnico : tecnicoDAO.findAll()) {
+			porTecnicoTableModel.addRow(new Object[] { tecnico.getNombre() + " (" + tecnico.getId() + ")",
+					cierres.getOrDefault(tecnico.getId(), 0L),
+					formatearDuracion(EstadisticasTickets.tiempoMedioResolucion(tecnico.getId())) });
+		}
+	}
+
+	private static String formatearDuracion(Duration duracion) {
+		if (duracion.toDays() > 0) {
+			return duracion.toDays() + " d " + duracion.toHoursPart() + " h";
+		}
+		if (duracion.toHours() > 0) {
+			return duracion.toHours() + " h " + duracion.toMinutesPart() + " min";
+		}
+		return duracion.toMinutes() + " min";
+	}
+
+	private Object[] filaAvisoSla(MotorSla.Aviso aviso) {
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+		return new Object[] { aviso.getFecha().format(formatter), aviso.getTicketId(), aviso.getAccion() };
+	}
+
 	private void cargarTodosLosTickets() {
-		ticketsTableModel.setRowCount(0);
-		List<Ticket> tickets = new TicketDAO().findAll();
-		Map<String, Usuario> userMap = usuarioDAO.findAll().stream()
-				.collect(Collectors.toMap(Usuario::getId, Function.identity()));
-		tecnicoDAO.findAll().forEach(t -> userMap.put(t.getId(), t));
+		// Vista ya desnormalizada: una sola lectura y sin cruces al pintar. Se lee
+		// fuera del hilo de Swing y se pinta en él al terminar
+		gestorTickets.consultarResumenTicketsAsync()
+				.whenComplete((tickets, error) -> SwingUtilities.invokeLater(() -> {
+					if (error != null) {
+						JOptionPane.showMessageDialog(this, "No se pudieron cargar los tickets: " + error.getMessage(),
+								"Error", JOptionPane.ERROR_MESSAGE);
+						return;
+					}
+					mostrarTodosLosTickets(tickets);
+				}));
+	}
 
+	private void mostrarTodosLosTickets(List<TicketResumen> tickets) {
+		ticketsTableModel.setRowCount(0);
 		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
-		for (Ticket ticket : tickets) {
-			Usuario cliente = userMap.get(ticket.getAutorId());
-			Usuario tecnico = userMap.get(ticket.getAsignadoA());
+		for (TicketResumen ticket : tickets) {
 			Object[] row = { ticket.getIdTicket(), ticket.getDescripcion(), ticket.getEstado(),
-					cliente != null ? cliente.getNombre() : "N/A",
-					tecnico != null ? tecnico.getNombre() : "No asignado",
+					ticket.getNombreCliente() != null ? ticket.getNombreCliente() : "N/A",
+					ticket.getNombreTecnico() != null ? ticket.getNombreTecnico() : "No asignado",
 					ticket.getFechaCreacion().format(formatter) };
 			ticketsTableModel.addRow(row);
 		}
@@ -436,20 +629,25 @@ public class DashboardAdminView extends JFrame {
 	private void cargarTodosLosUsuarios() {
 		usuariosTableModel.setRowCount(0);
 		List<Usuario> usuarios = usuarioDAO.findAll();
+		Map<String, ContadorTickets> contadores = gestorTickets.consultarContadoresPorPersona();
 		for (Usuario usuario : usuarios) {
 			if (!"TECH".equals(usuario.getRol())) { // Excluimos técnicos de esta lista
-				usuariosTableModel.addRow(
-						new Object[] { usuario.getId(), usuario.getNombre(), usuario.getCorreo(), usuario.getRol() });
+				ContadorTickets c = contadores.getOrDefault(usuario.getId(), new ContadorTickets(usuario.getId()));
+				usuariosTableModel.addRow(new Object[] { usuario.getId(), usuario.getNombre(), usuario.getCorreo(),
+						usuario.getRol(), c.getCreadosAbiertos() + " / " + c.getCreadosTotales() });
 			}
 		}
 	}
 
 	private void cargarTodosLosTecnicos() {
 		tecnicosTableModel.setRowCount(0);
-		List<Tecnico> tecnicos = tecnicoDAO.findAll();
+		List<Tecnico> tecnicos = CargaTecnicos.aplicar(tecnicoDAO.findAll());
+		Map<String, ContadorTickets> contadores = gestorTickets.consultarContadoresPorPersona();
 		for (Tecnico tecnico : tecnicos) {
+			ContadorTickets c = contadores.getOrDefault(tecnico.getId(), new ContadorTickets(tecnico.getId()));
 			tecnicosTableModel.addRow(new Object[] { tecnico.getId(), tecnico.getNombre(), tecnico.getCorreo(),
-					tecnico.getEspecialidad(), tecnico.getCargaTrabajo() });
+					tecnico.getEspecialidad(), tecnico.getCargaTrabajo(),
+					c.getAsignadosAbiertos() + " / " + c.getAsignadosTotales() });
 		}
 	}
 }
@@ -17,7 +17,7 @@ public class DashboardClienteView extends JFrame {
 	private static final long serialVersionUID = 1L;
 
 	private final Usuario cliente;
-	private final GestorTicket gestorTickets;
+	private final transient GestorTicket gestorTickets;
 	private JTable ticketsTable;
 	private DefaultTableModel tableModel;
 
@@ -128,8 +128,20 @@ public class DashboardClienteView extends JFrame {
 	}
 
 	private void cargarTickets() {
+		// Se consulta fuera del hilo de Swing y se pinta en él al terminar
+		gestorTickets.consultarTicketsPorClienteAsync(cliente)
+				.whenComplete((tickets, error) -> SwingUtilities.invokeLater(() -> {
+					if (error != null) {
+						JOptionPane.showMessageDialog(this, "No se pudieron cargar los tickets: " + error.getMessage(),
+								"Error", JOptionPane.ERROR_MESSAGE);
+						return;
+					}
+					mostrarTickets(tickets);
+				}));
+	}
+
+	private void mostrarTickets(List<Ticket> tickets) {
 		tableModel.setRowCount(0); // Limpiar tabla antes de cargar
-		List<Ticket> tickets = gestorTickets.consultarTicketsPorCliente(cliente);
 		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
 		for (Ticket ticket : tickets) {
@@ -1,21 +1,23 @@
 package view;
 
-import controller.UsuarioDAO;
 import controller.TicketDAO;
 import model.Ticket;
 import model.Usuario;
 import model.Respuesta;
 import service.GestorTicket;
+import service.ColasTrabajo;
 import service.GestorRespuesta;
+import service.GestorUsuario;
 import service.exceptions.*;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class DashboardTecnicoView extends JFrame {
@@ -23,9 +25,9 @@ public class DashboardTecnicoView extends JFrame {
 	private static final long serialVersionUID = 1L;
 	
 	private final Usuario tecnico;
-	private final GestorTicket gestorTickets;
-	private final GestorRespuesta gestorRespuestas;
-	private final UsuarioDAO usuarioDAO;
+	private final transient GestorTicket gestorTickets;
+	private final transient GestorRespuesta gestorRespuestas;
+	private final transient GestorUsuario gestorUsuario;
 	private JTable ticketsTable;
 	private DefaultTableModel tableModel;
 
@@ -33,7 +35,7 @@ public class DashboardTecnicoView extends JFrame {
 		this.tecnico = tecnico;
 		 this.gestorRespuestas = new GestorRespuesta();
 		this.gestorTickets = new GestorTicket();
-		this.usuarioDAO = new UsuarioDAO();
+		this.gestorUsuario = new GestorUsuario();
 
 		// --- CONFIGURACIÓN DE LA VENTANA ---
 		setTitle("Dashboard de Técnico - " + tecnico.getNombre());
@@ -63,7 +65,7 @@ public class DashboardTecnicoView extends JFrame {
 		mainPanel.add(headerPanel, BorderLayout.NORTH);
 
 		// --- TABLA DE TICKETS ---
-		String[] columnNames = { "ID", "Descripción", "Estado", "Cliente", "Fecha de Creación" };
+		String[] columnNames = { "ID", "Descripción", "Estado", "Prioridad", "Cliente", "Fecha de Creación" };
 		tableModel = new DefaultTableModel(columnNames, 0) {
 			@Override
 			public boolean isCellEditable(int row, int column) {
@@ -76,9 +78,14 @@ public class DashboardTecnicoView extends JFrame {
 		// --- PANEL DE ACCIONES ---
 		JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
 		actionPanel.setBackground(backgroundColor);
+		JButton takeTicketButton = new JButton("Tomar ticket");
+		actionPanel.add(takeTicketButton);
+		JButton nextTicketButton = new JButton("Siguiente ticket");
+		actionPanel.add(nextTicketButton);
 		JButton viewDetailsButton = new JButton("Ver Detalles / Responder");
         actionPanel.add(viewDetailsButton);
         JButton markResolvedButton = new JButton("Marcar como Resuelto"); 
+        actionPanel.add(markResolvedButton);
         mainPanel.add(actionPanel, BorderLayout.SOUTH);
 		mainPanel.add(actionPanel, BorderLayout.SOUTH);
 
@@ -88,6 +95,51 @@ public class DashboardTecnicoView extends JFrame {
 			new LoginView().setVisible(true);
 		});
 		
+		// Un ticket libre de su especialidad, propio del reparto o robado a un compañero
+		takeTicketButton.addActionListener(e -> {
+			takeTicketButton.setEnabled(false);
+			gestorTickets.tomarTicketAsync(tecnico).whenComplete((tomado, error) -> SwingUtilities.invokeLater(() -> {
+				takeTicketButton.setEnabled(true);
+				if (error != null) {
+					Throwable causa = error.getCause() != null ? error.getCause() : error;
+					JOptionPane.showMessageDialog(this, causa.getMessage(), "Error al tomar ticket", JOptionPane.ERROR_MESSAGE);
+				} else if (tomado.isEmpty()) {
+					JOptionPane.showMessageDialog(this, "No hay tickets libres de su especialidad.", "Información", JOptionPane.INFORMATION_MESSAGE);
+				} else {
+					JOptionPane.showMessageDialog(this, "Se le ha asignado el ticket " + tomado.get().getIdTicket() + ".", "Éxito", JOptionPane.INFORMATION_MESSAGE);
+					cargarTicketsAsignados();
+				}
+			}));
+		});
+
+		// El más urgente de la cola del técnico (consultado fuera del hilo de Swing): se
+		// selecciona en la tabla y se abre
+		nextTicketButton.addActionListener(e -> {
+			nextTicketButton.setEnabled(false);
+			gestorTickets.siguienteTicketAsync(tecnico).whenComplete((siguiente, error) -> SwingUtilities.invokeLater(() -> {
+				nextTicketButton.setEnabled(true);
+				if (error != null) {
+					Throwable causa = error.getCause() != null ? error.getCause() : error;
+					JOptionPane.showMessageDialog(this, causa.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+					return;
+				}
+				if (siguiente.isEmpty()) {
+					JOptionPane.showMessageDialog(this, "No tiene tickets pendientes.", "Información", JOptionPane.INFORMATION_MESSAGE);
+					return;
+				}
+				int fila = filaDelTicket(siguiente.get().getIdTicket());
+				if (fila == -1) {
+					cargarTicketsAsignados();
+					JOptionPane.showMessageDialog(this, "Siguiente ticket: " + siguiente.get().getIdTicket()
+							+ ". La lista se está actualizando.", "Información", JOptionPane.INFORMATION_MESSAGE);
+					return;
+				}
+				ticketsTable.setRowSelectionInterval(fila, fila);
+				ticketsTable.scrollRectToVisible(ticketsTable.getCellRect(fila, 0, true));
+				viewDetailsButton.doClick();
+			}));
+		});
+
 		viewDetailsButton.addActionListener(e -> {
             int selectedRow = ticketsTable.getSelectedRow();
             if (selectedRow == -1) {
@@ -115,7 +167,7 @@ public class DashboardTecnicoView extends JFrame {
                 infoPanel.add(new JLabel("Estado:"));
                 infoPanel.add(new JLabel(ticket.getEstado()));
                 infoPanel.add(new JLabel("Cliente:"));
-                Usuario cliente = usuarioDAO.findById(ticket.getAutorId()).orElse(null);
+                Usuario cliente = gestorUsuario.buscarUsuariosPorIds(Collections.singleton(ticket.getAutorId())).get(ticket.getAutorId());
                 infoPanel.add(new JLabel(cliente != null ? cliente.getNombre() : "Desconocido"));
                 infoPanel.add(new JLabel("Fecha Creación:"));
                 infoPanel.add(new JLabel(ticket.getFechaCreacion().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))));
@@ -148,12 +200,16 @@ public class DashboardTecnicoView extends JFrame {
                 Runnable loadResponses = () -> {
                     responsesArea.setText(""); // Limpiar antes de cargar
                     List<Respuesta> respuestas = gestorRespuestas.consultarRespuestasPorTicket(ticketId);
+                    // Una sola resolución de autores para todo el hilo (no una búsqueda por respuesta)
+                    Map<String, Usuario> autores = gestorUsuario.buscarUsuariosPorIds(
+                            respuestas.stream().map(Respuesta::getAutorId).collect(Collectors.toSet()));
                     DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
                     for (Respuesta r : respuestas) {
-                        Usuario autorRespuesta = usuarioDAO.findById(r.getAutorId()).orElse(null);
+                        Usuario autorRespuesta = autores.get(r.getAutorId());
                         String autorNombre = autorRespuesta != null ? autorRespuesta.getNombre() : "Desconocido";
+                        String autorRol = autorRespuesta != null ? autorRespuesta.getRol() : "?";
                         responsesArea.append(String.format("[%s] %s (%s):\n%s\n\n",
-                                r.getFecha().format(formatter), autorNombre, autorRespuesta.getRol(), r.getContenido()));
+                                r.getFecha().format(formatter), autorNombre, autorRol, r.getContenido()));
                     }
                 };
 
@@ -217,16 +273,51 @@ public class DashboardTecnicoView extends JFrame {
 	}
 
 	private void cargarTicketsAsignados() {
+		// Las lecturas se hacen fuera del hilo de Swing; la tabla se rellena al
+		// terminar, ya en el hilo de Swing
+		gestorTickets.consultarTicketsPorTecnicoAsync(tecnico)
+				.thenApply(this::ordenarPorUrgencia)
+				.thenCompose(tickets -> gestorUsuario
+						.buscarUsuariosPorIdsAsync(tickets.stream().map(Ticket::getAutorId).collect(Collectors.toSet()))
+						.thenApply(userMap -> Map.entry(tickets, userMap)))
+				.whenComplete((datos, error) -> SwingUtilities.invokeLater(() -> {
+					if (error != null) {
+						JOptionPane.showMessageDialog(this, "No se pudieron cargar los tickets: " + error.getMessage(),
+								"Error", JOptionPane.ERROR_MESSAGE);
+						return;
+					}
+					mostrarTicketsAsignados(datos.getKey(), datos.getValue());
+				}));
+	}
+
+	/**
+	 * Los pendientes en el orden de la cola de trabajo (prioridad y antigüedad) y
+	 * después los cerrados, tal como estaban.
+	 */
+	private List<Ticket> ordenarPorUrgencia(List<Ticket> tickets) {
+		List<Ticket> ordenados = new ArrayList<>();
+		tickets.stream().filter(t -> !t.cerrado()).sorted(ColasTrabajo.POR_URGENCIA).forEach(ordenados::add);
+		tickets.stream().filter(Ticket::cerrado).forEach(ordenados::add);
+		return ordenados;
+	}
+
+	private int filaDelTicket(String ticketId) {
+		for (int fila = 0; fila < tableModel.getRowCount(); fila++) {
+			if (ticketId.equals(tableModel.getValueAt(fila, 0))) {
+				return fila;
+			}
+		}
+		return -1;
+	}
+
+	private void mostrarTicketsAsignados(List<Ticket> tickets, Map<String, Usuario> userMap) {
 		tableModel.setRowCount(0);
-		List<Ticket> tickets = gestorTickets.consultarTicketsPorTecnico(tecnico);
-		Map<String, Usuario> userMap = usuarioDAO.findAll().stream()
-				.collect(Collectors.toMap(Usuario::getId, Function.identity()));
 		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
 		for (Ticket ticket : tickets) {
 			Usuario cliente = userMap.get(ticket.getAutorId());
 			Object[] row = { ticket.getIdTicket(), ticket.getDescripcion(), ticket.getEstado(),
-					cliente != null ? cliente.getNombre() : "N/A", ticket.getFechaCreacion().format(formatter) };
+					ticket.getPrioridad(), cliente != null ? cliente.getNombre() : "N/A", ticket.getFechaCreacion().format(formatter) };
 			tableModel.addRow(row);
 		}
 	}
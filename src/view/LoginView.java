@@ -16,7 +16,7 @@ public class LoginView extends JFrame {
 	private JButton registerButton;
 	private JLabel messageLabel;
 
-	private final GestorUsuario gestorUsuarios;
+	private final transient GestorUsuario gestorUsuarios;
 
 	public LoginView() {
 		this.gestorUsuarios = new GestorUsuario();
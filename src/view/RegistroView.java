@@ -18,7 +18,7 @@ public class RegistroView extends JDialog {
 	private JButton cancelButton;
 	private JLabel messageLabel;
 
-	private final GestorUsuario gestorUsuarios;
+	private final transient GestorUsuario gestorUsuarios;
 
 	public RegistroView(Frame owner, GestorUsuario gestorUsuarios) {
 		super(owner, "Registro de Nuevo Cliente", true); // true para hacerlo modal